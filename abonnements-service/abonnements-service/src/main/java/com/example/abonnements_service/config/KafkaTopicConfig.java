@@ -13,6 +13,7 @@ import org.springframework.kafka.config.TopicBuilder;
 public class KafkaTopicConfig {
 
     public static final String ABONNEMENT_EVENTS_TOPIC = "abonnement.events";
+    public static final String FORFAIT_CHANGES_TOPIC = "forfait.changes";
 
     /**
      * Main topic for all subscription events
@@ -26,4 +27,17 @@ public class KafkaTopicConfig {
                 .compact()      // Log compaction for event sourcing
                 .build();
     }
+
+    /**
+     * Forfait changes between replicas of this service, keyed by forfait id
+     * Compaction keeps the last change of every forfait
+     */
+    @Bean
+    public NewTopic forfaitChangesTopic() {
+        return TopicBuilder.name(FORFAIT_CHANGES_TOPIC)
+                .partitions(1)
+                .replicas(1)
+                .compact()
+                .build();
+    }
 }
@@ -2,11 +2,14 @@ package com.example.abonnements_service.controller;
 
 import com.example.abonnements_service.dto.AbonnementRequest;
 import com.example.abonnements_service.dto.AbonnementResponse;
+import com.example.abonnements_service.dto.PageResponse;
 import com.example.abonnements_service.exception.ResourceNotFoundException;
 import com.example.abonnements_service.service.AbonnementsService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
 import java.util.UUID;
@@ -17,6 +20,7 @@ import java.util.UUID;
 public class AbonnementController {
 
     private final AbonnementsService abonnementsService;
+    private final NdjsonResponse ndjsonResponse;
 
     @PostMapping
     @ResponseStatus(HttpStatus.CREATED)
@@ -35,6 +39,17 @@ public class AbonnementController {
         return abonnementsService.findAll();
     }
 
+    @GetMapping("/page")
+    public PageResponse<AbonnementResponse> getAbonnementsPage(@RequestParam(required = false) UUID after,
+                                                               @RequestParam(defaultValue = "100") int size) {
+        return abonnementsService.findPage(after, size);
+    }
+
+    @GetMapping(value = "/stream", produces = NdjsonResponse.NDJSON)
+    public ResponseEntity<StreamingResponseBody> streamAbonnements() {
+        return ndjsonResponse.of(abonnementsService::streamAll);
+    }
+
     @PutMapping("/{id}")
     public AbonnementResponse updateAbonnement(@PathVariable UUID id, @RequestBody AbonnementRequest abonnementRequest) {
         return abonnementsService.updateAbonnement(id, abonnementRequest);
@@ -1,12 +1,15 @@
 package com.example.abonnements_service.controller;
 
 import com.example.abonnements_service.dto.FactureResponse;
+import com.example.abonnements_service.dto.PageResponse;
 import com.example.abonnements_service.exception.ResourceNotFoundException;
 import com.example.abonnements_service.model.StatutFacture;
 import com.example.abonnements_service.service.FactureService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
 import java.util.UUID;
@@ -17,6 +20,7 @@ import java.util.UUID;
 public class FactureController {
 
     private final FactureService factureService;
+    private final NdjsonResponse ndjsonResponse;
 
     @GetMapping("/{id}")
     public FactureResponse getFactureById(@PathVariable UUID id) {
@@ -29,6 +33,17 @@ public class FactureController {
         return factureService.findAll();
     }
 
+    @GetMapping("/page")
+    public PageResponse<FactureResponse> getFacturesPage(@RequestParam(required = false) UUID after,
+                                                         @RequestParam(defaultValue = "100") int size) {
+        return factureService.findPage(after, size);
+    }
+
+    @GetMapping(value = "/stream", produces = NdjsonResponse.NDJSON)
+    public ResponseEntity<StreamingResponseBody> streamFactures() {
+        return ndjsonResponse.of(factureService::streamAll);
+    }
+
     @GetMapping("/abonnement/{abonnementId}")
     public FactureResponse getFactureByAbonnementId(@PathVariable UUID abonnementId) {
         return factureService.findByAbonnementId(abonnementId)
@@ -0,0 +1,46 @@
+package com.example.abonnements_service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Function;
+
+/**
+ * One page of a list ordered by id; nextAfter is the cursor of the following page, null on the last one
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PageResponse<T> {
+
+    public static final int MAX_SIZE = 1000;
+
+    private List<T> items;
+    private UUID nextAfter;
+
+    /**
+     * Reject empty pages and cap the requested size
+     */
+    public static int checkSize(int size) {
+        if (size < 1) {
+            throw new IllegalArgumentException("Page size must be positive");
+        }
+        return Math.min(size, MAX_SIZE);
+    }
+
+    /**
+     * Build a page from rows fetched with a limit of size + 1; the extra row only signals a next page
+     */
+    public static <E, T> PageResponse<T> of(List<E> rows, int size, Function<E, UUID> idOf, Function<E, T> mapper) {
+        List<E> page = rows.size() > size ? rows.subList(0, size) : rows;
+        return PageResponse.<T>builder()
+                .items(page.stream().map(mapper).toList())
+                .nextAfter(rows.size() > size ? idOf.apply(page.getLast()) : null)
+                .build();
+    }
+}
@@ -0,0 +1,24 @@
+package com.example.abonnements_service.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * A forfait was created, updated or deactivated
+ * Published inside the service after the change commits, then to Kafka so other replicas refresh their catalog
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ForfaitChangeEvent {
+
+    private UUID forfaitId;
+    private String origin;  // Instance id of the replica that made the change
+    private LocalDateTime timestamp;
+}
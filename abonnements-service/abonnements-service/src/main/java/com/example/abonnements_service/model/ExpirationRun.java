@@ -0,0 +1,44 @@
+package com.example.abonnements_service.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Progress of the daily expiration run of one shard, saved with every chunk so an interrupted run resumes
+ * after the last expired subscription instead of starting over
+ */
+@Entity
+@Table(name = "expiration_progress")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ExpirationRun {
+    @Id
+    private String id;  // Run date and shard, e.g. "2025-06-01/0"
+
+    @Column(nullable = false)
+    private LocalDate runDate;
+
+    @Column(nullable = false)
+    private int shard;
+
+    @Column(nullable = false)
+    private UUID lastId;  // Keyset cursor: last subscription id expired by this run
+
+    @Column(nullable = false)
+    private long expiredCount;
+
+    private String owner;  // Replica that processed the last chunk
+
+    private LocalDateTime updatedAt;
+
+    public static String idOf(LocalDate runDate, int shard) {
+        return runDate + "/" + shard;
+    }
+}
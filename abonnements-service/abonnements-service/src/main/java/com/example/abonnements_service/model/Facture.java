@@ -5,7 +5,6 @@ import lombok.*;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
-import java.util.Random;
 import java.util.UUID;
 
 @Entity
@@ -31,7 +30,7 @@ public class Facture {
     private Devise devise;  // Currency enum for type safety
 
     @Column(nullable = false, unique = true)
-    private String numeroFacture;  // Invoice number (e.g., FAC-2025-00123)
+    private String numeroFacture;  // Invoice number (e.g., FAC-2025-000123), see FactureNumberGenerator
 
     @Enumerated(EnumType.STRING)
     @Column(nullable = false)
@@ -44,15 +43,5 @@ public class Facture {
     @PrePersist
     protected void onCreate() {
         emissLe = LocalDateTime.now();
-        if (numeroFacture == null) {
-            numeroFacture = genererNumeroFacture();
-        }
-    }
-
-    private String genererNumeroFacture() {
-        // Format: FAC-YYYY-NNNNN
-        String annee = String.valueOf(emissLe != null ? emissLe.getYear() : LocalDateTime.now().getYear());
-        String numero = String.format("%05d", new Random().nextInt(99999) + 1);
-        return "FAC-" + annee + "-" + numero;
     }
 }
@@ -0,0 +1,22 @@
+package com.example.abonnements_service.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+/**
+ * Invoice number counter of one year; replicas reserve blocks of numbers from it
+ */
+@Entity
+@Table(name = "facture_sequences")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class FactureSequence {
+    @Id
+    private Integer annee;
+
+    @Column(nullable = false)
+    private Long nextValue;  // First number not reserved yet
+}
@@ -0,0 +1,42 @@
+package com.example.abonnements_service.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Event waiting to be published to Kafka, written in the same transaction as the change it describes
+ * OutboxRelay publishes pending events in creation order and marks them published
+ */
+@Entity
+@Table(name = "outbox_events", indexes = @Index(name = "idx_outbox_pending", columnList = "published_at, created_at"))
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class OutboxEvent {
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "outbox_events_seq")
+    @SequenceGenerator(name = "outbox_events_seq", sequenceName = "outbox_events_seq", allocationSize = 50)
+    private Long id;
+
+    @Column(nullable = false)
+    private UUID aggregateId;  // Abonnement the event is about
+
+    @Column(nullable = false)
+    private String messageKey;  // Kafka key: utilisateurId, so all events of a user stay in order
+
+    @Column(nullable = false)
+    private String eventType;
+
+    @Column(nullable = false, length = 4000)
+    private String payload;  // AbonnementEvent as JSON
+
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+
+    private LocalDateTime publishedAt;  // Null until the broker acknowledged the event
+}
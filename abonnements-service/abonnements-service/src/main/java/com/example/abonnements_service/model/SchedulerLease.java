@@ -0,0 +1,31 @@
+package com.example.abonnements_service.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.Instant;
+
+/**
+ * Time-limited lease on a scheduled job, shared by all replicas through the database
+ * Only the owner of an unexpired lease runs the job
+ */
+@Entity
+@Table(name = "scheduler_leases")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class SchedulerLease {
+    @Id
+    private String name;  // Job name, e.g. "abonnement-expiration-0"
+
+    @Column(nullable = false)
+    private String owner;  // Instance id of the replica holding the lease
+
+    @Column(nullable = false)
+    private Instant acquiredAt;
+
+    @Column(nullable = false)
+    private Instant expiresAt;
+}
@@ -2,12 +2,23 @@ package com.example.abonnements_service.repository;
 
 import com.example.abonnements_service.model.Abonnement;
 import com.example.abonnements_service.model.StatutAbonnement;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 import java.util.UUID;
+import java.util.stream.Stream;
 
 @Repository
 public interface AbonnementRepository extends JpaRepository<Abonnement, UUID> {
@@ -19,4 +30,28 @@ public interface AbonnementRepository extends JpaRepository<Abonnement, UUID> {
      * Used by scheduler to find expired subscriptions
      */
     List<Abonnement> findByStatutAndDateFinBefore(StatutAbonnement statut, LocalDate date);
-}
\ No newline at end of file
+
+    /**
+     * Next chunk of subscriptions to expire after the given id, among the users of one shard,
+     * locked until the chunk commits
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    List<Abonnement> findByStatutAndDateFinBeforeAndUtilisateurIdBetweenAndIdGreaterThanOrderByIdAsc(
+            StatutAbonnement statut, LocalDate date, UUID firstUser, UUID lastUser, UUID after, Limit limit);
+
+    /**
+     * Set the status of many subscriptions in one statement
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update Abonnement a set a.statut = :statut where a.id in :ids")
+    int updateStatutByIdIn(@Param("ids") Collection<UUID> ids, @Param("statut") StatutAbonnement statut);
+
+    /** Pages of subscriptions by id, see PageResponse */
+    List<Abonnement> findByOrderByIdAsc(Limit limit);
+    List<Abonnement> findByIdGreaterThanOrderByIdAsc(UUID after, Limit limit);
+
+    /** All subscriptions through a cursor, read with EntityStreamer */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("select a from Abonnement a order by a.id")
+    Stream<Abonnement> streamAll();
+}
@@ -0,0 +1,13 @@
+package com.example.abonnements_service.repository;
+
+import com.example.abonnements_service.model.ExpirationRun;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface ExpirationRunRepository extends JpaRepository<ExpirationRun, String> {
+    List<ExpirationRun> findByRunDateOrderByShardAsc(LocalDate runDate);
+}
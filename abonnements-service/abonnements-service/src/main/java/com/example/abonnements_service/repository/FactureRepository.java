@@ -1,15 +1,30 @@
 package com.example.abonnements_service.repository;
 
 import com.example.abonnements_service.model.Facture;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.stream.Stream;
 
 @Repository
 public interface FactureRepository extends JpaRepository<Facture, UUID> {
     Optional<Facture> findByAbonnementId(UUID abonnementId);
     List<Facture> findByAbonnementIdIn(List<UUID> abonnementIds);
+
+    /** Pages of factures by id, see PageResponse */
+    List<Facture> findByOrderByIdAsc(Limit limit);
+    List<Facture> findByIdGreaterThanOrderByIdAsc(UUID after, Limit limit);
+
+    /** All factures through a cursor, read with EntityStreamer */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("select f from Facture f order by f.id")
+    Stream<Facture> streamAll();
 }
@@ -0,0 +1,28 @@
+package com.example.abonnements_service.repository;
+
+import com.example.abonnements_service.model.FactureSequence;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface FactureSequenceRepository extends JpaRepository<FactureSequence, Integer> {
+
+    /**
+     * Move the counter of the year past a block of numbers; the row stays locked until the transaction ends
+     * Returns 0 when the year has no counter yet
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update FactureSequence s set s.nextValue = s.nextValue + :size where s.annee = :annee")
+    int reserve(@Param("annee") int annee, @Param("size") long size);
+
+    /**
+     * Create the counter of the year, starting at 1
+     * Always an insert: fails with a DataIntegrityViolationException when another replica created it first
+     */
+    @Modifying
+    @Query("insert into FactureSequence (annee, nextValue) values (:annee, 1L)")
+    int create(@Param("annee") int annee);
+}
@@ -0,0 +1,34 @@
+package com.example.abonnements_service.repository;
+
+import com.example.abonnements_service.model.SchedulerLease;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+
+@Repository
+public interface SchedulerLeaseRepository extends JpaRepository<SchedulerLease, String> {
+
+    /**
+     * Take the lease if this owner already holds it or it has expired, in one atomic statement
+     * Returns 1 when the lease is now held by the owner
+     */
+    @Transactional
+    @Modifying
+    @Query("update SchedulerLease l set l.owner = :owner, l.acquiredAt = case when l.owner = :owner then l.acquiredAt else :now end,"
+            + " l.expiresAt = :expiresAt where l.name = :name and (l.owner = :owner or l.expiresAt < :now)")
+    int claim(@Param("name") String name, @Param("owner") String owner,
+              @Param("now") Instant now, @Param("expiresAt") Instant expiresAt);
+
+    /**
+     * Let the lease expire now if the owner still holds it
+     */
+    @Transactional
+    @Modifying
+    @Query("update SchedulerLease l set l.expiresAt = :now where l.name = :name and l.owner = :owner")
+    int release(@Param("name") String name, @Param("owner") String owner, @Param("now") Instant now);
+}
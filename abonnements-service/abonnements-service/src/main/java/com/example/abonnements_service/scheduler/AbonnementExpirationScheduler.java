@@ -2,34 +2,65 @@ package com.example.abonnements_service.scheduler;
 
 import com.example.abonnements_service.event.EventType;
 import com.example.abonnements_service.model.Abonnement;
+import com.example.abonnements_service.model.ExpirationRun;
 import com.example.abonnements_service.model.Forfait;
 import com.example.abonnements_service.model.StatutAbonnement;
 import com.example.abonnements_service.repository.AbonnementRepository;
-import com.example.abonnements_service.service.ForfaitService;
-import com.example.abonnements_service.service.KafkaProducerService;
+import com.example.abonnements_service.repository.ExpirationRunRepository;
+import com.example.abonnements_service.service.ForfaitCatalog;
+import com.example.abonnements_service.service.LeaseService;
+import com.example.abonnements_service.service.OutboxService;
 import com.example.abonnements_service.event.AbonnementEvent;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.math.BigInteger;
+import java.time.Duration;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.UUID;
 
 /**
  * Scheduled task to automatically expire subscriptions
  * Runs daily at 1:00 AM to check for expired subscriptions
+ * Subscriptions are expired in chunks ordered by id, each chunk in its own short transaction,
+ * so the run never holds locks on more than one chunk and resumes where it stopped
+ * The users are split into shards; every replica runs the shards whose lease it gets, so replicas
+ * share the work instead of repeating it
  */
 @Component
 @RequiredArgsConstructor
 @Slf4j
 public class AbonnementExpirationScheduler {
 
+    static final String LEASE_PREFIX = "abonnement-expiration-";
+
+    // Keyset start: sorts before every other id
+    static final UUID FIRST_ID = new UUID(0, 0);
+
+    private static final BigInteger UUID_SPACE = BigInteger.ONE.shiftLeft(128);
+
     private final AbonnementRepository abonnementRepository;
-    private final ForfaitService forfaitService;
-    private final KafkaProducerService kafkaProducerService;
+    private final ForfaitCatalog forfaitCatalog;
+    private final ExpirationRunRepository expirationRunRepository;
+    private final OutboxService outboxService;
+    private final LeaseService leaseService;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${abonnements.expiration.chunk-size:1000}")
+    private int chunkSize;
+
+    @Value("${abonnements.expiration.shards:1}")
+    private int shards;
+
+    @Value("${abonnements.expiration.lease-ttl:5m}")
+    private Duration leaseTtl;
 
     /**
      * Check for expired subscriptions and update their status
@@ -37,73 +68,141 @@ public class AbonnementExpirationScheduler {
      * Format: second minute hour day month weekday
      */
     @Scheduled(cron = "0 0 1 * * ?")
-    @Transactional
     public void checkExpiredSubscriptions() {
         log.info("Starting scheduled task: Check for expired subscriptions");
 
         LocalDate today = LocalDate.now();
 
-        // Find all ACTIVE subscriptions where dateFin is before today
-        List<Abonnement> expiredSubscriptions = abonnementRepository
-                .findByStatutAndDateFinBefore(StatutAbonnement.ACTIVE, today);
+        // Replicas start on different shards so they do not all queue for the first lease
+        int start = Math.floorMod(leaseService.getOwner().hashCode(), shards);
+        long expired = 0;
+        for (int i = 0; i < shards; i++) {
+            int shard = (start + i) % shards;
+            String lease = LEASE_PREFIX + shard;
+            if (!leaseService.tryAcquire(lease, leaseTtl)) {
+                log.info("Shard {} is handled by another replica", shard);
+                continue;
+            }
+            try {
+                expired += expireShard(shard, lease, today);
+            } finally {
+                leaseService.release(lease);
+            }
+        }
 
-        if (expiredSubscriptions.isEmpty()) {
+        if (expired == 0) {
             log.info("No expired subscriptions found");
             return;
         }
+        log.info("Completed scheduled task: {} subscriptions expired", expired);
+    }
 
-        log.info("Found {} expired subscriptions", expiredSubscriptions.size());
+    private long expireShard(int shard, String lease, LocalDate today) {
+        // Resume today's run of the shard if it was interrupted, otherwise start from the first id
+        ExpirationRun run = expirationRunRepository.findById(ExpirationRun.idOf(today, shard))
+                .orElseGet(() -> ExpirationRun.builder()
+                        .id(ExpirationRun.idOf(today, shard))
+                        .runDate(today)
+                        .shard(shard)
+                        .lastId(FIRST_ID)
+                        .build());
+        if (run.getExpiredCount() > 0) {
+            log.info("Resuming expiration of shard {} after {} subscriptions already expired",
+                    shard, run.getExpiredCount());
+        }
 
-        // Update each expired subscription
-        for (Abonnement abonnement : expiredSubscriptions) {
+        UUID[] users = shardUsers(shard, shards);
+        long expired = 0;
+        while (true) {
+            Integer count;
             try {
-                // Update status to EXPIRED
-                abonnement.setStatut(StatutAbonnement.EXPIRED);
-                abonnementRepository.save(abonnement);
+                count = transactionTemplate.execute(status -> expireChunk(run, lease, users, today));
+            } catch (Exception e) {
+                // The chunk rolled back; the next run resumes after the last committed chunk
+                log.error("Failed to expire subscriptions of shard {} after {}: {}",
+                        shard, run.getLastId(), e.getMessage(), e);
+                break;
+            }
+            if (count == null || count == 0) {
+                break;
+            }
+            expired += count;
 
-                log.info("Subscription {} expired for user {}", abonnement.getId(), abonnement.getUtilisateurId());
+            if (count < chunkSize) {
+                break;
+            }
+        }
+        return expired;
+    }
 
-                // Publish expiration event to Kafka
-                publishExpirationEvent(abonnement);
+    /**
+     * Expire the next chunk of subscriptions, store their expiration events in the outbox and record the progress,
+     * all in the same transaction
+     * Returns the number of subscriptions expired, 0 when nothing is left to expire
+     */
+    private int expireChunk(ExpirationRun run, String lease, UUID[] users, LocalDate today) {
+        // Renewed in the chunk's transaction: if another replica took the lease over, nothing is written
+        if (!leaseService.renew(lease, leaseTtl)) {
+            throw new IllegalStateException("Lease " + lease + " was taken over by another replica");
+        }
 
-            } catch (Exception e) {
-                log.error("Failed to process expired subscription {}: {}",
-                        abonnement.getId(), e.getMessage(), e);
-            }
+        List<Abonnement> chunk = abonnementRepository
+                .findByStatutAndDateFinBeforeAndUtilisateurIdBetweenAndIdGreaterThanOrderByIdAsc(
+                        StatutAbonnement.ACTIVE, today, users[0], users[1], run.getLastId(), Limit.of(chunkSize));
+        if (chunk.isEmpty()) {
+            return 0;
         }
 
-        log.info("Completed scheduled task: {} subscriptions expired", expiredSubscriptions.size());
+        List<UUID> ids = chunk.stream().map(Abonnement::getId).toList();
+        abonnementRepository.updateStatutByIdIn(ids, StatutAbonnement.EXPIRED);
+
+        run.setLastId(ids.getLast());
+        run.setExpiredCount(run.getExpiredCount() + chunk.size());
+        run.setOwner(leaseService.getOwner());
+        run.setUpdatedAt(LocalDateTime.now());
+        expirationRunRepository.save(run);
+
+        outboxService.enqueueAll(chunk.stream()
+                .map(abonnement -> buildExpirationEvent(abonnement,
+                        forfaitCatalog.find(abonnement.getForfaitId()).orElse(null)))
+                .toList());
+        return chunk.size();
+    }
+
+    /**
+     * First and last utilisateurId of a shard: the id space is cut into equal ranges,
+     * and since user ids are random UUIDs every range holds about the same number of users
+     */
+    static UUID[] shardUsers(int shard, int shards) {
+        BigInteger first = UUID_SPACE.multiply(BigInteger.valueOf(shard)).divide(BigInteger.valueOf(shards));
+        BigInteger next = UUID_SPACE.multiply(BigInteger.valueOf(shard + 1L)).divide(BigInteger.valueOf(shards));
+        return new UUID[]{toUuid(first), toUuid(next.subtract(BigInteger.ONE))};
+    }
+
+    private static UUID toUuid(BigInteger value) {
+        return new UUID(value.shiftRight(64).longValue(), value.longValue());
     }
 
     /**
-     * Publish expiration event to Kafka
+     * Build expiration event for Kafka
      * Notifications service will consume this and send emails/SMS to users
      */
-    private void publishExpirationEvent(Abonnement abonnement) {
-        try {
-            // Fetch forfait details for the event
-            Forfait forfait = forfaitService.getForfaitEntityById(abonnement.getForfaitId());
-
-            AbonnementEvent event = AbonnementEvent.builder()
-                    .eventType(EventType.ABONNEMENT_EXPIRED.name())
-                    .timestamp(LocalDateTime.now())
-                    .abonnementId(abonnement.getId())
-                    .utilisateurId(abonnement.getUtilisateurId())
-                    .forfaitId(abonnement.getForfaitId())
-                    .forfaitNom(forfait.getNom())
-                    .dateDebut(abonnement.getDateDebut())
-                    .dateFin(abonnement.getDateFin())
-                    .prix(abonnement.getPrix())
-                    .devise(abonnement.getDevise())
-                    .statut(abonnement.getStatut())
-                    .build();
-
-            kafkaProducerService.publishAbonnementEvent(event);
-            log.info("Published ABONNEMENT_EXPIRED event for user {}", abonnement.getUtilisateurId());
-
-        } catch (Exception e) {
-            log.error("Failed to publish expiration event for abonnement {}: {}",
-                    abonnement.getId(), e.getMessage());
+    private AbonnementEvent buildExpirationEvent(Abonnement abonnement, Forfait forfait) {
+        if (forfait == null) {
+            log.warn("Forfait {} of abonnement {} not found", abonnement.getForfaitId(), abonnement.getId());
         }
+        return AbonnementEvent.builder()
+                .eventType(EventType.ABONNEMENT_EXPIRED.name())
+                .timestamp(LocalDateTime.now())
+                .abonnementId(abonnement.getId())
+                .utilisateurId(abonnement.getUtilisateurId())
+                .forfaitId(abonnement.getForfaitId())
+                .forfaitNom(forfait != null ? forfait.getNom() : null)
+                .dateDebut(abonnement.getDateDebut())
+                .dateFin(abonnement.getDateFin())
+                .prix(abonnement.getPrix())
+                .devise(abonnement.getDevise())
+                .statut(StatutAbonnement.EXPIRED)
+                .build();
     }
 }
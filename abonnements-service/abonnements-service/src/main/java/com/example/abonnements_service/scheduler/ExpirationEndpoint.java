@@ -0,0 +1,33 @@
+package com.example.abonnements_service.scheduler;
+
+import com.example.abonnements_service.repository.ExpirationRunRepository;
+import com.example.abonnements_service.service.LeaseService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Actuator endpoint /actuator/expiration: lease holders and today's progress of the expiration shards
+ */
+@Component
+@Endpoint(id = "expiration")
+@RequiredArgsConstructor
+public class ExpirationEndpoint {
+
+    private final LeaseService leaseService;
+    private final ExpirationRunRepository expirationRunRepository;
+
+    @ReadOperation
+    public Map<String, Object> expiration() {
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("instance", leaseService.getOwner());
+        body.put("leases", leaseService.findAll());
+        body.put("progress", expirationRunRepository.findByRunDateOrderByShardAsc(LocalDate.now()));
+        return body;
+    }
+}
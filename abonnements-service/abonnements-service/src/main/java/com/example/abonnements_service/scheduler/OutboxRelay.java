@@ -0,0 +1,116 @@
+package com.example.abonnements_service.scheduler;
+
+import com.example.abonnements_service.event.AbonnementEvent;
+import com.example.abonnements_service.model.OutboxEvent;
+import com.example.abonnements_service.repository.OutboxEventRepository;
+import com.example.abonnements_service.service.KafkaProducerService;
+import com.example.abonnements_service.service.LeaseService;
+import com.example.abonnements_service.service.OutboxService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Publishes the outbox to Kafka in batches
+ * Only the replica holding the relay lease publishes, so events leave in the order they were stored;
+ * an event is marked published once the broker acknowledged it and the lease is confirmed, and retried
+ * on the next poll otherwise (delivery is at least once)
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class OutboxRelay {
+
+    static final String LEASE = "outbox-relay";
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final OutboxService outboxService;
+    private final KafkaProducerService kafkaProducerService;
+    private final LeaseService leaseService;
+
+    @Value("${abonnements.outbox.batch-size:500}")
+    private int batchSize;
+
+    @Value("${abonnements.outbox.lease-ttl:30s}")
+    private Duration leaseTtl;
+
+    // Longest wait for the acknowledgements of a batch, well under the lease so it is still held afterwards
+    @Value("${abonnements.outbox.send-timeout:10s}")
+    private Duration sendTimeout;
+
+    @Value("${abonnements.outbox.retention:7d}")
+    private Duration retention;
+
+    /**
+     * Publish pending events until the outbox is empty or a send fails
+     */
+    @Scheduled(fixedDelayString = "${abonnements.outbox.poll-interval:500ms}")
+    public void relay() {
+        if (!leaseService.tryAcquire(LEASE, leaseTtl)) {
+            return;
+        }
+        while (true) {
+            List<OutboxEvent> batch = outboxEventRepository
+                    .findByPublishedAtIsNullOrderByCreatedAtAscIdAsc(Limit.of(batchSize));
+            if (batch.isEmpty()) {
+                return;
+            }
+
+            List<Long> sent = new ArrayList<>();
+            List<OutboxEvent> toSend = new ArrayList<>();
+            List<AbonnementEvent> events = new ArrayList<>();
+            for (OutboxEvent outboxEvent : batch) {
+                try {
+                    events.add(outboxService.toEvent(outboxEvent));
+                    toSend.add(outboxEvent);
+                } catch (IllegalStateException e) {
+                    // Can never be sent: drop it rather than block every event behind it
+                    log.error("Dropping outbox event {}: {}", outboxEvent.getId(), e.getMessage(), e);
+                    sent.add(outboxEvent.getId());
+                }
+            }
+
+            // Events after a failed one stay pending too, so they are not published ahead of it
+            int acknowledged = events.isEmpty() ? 0 : kafkaProducerService.publishAbonnementEvents(events, sendTimeout);
+            for (int i = 0; i < acknowledged; i++) {
+                sent.add(toSend.get(i).getId());
+            }
+
+            // A replica that took the lease over during the send publishes the batch again: leave it pending
+            if (!leaseService.renew(LEASE, leaseTtl)) {
+                log.warn("Outbox relay lease taken over by another replica, stopping");
+                return;
+            }
+            if (!sent.isEmpty()) {
+                outboxEventRepository.markPublished(sent, LocalDateTime.now());
+            }
+
+            if (acknowledged < events.size()) {
+                log.warn("{} outbox events not published, retrying on the next poll", events.size() - acknowledged);
+                return;
+            }
+            if (batch.size() < batchSize) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Delete published events once they are older than the retention
+     */
+    @Scheduled(cron = "0 30 * * * ?")
+    public void purgePublished() {
+        int deleted = outboxEventRepository.deletePublishedBefore(LocalDateTime.now().minus(retention));
+        if (deleted > 0) {
+            log.info("Purged {} published outbox events", deleted);
+        }
+    }
+}
@@ -2,6 +2,7 @@ package com.example.abonnements_service.service;
 
 import com.example.abonnements_service.dto.AbonnementRequest;
 import com.example.abonnements_service.dto.AbonnementResponse;
+import com.example.abonnements_service.dto.PageResponse;
 import com.example.abonnements_service.event.AbonnementEvent;
 import com.example.abonnements_service.event.EventType;
 import com.example.abonnements_service.exception.ResourceNotFoundException;
@@ -11,6 +12,7 @@ import com.example.abonnements_service.model.StatutAbonnement;
 import com.example.abonnements_service.repository.AbonnementRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -18,6 +20,7 @@ import java.time.LocalDate;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 @Service
@@ -29,7 +32,8 @@ public class AbonnementsService {
     private final AbonnementRepository abonnementRepository;
     private final ForfaitService forfaitService;
     private final FactureService factureService;
-    private final KafkaProducerService kafkaProducerService;
+    private final OutboxService outboxService;
+    private final EntityStreamer entityStreamer;
 
     /**
      * Get all subscriptions
@@ -43,6 +47,27 @@ public class AbonnementsService {
                 .collect(Collectors.toList());
     }
 
+    /**
+     * Get one page of subscriptions ordered by id, starting after the given cursor
+     */
+    @Transactional(readOnly = true)
+    public PageResponse<AbonnementResponse> findPage(UUID after, int size) {
+        int pageSize = PageResponse.checkSize(size);
+        Limit limit = Limit.of(pageSize + 1);
+        List<Abonnement> rows = after == null
+                ? abonnementRepository.findByOrderByIdAsc(limit)
+                : abonnementRepository.findByIdGreaterThanOrderByIdAsc(after, limit);
+        return PageResponse.of(rows, pageSize, Abonnement::getId, this::mapToResponse);
+    }
+
+    /**
+     * Push every subscription to the sink
+     */
+    @Transactional(readOnly = true)
+    public void streamAll(Consumer<AbonnementResponse> sink) {
+        entityStreamer.forEach(abonnementRepository.streamAll(), this::mapToResponse, sink);
+    }
+
     /**
      * Find subscription by ID
      */
@@ -285,29 +310,25 @@ public class AbonnementsService {
 
     /**
      * Publish event to Kafka for inter-service communication
+     * Stored in the outbox within the current transaction, OutboxRelay sends it once committed
      */
     private void publishEvent(Abonnement abonnement, Forfait forfait, String numeroFacture, EventType eventType) {
-        try {
-            AbonnementEvent event = AbonnementEvent.builder()
-                    .eventType(eventType.name())
-                    .timestamp(java.time.LocalDateTime.now())
-                    .abonnementId(abonnement.getId())
-                    .utilisateurId(abonnement.getUtilisateurId())
-                    .forfaitId(abonnement.getForfaitId())
-                    .forfaitNom(forfait.getNom())
-                    .dateDebut(abonnement.getDateDebut())
-                    .dateFin(abonnement.getDateFin())
-                    .prix(abonnement.getPrix())
-                    .devise(abonnement.getDevise())
-                    .statut(abonnement.getStatut())
-                    .numeroFacture(numeroFacture)
-                    .build();
-
-            kafkaProducerService.publishAbonnementEvent(event);
-        } catch (Exception e) {
-            // Log error but don't fail the transaction
-            log.error("Failed to publish Kafka event for abonnement {}: {}", abonnement.getId(), e.getMessage());
-        }
+        AbonnementEvent event = AbonnementEvent.builder()
+                .eventType(eventType.name())
+                .timestamp(java.time.LocalDateTime.now())
+                .abonnementId(abonnement.getId())
+                .utilisateurId(abonnement.getUtilisateurId())
+                .forfaitId(abonnement.getForfaitId())
+                .forfaitNom(forfait.getNom())
+                .dateDebut(abonnement.getDateDebut())
+                .dateFin(abonnement.getDateFin())
+                .prix(abonnement.getPrix())
+                .devise(abonnement.getDevise())
+                .statut(abonnement.getStatut())
+                .numeroFacture(numeroFacture)
+                .build();
+
+        outboxService.enqueue(event);
     }
 
 }
@@ -0,0 +1,32 @@
+package com.example.abonnements_service.service;
+
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * Maps entities read through a database cursor without keeping them in the persistence context
+ */
+@Component
+@RequiredArgsConstructor
+public class EntityStreamer {
+
+    private final EntityManager entityManager;
+
+    /**
+     * Push each row to the sink once mapped, then detach it; closes the stream
+     * Must run inside the transaction that opened the stream
+     */
+    public <E, R> void forEach(Stream<E> rows, Function<E, R> mapper, Consumer<R> sink) {
+        try (rows) {
+            rows.forEach(row -> {
+                sink.accept(mapper.apply(row));
+                entityManager.detach(row);
+            });
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package com.example.abonnements_service.service;
+
+import com.example.abonnements_service.repository.FactureSequenceRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Clock;
+import java.time.LocalDate;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Invoice numbers FAC-YYYY-NNNNNN, unique across replicas and restarted from 1 every year
+ * Each replica reserves a block of numbers from the year's counter in the database and hands them out
+ * from memory, so creating an invoice only touches the counter once per block
+ * Numbers of a block not used before a restart are skipped
+ */
+@Component
+@Slf4j
+public class FactureNumberGenerator {
+
+    private final FactureSequenceRepository sequenceRepository;
+    private final TransactionTemplate reserveTransaction;
+    private final Clock clock;
+
+    @Value("${abonnements.facture.number-block-size:100}")
+    private long blockSize = 100;
+
+    private volatile Block block;
+
+    @Autowired
+    public FactureNumberGenerator(FactureSequenceRepository sequenceRepository,
+                                  PlatformTransactionManager transactionManager) {
+        this(sequenceRepository, transactionManager, Clock.systemDefaultZone());
+    }
+
+    FactureNumberGenerator(FactureSequenceRepository sequenceRepository,
+                           PlatformTransactionManager transactionManager,
+                           Clock clock) {
+        this.sequenceRepository = sequenceRepository;
+        // Reserved in its own short transaction, so the counter row is not locked until the invoice commits
+        this.reserveTransaction = new TransactionTemplate(transactionManager);
+        this.reserveTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.clock = clock;
+    }
+
+    /**
+     * Next invoice number
+     */
+    public String next() {
+        int annee = LocalDate.now(clock).getYear();
+        while (true) {
+            Block current = block;
+            if (current != null && current.annee == annee) {
+                long numero = current.next.getAndIncrement();
+                if (numero < current.end) {
+                    return format(annee, numero);
+                }
+            }
+            refill(current, annee);
+        }
+    }
+
+    static String format(int annee, long numero) {
+        return String.format("FAC-%d-%06d", annee, numero);
+    }
+
+    // Only one thread reserves the next block, the others take their numbers from it once it is there
+    private synchronized void refill(Block seen, int annee) {
+        if (block != seen) {
+            return;
+        }
+        long start = reserve(annee);
+        block = new Block(annee, new AtomicLong(start), start + blockSize);
+        log.info("Reserved invoice numbers {} to {} for {}", start, start + blockSize - 1, annee);
+    }
+
+    private long reserve(int annee) {
+        while (true) {
+            Long start = reserveTransaction.execute(status -> {
+                if (sequenceRepository.reserve(annee, blockSize) == 0) {
+                    return null;
+                }
+                return sequenceRepository.findById(annee).orElseThrow().getNextValue() - blockSize;
+            });
+            if (start != null) {
+                return start;
+            }
+
+            // First invoice of the year: create the counter, another replica may be creating it at the same time
+            try {
+                reserveTransaction.executeWithoutResult(status -> sequenceRepository.create(annee));
+            } catch (DataIntegrityViolationException e) {
+                log.debug("Invoice counter for {} created by another replica", annee);
+            }
+        }
+    }
+
+    private record Block(int annee, AtomicLong next, long end) {
+    }
+}
@@ -1,6 +1,7 @@
 package com.example.abonnements_service.service;
 
 import com.example.abonnements_service.dto.FactureResponse;
+import com.example.abonnements_service.dto.PageResponse;
 import com.example.abonnements_service.exception.ResourceNotFoundException;
 import com.example.abonnements_service.model.Abonnement;
 import com.example.abonnements_service.model.Facture;
@@ -9,12 +10,14 @@ import com.example.abonnements_service.repository.AbonnementRepository;
 import com.example.abonnements_service.repository.FactureRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 @Service
@@ -25,6 +28,8 @@ public class FactureService {
 
     private final FactureRepository factureRepository;
     private final AbonnementRepository abonnementRepository;
+    private final EntityStreamer entityStreamer;
+    private final FactureNumberGenerator factureNumberGenerator;
 
     /**
      * Generate facture for an abonnement
@@ -44,6 +49,7 @@ public class FactureService {
                 .abonnementId(abonnement.getId())
                 .montant(abonnement.getPrix())
                 .devise(abonnement.getDevise())
+                .numeroFacture(factureNumberGenerator.next())
                 .statut(StatutFacture.EN_ATTENTE)
                 .build();
 
@@ -65,6 +71,27 @@ public class FactureService {
                 .collect(Collectors.toList());
     }
 
+    /**
+     * Get one page of factures ordered by id, starting after the given cursor
+     */
+    @Transactional(readOnly = true)
+    public PageResponse<FactureResponse> findPage(UUID after, int size) {
+        int pageSize = PageResponse.checkSize(size);
+        Limit limit = Limit.of(pageSize + 1);
+        List<Facture> rows = after == null
+                ? factureRepository.findByOrderByIdAsc(limit)
+                : factureRepository.findByIdGreaterThanOrderByIdAsc(after, limit);
+        return PageResponse.of(rows, pageSize, Facture::getId, this::mapToResponse);
+    }
+
+    /**
+     * Push every facture to the sink
+     */
+    @Transactional(readOnly = true)
+    public void streamAll(Consumer<FactureResponse> sink) {
+        entityStreamer.forEach(factureRepository.streamAll(), this::mapToResponse, sink);
+    }
+
     /**
      * Find facture by ID
      */
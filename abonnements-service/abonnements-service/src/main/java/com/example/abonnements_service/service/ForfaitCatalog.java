@@ -0,0 +1,126 @@
+package com.example.abonnements_service.service;
+
+import com.example.abonnements_service.config.KafkaTopicConfig;
+import com.example.abonnements_service.event.ForfaitChangeEvent;
+import com.example.abonnements_service.exception.ResourceNotFoundException;
+import com.example.abonnements_service.model.Forfait;
+import com.example.abonnements_service.repository.ForfaitRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * In-memory copy of the forfait catalog, read without touching the database
+ * The catalog is an immutable map replaced as a whole on every change, so reads never lock
+ * Changes made on this replica refresh it after they commit and go to the other replicas through Kafka
+ * Forfaits returned by the catalog are shared: callers must not modify them
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ForfaitCatalog {
+
+    // Identifies this replica's own changes when they come back from Kafka
+    private final String instanceId = UUID.randomUUID().toString();
+
+    private final ForfaitRepository forfaitRepository;
+    private final KafkaProducerService kafkaProducerService;
+
+    private final AtomicReference<Map<UUID, Forfait>> snapshot = new AtomicReference<>();
+
+    public Optional<Forfait> find(UUID id) {
+        return Optional.ofNullable(snapshot().get(id));
+    }
+
+    public Forfait get(UUID id) {
+        return find(id).orElseThrow(() -> new ResourceNotFoundException("Forfait not found with id: " + id));
+    }
+
+    public int size() {
+        return snapshot().size();
+    }
+
+    /**
+     * Reload the whole catalog
+     * Also runs periodically in case a change message from another replica was missed
+     */
+    @Scheduled(fixedDelayString = "${abonnements.forfaits.refresh-interval:10m}",
+            initialDelayString = "${abonnements.forfaits.refresh-interval:10m}")
+    public void reload() {
+        Map<UUID, Forfait> forfaits = forfaitRepository.findAll().stream()
+                .collect(Collectors.toUnmodifiableMap(Forfait::getId, Function.identity()));
+        snapshot.set(forfaits);
+        log.debug("Forfait catalog loaded with {} forfaits", forfaits.size());
+    }
+
+    /**
+     * Reload one forfait, or drop it when it no longer exists
+     */
+    public void refresh(UUID id) {
+        Optional<Forfait> forfait = forfaitRepository.findById(id);
+        snapshot.updateAndGet(current -> {
+            if (current == null) {
+                return null;  // Not loaded yet, the first read loads the change with everything else
+            }
+            Map<UUID, Forfait> next = new HashMap<>(current);
+            forfait.ifPresentOrElse(f -> next.put(id, f), () -> next.remove(id));
+            return Map.copyOf(next);
+        });
+    }
+
+    /**
+     * A forfait changed on this replica: refresh it once the change is committed and tell the other replicas
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onLocalChange(ForfaitChangeEvent event) {
+        refresh(event.getForfaitId());
+        kafkaProducerService.publishForfaitChange(ForfaitChangeEvent.builder()
+                .forfaitId(event.getForfaitId())
+                .origin(instanceId)
+                .timestamp(LocalDateTime.now())
+                .build());
+    }
+
+    /**
+     * A forfait changed on another replica
+     * Every replica reads all changes (own consumer group) from the latest offset, older changes are
+     * already in the catalog loaded at startup
+     */
+    @KafkaListener(topics = KafkaTopicConfig.FORFAIT_CHANGES_TOPIC,
+            groupId = "#{T(java.util.UUID).randomUUID().toString()}",
+            properties = "auto.offset.reset=latest")
+    public void onRemoteChange(ForfaitChangeEvent event) {
+        if (instanceId.equals(event.getOrigin())) {
+            return;
+        }
+        log.info("Forfait {} changed on another replica", event.getForfaitId());
+        refresh(event.getForfaitId());
+    }
+
+    private Map<UUID, Forfait> snapshot() {
+        Map<UUID, Forfait> current = snapshot.get();
+        if (current == null) {
+            synchronized (this) {
+                current = snapshot.get();
+                if (current == null) {
+                    reload();
+                    current = snapshot.get();
+                }
+            }
+        }
+        return current;
+    }
+}
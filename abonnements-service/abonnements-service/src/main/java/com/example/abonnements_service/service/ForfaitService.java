@@ -2,15 +2,19 @@ package com.example.abonnements_service.service;
 
 import com.example.abonnements_service.dto.ForfaitRequest;
 import com.example.abonnements_service.dto.ForfaitResponse;
+import com.example.abonnements_service.event.ForfaitChangeEvent;
 import com.example.abonnements_service.exception.ResourceNotFoundException;
 import com.example.abonnements_service.model.Devise;
 import com.example.abonnements_service.model.Forfait;
 import com.example.abonnements_service.repository.ForfaitRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -23,6 +27,8 @@ import java.util.stream.Collectors;
 public class ForfaitService {
 
     private final ForfaitRepository forfaitRepository;
+    private final ForfaitCatalog forfaitCatalog;
+    private final ApplicationEventPublisher eventPublisher;
 
     /**
      * Get all forfaits
@@ -60,11 +66,11 @@ public class ForfaitService {
 
     /**
      * Get Forfait entity by ID (for internal use)
+     * Read from the in-memory catalog: the returned forfait is shared and must not be modified
      */
-    @Transactional(readOnly = true)
+    @Transactional(propagation = Propagation.SUPPORTS)
     public Forfait getForfaitEntityById(UUID id) {
-        return forfaitRepository.findById(id)
-                .orElseThrow(() -> new ResourceNotFoundException("Forfait not found with id: " + id));
+        return forfaitCatalog.get(id);
     }
 
     /**
@@ -91,6 +97,7 @@ public class ForfaitService {
         // Save
         Forfait saved = forfaitRepository.save(forfait);
         log.info("Forfait created with id: {}", saved.getId());
+        publishChange(saved.getId());
 
         return mapToResponse(saved);
     }
@@ -131,6 +138,7 @@ public class ForfaitService {
 
         Forfait updated = forfaitRepository.save(forfait);
         log.info("Forfait updated: {}", id);
+        publishChange(id);
 
         return mapToResponse(updated);
     }
@@ -149,6 +157,17 @@ public class ForfaitService {
         forfaitRepository.save(forfait);
 
         log.info("Forfait deactivated: {}", id);
+        publishChange(id);
+    }
+
+    /**
+     * Refresh the forfait catalog once the change is committed
+     */
+    private void publishChange(UUID id) {
+        eventPublisher.publishEvent(ForfaitChangeEvent.builder()
+                .forfaitId(id)
+                .timestamp(LocalDateTime.now())
+                .build());
     }
 
     /**
@@ -2,13 +2,19 @@ package com.example.abonnements_service.service;
 
 import com.example.abonnements_service.config.KafkaTopicConfig;
 import com.example.abonnements_service.event.AbonnementEvent;
+import com.example.abonnements_service.event.ForfaitChangeEvent;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.kafka.support.SendResult;
 import org.springframework.stereotype.Service;
 
+import java.time.Duration;
+import java.util.List;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 /**
  * Service for publishing events to Kafka
@@ -20,32 +26,48 @@ import java.util.concurrent.CompletableFuture;
 public class KafkaProducerService {
 
     private final KafkaTemplate<String, AbonnementEvent> kafkaTemplate;
+    private final KafkaTemplate<String, ForfaitChangeEvent> forfaitKafkaTemplate;
 
     /**
-     * Publish abonnement event to Kafka
-     * Uses utilisateurId as partition key for ordering guarantees (all events for same user go to same partition)
+     * Publish a batch of events: all records are handed to the producer at once so they go out in a few requests,
+     * then the batch waits for the broker acknowledgements in order, at most the given time in total
+     * Uses utilisateurId as partition key, so all events of a user go to the same partition in order
+     * Returns how many events, from the first one on, the broker acknowledged: the wait stops at the first failure
      */
-    public void publishAbonnementEvent(AbonnementEvent event) {
-        String key = event.getUtilisateurId().toString();  // Partition key
+    public int publishAbonnementEvents(List<AbonnementEvent> events, Duration timeout) {
         String topic = KafkaTopicConfig.ABONNEMENT_EVENTS_TOPIC;
+        List<CompletableFuture<SendResult<String, AbonnementEvent>>> futures = events.stream()
+                .map(event -> kafkaTemplate.send(topic, event.getUtilisateurId().toString(), event))
+                .toList();
 
-        log.info("Publishing event {} for user {} to Kafka topic {}",
-                event.getEventType(), event.getUtilisateurId(), topic);
-
-        CompletableFuture<SendResult<String, AbonnementEvent>> future =
-                kafkaTemplate.send(topic, key, event);
-
-        future.whenComplete((result, ex) -> {
-            if (ex != null) {
-                log.error("Failed to publish event {} for user {}: {}",
-                        event.getEventType(), event.getUtilisateurId(), ex.getMessage(), ex);
-            } else {
-                log.info("Successfully published event {} for user {} to partition {} with offset {}",
-                        event.getEventType(),
-                        event.getUtilisateurId(),
-                        result.getRecordMetadata().partition(),
-                        result.getRecordMetadata().offset());
+        long deadline = System.nanoTime() + timeout.toNanos();
+        for (int i = 0; i < futures.size(); i++) {
+            try {
+                futures.get(i).get(Math.max(deadline - System.nanoTime(), 0), TimeUnit.NANOSECONDS);
+            } catch (ExecutionException | TimeoutException e) {
+                log.error("Failed to publish event {} for abonnement {}, {} of {} events published: {}",
+                        events.get(i).getEventType(), events.get(i).getAbonnementId(), i, events.size(),
+                        e.toString());
+                return i;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return i;
             }
-        });
+        }
+        log.info("Published {} events to Kafka topic {}", events.size(), topic);
+        return events.size();
+    }
+
+    /**
+     * Publish a forfait change to the other replicas
+     * Uses forfaitId as key so compaction keeps the last change of every forfait
+     */
+    public void publishForfaitChange(ForfaitChangeEvent event) {
+        forfaitKafkaTemplate.send(KafkaTopicConfig.FORFAIT_CHANGES_TOPIC, event.getForfaitId().toString(), event)
+                .whenComplete((result, ex) -> {
+                    if (ex != null) {
+                        log.error("Failed to publish change of forfait {}: {}", event.getForfaitId(), ex.getMessage(), ex);
+                    }
+                });
     }
 }
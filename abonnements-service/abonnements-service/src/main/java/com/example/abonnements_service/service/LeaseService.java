@@ -0,0 +1,88 @@
+package com.example.abonnements_service.service;
+
+import com.example.abonnements_service.model.SchedulerLease;
+import com.example.abonnements_service.repository.SchedulerLeaseRepository;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Database-backed leases so that a scheduled job runs on one replica at a time
+ * A replica that dies keeps its lease only until the lease expires, then another replica takes over
+ */
+@Service
+@Slf4j
+public class LeaseService {
+
+    private final SchedulerLeaseRepository leaseRepository;
+
+    /**
+     * Id of this replica, recorded as the lease owner
+     */
+    @Getter
+    private final String owner;
+
+    public LeaseService(SchedulerLeaseRepository leaseRepository,
+                        @Value("${abonnements.instance-id:}") String instanceId) {
+        this.leaseRepository = leaseRepository;
+        this.owner = instanceId.isBlank() ? defaultInstanceId() : instanceId;
+    }
+
+    /**
+     * Acquire or extend the lease for the given duration
+     * Returns false when another replica holds an unexpired lease
+     */
+    public boolean tryAcquire(String name, Duration ttl) {
+        Instant now = Instant.now();
+        if (leaseRepository.claim(name, owner, now, now.plus(ttl)) == 1) {
+            return true;
+        }
+        if (leaseRepository.existsById(name)) {
+            return false;
+        }
+
+        // First run of the job: create the lease, another replica may be creating it at the same time
+        try {
+            leaseRepository.saveAndFlush(SchedulerLease.builder()
+                    .name(name)
+                    .owner(owner)
+                    .acquiredAt(now)
+                    .expiresAt(now.plus(ttl))
+                    .build());
+            return true;
+        } catch (DataIntegrityViolationException e) {
+            log.debug("Lease {} created by another replica", name);
+            return false;
+        }
+    }
+
+    /**
+     * Extend a lease this replica already holds
+     * Called inside the job's transactions so that work done after the lease was lost rolls back
+     */
+    public boolean renew(String name, Duration ttl) {
+        Instant now = Instant.now();
+        return leaseRepository.claim(name, owner, now, now.plus(ttl)) == 1;
+    }
+
+    public void release(String name) {
+        leaseRepository.release(name, owner, Instant.now());
+    }
+
+    public List<SchedulerLease> findAll() {
+        return leaseRepository.findAll();
+    }
+
+    private static String defaultInstanceId() {
+        String host = System.getenv("HOSTNAME");
+        String suffix = UUID.randomUUID().toString().substring(0, 8);
+        return (host == null || host.isBlank() ? "abonnements-service" : host) + "-" + suffix;
+    }
+}
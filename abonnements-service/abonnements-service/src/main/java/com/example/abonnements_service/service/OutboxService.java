@@ -0,0 +1,70 @@
+package com.example.abonnements_service.service;
+
+import com.example.abonnements_service.event.AbonnementEvent;
+import com.example.abonnements_service.model.OutboxEvent;
+import com.example.abonnements_service.repository.OutboxEventRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Transactional outbox for abonnement events
+ * Events are stored with the change that caused them and only reach Kafka if that change commits;
+ * OutboxRelay sends them in the background so requests never wait for the broker
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class OutboxService {
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final ObjectMapper objectMapper;
+
+    /**
+     * Store the event in the current transaction
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void enqueue(AbonnementEvent event) {
+        outboxEventRepository.save(toOutboxEvent(event));
+    }
+
+    /**
+     * Store a batch of events in the current transaction
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void enqueueAll(List<AbonnementEvent> events) {
+        outboxEventRepository.saveAll(events.stream().map(this::toOutboxEvent).toList());
+    }
+
+    /**
+     * Read back the event stored in an outbox row
+     */
+    public AbonnementEvent toEvent(OutboxEvent outboxEvent) {
+        try {
+            return objectMapper.readValue(outboxEvent.getPayload(), AbonnementEvent.class);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Unreadable outbox event " + outboxEvent.getId(), e);
+        }
+    }
+
+    private OutboxEvent toOutboxEvent(AbonnementEvent event) {
+        try {
+            return OutboxEvent.builder()
+                    .aggregateId(event.getAbonnementId())
+                    .messageKey(event.getUtilisateurId().toString())
+                    .eventType(event.getEventType())
+                    .payload(objectMapper.writeValueAsString(event))
+                    .createdAt(LocalDateTime.now())
+                    .build();
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot serialize event " + event.getEventType(), e);
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package com.example.abonnements_service.repository;
+
+import com.example.abonnements_service.service.FactureNumberGenerator;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.stubbing.Answer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+/**
+ * Creation race of the yearly invoice counter, against a real database
+ * Not run in a test transaction: the generator commits its reservations in transactions of their own
+ */
+@DataJpaTest
+@ActiveProfiles("test")
+@Import(FactureNumberGenerator.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@DisplayName("FactureSequenceRepository Tests")
+class FactureSequenceRepositoryTest {
+
+    @MockitoSpyBean
+    private FactureSequenceRepository sequenceRepository;
+
+    @Autowired
+    private FactureNumberGenerator generator;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.update("delete from facture_sequences");
+    }
+
+    @Test
+    @DisplayName("Should reject a second counter for the same year with a DataIntegrityViolationException")
+    void shouldRejectDuplicateCounter() {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        transaction.executeWithoutResult(status -> sequenceRepository.create(2025));
+
+        assertThatThrownBy(() -> transaction.executeWithoutResult(status -> sequenceRepository.create(2025)))
+                .isInstanceOf(DataIntegrityViolationException.class);
+        assertThat(jdbcTemplate.queryForObject(
+                "select next_value from facture_sequences where annee = 2025", Long.class)).isEqualTo(1L);
+    }
+
+    @Test
+    @DisplayName("Should use the counter another replica created between the reservation and the creation")
+    void shouldUseCounterCreatedByAnotherReplica() {
+        int annee = LocalDate.now().getYear();
+        TransactionTemplate otherReplica = new TransactionTemplate(transactionManager);
+        otherReplica.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        // The spy of a repository delegates to it by default
+        Answer<?> repository = mockingDetails(sequenceRepository).getMockCreationSettings().getDefaultAnswer();
+        // The first reservation finds no counter, then the other replica creates and uses it
+        doAnswer(invocation -> {
+            otherReplica.executeWithoutResult(status -> jdbcTemplate.update(
+                    "insert into facture_sequences (annee, next_value) values (?, ?)", annee, 101L));
+            return 0;
+        }).doAnswer(repository).when(sequenceRepository).reserve(anyInt(), anyLong());
+
+        assertThat(generator.next()).isEqualTo("FAC-" + annee + "-000101");
+        verify(sequenceRepository).create(annee);
+        assertThat(jdbcTemplate.queryForObject(
+                "select next_value from facture_sequences where annee = ?", Long.class, annee)).isEqualTo(201L);
+    }
+}
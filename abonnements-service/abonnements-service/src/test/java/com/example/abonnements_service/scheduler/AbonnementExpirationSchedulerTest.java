@@ -0,0 +1,202 @@
+package com.example.abonnements_service.scheduler;
+
+import com.example.abonnements_service.event.AbonnementEvent;
+import com.example.abonnements_service.model.*;
+import com.example.abonnements_service.repository.AbonnementRepository;
+import com.example.abonnements_service.repository.ExpirationRunRepository;
+import com.example.abonnements_service.service.ForfaitCatalog;
+import com.example.abonnements_service.service.LeaseService;
+import com.example.abonnements_service.service.OutboxService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.*;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for AbonnementExpirationScheduler
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("AbonnementExpirationScheduler Unit Tests")
+class AbonnementExpirationSchedulerTest {
+
+    @Mock
+    private AbonnementRepository abonnementRepository;
+
+    @Mock
+    private ForfaitCatalog forfaitCatalog;
+
+    @Mock
+    private ExpirationRunRepository expirationRunRepository;
+
+    @Mock
+    private OutboxService outboxService;
+
+    @Mock
+    private LeaseService leaseService;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @InjectMocks
+    private AbonnementExpirationScheduler scheduler;
+
+    private Forfait forfait;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(scheduler, "chunkSize", 2);
+        ReflectionTestUtils.setField(scheduler, "shards", 1);
+        ReflectionTestUtils.setField(scheduler, "leaseTtl", Duration.ofMinutes(5));
+
+        forfait = Forfait.builder()
+                .id(UUID.randomUUID())
+                .nom("Mensuel Standard")
+                .build();
+
+        // Run each chunk callback directly
+        lenient().when(transactionTemplate.execute(any())).thenAnswer(invocation ->
+                invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+        lenient().when(leaseService.getOwner()).thenReturn("replica-1");
+        lenient().when(leaseService.tryAcquire(any(), any())).thenReturn(true);
+        lenient().when(leaseService.renew(any(), any())).thenReturn(true);
+    }
+
+    @Test
+    @DisplayName("Should expire subscriptions chunk by chunk with one update and one outbox write per chunk")
+    void shouldExpireInChunks() {
+        Abonnement first = abonnement(new UUID(0, 1));
+        Abonnement second = abonnement(new UUID(0, 2));
+        Abonnement third = abonnement(new UUID(0, 3));
+        LocalDate today = LocalDate.now();
+
+        when(expirationRunRepository.findById(ExpirationRun.idOf(today, 0))).thenReturn(Optional.empty());
+        when(abonnementRepository.findByStatutAndDateFinBeforeAndUtilisateurIdBetweenAndIdGreaterThanOrderByIdAsc(
+                eq(StatutAbonnement.ACTIVE), eq(today), any(), any(), eq(AbonnementExpirationScheduler.FIRST_ID), any(Limit.class)))
+                .thenReturn(List.of(first, second));
+        when(abonnementRepository.findByStatutAndDateFinBeforeAndUtilisateurIdBetweenAndIdGreaterThanOrderByIdAsc(
+                eq(StatutAbonnement.ACTIVE), eq(today), any(), any(), eq(second.getId()), any(Limit.class)))
+                .thenReturn(List.of(third));
+        when(forfaitCatalog.find(forfait.getId())).thenReturn(Optional.of(forfait));
+
+        scheduler.checkExpiredSubscriptions();
+
+        verify(abonnementRepository).updateStatutByIdIn(List.of(first.getId(), second.getId()), StatutAbonnement.EXPIRED);
+        verify(abonnementRepository).updateStatutByIdIn(List.of(third.getId()), StatutAbonnement.EXPIRED);
+        verify(abonnementRepository, never()).save(any());
+
+        ArgumentCaptor<ExpirationRun> run = ArgumentCaptor.forClass(ExpirationRun.class);
+        verify(expirationRunRepository, times(2)).save(run.capture());
+        assertThat(run.getValue().getLastId()).isEqualTo(third.getId());
+        assertThat(run.getValue().getExpiredCount()).isEqualTo(3);
+        assertThat(run.getValue().getOwner()).isEqualTo("replica-1");
+        verify(leaseService).release(AbonnementExpirationScheduler.LEASE_PREFIX + 0);
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<AbonnementEvent>> events = ArgumentCaptor.forClass(List.class);
+        verify(outboxService, times(2)).enqueueAll(events.capture());
+        assertThat(events.getAllValues().get(0))
+                .extracting(AbonnementEvent::getAbonnementId)
+                .containsExactly(first.getId(), second.getId());
+        assertThat(events.getAllValues().get(1).getFirst().getStatut()).isEqualTo(StatutAbonnement.EXPIRED);
+        assertThat(events.getAllValues().get(1).getFirst().getForfaitNom()).isEqualTo("Mensuel Standard");
+    }
+
+    @Test
+    @DisplayName("Should resume an interrupted run after its last expired subscription")
+    void shouldResumeInterruptedRun() {
+        LocalDate today = LocalDate.now();
+        UUID lastId = new UUID(0, 2);
+        ExpirationRun interrupted = ExpirationRun.builder()
+                .id(ExpirationRun.idOf(today, 0)).runDate(today).lastId(lastId).expiredCount(2).build();
+
+        when(expirationRunRepository.findById(ExpirationRun.idOf(today, 0))).thenReturn(Optional.of(interrupted));
+        when(abonnementRepository.findByStatutAndDateFinBeforeAndUtilisateurIdBetweenAndIdGreaterThanOrderByIdAsc(
+                eq(StatutAbonnement.ACTIVE), eq(today), any(), any(), eq(lastId), any(Limit.class)))
+                .thenReturn(List.of());
+
+        scheduler.checkExpiredSubscriptions();
+
+        verify(abonnementRepository, never()).updateStatutByIdIn(anyList(), any());
+        verify(outboxService, never()).enqueueAll(anyList());
+    }
+
+    @Test
+    @DisplayName("Should stop the run when a chunk fails")
+    void shouldStopWhenChunkFails() {
+        LocalDate today = LocalDate.now();
+        when(expirationRunRepository.findById(ExpirationRun.idOf(today, 0))).thenReturn(Optional.empty());
+        when(abonnementRepository.findByStatutAndDateFinBeforeAndUtilisateurIdBetweenAndIdGreaterThanOrderByIdAsc(
+                any(), any(), any(), any(), any(), any(Limit.class)))
+                .thenThrow(new IllegalStateException("lock timeout"));
+
+        assertThatCode(() -> scheduler.checkExpiredSubscriptions()).doesNotThrowAnyException();
+
+        verify(expirationRunRepository, never()).save(any());
+        verify(outboxService, never()).enqueueAll(anyList());
+    }
+
+    @Test
+    @DisplayName("Should only run the shards whose lease this replica gets")
+    void shouldSkipShardsLeasedByOtherReplicas() {
+        ReflectionTestUtils.setField(scheduler, "shards", 2);
+        LocalDate today = LocalDate.now();
+        when(leaseService.tryAcquire(eq(AbonnementExpirationScheduler.LEASE_PREFIX + 0), any())).thenReturn(false);
+        when(expirationRunRepository.findById(ExpirationRun.idOf(today, 1))).thenReturn(Optional.empty());
+        UUID[] shard1 = AbonnementExpirationScheduler.shardUsers(1, 2);
+        when(abonnementRepository.findByStatutAndDateFinBeforeAndUtilisateurIdBetweenAndIdGreaterThanOrderByIdAsc(
+                eq(StatutAbonnement.ACTIVE), eq(today), eq(shard1[0]), eq(shard1[1]), any(), any(Limit.class)))
+                .thenReturn(List.of());
+
+        scheduler.checkExpiredSubscriptions();
+
+        verify(expirationRunRepository, never()).findById(ExpirationRun.idOf(today, 0));
+        verify(leaseService, never()).release(AbonnementExpirationScheduler.LEASE_PREFIX + 0);
+        verify(leaseService).release(AbonnementExpirationScheduler.LEASE_PREFIX + 1);
+    }
+
+    @Test
+    @DisplayName("Should cut the user ids into adjacent shards covering every id")
+    void shouldCoverAllUsersWithShards() {
+        UUID[] first = AbonnementExpirationScheduler.shardUsers(0, 3);
+        UUID[] second = AbonnementExpirationScheduler.shardUsers(1, 3);
+        UUID[] last = AbonnementExpirationScheduler.shardUsers(2, 3);
+
+        assertThat(first[0]).isEqualTo(new UUID(0, 0));
+        assertThat(last[1]).isEqualTo(new UUID(-1, -1));
+        // the next shard starts right after the previous one ends
+        assertThat(second[0].getLeastSignificantBits()).isEqualTo(first[1].getLeastSignificantBits() + 1);
+        assertThat(second[0].getMostSignificantBits()).isEqualTo(first[1].getMostSignificantBits());
+    }
+
+    private Abonnement abonnement(UUID id) {
+        return Abonnement.builder()
+                .id(id)
+                .utilisateurId(UUID.randomUUID())
+                .forfaitId(forfait.getId())
+                .dateDebut(LocalDate.of(2025, 1, 1))
+                .dateFin(LocalDate.of(2025, 1, 31))
+                .prix(BigDecimal.valueOf(200.00))
+                .devise(Devise.MAD)
+                .statut(StatutAbonnement.ACTIVE)
+                .build();
+    }
+}
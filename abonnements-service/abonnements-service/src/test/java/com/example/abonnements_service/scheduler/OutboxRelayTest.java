@@ -0,0 +1,153 @@
+package com.example.abonnements_service.scheduler;
+
+import com.example.abonnements_service.event.AbonnementEvent;
+import com.example.abonnements_service.model.OutboxEvent;
+import com.example.abonnements_service.repository.OutboxEventRepository;
+import com.example.abonnements_service.service.KafkaProducerService;
+import com.example.abonnements_service.service.LeaseService;
+import com.example.abonnements_service.service.OutboxService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for OutboxRelay
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("OutboxRelay Unit Tests")
+class OutboxRelayTest {
+
+    @Mock
+    private OutboxEventRepository outboxEventRepository;
+
+    @Mock
+    private OutboxService outboxService;
+
+    @Mock
+    private KafkaProducerService kafkaProducerService;
+
+    @Mock
+    private LeaseService leaseService;
+
+    @InjectMocks
+    private OutboxRelay outboxRelay;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(outboxRelay, "batchSize", 2);
+        ReflectionTestUtils.setField(outboxRelay, "leaseTtl", Duration.ofSeconds(30));
+        ReflectionTestUtils.setField(outboxRelay, "sendTimeout", Duration.ofSeconds(10));
+        ReflectionTestUtils.setField(outboxRelay, "retention", Duration.ofDays(7));
+
+        lenient().when(leaseService.tryAcquire(eq(OutboxRelay.LEASE), any())).thenReturn(true);
+        lenient().when(leaseService.renew(eq(OutboxRelay.LEASE), any())).thenReturn(true);
+        lenient().when(outboxService.toEvent(any())).thenAnswer(invocation -> AbonnementEvent.builder()
+                .eventType("ABONNEMENT_CREATED")
+                .utilisateurId(UUID.randomUUID())
+                .build());
+    }
+
+    @Test
+    @DisplayName("Should publish pending events batch by batch and mark them published")
+    void shouldPublishPendingEventsInBatches() {
+        when(outboxEventRepository.findByPublishedAtIsNullOrderByCreatedAtAscIdAsc(any(Limit.class)))
+                .thenReturn(List.of(outboxEvent(1L), outboxEvent(2L)))
+                .thenReturn(List.of(outboxEvent(3L)));
+        when(kafkaProducerService.publishAbonnementEvents(anyList(), any()))
+                .thenReturn(2)
+                .thenReturn(1);
+
+        outboxRelay.relay();
+
+        verify(outboxEventRepository).markPublished(eq(List.of(1L, 2L)), any());
+        verify(outboxEventRepository).markPublished(eq(List.of(3L)), any());
+        verify(kafkaProducerService, times(2)).publishAbonnementEvents(anyList(), eq(Duration.ofSeconds(10)));
+        verify(leaseService, times(2)).renew(eq(OutboxRelay.LEASE), any());
+        // the last batch was not full, the outbox is empty
+        verify(outboxEventRepository, times(2)).findByPublishedAtIsNullOrderByCreatedAtAscIdAsc(any(Limit.class));
+    }
+
+    @Test
+    @DisplayName("Should keep the events from the first failed send on for the next poll")
+    void shouldStopAtFirstFailedSend() {
+        ReflectionTestUtils.setField(outboxRelay, "batchSize", 3);
+        when(outboxEventRepository.findByPublishedAtIsNullOrderByCreatedAtAscIdAsc(any(Limit.class)))
+                .thenReturn(List.of(outboxEvent(1L), outboxEvent(2L), outboxEvent(3L)));
+        // the second event failed, the third is not marked even if the broker got it
+        when(kafkaProducerService.publishAbonnementEvents(anyList(), any())).thenReturn(1);
+
+        outboxRelay.relay();
+
+        verify(outboxEventRepository).markPublished(eq(List.of(1L)), any());
+        verify(outboxEventRepository, times(1)).findByPublishedAtIsNullOrderByCreatedAtAscIdAsc(any(Limit.class));
+    }
+
+    @Test
+    @DisplayName("Should not mark a batch published once another replica took the lease over")
+    void shouldNotMarkPublishedWithoutLease() {
+        when(outboxEventRepository.findByPublishedAtIsNullOrderByCreatedAtAscIdAsc(any(Limit.class)))
+                .thenReturn(List.of(outboxEvent(1L), outboxEvent(2L)));
+        when(kafkaProducerService.publishAbonnementEvents(anyList(), any())).thenReturn(2);
+        when(leaseService.renew(eq(OutboxRelay.LEASE), any())).thenReturn(false);
+
+        outboxRelay.relay();
+
+        verify(outboxEventRepository, never()).markPublished(anyList(), any());
+        verify(outboxEventRepository, times(1)).findByPublishedAtIsNullOrderByCreatedAtAscIdAsc(any(Limit.class));
+    }
+
+    @Test
+    @DisplayName("Should not publish when another replica holds the relay lease")
+    void shouldNotPublishWithoutLease() {
+        when(leaseService.tryAcquire(eq(OutboxRelay.LEASE), any())).thenReturn(false);
+
+        outboxRelay.relay();
+
+        verifyNoInteractions(outboxEventRepository, kafkaProducerService);
+    }
+
+    @Test
+    @DisplayName("Should drop an unreadable event instead of blocking the outbox")
+    void shouldDropUnreadableEvent() {
+        OutboxEvent unreadable = outboxEvent(1L);
+        when(outboxEventRepository.findByPublishedAtIsNullOrderByCreatedAtAscIdAsc(any(Limit.class)))
+                .thenReturn(List.of(unreadable));
+        when(outboxService.toEvent(unreadable)).thenThrow(new IllegalStateException("Unreadable outbox event 1"));
+
+        outboxRelay.relay();
+
+        verify(outboxEventRepository).markPublished(eq(List.of(1L)), any());
+        verify(kafkaProducerService, never()).publishAbonnementEvents(anyList(), any());
+    }
+
+    @Test
+    @DisplayName("Should purge published events older than the retention")
+    void shouldPurgePublishedEvents() {
+        when(outboxEventRepository.deletePublishedBefore(any())).thenReturn(3);
+
+        outboxRelay.purgePublished();
+
+        verify(outboxEventRepository).deletePublishedBefore(argThat(before ->
+                before.isBefore(java.time.LocalDateTime.now().minusDays(6))));
+    }
+
+    private OutboxEvent outboxEvent(long id) {
+        return OutboxEvent.builder().id(id).payload("{}").build();
+    }
+}
@@ -40,7 +40,7 @@ class AbonnementsServiceTest {
     private FactureService factureService;
 
     @Mock
-    private KafkaProducerService kafkaProducerService;
+    private OutboxService outboxService;
 
     @InjectMocks
     private AbonnementsService abonnementsService;
@@ -116,7 +116,7 @@ class AbonnementsServiceTest {
         verify(forfaitService, times(1)).getForfaitEntityById(testForfaitId);
         verify(abonnementRepository, times(1)).save(any(Abonnement.class));
         verify(factureService, times(1)).genererFacture(any(Abonnement.class));
-        verify(kafkaProducerService, times(1)).publishAbonnementEvent(any());
+        verify(outboxService, times(1)).enqueue(any());
     }
 
     @Test
@@ -261,7 +261,7 @@ class AbonnementsServiceTest {
         verify(abonnementRepository, times(1)).save(argThat(abonnement ->
                 abonnement.getStatut() == StatutAbonnement.CANCELED
         ));
-        verify(kafkaProducerService, times(1)).publishAbonnementEvent(any());
+        verify(outboxService, times(1)).enqueue(any());
     }
 
     @Test
@@ -310,7 +310,7 @@ class AbonnementsServiceTest {
         assertThat(response).isNotNull();
         verify(abonnementRepository, times(1)).save(any(Abonnement.class));
         verify(factureService, times(1)).genererFacture(any(Abonnement.class));
-        verify(kafkaProducerService, times(1)).publishAbonnementEvent(any());
+        verify(outboxService, times(1)).enqueue(any());
     }
 
     @Test
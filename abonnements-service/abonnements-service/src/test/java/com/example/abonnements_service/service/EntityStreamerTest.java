@@ -0,0 +1,59 @@
+package com.example.abonnements_service.service;
+
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for EntityStreamer
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("EntityStreamer Unit Tests")
+class EntityStreamerTest {
+
+    @Mock
+    private EntityManager entityManager;
+
+    @InjectMocks
+    private EntityStreamer entityStreamer;
+
+    @Test
+    @DisplayName("Should push every row in order and detach it once mapped")
+    void shouldMapThenDetachEachRow() {
+        List<String> sink = new ArrayList<>();
+
+        entityStreamer.forEach(Stream.of("a", "b"), String::toUpperCase, sink::add);
+
+        assertThat(sink).containsExactly("A", "B");
+        InOrder order = inOrder(entityManager);
+        order.verify(entityManager).detach("a");
+        order.verify(entityManager).detach("b");
+    }
+
+    @Test
+    @DisplayName("Should close the stream even when the sink fails")
+    void shouldCloseStreamWhenSinkFails() {
+        AtomicBoolean closed = new AtomicBoolean();
+        Stream<String> rows = Stream.of("a", "b").onClose(() -> closed.set(true));
+
+        assertThatThrownBy(() -> entityStreamer.forEach(rows, String::toUpperCase, row -> {
+            throw new IllegalStateException("client gone");
+        })).isInstanceOf(IllegalStateException.class);
+
+        assertThat(closed).isTrue();
+        verify(entityManager, never()).detach(any());
+    }
+}
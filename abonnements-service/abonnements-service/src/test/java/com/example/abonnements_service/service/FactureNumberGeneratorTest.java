@@ -0,0 +1,152 @@
+package com.example.abonnements_service.service;
+
+import com.example.abonnements_service.model.FactureSequence;
+import com.example.abonnements_service.repository.FactureSequenceRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for FactureNumberGenerator
+ * The repository mock keeps the yearly counters in a map, like the facture_sequences table
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("FactureNumberGenerator Unit Tests")
+class FactureNumberGeneratorTest {
+
+    @Mock
+    private FactureSequenceRepository sequenceRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private final Map<Integer, Long> counters = new ConcurrentHashMap<>();
+    private final AtomicReference<Instant> now = new AtomicReference<>(Instant.parse("2025-12-31T23:59:00Z"));
+
+    private FactureNumberGenerator generator;
+
+    @BeforeEach
+    void setUp() {
+        Clock clock = mock(Clock.class);
+        lenient().when(clock.getZone()).thenReturn(ZoneOffset.UTC);
+        lenient().when(clock.instant()).thenAnswer(invocation -> now.get());
+
+        lenient().when(sequenceRepository.reserve(anyInt(), anyLong())).thenAnswer(invocation -> {
+            Long next = counters.computeIfPresent(invocation.getArgument(0),
+                    (annee, value) -> value + invocation.<Long>getArgument(1));
+            return next == null ? 0 : 1;
+        });
+        lenient().when(sequenceRepository.findById(anyInt())).thenAnswer(invocation -> Optional.of(
+                new FactureSequence(invocation.getArgument(0), counters.get(invocation.<Integer>getArgument(0)))));
+        lenient().when(sequenceRepository.create(anyInt())).thenAnswer(invocation -> {
+            if (counters.putIfAbsent(invocation.getArgument(0), 1L) != null) {
+                throw new DataIntegrityViolationException("duplicate key facture_sequences");
+            }
+            return 1;
+        });
+
+        generator = new FactureNumberGenerator(sequenceRepository, transactionManager, clock);
+        ReflectionTestUtils.setField(generator, "blockSize", 3L);
+    }
+
+    @Test
+    @DisplayName("Should hand out consecutive numbers and reserve a block only when the previous one is used up")
+    void shouldHandOutNumbersFromBlocks() {
+        List<String> numeros = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            numeros.add(generator.next());
+        }
+
+        assertThat(numeros).containsExactly(
+                "FAC-2025-000001", "FAC-2025-000002", "FAC-2025-000003", "FAC-2025-000004", "FAC-2025-000005");
+        // the first reservation finds no counter for the year and creates it
+        verify(sequenceRepository, times(1)).create(2025);
+        verify(sequenceRepository, times(3)).reserve(2025, 3L);
+        assertThat(counters.get(2025)).isEqualTo(7L);
+    }
+
+    @Test
+    @DisplayName("Should restart from 1 in a new year")
+    void shouldRollOverYearly() {
+        assertThat(generator.next()).isEqualTo("FAC-2025-000001");
+
+        now.set(Instant.parse("2026-01-01T00:00:01Z"));
+
+        assertThat(generator.next()).isEqualTo("FAC-2026-000001");
+        assertThat(generator.next()).isEqualTo("FAC-2026-000002");
+    }
+
+    @Test
+    @DisplayName("Should continue after the numbers reserved by other replicas")
+    void shouldSkipNumbersReservedElsewhere() {
+        counters.put(2025, 40L);
+
+        assertThat(generator.next()).isEqualTo("FAC-2025-000040");
+        verify(sequenceRepository, never()).create(anyInt());
+    }
+
+    @Test
+    @DisplayName("Should use the counter another replica created first")
+    void shouldUseCounterCreatedByAnotherReplica() {
+        // the other replica creates the counter between this replica's reservation and its own creation
+        when(sequenceRepository.reserve(2025, 3L)).thenAnswer(invocation -> {
+            if (counters.putIfAbsent(2025, 1L) == null) {
+                return 0;
+            }
+            counters.computeIfPresent(2025, (annee, value) -> value + 3L);
+            return 1;
+        });
+
+        assertThat(generator.next()).isEqualTo("FAC-2025-000001");
+        verify(sequenceRepository).create(2025);
+        assertThat(counters.get(2025)).isEqualTo(4L);
+    }
+
+    @Test
+    @DisplayName("Should never hand out the same number twice under concurrent use")
+    void shouldGenerateUniqueNumbersConcurrently() throws Exception {
+        ReflectionTestUtils.setField(generator, "blockSize", 7L);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<List<String>>> futures = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                futures.add(executor.submit(() -> {
+                    List<String> numeros = new ArrayList<>();
+                    for (int i = 0; i < 200; i++) {
+                        numeros.add(generator.next());
+                    }
+                    return numeros;
+                }));
+            }
+            Set<String> all = new HashSet<>();
+            for (Future<List<String>> future : futures) {
+                all.addAll(future.get());
+            }
+            assertThat(all).hasSize(1600);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package com.example.abonnements_service.service;
 
 import com.example.abonnements_service.dto.FactureResponse;
+import com.example.abonnements_service.dto.PageResponse;
 import com.example.abonnements_service.exception.ResourceNotFoundException;
 import com.example.abonnements_service.model.Abonnement;
 import com.example.abonnements_service.model.Devise;
@@ -14,6 +15,7 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
@@ -24,6 +26,7 @@ import java.util.UUID;
 
 import static org.assertj.core.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.Mockito.*;
 
 /**
@@ -39,6 +42,9 @@ class FactureServiceTest {
     @Mock
     private com.example.abonnements_service.repository.AbonnementRepository abonnementRepository;
 
+    @Mock
+    private FactureNumberGenerator factureNumberGenerator;
+
     @InjectMocks
     private FactureService factureService;
 
@@ -76,6 +82,7 @@ class FactureServiceTest {
     void shouldGenerateFactureSuccessfully() {
         // Given
         when(factureRepository.findByAbonnementId(testAbonnementId)).thenReturn(Optional.empty());
+        when(factureNumberGenerator.next()).thenReturn("FAC-2025-000123");
         when(factureRepository.save(any(Facture.class))).thenReturn(testFacture);
 
         // When
@@ -90,7 +97,7 @@ class FactureServiceTest {
         assertThat(response.getNumeroFacture()).isEqualTo("FAC-2025-00123");
 
         verify(factureRepository, times(1)).findByAbonnementId(testAbonnementId);
-        verify(factureRepository, times(1)).save(any(Facture.class));
+        verify(factureRepository, times(1)).save(argThat(facture -> "FAC-2025-000123".equals(facture.getNumeroFacture())));
     }
 
     @Test
@@ -108,6 +115,7 @@ class FactureServiceTest {
 
         verify(factureRepository, times(1)).findByAbonnementId(testAbonnementId);
         verify(factureRepository, never()).save(any());
+        verify(factureNumberGenerator, never()).next();
     }
 
     @Test
@@ -252,4 +260,47 @@ class FactureServiceTest {
 
         verify(factureRepository, times(2)).save(any(Facture.class));
     }
+
+    @Test
+    @DisplayName("Should return a page with the cursor of the next one")
+    void shouldReturnPageWithNextCursor() {
+        // Given
+        Facture second = Facture.builder().id(UUID.randomUUID()).abonnementId(UUID.randomUUID())
+                .montant(BigDecimal.TEN).devise(Devise.MAD).statut(StatutFacture.PAYEE).build();
+        Facture third = Facture.builder().id(UUID.randomUUID()).abonnementId(UUID.randomUUID())
+                .montant(BigDecimal.TEN).devise(Devise.MAD).statut(StatutFacture.PAYEE).build();
+        when(factureRepository.findByOrderByIdAsc(Limit.of(3))).thenReturn(List.of(testFacture, second, third));
+
+        // When
+        PageResponse<FactureResponse> page = factureService.findPage(null, 2);
+
+        // Then
+        assertThat(page.getItems()).extracting(FactureResponse::getId)
+                .containsExactly(testFactureId, second.getId());
+        assertThat(page.getNextAfter()).isEqualTo(second.getId());
+    }
+
+    @Test
+    @DisplayName("Should end pagination when fewer rows than requested are left")
+    void shouldEndPaginationOnLastPage() {
+        // Given
+        UUID cursor = UUID.randomUUID();
+        when(factureRepository.findByIdGreaterThanOrderByIdAsc(cursor, Limit.of(3))).thenReturn(List.of(testFacture));
+
+        // When
+        PageResponse<FactureResponse> page = factureService.findPage(cursor, 2);
+
+        // Then
+        assertThat(page.getItems()).hasSize(1);
+        assertThat(page.getNextAfter()).isNull();
+    }
+
+    @Test
+    @DisplayName("Should reject non-positive page size")
+    void shouldRejectNonPositivePageSize() {
+        assertThatThrownBy(() -> factureService.findPage(null, 0))
+                .isInstanceOf(IllegalArgumentException.class);
+
+        verifyNoInteractions(factureRepository);
+    }
 }
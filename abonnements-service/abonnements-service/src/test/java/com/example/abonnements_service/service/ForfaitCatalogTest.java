@@ -0,0 +1,114 @@
+package com.example.abonnements_service.service;
+
+import com.example.abonnements_service.event.ForfaitChangeEvent;
+import com.example.abonnements_service.exception.ResourceNotFoundException;
+import com.example.abonnements_service.model.Forfait;
+import com.example.abonnements_service.repository.ForfaitRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for ForfaitCatalog
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("ForfaitCatalog Unit Tests")
+class ForfaitCatalogTest {
+
+    @Mock
+    private ForfaitRepository forfaitRepository;
+
+    @Mock
+    private KafkaProducerService kafkaProducerService;
+
+    @InjectMocks
+    private ForfaitCatalog forfaitCatalog;
+
+    private Forfait mensuel;
+    private Forfait annuel;
+
+    @BeforeEach
+    void setUp() {
+        mensuel = Forfait.builder().id(UUID.randomUUID()).nom("Mensuel Standard").build();
+        annuel = Forfait.builder().id(UUID.randomUUID()).nom("Annuel Premium").build();
+    }
+
+    @Test
+    @DisplayName("Should load the catalog once and then read from memory")
+    void shouldLoadOnceAndReadFromMemory() {
+        when(forfaitRepository.findAll()).thenReturn(List.of(mensuel, annuel));
+
+        assertThat(forfaitCatalog.get(mensuel.getId()).getNom()).isEqualTo("Mensuel Standard");
+        assertThat(forfaitCatalog.get(annuel.getId()).getNom()).isEqualTo("Annuel Premium");
+        assertThat(forfaitCatalog.find(UUID.randomUUID())).isEmpty();
+
+        verify(forfaitRepository, times(1)).findAll();
+        verify(forfaitRepository, never()).findById(any());
+    }
+
+    @Test
+    @DisplayName("Should throw exception for an unknown forfait")
+    void shouldThrowForUnknownForfait() {
+        when(forfaitRepository.findAll()).thenReturn(List.of(mensuel));
+
+        assertThatThrownBy(() -> forfaitCatalog.get(annuel.getId()))
+                .isInstanceOf(ResourceNotFoundException.class)
+                .hasMessageContaining("Forfait not found");
+    }
+
+    @Test
+    @DisplayName("Should refresh a changed forfait and tell the other replicas")
+    void shouldRefreshLocalChangeAndPublishIt() {
+        when(forfaitRepository.findAll()).thenReturn(List.of(mensuel));
+        forfaitCatalog.get(mensuel.getId());
+        Forfait renamed = Forfait.builder().id(mensuel.getId()).nom("Mensuel Plus").build();
+        when(forfaitRepository.findById(mensuel.getId())).thenReturn(Optional.of(renamed));
+        when(forfaitRepository.findById(annuel.getId())).thenReturn(Optional.of(annuel));
+
+        forfaitCatalog.onLocalChange(ForfaitChangeEvent.builder().forfaitId(mensuel.getId()).build());
+        forfaitCatalog.onLocalChange(ForfaitChangeEvent.builder().forfaitId(annuel.getId()).build());
+
+        assertThat(forfaitCatalog.get(mensuel.getId()).getNom()).isEqualTo("Mensuel Plus");
+        assertThat(forfaitCatalog.get(annuel.getId()).getNom()).isEqualTo("Annuel Premium");
+        assertThat(forfaitCatalog.size()).isEqualTo(2);
+        verify(forfaitRepository, times(1)).findAll();
+
+        ArgumentCaptor<ForfaitChangeEvent> published = ArgumentCaptor.forClass(ForfaitChangeEvent.class);
+        verify(kafkaProducerService, times(2)).publishForfaitChange(published.capture());
+        assertThat(published.getValue().getForfaitId()).isEqualTo(annuel.getId());
+        assertThat(published.getValue().getOrigin()).isNotBlank();
+    }
+
+    @Test
+    @DisplayName("Should refresh on changes from other replicas and ignore its own")
+    void shouldRefreshRemoteChangesOnly() {
+        when(forfaitRepository.findAll()).thenReturn(List.of(mensuel));
+        forfaitCatalog.get(mensuel.getId());
+        when(forfaitRepository.findById(mensuel.getId())).thenReturn(Optional.of(mensuel));
+
+        forfaitCatalog.onLocalChange(ForfaitChangeEvent.builder().forfaitId(mensuel.getId()).build());
+        ArgumentCaptor<ForfaitChangeEvent> own = ArgumentCaptor.forClass(ForfaitChangeEvent.class);
+        verify(kafkaProducerService).publishForfaitChange(own.capture());
+
+        // its own message coming back from Kafka
+        forfaitCatalog.onRemoteChange(own.getValue());
+        verify(forfaitRepository, times(1)).findById(mensuel.getId());
+
+        // a change from another replica, the forfait is gone
+        when(forfaitRepository.findById(mensuel.getId())).thenReturn(Optional.empty());
+        forfaitCatalog.onRemoteChange(ForfaitChangeEvent.builder().forfaitId(mensuel.getId()).origin("other").build());
+        assertThat(forfaitCatalog.find(mensuel.getId())).isEmpty();
+    }
+}
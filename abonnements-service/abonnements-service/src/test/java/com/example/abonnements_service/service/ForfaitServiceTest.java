@@ -2,6 +2,7 @@ package com.example.abonnements_service.service;
 
 import com.example.abonnements_service.dto.ForfaitRequest;
 import com.example.abonnements_service.dto.ForfaitResponse;
+import com.example.abonnements_service.event.ForfaitChangeEvent;
 import com.example.abonnements_service.exception.ResourceNotFoundException;
 import com.example.abonnements_service.model.Devise;
 import com.example.abonnements_service.model.Forfait;
@@ -13,6 +14,7 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
@@ -35,6 +37,12 @@ class ForfaitServiceTest {
     @Mock
     private ForfaitRepository forfaitRepository;
 
+    @Mock
+    private ForfaitCatalog forfaitCatalog;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
     @InjectMocks
     private ForfaitService forfaitService;
 
@@ -86,6 +94,8 @@ class ForfaitServiceTest {
 
         verify(forfaitRepository, times(1)).existsByNom("Mensuel Standard");
         verify(forfaitRepository, times(1)).save(any(Forfait.class));
+        verify(eventPublisher).publishEvent(argThat((Object event) ->
+                event instanceof ForfaitChangeEvent change && testForfaitId.equals(change.getForfaitId())));
     }
 
     @Test
@@ -137,7 +147,7 @@ class ForfaitServiceTest {
     @DisplayName("Should get forfait entity by id")
     void shouldGetForfaitEntityById() {
         // Given
-        when(forfaitRepository.findById(testForfaitId)).thenReturn(Optional.of(testForfait));
+        when(forfaitCatalog.get(testForfaitId)).thenReturn(testForfait);
 
         // When
         Forfait forfait = forfaitService.getForfaitEntityById(testForfaitId);
@@ -145,6 +155,7 @@ class ForfaitServiceTest {
         // Then
         assertThat(forfait).isNotNull();
         assertThat(forfait.getId()).isEqualTo(testForfaitId);
+        verify(forfaitRepository, never()).findById(any());
     }
 
     @Test
@@ -152,7 +163,8 @@ class ForfaitServiceTest {
     void shouldThrowExceptionWhenGettingNonExistentEntity() {
         // Given
         UUID nonExistentId = UUID.randomUUID();
-        when(forfaitRepository.findById(nonExistentId)).thenReturn(Optional.empty());
+        when(forfaitCatalog.get(nonExistentId))
+                .thenThrow(new ResourceNotFoundException("Forfait not found with id: " + nonExistentId));
 
         // When & Then
         assertThatThrownBy(() -> forfaitService.getForfaitEntityById(nonExistentId))
@@ -209,6 +221,7 @@ class ForfaitServiceTest {
         assertThat(response).isNotNull();
         verify(forfaitRepository, times(1)).findById(testForfaitId);
         verify(forfaitRepository, times(1)).save(any(Forfait.class));
+        verify(eventPublisher).publishEvent(any(ForfaitChangeEvent.class));
     }
 
     @Test
@@ -224,6 +237,7 @@ class ForfaitServiceTest {
                 .hasMessageContaining("Forfait not found");
 
         verify(forfaitRepository, never()).save(any());
+        verify(eventPublisher, never()).publishEvent(any(Object.class));
     }
 
     @Test
@@ -258,6 +272,7 @@ class ForfaitServiceTest {
         verify(forfaitRepository, times(1)).save(argThat(forfait ->
                 !forfait.getActif()
         ));
+        verify(eventPublisher).publishEvent(any(ForfaitChangeEvent.class));
     }
 
     @Test
@@ -0,0 +1,81 @@
+package com.example.abonnements_service.service;
+
+import com.example.abonnements_service.event.AbonnementEvent;
+import com.example.abonnements_service.event.ForfaitChangeEvent;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for KafkaProducerService
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("KafkaProducerService Unit Tests")
+class KafkaProducerServiceTest {
+
+    @Mock
+    private KafkaTemplate<String, AbonnementEvent> kafkaTemplate;
+
+    @Mock
+    private KafkaTemplate<String, ForfaitChangeEvent> forfaitKafkaTemplate;
+
+    private KafkaProducerService kafkaProducerService;
+
+    @BeforeEach
+    void setUp() {
+        kafkaProducerService = new KafkaProducerService(kafkaTemplate, forfaitKafkaTemplate);
+    }
+
+    @Test
+    @DisplayName("Should count the acknowledged events up to the first failed one")
+    void shouldStopAtFirstFailure() {
+        when(kafkaTemplate.send(anyString(), anyString(), any())).thenReturn(
+                CompletableFuture.completedFuture(null),
+                CompletableFuture.failedFuture(new IllegalStateException("not enough replicas")),
+                CompletableFuture.completedFuture(null));
+
+        int acknowledged = kafkaProducerService.publishAbonnementEvents(
+                List.of(event(), event(), event()), Duration.ofSeconds(1));
+
+        assertThat(acknowledged).isEqualTo(1);
+        verify(kafkaTemplate, times(3)).send(anyString(), anyString(), any());
+    }
+
+    @Test
+    @DisplayName("Should stop waiting for acknowledgements after the timeout")
+    void shouldBoundTheWait() {
+        CompletableFuture<SendResult<String, AbonnementEvent>> pending = new CompletableFuture<>();
+        when(kafkaTemplate.send(anyString(), anyString(), any())).thenReturn(
+                CompletableFuture.completedFuture(null), pending);
+
+        long start = System.nanoTime();
+        int acknowledged = kafkaProducerService.publishAbonnementEvents(
+                List.of(event(), event()), Duration.ofMillis(50));
+
+        assertThat(acknowledged).isEqualTo(1);
+        assertThat(Duration.ofNanos(System.nanoTime() - start)).isLessThan(Duration.ofSeconds(5));
+    }
+
+    private AbonnementEvent event() {
+        return AbonnementEvent.builder()
+                .eventType("ABONNEMENT_CREATED")
+                .abonnementId(UUID.randomUUID())
+                .utilisateurId(UUID.randomUUID())
+                .build();
+    }
+}
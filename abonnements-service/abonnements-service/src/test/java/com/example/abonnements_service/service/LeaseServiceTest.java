@@ -0,0 +1,92 @@
+package com.example.abonnements_service.service;
+
+import com.example.abonnements_service.model.SchedulerLease;
+import com.example.abonnements_service.repository.SchedulerLeaseRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for LeaseService
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("LeaseService Unit Tests")
+class LeaseServiceTest {
+
+    private static final String LEASE = "abonnement-expiration-0";
+    private static final Duration TTL = Duration.ofMinutes(5);
+
+    @Mock
+    private SchedulerLeaseRepository leaseRepository;
+
+    private LeaseService leaseService;
+
+    @BeforeEach
+    void setUp() {
+        leaseService = new LeaseService(leaseRepository, "replica-1");
+    }
+
+    @Test
+    @DisplayName("Should acquire a lease that is free or already held")
+    void shouldAcquireClaimedLease() {
+        when(leaseRepository.claim(eq(LEASE), eq("replica-1"), any(), any())).thenReturn(1);
+
+        assertThat(leaseService.tryAcquire(LEASE, TTL)).isTrue();
+        verify(leaseRepository, never()).saveAndFlush(any());
+    }
+
+    @Test
+    @DisplayName("Should not acquire a lease held by another replica")
+    void shouldNotAcquireLeaseHeldElsewhere() {
+        when(leaseRepository.claim(eq(LEASE), eq("replica-1"), any(), any())).thenReturn(0);
+        when(leaseRepository.existsById(LEASE)).thenReturn(true);
+
+        assertThat(leaseService.tryAcquire(LEASE, TTL)).isFalse();
+        verify(leaseRepository, never()).saveAndFlush(any());
+    }
+
+    @Test
+    @DisplayName("Should create the lease on the first run of the job")
+    void shouldCreateMissingLease() {
+        when(leaseRepository.claim(eq(LEASE), eq("replica-1"), any(), any())).thenReturn(0);
+        when(leaseRepository.existsById(LEASE)).thenReturn(false);
+
+        assertThat(leaseService.tryAcquire(LEASE, TTL)).isTrue();
+
+        ArgumentCaptor<SchedulerLease> lease = ArgumentCaptor.forClass(SchedulerLease.class);
+        verify(leaseRepository).saveAndFlush(lease.capture());
+        assertThat(lease.getValue().getOwner()).isEqualTo("replica-1");
+        assertThat(lease.getValue().getExpiresAt()).isAfter(lease.getValue().getAcquiredAt());
+    }
+
+    @Test
+    @DisplayName("Should lose the race when another replica creates the lease first")
+    void shouldLoseCreationRace() {
+        when(leaseRepository.claim(eq(LEASE), eq("replica-1"), any(), any())).thenReturn(0);
+        when(leaseRepository.existsById(LEASE)).thenReturn(false);
+        when(leaseRepository.saveAndFlush(any())).thenThrow(new DataIntegrityViolationException("duplicate key"));
+
+        assertThat(leaseService.tryAcquire(LEASE, TTL)).isFalse();
+    }
+
+    @Test
+    @DisplayName("Should generate an instance id when none is configured")
+    void shouldGenerateInstanceId() {
+        LeaseService first = new LeaseService(leaseRepository, "");
+        LeaseService second = new LeaseService(leaseRepository, "");
+
+        assertThat(first.getOwner()).isNotBlank().isNotEqualTo(second.getOwner());
+    }
+}
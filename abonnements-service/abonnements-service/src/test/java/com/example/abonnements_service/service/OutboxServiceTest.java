@@ -0,0 +1,92 @@
+package com.example.abonnements_service.service;
+
+import com.example.abonnements_service.event.AbonnementEvent;
+import com.example.abonnements_service.model.Devise;
+import com.example.abonnements_service.model.OutboxEvent;
+import com.example.abonnements_service.model.StatutAbonnement;
+import com.example.abonnements_service.repository.OutboxEventRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for OutboxService
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("OutboxService Unit Tests")
+class OutboxServiceTest {
+
+    @Mock
+    private OutboxEventRepository outboxEventRepository;
+
+    private OutboxService outboxService;
+
+    @BeforeEach
+    void setUp() {
+        outboxService = new OutboxService(outboxEventRepository, new ObjectMapper().findAndRegisterModules());
+    }
+
+    @Test
+    @DisplayName("Should store the event keyed by user and read it back unchanged")
+    void shouldStoreAndReadBackEvent() {
+        AbonnementEvent event = AbonnementEvent.builder()
+                .eventType("ABONNEMENT_CREATED")
+                .timestamp(LocalDateTime.of(2025, 6, 1, 10, 30))
+                .abonnementId(UUID.randomUUID())
+                .utilisateurId(UUID.randomUUID())
+                .forfaitId(UUID.randomUUID())
+                .forfaitNom("Mensuel Standard")
+                .dateDebut(LocalDate.of(2025, 6, 1))
+                .dateFin(LocalDate.of(2025, 6, 30))
+                .prix(BigDecimal.valueOf(200.00))
+                .devise(Devise.MAD)
+                .statut(StatutAbonnement.ACTIVE)
+                .numeroFacture("FAC-2025-000001")
+                .build();
+
+        outboxService.enqueue(event);
+
+        ArgumentCaptor<OutboxEvent> stored = ArgumentCaptor.forClass(OutboxEvent.class);
+        verify(outboxEventRepository).save(stored.capture());
+        assertThat(stored.getValue().getMessageKey()).isEqualTo(event.getUtilisateurId().toString());
+        assertThat(stored.getValue().getAggregateId()).isEqualTo(event.getAbonnementId());
+        assertThat(stored.getValue().getPublishedAt()).isNull();
+        assertThat(outboxService.toEvent(stored.getValue())).isEqualTo(event);
+    }
+
+    @Test
+    @DisplayName("Should store a batch of events in one call")
+    void shouldStoreBatch() {
+        List<AbonnementEvent> events = List.of(
+                AbonnementEvent.builder().eventType("ABONNEMENT_EXPIRED").utilisateurId(UUID.randomUUID()).build(),
+                AbonnementEvent.builder().eventType("ABONNEMENT_EXPIRED").utilisateurId(UUID.randomUUID()).build());
+
+        outboxService.enqueueAll(events);
+
+        verify(outboxEventRepository).saveAll(argThat(rows -> rows instanceof List<?> list && list.size() == 2));
+    }
+
+    @Test
+    @DisplayName("Should throw exception for an unreadable payload")
+    void shouldRejectUnreadablePayload() {
+        OutboxEvent corrupt = OutboxEvent.builder().id(7L).payload("not json").build();
+
+        assertThatThrownBy(() -> outboxService.toEvent(corrupt))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("Unreadable outbox event 7");
+    }
+}
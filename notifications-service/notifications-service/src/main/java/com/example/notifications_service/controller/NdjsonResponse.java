@@ -0,0 +1,53 @@
+package com.example.notifications_service.controller;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.function.Consumer;
+
+/**
+ * Réponse en JSON délimité par des retours à la ligne (NDJSON)
+ * Chaque élément est écrit dès sa lecture en base, sans construire de tableau en mémoire
+ */
+@Component
+public class NdjsonResponse {
+
+    public static final String NDJSON = "application/x-ndjson";
+
+    private final ObjectMapper objectMapper;
+    private final ObjectWriter writer;
+
+    public NdjsonResponse(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+        // Le générateur vide son tampon quand il est plein, pas après chaque ligne
+        this.writer = objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+    }
+
+    /**
+     * Le producteur pousse chaque élément vers le consumer; il s'exécute sur le thread asynchrone de la requête
+     */
+    public <T> ResponseEntity<StreamingResponseBody> of(Consumer<Consumer<T>> producer) {
+        StreamingResponseBody body = out -> {
+            JsonGenerator generator = objectMapper.getFactory().createGenerator(out);
+            generator.setRootValueSeparator(null);
+            producer.accept(item -> {
+                try {
+                    writer.writeValue(generator, item);
+                    generator.writeRaw('\n');
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            generator.flush();
+        };
+        return ResponseEntity.ok().contentType(MediaType.parseMediaType(NDJSON)).body(body);
+    }
+}
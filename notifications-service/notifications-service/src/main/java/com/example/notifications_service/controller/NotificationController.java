@@ -1,6 +1,7 @@
 package com.example.notifications_service.controller;
 
 import com.example.notifications_service.dto.NotificationResponse;
+import com.example.notifications_service.dto.PageResponse;
 import com.example.notifications_service.dto.TestEmailRequest;
 import com.example.notifications_service.model.StatutNotification;
 import com.example.notifications_service.service.EmailService;
@@ -13,6 +14,7 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.HashMap;
 import java.util.List;
@@ -32,6 +34,7 @@ public class NotificationController {
 
     private final NotificationService notificationService;
     private final EmailService emailService;
+    private final NdjsonResponse ndjsonResponse;
 
     /**
      * Récupérer toutes les notifications
@@ -44,6 +47,28 @@ public class NotificationController {
         return ResponseEntity.ok(notifications);
     }
 
+    /**
+     * Récupérer les notifications page par page (curseur sur l'ID)
+     */
+    @GetMapping("/page")
+    @Operation(summary = "Liste les notifications par page, après le curseur donné")
+    public ResponseEntity<PageResponse<NotificationResponse>> getNotificationsPage(
+            @RequestParam(required = false) UUID after,
+            @RequestParam(defaultValue = "100") int size) {
+        log.info("GET /api/v1/notifications/page - Page après {} ({} max)", after, size);
+        return ResponseEntity.ok(notificationService.findPage(after, size));
+    }
+
+    /**
+     * Diffuser toutes les notifications en NDJSON, une ligne par notification
+     */
+    @GetMapping(value = "/stream", produces = NdjsonResponse.NDJSON)
+    @Operation(summary = "Diffuse toutes les notifications en NDJSON")
+    public ResponseEntity<StreamingResponseBody> streamNotifications() {
+        log.info("GET /api/v1/notifications/stream - Diffusion de toutes les notifications");
+        return ndjsonResponse.of(notificationService::streamAll);
+    }
+
     /**
      * Récupérer une notification par ID
      */
@@ -97,7 +122,7 @@ public class NotificationController {
         log.info("GET /api/v1/notifications/stats - Récupération des statistiques");
 
         Map<String, Long> stats = new HashMap<>();
-        stats.put("total", notificationService.findAll().size() * 1L);
+        stats.put("total", notificationService.countAll());
         stats.put("enAttente", notificationService.countByStatut(StatutNotification.EN_ATTENTE));
         stats.put("envoye", notificationService.countByStatut(StatutNotification.ENVOYE));
         stats.put("echec", notificationService.countByStatut(StatutNotification.ECHEC));
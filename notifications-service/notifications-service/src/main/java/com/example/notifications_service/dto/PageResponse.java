@@ -0,0 +1,48 @@
+package com.example.notifications_service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Function;
+
+/**
+ * Page d'une liste triée par ID
+ * nextAfter est le curseur de la page suivante, null sur la dernière page
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class PageResponse<T> {
+
+    public static final int MAX_SIZE = 1000;
+
+    private List<T> items;
+    private UUID nextAfter;
+
+    /**
+     * Refuser une taille nulle ou négative et plafonner la taille demandée
+     */
+    public static int checkSize(int size) {
+        if (size < 1) {
+            throw new IllegalArgumentException("La taille de page doit être positive");
+        }
+        return Math.min(size, MAX_SIZE);
+    }
+
+    /**
+     * Construire une page à partir de lignes lues avec une limite de size + 1
+     * La ligne en trop indique seulement qu'une page suivante existe
+     */
+    public static <E, T> PageResponse<T> of(List<E> rows, int size, Function<E, UUID> idOf, Function<E, T> mapper) {
+        List<E> page = rows.size() > size ? rows.subList(0, size) : rows;
+        return PageResponse.<T>builder()
+                .items(page.stream().map(mapper).toList())
+                .nextAfter(rows.size() > size ? idOf.apply(page.getLast()) : null)
+                .build();
+    }
+}
@@ -3,13 +3,19 @@ package com.example.notifications_service.repository;
 import com.example.notifications_service.model.Canal;
 import com.example.notifications_service.model.Notification;
 import com.example.notifications_service.model.StatutNotification;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.stream.Stream;
 
 /**
  * Repository pour l'entité Notification
@@ -82,4 +88,19 @@ public interface NotificationRepository extends JpaRepository<Notification, UUID
      * Trouver les notifications en échec pour retry
      */
     List<Notification> findByStatutAndCreateLeBefore(StatutNotification statut, LocalDateTime date);
+
+    /**
+     * Pagination par curseur: première page, puis les lignes après le dernier ID de la page précédente
+     */
+    List<Notification> findByOrderByIdAsc(Limit limit);
+
+    List<Notification> findByIdGreaterThanOrderByIdAsc(UUID after, Limit limit);
+
+    /**
+     * Lire toutes les notifications via un curseur base de données
+     * Doit être consommé dans une transaction puis fermé
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("select n from Notification n order by n.id")
+    Stream<Notification> streamAll();
 }
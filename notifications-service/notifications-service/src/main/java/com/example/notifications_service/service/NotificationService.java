@@ -1,19 +1,24 @@
 package com.example.notifications_service.service;
 
 import com.example.notifications_service.dto.NotificationResponse;
+import com.example.notifications_service.dto.PageResponse;
 import com.example.notifications_service.exception.ResourceNotFoundException;
 import com.example.notifications_service.model.Canal;
 import com.example.notifications_service.model.Notification;
 import com.example.notifications_service.model.StatutNotification;
 import com.example.notifications_service.repository.NotificationRepository;
+import jakarta.persistence.EntityManager;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 import java.util.UUID;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  * Service de gestion des notifications
@@ -25,6 +30,7 @@ import java.util.stream.Collectors;
 public class NotificationService {
 
     private final NotificationRepository notificationRepository;
+    private final EntityManager entityManager;
 
     /**
      * Créer et sauvegarder une notification
@@ -100,6 +106,33 @@ public class NotificationService {
                 .collect(Collectors.toList());
     }
 
+    /**
+     * Récupérer une page de notifications triées par ID, après le curseur donné
+     */
+    @Transactional(readOnly = true)
+    public PageResponse<NotificationResponse> findPage(UUID after, int size) {
+        int pageSize = PageResponse.checkSize(size);
+        Limit limit = Limit.of(pageSize + 1);
+        List<Notification> rows = after == null
+                ? notificationRepository.findByOrderByIdAsc(limit)
+                : notificationRepository.findByIdGreaterThanOrderByIdAsc(after, limit);
+        return PageResponse.of(rows, pageSize, Notification::getId, this::mapToResponse);
+    }
+
+    /**
+     * Envoyer toutes les notifications au sink, en détachant chaque entité après conversion
+     * pour que la mémoire ne grossisse pas avec le nombre de lignes
+     */
+    @Transactional(readOnly = true)
+    public void streamAll(Consumer<NotificationResponse> sink) {
+        try (Stream<Notification> notifications = notificationRepository.streamAll()) {
+            notifications.forEach(notification -> {
+                sink.accept(mapToResponse(notification));
+                entityManager.detach(notification);
+            });
+        }
+    }
+
     /**
      * Récupérer une notification par ID
      */
@@ -140,6 +173,13 @@ public class NotificationService {
                 .collect(Collectors.toList());
     }
 
+    /**
+     * Compter toutes les notifications
+     */
+    public long countAll() {
+        return notificationRepository.count();
+    }
+
     /**
      * Compter les notifications par statut
      */
@@ -0,0 +1,349 @@
+package Transport_Urbain_Microservices.route_service.codec;
+
+import Transport_Urbain_Microservices.route_service.dto.RouteDto;
+import Transport_Urbain_Microservices.route_service.dto.RunDetailsDto;
+import Transport_Urbain_Microservices.route_service.entity.RouteStatus;
+import Transport_Urbain_Microservices.route_service.entity.ScheduleType;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.*;
+
+// Compact encoding of runs and routes, served as application/x-timetable.
+//
+// Layout: magic "TTB", version, kind, string table, item count, items.
+// Integers are unsigned LEB128 varints. Nullable values are written as value + 1, 0 standing for null.
+// Every string (names, route numbers, enum names) is stored once in the table and referenced by index.
+// Within a run or a route, stop ids and minutes are the zigzag-encoded difference with the previous stop.
+// Actual arrival times are not sent: the reader adds the minutes to the run's start time.
+public final class TimetableBinaryFormat {
+
+    public static final String MEDIA_TYPE = "application/x-timetable";
+
+    private static final byte[] MAGIC = {'T', 'T', 'B'};
+    private static final int VERSION = 1;
+
+    public enum Kind {
+        RUN, RUNS, ROUTE, ROUTES
+    }
+
+    private TimetableBinaryFormat() {
+    }
+
+    public static void writeRuns(Kind kind, List<RunDetailsDto> runs, OutputStream out) throws IOException {
+        StringTable strings = new StringTable();
+        for (RunDetailsDto run : runs) {
+            strings.add(run.getRouteNum());
+            strings.add(run.getRouteName());
+            strings.add(run.getDestinationStopName());
+            strings.add(enumName(run.getScheduleType()));
+            if (run.getStopTimes() != null) {
+                for (RunDetailsDto.StopTimeDetailDTO stopTime : run.getStopTimes()) {
+                    strings.add(stopTime.getStopName());
+                }
+            }
+        }
+        Writer writer = new Writer(out);
+        writer.header(kind, strings);
+        writer.varint(runs.size());
+        for (RunDetailsDto run : runs) {
+            writer.nullable(run.getId());
+            writer.nullable(run.getRouteId());
+            writer.string(strings, run.getRouteNum());
+            writer.string(strings, run.getRouteName());
+            writer.string(strings, run.getDestinationStopName());
+            writer.string(strings, enumName(run.getScheduleType()));
+            writer.nullable(run.getDayOfWeek());
+            writer.nullableSigned(run.getSpecificDate() == null ? null : run.getSpecificDate().toEpochDay());
+            writer.nullable(run.getRunNum());
+            writer.nullable(run.getStartTime() == null ? null : (long) run.getStartTime().toSecondOfDay());
+            List<RunDetailsDto.StopTimeDetailDTO> stopTimes = run.getStopTimes();
+            writer.nullable(stopTimes == null ? null : (long) stopTimes.size());
+            if (stopTimes != null) {
+                long previousStop = 0;
+                long previousMinute = 0;
+                for (RunDetailsDto.StopTimeDetailDTO stopTime : stopTimes) {
+                    previousStop = writer.delta(stopTime.getStopId(), previousStop);
+                    writer.string(strings, stopTime.getStopName());
+                    previousMinute = writer.delta(toLong(stopTime.getArrivalMinuteFromStart()), previousMinute);
+                }
+            }
+        }
+        writer.flush();
+    }
+
+    public static void writeRoutes(Kind kind, List<RouteDto> routes, OutputStream out) throws IOException {
+        StringTable strings = new StringTable();
+        for (RouteDto route : routes) {
+            strings.add(route.getName());
+            strings.add(route.getNum());
+            strings.add(route.getDescription());
+            strings.add(enumName(route.getStatus()));
+        }
+        Writer writer = new Writer(out);
+        writer.header(kind, strings);
+        writer.varint(routes.size());
+        for (RouteDto route : routes) {
+            writer.nullable(route.getId());
+            writer.string(strings, route.getName());
+            writer.string(strings, route.getNum());
+            writer.string(strings, route.getDescription());
+            writer.string(strings, enumName(route.getStatus()));
+            writer.deltas(route.getRouteStops());
+            writer.deltas(route.getCumulativeMinutesFromStartForStops() == null ? null
+                    : route.getCumulativeMinutesFromStartForStops().stream().map(TimetableBinaryFormat::toLong).toList());
+        }
+        writer.flush();
+    }
+
+    public static List<RunDetailsDto> readRuns(InputStream in) throws IOException {
+        Reader reader = new Reader(in);
+        String[] strings = reader.header(Kind.RUN, Kind.RUNS);
+        int count = (int) reader.varint();
+        List<RunDetailsDto> runs = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            RunDetailsDto run = new RunDetailsDto();
+            run.setId(reader.nullable());
+            run.setRouteId(reader.nullable());
+            run.setRouteNum(reader.string(strings));
+            run.setRouteName(reader.string(strings));
+            run.setDestinationStopName(reader.string(strings));
+            String scheduleType = reader.string(strings);
+            run.setScheduleType(scheduleType == null ? null : ScheduleType.valueOf(scheduleType));
+            run.setDayOfWeek(toInteger(reader.nullable()));
+            Long epochDay = reader.nullableSigned();
+            run.setSpecificDate(epochDay == null ? null : LocalDate.ofEpochDay(epochDay));
+            run.setRunNum(toInteger(reader.nullable()));
+            Long startSecond = reader.nullable();
+            run.setStartTime(startSecond == null ? null : LocalTime.ofSecondOfDay(startSecond));
+            Long stopCount = reader.nullable();
+            if (stopCount != null) {
+                List<RunDetailsDto.StopTimeDetailDTO> stopTimes = new ArrayList<>(stopCount.intValue());
+                long previousStop = 0;
+                long previousMinute = 0;
+                for (int s = 0; s < stopCount; s++) {
+                    Long stopId = reader.delta(previousStop);
+                    previousStop = stopId == null ? previousStop : stopId;
+                    String stopName = reader.string(strings);
+                    Long minute = reader.delta(previousMinute);
+                    previousMinute = minute == null ? previousMinute : minute;
+                    LocalTime arrival = minute == null || run.getStartTime() == null
+                            ? null : run.getStartTime().plusMinutes(minute);
+                    stopTimes.add(new RunDetailsDto.StopTimeDetailDTO(stopId, stopName, toInteger(minute), arrival));
+                }
+                run.setStopTimes(stopTimes);
+            }
+            runs.add(run);
+        }
+        return runs;
+    }
+
+    public static List<RouteDto> readRoutes(InputStream in) throws IOException {
+        Reader reader = new Reader(in);
+        String[] strings = reader.header(Kind.ROUTE, Kind.ROUTES);
+        int count = (int) reader.varint();
+        List<RouteDto> routes = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            RouteDto route = new RouteDto();
+            route.setId(reader.nullable());
+            route.setName(reader.string(strings));
+            route.setNum(reader.string(strings));
+            route.setDescription(reader.string(strings));
+            String status = reader.string(strings);
+            route.setStatus(status == null ? null : RouteStatus.valueOf(status));
+            route.setRouteStops(reader.deltas());
+            List<Long> minutes = reader.deltas();
+            route.setCumulativeMinutesFromStartForStops(minutes == null ? null
+                    : minutes.stream().map(TimetableBinaryFormat::toInteger).toList());
+            routes.add(route);
+        }
+        return routes;
+    }
+
+    private static String enumName(Enum<?> value) {
+        return value == null ? null : value.name();
+    }
+
+    private static Long toLong(Integer value) {
+        return value == null ? null : value.longValue();
+    }
+
+    private static Integer toInteger(Long value) {
+        return value == null ? null : value.intValue();
+    }
+
+    private static final class StringTable {
+        private final Map<String, Integer> indexes = new LinkedHashMap<>();
+
+        void add(String value) {
+            if (value != null) {
+                indexes.putIfAbsent(value, indexes.size());
+            }
+        }
+
+        int indexOf(String value) {
+            return indexes.get(value);
+        }
+
+        Collection<String> values() {
+            return indexes.keySet();
+        }
+    }
+
+    private static final class Writer {
+        private final OutputStream out;
+
+        Writer(OutputStream out) {
+            this.out = new BufferedOutputStream(out);
+        }
+
+        void header(Kind kind, StringTable strings) throws IOException {
+            out.write(MAGIC);
+            out.write(VERSION);
+            out.write(kind.ordinal());
+            varint(strings.values().size());
+            for (String value : strings.values()) {
+                byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+                varint(bytes.length);
+                out.write(bytes);
+            }
+        }
+
+        void varint(long value) throws IOException {
+            while ((value & ~0x7FL) != 0) {
+                out.write((int) ((value & 0x7F) | 0x80));
+                value >>>= 7;
+            }
+            out.write((int) value);
+        }
+
+        void nullable(Long value) throws IOException {
+            varint(value == null ? 0 : value + 1);
+        }
+
+        void nullable(Integer value) throws IOException {
+            nullable(toLong(value));
+        }
+
+        void nullableSigned(Long value) throws IOException {
+            varint(value == null ? 0 : zigzag(value) + 1);
+        }
+
+        void string(StringTable strings, String value) throws IOException {
+            varint(value == null ? 0 : strings.indexOf(value) + 1L);
+        }
+
+        // writes the difference with the previous non-null value and returns the new previous value
+        long delta(Long value, long previous) throws IOException {
+            if (value == null) {
+                varint(0);
+                return previous;
+            }
+            nullableSigned(value - previous);
+            return value;
+        }
+
+        void deltas(List<Long> values) throws IOException {
+            nullable(values == null ? null : (long) values.size());
+            if (values != null) {
+                long previous = 0;
+                for (Long value : values) {
+                    previous = delta(value, previous);
+                }
+            }
+        }
+
+        void flush() throws IOException {
+            out.flush();
+        }
+
+        private static long zigzag(long value) {
+            return (value << 1) ^ (value >> 63);
+        }
+    }
+
+    private static final class Reader {
+        private final InputStream in;
+
+        Reader(InputStream in) {
+            this.in = new BufferedInputStream(in);
+        }
+
+        String[] header(Kind... expected) throws IOException {
+            byte[] magic = in.readNBytes(MAGIC.length);
+            if (!Arrays.equals(magic, MAGIC) || in.read() != VERSION) {
+                throw new IOException("Not a version " + VERSION + " timetable payload");
+            }
+            int kind = in.read();
+            if (Arrays.stream(expected).noneMatch(k -> k.ordinal() == kind)) {
+                throw new IOException("Unexpected payload kind " + kind);
+            }
+            String[] strings = new String[(int) varint()];
+            for (int i = 0; i < strings.length; i++) {
+                int length = (int) varint();
+                byte[] bytes = in.readNBytes(length);
+                if (bytes.length != length) {
+                    throw new EOFException();
+                }
+                strings[i] = new String(bytes, StandardCharsets.UTF_8);
+            }
+            return strings;
+        }
+
+        long varint() throws IOException {
+            long value = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                int b = in.read();
+                if (b < 0) {
+                    throw new EOFException();
+                }
+                value |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+            throw new IOException("Malformed varint");
+        }
+
+        Long nullable() throws IOException {
+            long value = varint();
+            return value == 0 ? null : value - 1;
+        }
+
+        Long nullableSigned() throws IOException {
+            long value = varint();
+            return value == 0 ? null : unzigzag(value - 1);
+        }
+
+        String string(String[] strings) throws IOException {
+            long index = varint();
+            return index == 0 ? null : strings[(int) index - 1];
+        }
+
+        Long delta(long previous) throws IOException {
+            Long difference = nullableSigned();
+            return difference == null ? null : previous + difference;
+        }
+
+        List<Long> deltas() throws IOException {
+            Long count = nullable();
+            if (count == null) {
+                return null;
+            }
+            List<Long> values = new ArrayList<>(count.intValue());
+            long previous = 0;
+            for (int i = 0; i < count; i++) {
+                Long value = delta(previous);
+                previous = value == null ? previous : value;
+                values.add(value);
+            }
+            return values;
+        }
+
+        private static long unzigzag(long value) {
+            return (value >>> 1) ^ -(value & 1);
+        }
+    }
+}
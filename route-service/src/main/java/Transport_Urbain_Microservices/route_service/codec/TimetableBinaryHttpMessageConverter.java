@@ -0,0 +1,94 @@
+package Transport_Urbain_Microservices.route_service.codec;
+
+import Transport_Urbain_Microservices.route_service.dto.RouteDto;
+import Transport_Urbain_Microservices.route_service.dto.RunDetailsDto;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractGenericHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+
+import java.io.IOException;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.Collection;
+import java.util.List;
+
+// Writes runs and routes (single or as a list) in the compact timetable format when the client asks for it
+// with Accept: application/x-timetable. Registered after Jackson, so JSON stays the default.
+public class TimetableBinaryHttpMessageConverter extends AbstractGenericHttpMessageConverter<Object> {
+
+    public TimetableBinaryHttpMessageConverter() {
+        super(MediaType.parseMediaType(TimetableBinaryFormat.MEDIA_TYPE));
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return RunDetailsDto.class.equals(clazz) || RouteDto.class.equals(clazz);
+    }
+
+    @Override
+    public boolean canWrite(Type type, Class<?> clazz, MediaType mediaType) {
+        return kindOf(type != null ? type : clazz) != null && canWrite(mediaType);
+    }
+
+    // the element type of a list is only known to canWrite(Type, ...), which has already accepted it
+    @Override
+    public List<MediaType> getSupportedMediaTypes(Class<?> clazz) {
+        return supports(clazz) || Collection.class.isAssignableFrom(clazz) ? getSupportedMediaTypes() : List.of();
+    }
+
+    @Override
+    public boolean canRead(Type type, Class<?> contextClass, MediaType mediaType) {
+        return false;
+    }
+
+    @Override
+    public boolean canRead(Class<?> clazz, MediaType mediaType) {
+        return false;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    protected void writeInternal(Object body, Type type, HttpOutputMessage outputMessage) throws IOException {
+        TimetableBinaryFormat.Kind kind = kindOf(type != null ? type : body.getClass());
+        switch (kind) {
+            case RUN -> TimetableBinaryFormat.writeRuns(kind, List.of((RunDetailsDto) body), outputMessage.getBody());
+            case RUNS -> TimetableBinaryFormat.writeRuns(kind, List.copyOf((Collection<RunDetailsDto>) body), outputMessage.getBody());
+            case ROUTE -> TimetableBinaryFormat.writeRoutes(kind, List.of((RouteDto) body), outputMessage.getBody());
+            case ROUTES -> TimetableBinaryFormat.writeRoutes(kind, List.copyOf((Collection<RouteDto>) body), outputMessage.getBody());
+        }
+    }
+
+    @Override
+    public Object read(Type type, Class<?> contextClass, HttpInputMessage inputMessage) {
+        throw new HttpMessageNotReadableException("Timetable format is response only", inputMessage);
+    }
+
+    @Override
+    protected Object readInternal(Class<?> clazz, HttpInputMessage inputMessage) {
+        throw new HttpMessageNotReadableException("Timetable format is response only", inputMessage);
+    }
+
+    private static TimetableBinaryFormat.Kind kindOf(Type type) {
+        if (type == RunDetailsDto.class) {
+            return TimetableBinaryFormat.Kind.RUN;
+        }
+        if (type == RouteDto.class) {
+            return TimetableBinaryFormat.Kind.ROUTE;
+        }
+        if (type instanceof ParameterizedType parameterized
+                && parameterized.getRawType() instanceof Class<?> raw
+                && Collection.class.isAssignableFrom(raw)
+                && parameterized.getActualTypeArguments().length == 1) {
+            Type element = parameterized.getActualTypeArguments()[0];
+            if (element == RunDetailsDto.class) {
+                return TimetableBinaryFormat.Kind.RUNS;
+            }
+            if (element == RouteDto.class) {
+                return TimetableBinaryFormat.Kind.ROUTES;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,10 @@
+package Transport_Urbain_Microservices.route_service.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+// kept out of the application class so that slice tests do not start the scheduled jobs
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
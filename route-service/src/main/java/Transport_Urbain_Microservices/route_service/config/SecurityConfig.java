@@ -25,7 +25,7 @@ public class SecurityConfig {
     public SecurityFilterChain filterChain(HttpSecurity http) throws Exception {
         http
                 .authorizeHttpRequests(auth -> auth
-                        .requestMatchers(HttpMethod.GET,"/run/**","/stop/**","/route/**").permitAll()
+                        .requestMatchers(HttpMethod.GET,"/run/**","/stop/**","/route/**","/journey/**","/gtfs/**").permitAll()
                         .requestMatchers(HttpMethod.POST,"/run/**","/stop/**","/route/**").hasRole("ADMIN")
                         .requestMatchers(HttpMethod.PUT,"/run/**","/stop/**","/route/**").hasRole("ADMIN")
                         .requestMatchers(HttpMethod.PATCH,"/run/**","/stop/**","/route/**").hasRole("ADMIN")
@@ -0,0 +1,32 @@
+package Transport_Urbain_Microservices.route_service.config;
+
+import Transport_Urbain_Microservices.route_service.codec.TimetableBinaryHttpMessageConverter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.List;
+
+@Configuration
+@RequiredArgsConstructor
+public class WebConfig implements WebMvcConfigurer {
+
+    private final ConditionalGetInterceptor conditionalGetInterceptor;
+
+    @Override
+    public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+        // appended after Jackson: only used when the client explicitly accepts it
+        converters.add(new TimetableBinaryHttpMessageConverter());
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        // next departures default to the current time, so their answer changes without the data changing
+        // the GTFS feed also depends on the date, its controller tags it itself
+        registry.addInterceptor(conditionalGetInterceptor)
+                .addPathPatterns("/route/**", "/run/**", "/stop/**")
+                .excludePathPatterns("/run/stop/*/next");
+    }
+}
@@ -0,0 +1,40 @@
+package Transport_Urbain_Microservices.route_service.controller;
+
+import Transport_Urbain_Microservices.route_service.service.GtfsExportService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+
+import java.time.LocalDate;
+
+@RestController
+@RequestMapping("/gtfs")
+@RequiredArgsConstructor
+public class GtfsController {
+
+    private static final MediaType ZIP = MediaType.parseMediaType("application/zip");
+
+    private final GtfsExportService gtfsExportService;
+
+    // served as a file resource, so range requests are supported
+    // the feed starts on the current date, so its ETag also changes with the date
+    @GetMapping("/feed.zip")
+    public ResponseEntity<Resource> getFeed(WebRequest request) {
+        LocalDate today = LocalDate.now();
+        if (request.checkNotModified(gtfsExportService.etag(today))) {
+            return null;
+        }
+        return ResponseEntity.ok()
+                .contentType(ZIP)
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment().filename("gtfs.zip").build().toString())
+                .body(new FileSystemResource(gtfsExportService.currentFeed(today)));
+    }
+}
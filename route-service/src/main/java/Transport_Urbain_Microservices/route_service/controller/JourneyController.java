@@ -0,0 +1,27 @@
+package Transport_Urbain_Microservices.route_service.controller;
+
+import Transport_Urbain_Microservices.route_service.dto.JourneyDto;
+import Transport_Urbain_Microservices.route_service.service.JourneyService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@RestController
+@RequiredArgsConstructor
+@RequestMapping("/journey")
+public class JourneyController {
+
+    private final JourneyService journeyService;
+
+    @GetMapping
+    public ResponseEntity<List<JourneyDto>> planJourney(
+            @RequestParam Long from,
+            @RequestParam Long to,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime at) {
+        return ResponseEntity.ok(journeyService.planJourney(from, to, at != null ? at : LocalDateTime.now()));
+    }
+}
@@ -7,6 +7,7 @@ import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
 
@@ -17,6 +18,7 @@ import java.util.List;
 public class RouteController {
 
     private final RouteService routeService;
+    private final NdjsonResponse ndjsonResponse;
 
     @PostMapping
     public ResponseEntity<RouteDto> createRoute(@RequestBody RouteDto routeDto) {
@@ -53,6 +55,18 @@ public class RouteController {
         return ResponseEntity.ok(routeService.getAllRoutes());
     }
 
+    @GetMapping("/page")
+    public ResponseEntity<PageDto<RouteDto>> getRoutesPage(
+            @RequestParam(defaultValue = "0") long after,
+            @RequestParam(defaultValue = "100") int size) {
+        return ResponseEntity.ok(routeService.getRoutesPage(after, size));
+    }
+
+    @GetMapping(value = "/stream", produces = NdjsonResponse.NDJSON)
+    public ResponseEntity<StreamingResponseBody> streamRoutes() {
+        return ndjsonResponse.of(routeService::streamRoutes);
+    }
+
     @DeleteMapping("/{routeId}")
     public ResponseEntity<Boolean> deleteRoute(@PathVariable Long routeId) {
         return ResponseEntity.ok(routeService.deleteRouteById(routeId));
@@ -1,6 +1,8 @@
 package Transport_Urbain_Microservices.route_service.controller;
 
 import Transport_Urbain_Microservices.route_service.dto.CreateRunDTO;
+import Transport_Urbain_Microservices.route_service.dto.NextDepartureDto;
+import Transport_Urbain_Microservices.route_service.dto.PageDto;
 import Transport_Urbain_Microservices.route_service.dto.RunDetailsDto;
 import Transport_Urbain_Microservices.route_service.mapper.RunMapper;
 import Transport_Urbain_Microservices.route_service.service.RunService;
@@ -10,8 +12,10 @@ import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.List;
 
 @RestController
@@ -20,6 +24,7 @@ import java.util.List;
 public class RunController {
 
     private final RunService runService;
+    private final NdjsonResponse ndjsonResponse;
 
     @PostMapping("/create")
     public ResponseEntity<RunDetailsDto> createRun(@RequestBody CreateRunDTO dto) {
@@ -36,6 +41,18 @@ public class RunController {
         return ResponseEntity.ok(runService.getAllRuns());
     }
 
+    @GetMapping("/page")
+    public ResponseEntity<PageDto<RunDetailsDto>> getRunsPage(
+            @RequestParam(defaultValue = "0") long after,
+            @RequestParam(defaultValue = "100") int size) {
+        return ResponseEntity.ok(runService.getRunsPage(after, size));
+    }
+
+    @GetMapping(value = "/stream", produces = NdjsonResponse.NDJSON)
+    public ResponseEntity<StreamingResponseBody> streamRuns() {
+        return ndjsonResponse.of(runService::streamRuns);
+    }
+
     @GetMapping("/route/{routeId}")
     public ResponseEntity<List<RunDetailsDto>> getAllRunsForRoute(@PathVariable Long routeId) {
         return ResponseEntity.ok(runService.getAllRunsForRoute(routeId));
@@ -60,6 +77,15 @@ public class RunController {
         return ResponseEntity.ok(runService.getAllRunsForStopForGivenDay(stopId, givenDay));
     }
 
+    @GetMapping("/stop/{stopId}/next")
+    public ResponseEntity<List<NextDepartureDto>> getNextDeparturesForStop(
+            @PathVariable Long stopId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime at,
+            @RequestParam(defaultValue = "5") int limit) {
+        return ResponseEntity.ok(runService.getNextDeparturesForStop(
+                stopId, at != null ? at : LocalDateTime.now(), limit));
+    }
+
     @DeleteMapping("/delete/{id}")
     public ResponseEntity<Void> deleteRun(@PathVariable Long id) {
         runService.deleteRunById(id);
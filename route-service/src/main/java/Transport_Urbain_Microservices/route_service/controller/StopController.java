@@ -1,10 +1,13 @@
 package Transport_Urbain_Microservices.route_service.controller;
 
+import Transport_Urbain_Microservices.route_service.dto.NearbyStopDto;
+import Transport_Urbain_Microservices.route_service.dto.PageDto;
 import Transport_Urbain_Microservices.route_service.dto.StopDto;
 import Transport_Urbain_Microservices.route_service.service.StopService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
 
@@ -14,6 +17,7 @@ import java.util.List;
 public class StopController {
 
     private final StopService stopService;
+    private final NdjsonResponse ndjsonResponse;
 
     @PostMapping
     public ResponseEntity<StopDto> createStop(@RequestBody StopDto stopDto) {
@@ -35,6 +39,27 @@ public class StopController {
         return ResponseEntity.ok(stopService.getAllStops());
     }
 
+    @GetMapping("/page")
+    public ResponseEntity<PageDto<StopDto>> getStopsPage(
+            @RequestParam(defaultValue = "0") long after,
+            @RequestParam(defaultValue = "100") int size) {
+        return ResponseEntity.ok(stopService.getStopsPage(after, size));
+    }
+
+    @GetMapping(value = "/stream", produces = NdjsonResponse.NDJSON)
+    public ResponseEntity<StreamingResponseBody> streamStops() {
+        return ndjsonResponse.of(stopService::streamStops);
+    }
+
+    @GetMapping("/nearby")
+    public ResponseEntity<List<NearbyStopDto>> getNearbyStops(
+            @RequestParam double lat,
+            @RequestParam double lon,
+            @RequestParam(defaultValue = "500") int radius,
+            @RequestParam(defaultValue = "10") int limit) {
+        return ResponseEntity.ok(stopService.getNearbyStops(lat, lon, radius, limit));
+    }
+
     @DeleteMapping("/{id}")
     public ResponseEntity<Void> deleteStop(@PathVariable Long id) {
         stopService.deleteStopById(id);
@@ -0,0 +1,110 @@
+package Transport_Urbain_Microservices.route_service.dataloader;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Reads a GTFS CSV file one record at a time (RFC 4180 quoting, LF or CRLF line ends, optional BOM).
+// Columns are looked up by their header name, since GTFS only fixes the names, not the order.
+final class GtfsCsvReader implements Closeable {
+
+    private final Reader in;
+    private final char[] buffer = new char[64 * 1024];
+    private int position;
+    private int length;
+
+    private final Map<String, Integer> columns = new HashMap<>();
+    private final List<String> fields = new ArrayList<>();
+    private final StringBuilder field = new StringBuilder();
+
+    GtfsCsvReader(InputStream is) throws IOException {
+        this.in = new InputStreamReader(is, StandardCharsets.UTF_8);
+        if (readRecord()) {
+            for (int i = 0; i < fields.size(); i++) {
+                String name = fields.get(i).trim();
+                if (i == 0 && name.startsWith("\uFEFF")) {
+                    name = name.substring(1);
+                }
+                columns.put(name, i);
+            }
+        }
+    }
+
+    // Moves to the next record, skipping blank lines. Returns false at the end of the file.
+    boolean next() throws IOException {
+        while (readRecord()) {
+            if (fields.size() > 1 || !fields.getFirst().isBlank()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Value of the column in the current record, null when the column is missing or the value empty.
+    String get(String column) {
+        Integer index = columns.get(column);
+        if (index == null || index >= fields.size()) {
+            return null;
+        }
+        String value = fields.get(index).trim();
+        return value.isEmpty() ? null : value;
+    }
+
+    private boolean readRecord() throws IOException {
+        fields.clear();
+        field.setLength(0);
+        int c = read();
+        if (c == -1) {
+            return false;
+        }
+        boolean quoted = false;
+        while (true) {
+            if (quoted) {
+                if (c == -1) {
+                    break;
+                }
+                if (c == '"') {
+                    int next = read();
+                    if (next != '"') {
+                        quoted = false;
+                        c = next;
+                        continue;
+                    }
+                }
+                field.append((char) c);
+            } else if (c == -1 || c == '\n') {
+                break;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else if (c == '"' && field.isEmpty()) {
+                quoted = true;
+            } else if (c != '\r') {
+                field.append((char) c);
+            }
+            c = read();
+        }
+        fields.add(field.toString());
+        return true;
+    }
+
+    private int read() throws IOException {
+        if (position == length) {
+            length = in.read(buffer);
+            position = 0;
+            if (length <= 0) {
+                length = 0;
+                return -1;
+            }
+        }
+        return buffer[position++];
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+}
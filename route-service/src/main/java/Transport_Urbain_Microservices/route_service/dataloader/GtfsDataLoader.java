@@ -0,0 +1,568 @@
+package Transport_Urbain_Microservices.route_service.dataloader;
+
+import Transport_Urbain_Microservices.route_service.entity.Route;
+import Transport_Urbain_Microservices.route_service.entity.RouteStatus;
+import Transport_Urbain_Microservices.route_service.entity.ScheduleType;
+import Transport_Urbain_Microservices.route_service.entity.SpecialDay;
+import Transport_Urbain_Microservices.route_service.entity.Stop;
+import Transport_Urbain_Microservices.route_service.repo.GtfsImportRepo;
+import Transport_Urbain_Microservices.route_service.repo.GtfsImportRepo.RunRow;
+import Transport_Urbain_Microservices.route_service.repo.OsmImportRepo;
+import Transport_Urbain_Microservices.route_service.repo.OsmImportRepo.RouteStopRow;
+import Transport_Urbain_Microservices.route_service.repo.ScheduleImportRepo.OffsetRow;
+import Transport_Urbain_Microservices.route_service.repo.SpecialDayRepo;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.core.annotation.Order;
+import org.springframework.core.io.Resource;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.format.DateTimeFormatter;
+import java.util.*;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+// Imports a GTFS feed, for networks planned in GTFS rather than in the OSM and schedule files. Only runs when
+// app.gtfs-file is set, at startup and again when a service of the feed starts or ends. The small files (stops,
+// routes, calendars, trips) are read into lookups first; stop_times.txt, which can hold millions of rows, is
+// streamed trip by trip and written with JDBC batches committed every batchSize runs, so memory does not grow
+// with the number of stop times.
+// Each stop pattern of a GTFS route and direction becomes one route: its stops and offsets come from the first
+// trip stopping at those stops, and every such trip becomes runs on the days its service operates. Routes
+// already imported from an earlier feed keep their row; their stops, offsets and runs are replaced.
+@Component
+@Order(2)
+public class GtfsDataLoader implements ApplicationRunner {
+
+    private static final DateTimeFormatter GTFS_DATE = DateTimeFormatter.BASIC_ISO_DATE;
+
+    @Value("${app.gtfs-file:#{null}}")
+    private Resource gtfsFile;
+
+    @Value("${app.import.batch-size:1000}")
+    private int batchSize;
+
+    private final GtfsImportRepo gtfsImportRepo;
+    private final OsmImportRepo osmImportRepo;
+    private final SpecialDayRepo specialDayRepo;
+    private final ImportGuard importGuard;
+    private final TransactionTemplate transactionTemplate;
+
+    public GtfsDataLoader(GtfsImportRepo gtfsImportRepo,
+                          OsmImportRepo osmImportRepo,
+                          SpecialDayRepo specialDayRepo,
+                          ImportGuard importGuard,
+                          PlatformTransactionManager transactionManager) {
+        this.gtfsImportRepo = gtfsImportRepo;
+        this.osmImportRepo = osmImportRepo;
+        this.specialDayRepo = specialDayRepo;
+        this.importGuard = importGuard;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    private record GtfsRoute(String shortName, String longName, String description) {
+    }
+
+    private record Trip(String routeKey, String serviceId, String headsign) {
+    }
+
+    private record StopTime(int sequence, String stopId, int arrival, int departure) {
+    }
+
+    @Override
+    public void run(ApplicationArguments args) throws Exception {
+        importFeed(LocalDate.now());
+    }
+
+    // The regular runs are those of the services running on the import date, so the feed is checked every day
+    // and imported again once a service has started or ended.
+    @Scheduled(cron = "${app.gtfs.check-cron:0 5 0 * * *}")
+    public void checkServicePeriod() throws Exception {
+        importFeed(LocalDate.now());
+    }
+
+    boolean importFeed(LocalDate today) throws Exception {
+        if (gtfsFile == null) {
+            return false;
+        }
+        // the zip is read entry by entry in a fixed order, which needs random access to a file
+        Path zipPath = gtfsFile.isFile() ? gtfsFile.getFile().toPath() : null;
+        boolean copied = zipPath == null;
+        if (copied) {
+            zipPath = Files.createTempFile("gtfs-", ".zip");
+            try (InputStream is = gtfsFile.getInputStream()) {
+                Files.copy(is, zipPath, StandardCopyOption.REPLACE_EXISTING);
+            }
+        }
+        try (ZipFile zip = new ZipFile(zipPath.toFile())) {
+            ServiceCalendar calendar = readCalendar(zip, today);
+            String period = "services until " + calendar.nextBoundary().map(LocalDate::toString).orElse("the end");
+            return importGuard.runIfChanged("gtfs", List.of(gtfsFile), period, () -> importFile(zip, calendar));
+        } finally {
+            if (copied) {
+                Files.deleteIfExists(zipPath);
+            }
+        }
+    }
+
+    private boolean importFile(ZipFile zip, ServiceCalendar calendar) throws IOException {
+        long start = System.currentTimeMillis();
+        Map<String, Long> stopIds = importStops(zip);
+        Map<String, GtfsRoute> routes = readRoutes(zip);
+        Map<String, Trip> trips = readTrips(zip, routes);
+        calendar.resolve(trips.values().stream().map(Trip::serviceId).collect(Collectors.toSet()));
+        importSpecialDays(calendar.specialDates());
+
+        StopTimesWriter writer = new StopTimesWriter(trips, routes, stopIds, calendar);
+        writer.importStopTimes(zip);
+
+        long millis = Math.max(System.currentTimeMillis() - start, 1);
+        System.out.println("GTFS import finished. Stops: " + stopIds.size() + ", routes: " + writer.routeIds.size()
+                + ", trips: " + writer.trips + " (" + writer.skippedTrips + " skipped), runs: " + writer.runs
+                + ", stop times: " + writer.stopTimes + " in " + millis + " ms ("
+                + (writer.stopTimes * 1000L / millis) + " stop times/s)");
+        return true;
+    }
+
+    private GtfsCsvReader open(ZipFile zip, String name) throws IOException {
+        ZipEntry entry = zip.getEntry(name);
+        if (entry == null) {
+            return null;
+        }
+        return new GtfsCsvReader(zip.getInputStream(entry));
+    }
+
+    // New stops are inserted, the ones already imported are kept as they are.
+    private Map<String, Long> importStops(ZipFile zip) throws IOException {
+        Map<String, Long> stopIds = gtfsImportRepo.findStopIdsByGtfsId();
+        Set<String> seen = new HashSet<>();
+        List<Stop> pending = new ArrayList<>();
+        try (GtfsCsvReader csv = require(zip, "stops.txt")) {
+            while (csv.next()) {
+                String gtfsId = csv.get("stop_id");
+                // stations and entrances (location_type 1 to 4) are not served by runs
+                String locationType = csv.get("location_type");
+                if (gtfsId == null || stopIds.containsKey(gtfsId) || !seen.add(gtfsId)
+                        || (locationType != null && !"0".equals(locationType))) {
+                    continue;
+                }
+                Stop stop = new Stop();
+                stop.setGtfsId(gtfsId);
+                String name = csv.get("stop_name");
+                stop.setName(name != null ? name : "stop-" + gtfsId);
+                stop.setLat(Double.parseDouble(csv.get("stop_lat")));
+                stop.setLon(Double.parseDouble(csv.get("stop_lon")));
+                stop.setAddress(csv.get("stop_desc"));
+                pending.add(stop);
+                if (pending.size() >= batchSize) {
+                    write(pending, gtfsImportRepo::insertStops);
+                    pending.clear();
+                }
+            }
+        }
+        write(pending, gtfsImportRepo::insertStops);
+        return seen.isEmpty() ? stopIds : gtfsImportRepo.findStopIdsByGtfsId();
+    }
+
+    // Bus routes only, as for the OSM import (route_type 3, or 700 to 799 in the extended types).
+    private Map<String, GtfsRoute> readRoutes(ZipFile zip) throws IOException {
+        Map<String, GtfsRoute> routes = new HashMap<>();
+        try (GtfsCsvReader csv = require(zip, "routes.txt")) {
+            while (csv.next()) {
+                String type = csv.get("route_type");
+                int routeType = type != null ? Integer.parseInt(type) : -1;
+                if (routeType != 3 && (routeType < 700 || routeType > 799)) {
+                    continue;
+                }
+                routes.put(csv.get("route_id"),
+                        new GtfsRoute(csv.get("route_short_name"), csv.get("route_long_name"), csv.get("route_desc")));
+            }
+        }
+        return routes;
+    }
+
+    private ServiceCalendar readCalendar(ZipFile zip, LocalDate today) throws IOException {
+        ServiceCalendar calendar = new ServiceCalendar(today);
+        try (GtfsCsvReader csv = open(zip, "calendar.txt")) {
+            while (csv != null && csv.next()) {
+                int days = 0;
+                for (DayOfWeek day : DayOfWeek.values()) {
+                    if ("1".equals(csv.get(day.name().toLowerCase()))) {
+                        days |= 1 << day.getValue();
+                    }
+                }
+                calendar.addService(csv.get("service_id"), days,
+                        LocalDate.parse(csv.get("start_date"), GTFS_DATE), LocalDate.parse(csv.get("end_date"), GTFS_DATE));
+            }
+        }
+        try (GtfsCsvReader csv = open(zip, "calendar_dates.txt")) {
+            while (csv != null && csv.next()) {
+                calendar.addException(csv.get("service_id"), LocalDate.parse(csv.get("date"), GTFS_DATE),
+                        "1".equals(csv.get("exception_type")));
+            }
+        }
+        return calendar;
+    }
+
+    private Map<String, Trip> readTrips(ZipFile zip, Map<String, GtfsRoute> routes) throws IOException {
+        Map<String, Trip> trips = new HashMap<>();
+        try (GtfsCsvReader csv = require(zip, "trips.txt")) {
+            while (csv.next()) {
+                String routeId = csv.get("route_id");
+                if (!routes.containsKey(routeId)) {
+                    continue;
+                }
+                String direction = csv.get("direction_id");
+                trips.put(csv.get("trip_id"), new Trip(routeId + ":" + (direction != null ? direction : "0"),
+                        csv.get("service_id"), csv.get("trip_headsign")));
+            }
+        }
+        return trips;
+    }
+
+    // Special days apply to every route, so the routes of the OSM and schedule files get their regular runs of
+    // the day as special runs on the dates that become special here. Dates already special keep what they have.
+    private void importSpecialDays(Set<LocalDate> dates) {
+        List<SpecialDay> missing = new ArrayList<>();
+        Set<LocalDate> known = new HashSet<>();
+        specialDayRepo.findAllById(dates).forEach(day -> known.add(day.getDate()));
+        for (LocalDate date : dates) {
+            if (!known.contains(date)) {
+                missing.add(new SpecialDay(date));
+            }
+        }
+        transactionTemplate.executeWithoutResult(status -> {
+            specialDayRepo.saveAll(missing);
+            for (SpecialDay day : missing) {
+                gtfsImportRepo.copyRegularRunsOfOtherRoutes(day.getDate());
+            }
+        });
+    }
+
+    private GtfsCsvReader require(ZipFile zip, String name) throws IOException {
+        GtfsCsvReader csv = open(zip, name);
+        if (csv == null) {
+            throw new IllegalStateException("GTFS feed has no " + name);
+        }
+        return csv;
+    }
+
+    private <T> void write(List<T> rows, Consumer<List<T>> writer) {
+        for (int from = 0; from < rows.size(); from += batchSize) {
+            List<T> chunk = rows.subList(from, Math.min(from + batchSize, rows.size()));
+            transactionTemplate.executeWithoutResult(status -> writer.accept(chunk));
+        }
+    }
+
+    // Services as the timetable understands them: regular days of week of the services running today, and
+    // special days on which only the special runs operate. A date on which calendar_dates adds a service used
+    // by an imported trip becomes a special day, and so does the day after, where that service day's trips
+    // past midnight run. On a special day every trip whose service operates on its service day, added or from
+    // calendar.txt and not removed, gets a special run. Removals on other dates cannot be expressed per service
+    // and are ignored.
+    private static final class ServiceCalendar {
+
+        private final LocalDate today;
+        private final Map<String, Integer> days = new HashMap<>();
+        private final Map<String, LocalDate[]> ranges = new HashMap<>();
+        private final Map<LocalDate, Set<String>> added = new HashMap<>();
+        private final Map<LocalDate, Set<String>> removed = new HashMap<>();
+        private final Set<LocalDate> specialDates = new TreeSet<>();
+
+        ServiceCalendar(LocalDate today) {
+            this.today = today;
+        }
+
+        void addService(String serviceId, int dayMask, LocalDate start, LocalDate end) {
+            days.put(serviceId, dayMask);
+            ranges.put(serviceId, new LocalDate[]{start, end});
+        }
+
+        void addException(String serviceId, LocalDate date, boolean add) {
+            if (date.isBefore(today)) {
+                return;
+            }
+            (add ? added : removed).computeIfAbsent(date, d -> new HashSet<>()).add(serviceId);
+        }
+
+        void resolve(Set<String> usedServices) {
+            added.forEach((date, services) -> {
+                // services added for other modes or without trips leave the day as it is
+                if (!Collections.disjoint(services, usedServices)) {
+                    specialDates.add(date);
+                    specialDates.add(date.plusDays(1));
+                }
+            });
+            for (String serviceId : usedServices) {
+                LocalDate[] range = ranges.get(serviceId);
+                if (range != null && range[0].isAfter(today)) {
+                    System.out.println("Service " + serviceId + " starts on " + range[0]
+                            + ", its regular runs are added when the feed is imported again on that date");
+                }
+            }
+        }
+
+        // First date after today on which a service starts, or stops after its end date: the regular runs of
+        // an import made from then on differ.
+        Optional<LocalDate> nextBoundary() {
+            LocalDate next = null;
+            for (LocalDate[] range : ranges.values()) {
+                for (LocalDate boundary : new LocalDate[]{range[0], range[1].plusDays(1)}) {
+                    if (boundary.isAfter(today) && (next == null || boundary.isBefore(next))) {
+                        next = boundary;
+                    }
+                }
+            }
+            return Optional.ofNullable(next);
+        }
+
+        Set<LocalDate> specialDates() {
+            return specialDates;
+        }
+
+        // Days of week (bit n for ISO day n) of a service running today. Regular runs are not dated, so
+        // a service of another period (next season's timetable) would run on top of the current one; it is
+        // imported at the next boundary instead.
+        int regularDays(String serviceId) {
+            LocalDate[] range = ranges.get(serviceId);
+            return range == null || today.isBefore(range[0]) || today.isAfter(range[1]) ? 0 : days.get(serviceId);
+        }
+
+        boolean operates(String serviceId, LocalDate date) {
+            if (added.getOrDefault(date, Set.of()).contains(serviceId)) {
+                return true;
+            }
+            if (removed.getOrDefault(date, Set.of()).contains(serviceId)) {
+                return false;
+            }
+            LocalDate[] range = ranges.get(serviceId);
+            return range != null && (days.get(serviceId) & (1 << date.getDayOfWeek().getValue())) != 0
+                    && !date.isBefore(range[0]) && !date.isAfter(range[1]);
+        }
+    }
+
+    // Streams stop_times.txt, which GTFS producers write grouped by trip, and turns each trip into runs.
+    private final class StopTimesWriter {
+
+        private final Map<String, Trip> tripsById;
+        private final Map<String, GtfsRoute> gtfsRoutes;
+        private final Map<String, Long> stopIds;
+        private final ServiceCalendar calendar;
+
+        // routes of earlier imports, and the routes of this one by GTFS route, direction and stop pattern
+        private final Map<String, Long> existingRouteIds;
+        private final Map<String, Long> routeIds = new HashMap<>();
+        private final Map<String, Integer> runNums = new HashMap<>();
+        private final Set<String> done = new HashSet<>();
+
+        private final List<Long> replacedRoutes = new ArrayList<>();
+        private final List<RouteStopRow> routeStops = new ArrayList<>();
+        private final List<OffsetRow> offsets = new ArrayList<>();
+        private final List<RunRow> pendingRuns = new ArrayList<>();
+
+        long trips;
+        long skippedTrips;
+        long runs;
+        long stopTimes;
+
+        StopTimesWriter(Map<String, Trip> tripsById, Map<String, GtfsRoute> gtfsRoutes, Map<String, Long> stopIds,
+                        ServiceCalendar calendar) {
+            this.tripsById = tripsById;
+            this.gtfsRoutes = gtfsRoutes;
+            this.stopIds = stopIds;
+            this.calendar = calendar;
+            this.existingRouteIds = gtfsImportRepo.findRouteIdsByGtfsId();
+        }
+
+        void importStopTimes(ZipFile zip) throws IOException {
+            String currentTrip = null;
+            List<StopTime> rows = new ArrayList<>();
+            try (GtfsCsvReader csv = require(zip, "stop_times.txt")) {
+                while (csv.next()) {
+                    String tripId = csv.get("trip_id");
+                    if (!tripId.equals(currentTrip)) {
+                        if (currentTrip != null) {
+                            trip(currentTrip, rows);
+                        }
+                        if (!done.add(tripId)) {
+                            throw new IllegalStateException("stop_times.txt is not grouped by trip: trip "
+                                    + tripId + " appears again after other trips");
+                        }
+                        currentTrip = tripId;
+                        rows.clear();
+                    }
+                    stopTimes++;
+                    rows.add(new StopTime(Integer.parseInt(csv.get("stop_sequence")), csv.get("stop_id"),
+                            seconds(csv.get("arrival_time")), seconds(csv.get("departure_time"))));
+                }
+            }
+            if (currentTrip != null) {
+                trip(currentTrip, rows);
+            }
+            flush();
+        }
+
+        private void trip(String tripId, List<StopTime> rows) {
+            trips++;
+            Trip trip = tripsById.get(tripId);
+            if (trip == null) {
+                skippedTrips++;
+                return;
+            }
+            rows.sort(Comparator.comparingInt(StopTime::sequence));
+            long[] stops = new long[rows.size()];
+            int[] times = new int[rows.size()];
+            int previous = -1;
+            for (int i = 0; i < rows.size(); i++) {
+                StopTime row = rows.get(i);
+                Long stopId = stopIds.get(row.stopId());
+                if (stopId == null) {
+                    skippedTrips++;
+                    return;
+                }
+                stops[i] = stopId;
+                // stops without times (not timepoints) take the time of the stop before
+                int time = row.arrival() >= 0 ? row.arrival() : row.departure() >= 0 ? row.departure() : previous;
+                times[i] = time;
+                previous = row.departure() >= 0 ? row.departure() : time;
+            }
+            int first = rows.getFirst().departure() >= 0 ? rows.getFirst().departure() : times[0];
+            if (first < 0) {
+                skippedTrips++;
+                return;
+            }
+
+            String routeKey = trip.routeKey() + ":" + patternKey(rows);
+            Long knownRouteId = routeIds.get(routeKey);
+            long routeId = knownRouteId != null ? knownRouteId : route(routeKey, trip);
+            if (knownRouteId == null) {
+                // a stop served twice keeps its last position, one row per (route, stop)
+                Map<Long, Integer> orderByStop = new LinkedHashMap<>();
+                Map<Long, Integer> minutesByStop = new HashMap<>();
+                for (int i = 0; i < stops.length; i++) {
+                    orderByStop.put(stops[i], i + 1);
+                    minutesByStop.put(stops[i], (times[i] - first) / 60);
+                }
+                orderByStop.forEach((stopId, order) -> {
+                    routeStops.add(new RouteStopRow(routeId, stopId, order));
+                    offsets.add(new OffsetRow(routeId, stopId, minutesByStop.get(stopId)));
+                });
+            }
+
+            // a trip starting after midnight of its service day runs on the next day
+            int dayShift = first / 86_400;
+            LocalTime startTime = LocalTime.ofSecondOfDay(first % 86_400 / 60 * 60);
+            int regularDays = calendar.regularDays(trip.serviceId());
+            for (int day = 1; day <= 7; day++) {
+                if ((regularDays & (1 << day)) != 0) {
+                    int runDay = (day - 1 + dayShift) % 7 + 1;
+                    addRun(new RunRow(routeId, trip.headsign(), ScheduleType.REGULAR, runDay, null,
+                            nextRunNum(routeId + "/" + runDay), startTime));
+                }
+            }
+            for (LocalDate runDate : calendar.specialDates()) {
+                // the trip's service day starts dayShift days before the date it runs on
+                if (calendar.operates(trip.serviceId(), runDate.minusDays(dayShift))) {
+                    addRun(new RunRow(routeId, trip.headsign(), ScheduleType.SPECIAL, null, runDate,
+                            nextRunNum(routeId + "/" + runDate), startTime));
+                }
+            }
+        }
+
+        // The route of a stop pattern seen for the first time: the one of an earlier import, emptied before the
+        // rows of this import are written, or a new one.
+        private long route(String routeKey, Trip trip) {
+            Long routeId = existingRouteIds.get(routeKey);
+            if (routeId != null) {
+                replacedRoutes.add(routeId);
+            } else {
+                GtfsRoute gtfsRoute = gtfsRoutes.get(trip.routeKey().substring(0, trip.routeKey().lastIndexOf(':')));
+                Route route = new Route();
+                route.setGtfsId(routeKey);
+                route.setNum(gtfsRoute.shortName() != null ? gtfsRoute.shortName() : gtfsRoute.longName());
+                route.setName(gtfsRoute.longName() != null ? gtfsRoute.longName() : route.getNum());
+                route.setDescription(gtfsRoute.description() != null ? gtfsRoute.description()
+                        : trip.headsign() != null ? "To " + trip.headsign() : null);
+                route.setStatus(RouteStatus.ACTIVE);
+                routeId = transactionTemplate.execute(status -> gtfsImportRepo.insertRoute(route));
+            }
+            routeIds.put(routeKey, routeId);
+            return routeId;
+        }
+
+        // The GTFS stop ids in order, hashed so that the key stays short and the same in every feed.
+        private String patternKey(List<StopTime> rows) {
+            MessageDigest digest;
+            try {
+                digest = MessageDigest.getInstance("SHA-256");
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException(e);
+            }
+            for (StopTime row : rows) {
+                digest.update(row.stopId().getBytes(StandardCharsets.UTF_8));
+                digest.update((byte) 0);
+            }
+            return HexFormat.of().formatHex(digest.digest(), 0, 8);
+        }
+
+        // runs are numbered per route and day in feed order
+        private int nextRunNum(String key) {
+            return runNums.merge(key, 1, Integer::sum);
+        }
+
+        private void addRun(RunRow run) {
+            pendingRuns.add(run);
+            runs++;
+            if (pendingRuns.size() >= batchSize) {
+                flush();
+            }
+        }
+
+        private void flush() {
+            transactionTemplate.executeWithoutResult(status -> {
+                // before the rows that replace their content
+                gtfsImportRepo.deleteRouteContent(replacedRoutes);
+                if (!routeStops.isEmpty()) {
+                    osmImportRepo.insertRouteStops(routeStops);
+                    gtfsImportRepo.insertOffsets(offsets);
+                }
+                if (!pendingRuns.isEmpty()) {
+                    gtfsImportRepo.insertRuns(pendingRuns);
+                }
+            });
+            replacedRoutes.clear();
+            routeStops.clear();
+            offsets.clear();
+            pendingRuns.clear();
+        }
+
+        // GTFS times are H:MM:SS and may go past 24:00:00; -1 when empty
+        private int seconds(String time) {
+            if (time == null) {
+                return -1;
+            }
+            int first = time.indexOf(':');
+            int second = time.indexOf(':', first + 1);
+            return Integer.parseInt(time, 0, first, 10) * 3600
+                    + Integer.parseInt(time, first + 1, second, 10) * 60
+                    + Integer.parseInt(time, second + 1, time.length(), 10);
+        }
+    }
+}
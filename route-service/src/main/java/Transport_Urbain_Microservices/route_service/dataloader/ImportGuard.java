@@ -0,0 +1,110 @@
+package Transport_Urbain_Microservices.route_service.dataloader;
+
+import Transport_Urbain_Microservices.route_service.entity.ImportLedger;
+import Transport_Urbain_Microservices.route_service.repo.ImportLedgerRepo;
+import Transport_Urbain_Microservices.route_service.timetable.TimetableSync;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.List;
+
+// Runs a startup import only when its input files changed since the last successful run.
+// On Postgres the import is serialized across replicas with an advisory lock: the first replica imports,
+// the others wait for the lock, then find the new checksum in the ledger and skip.
+@Component
+@RequiredArgsConstructor
+public class ImportGuard {
+
+    private final ImportLedgerRepo importLedgerRepo;
+    private final DataSource dataSource;
+    private final ObjectProvider<TimetableSync> timetableSync;
+
+    // Returns false when part of the import failed, so that it is not recorded and runs again next time.
+    @FunctionalInterface
+    public interface ImportTask {
+        boolean run() throws Exception;
+    }
+
+    public boolean runIfChanged(String name, List<Resource> files, ImportTask task) throws Exception {
+        return runIfChanged(name, files, null, task);
+    }
+
+    // For an import whose result also depends on the date: it runs again when the period changes.
+    public boolean runIfChanged(String name, List<Resource> files, String period, ImportTask task) throws Exception {
+        String checksum = checksum(files, period);
+        if (isUpToDate(name, checksum)) {
+            System.out.println("Import '" + name + "' skipped, files unchanged (" + checksum + ")");
+            return false;
+        }
+        // the lock belongs to this connection, which is kept apart from the ones the import uses
+        try (Connection lockConnection = dataSource.getConnection()) {
+            boolean postgres = "PostgreSQL".equals(lockConnection.getMetaData().getDatabaseProductName());
+            long lockKey = ("route-service:import:" + name).hashCode();
+            if (postgres) {
+                advisoryLock(lockConnection, "select pg_advisory_lock(?)", lockKey);
+            }
+            try {
+                if (isUpToDate(name, checksum)) {
+                    System.out.println("Import '" + name + "' skipped, done by another instance (" + checksum + ")");
+                    return false;
+                }
+                if (!task.run()) {
+                    System.out.println("Import '" + name + "' incomplete, it will run again on next start");
+                    return false;
+                }
+                importLedgerRepo.save(new ImportLedger(name, checksum, LocalDateTime.now()));
+                timetableSync.ifAvailable(TimetableSync::onImported);
+                return true;
+            } finally {
+                if (postgres) {
+                    advisoryLock(lockConnection, "select pg_advisory_unlock(?)", lockKey);
+                }
+            }
+        }
+    }
+
+    private boolean isUpToDate(String name, String checksum) {
+        return importLedgerRepo.findById(name)
+                .map(ledger -> ledger.getChecksum().equals(checksum))
+                .orElse(false);
+    }
+
+    private void advisoryLock(Connection connection, String sql, long key) throws Exception {
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            statement.setLong(1, key);
+            statement.execute();
+        }
+    }
+
+    static String checksum(List<Resource> files) throws Exception {
+        return checksum(files, null);
+    }
+
+    // SHA-256 over the files in the given order, then the period if there is one
+    static String checksum(List<Resource> files, String period) throws Exception {
+        MessageDigest digest = MessageDigest.getInstance("SHA-256");
+        byte[] buffer = new byte[64 * 1024];
+        for (Resource file : files) {
+            try (InputStream is = file.getInputStream()) {
+                int read;
+                while ((read = is.read(buffer)) != -1) {
+                    digest.update(buffer, 0, read);
+                }
+            }
+        }
+        if (period != null) {
+            digest.update(period.getBytes(StandardCharsets.UTF_8));
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+}
@@ -0,0 +1,30 @@
+package Transport_Urbain_Microservices.route_service.dataloader;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.IOException;
+
+// Helpers for reading the import files with a streaming parser instead of a full JsonNode tree.
+final class JsonStreams {
+
+    private JsonStreams() {
+    }
+
+    // Moves a fresh parser to the value of the given top-level field, skipping the other fields without
+    // building them. Returns the value's first token, or null when the document has no such field.
+    static JsonToken moveToField(JsonParser parser, String fieldName) throws IOException {
+        if (parser.nextToken() != JsonToken.START_OBJECT) {
+            return null;
+        }
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String name = parser.currentName();
+            JsonToken value = parser.nextToken();
+            if (fieldName.equals(name)) {
+                return value;
+            }
+            parser.skipChildren();
+        }
+        return null;
+    }
+}
@@ -1,139 +1,192 @@
 package Transport_Urbain_Microservices.route_service.dataloader;
 
 import Transport_Urbain_Microservices.route_service.entity.Route;
-import Transport_Urbain_Microservices.route_service.entity.RouteStop;
 import Transport_Urbain_Microservices.route_service.entity.Stop;
-import Transport_Urbain_Microservices.route_service.repo.RouteRepo;
-import Transport_Urbain_Microservices.route_service.repo.RouteStopRepo;
-import Transport_Urbain_Microservices.route_service.repo.StopRepo;
+import Transport_Urbain_Microservices.route_service.repo.OsmImportRepo;
+import Transport_Urbain_Microservices.route_service.repo.OsmImportRepo.RouteStopRow;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.ApplicationArguments;
 import org.springframework.boot.ApplicationRunner;
 import org.springframework.core.annotation.Order;
 import org.springframework.core.io.Resource;
 import org.springframework.stereotype.Component;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.io.InputStream;
-import java.util.HashMap;
-import java.util.Iterator;
-import java.util.Map;
-import java.util.Optional;
+import java.util.*;
+import java.util.function.Consumer;
 
+// Bulk import: existing osm ids are prefetched once, new rows are written with JDBC batch inserts
+// and committed every batchSize rows instead of in one transaction for the whole file.
+// The file is streamed element by element; only the member lists of new routes are kept until the end.
 @Component
-@RequiredArgsConstructor
 @Order(1)
 public class OsmDataLoader implements ApplicationRunner {
 
     @Value("${app.osm-file:classpath:osm-data.json}")
     private Resource osmFile; // configurable path
 
+    @Value("${app.import.batch-size:1000}")
+    private int batchSize;
+
     private final ObjectMapper objectMapper = new ObjectMapper();
 
-    private final StopRepo stopRepo;
-    private final RouteRepo routeRepo;
-    private final RouteStopRepo routeStopRepo;
+    private final OsmImportRepo osmImportRepo;
+    private final ImportGuard importGuard;
+    private final TransactionTemplate transactionTemplate;
 
+    public OsmDataLoader(OsmImportRepo osmImportRepo,
+                         ImportGuard importGuard,
+                         PlatformTransactionManager transactionManager) {
+        this.osmImportRepo = osmImportRepo;
+        this.importGuard = importGuard;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
 
     @Override
-    @Transactional
     public void run(ApplicationArguments args) throws Exception {
-        try (InputStream is = osmFile.getInputStream()) {
-            JsonNode root = objectMapper.readTree(is);
-            JsonNode elements = root.get("elements");
-            if (elements == null || !elements.isArray()) {
+        importGuard.runIfChanged("osm", List.of(osmFile), this::importFile);
+    }
+
+    private boolean importFile() throws Exception {
+        long start = System.currentTimeMillis();
+        Map<Long, Long> stopIdByOsmId = osmImportRepo.findStopIdsByOsmId();
+        Map<Long, Long> routeIdByOsmId = osmImportRepo.findRouteIdsByOsmId();
+        Set<Long> newNodes = new HashSet<>();
+        List<Stop> pendingStops = new ArrayList<>();
+        // new bus routes with the osm ids of their member nodes, resolved once every node has been read
+        Map<Long, PendingRoute> newRoutes = new LinkedHashMap<>();
+
+        // 1) read the elements one at a time: new nodes are inserted as they come, new relations are kept
+        try (InputStream is = osmFile.getInputStream();
+             JsonParser parser = objectMapper.createParser(is)) {
+            if (JsonStreams.moveToField(parser, "elements") != JsonToken.START_ARRAY) {
                 System.out.println("No elements array found in OSM file");
-                return;
+                return true;
             }
-
-            // 1) index all nodes by OSM id
-            Map<Long, JsonNode> nodeByOsmId = new HashMap<>();
-            for (JsonNode el : elements) {
-                if ("node".equals(el.path("type").asText())) {
-                    long osmId = el.path("id").asLong();
-                    nodeByOsmId.put(osmId, el);
+            while (parser.nextToken() == JsonToken.START_OBJECT) {
+                JsonNode el = objectMapper.readTree(parser);
+                String type = el.path("type").asText();
+                if ("node".equals(type)) {
+                    Stop stop = newStop(el, stopIdByOsmId, newNodes);
+                    if (stop != null) {
+                        pendingStops.add(stop);
+                        if (pendingStops.size() >= batchSize) {
+                            writeInChunks(pendingStops, osmImportRepo::insertStops);
+                            pendingStops.clear();
+                        }
+                    }
+                } else if ("relation".equals(type)) {
+                    PendingRoute route = newRoute(el, routeIdByOsmId);
+                    if (route != null) {
+                        newRoutes.putIfAbsent(route.route().getOsmId(), route);
+                    }
                 }
             }
+        }
+        writeInChunks(pendingStops, osmImportRepo::insertStops);
+        if (!newNodes.isEmpty()) {
+            stopIdByOsmId = osmImportRepo.findStopIdsByOsmId();
+        }
 
-            // 2) create or find stops for each node (persist osmId in DB)
-            Map<Long, Stop> osmToStop = new HashMap<>();
-            for (Map.Entry<Long, JsonNode> entry : nodeByOsmId.entrySet()) {
-                Long osmId = entry.getKey();
-                JsonNode node = entry.getValue();
-
-                double lat = node.path("lat").asDouble();
-                double lon = node.path("lon").asDouble();
-                String name = node.path("tags").path("name").asText(null);
-                String address = node.path("tags").path("addr:full").asText(null);
-
-                Optional<Stop> existing = stopRepo.findByOsmId(osmId);
-                Stop stop;
-                if (existing.isPresent()) {
-                    stop = existing.get();
-                } else {
-                    stop = new Stop();
-                    stop.setOsmId(osmId);
-                    stop.setName(name != null ? name : "stop-" + osmId);
-                    stop.setLat(lat);
-                    stop.setLon(lon);
-                    stop.setAddress(address);
-                    stop = stopRepo.save(stop);
+        // 2) new bus routes with their route stops, in order of members; each chunk of routes is committed
+        // together with its route stops, so a failed import never leaves a stored route without its stops
+        Map<Long, Long> stopIds = stopIdByOsmId;
+        List<PendingRoute> routes = new ArrayList<>(newRoutes.values());
+        int[] routeStops = {0};
+        writeInChunks(routes, chunk -> routeStops[0] += insertRoutes(chunk, stopIds));
+
+        long millis = Math.max(System.currentTimeMillis() - start, 1);
+        int rows = newNodes.size() + routes.size() + routeStops[0];
+        System.out.println("OSM import finished. Stops: " + stopIdByOsmId.size()
+                + " (" + newNodes.size() + " new), routes: " + routes.size()
+                + ", route stops: " + routeStops[0]
+                + " in " + millis + " ms (" + (rows * 1000L / millis) + " rows/s)");
+        return true;
+    }
+
+    // Inserts the routes, then their route stops once the new route ids are known. Returns the route stops written.
+    private int insertRoutes(List<PendingRoute> chunk, Map<Long, Long> stopIdByOsmId) {
+        osmImportRepo.insertRoutes(chunk.stream().map(PendingRoute::route).toList());
+        Map<Long, Long> routeIdByOsmId = osmImportRepo.findRouteIdsByOsmId(
+                chunk.stream().map(pending -> pending.route().getOsmId()).toList());
+
+        List<RouteStopRow> routeStops = new ArrayList<>();
+        for (PendingRoute pending : chunk) {
+            long routeId = routeIdByOsmId.get(pending.route().getOsmId());
+            // a node listed twice keeps its last position, one row per (route, stop)
+            Map<Long, Integer> orderByStop = new LinkedHashMap<>();
+            int order = 0;
+            for (long refOsmId : pending.memberNodes()) {
+                Long stopId = stopIdByOsmId.get(refOsmId);
+                if (stopId == null) {
+                    // node not found among elements; skip or log
+                    System.out.println("Warning: member node " + refOsmId + " not found as element; skipping");
+                    continue;
                 }
-                osmToStop.put(osmId, stop);
+                order++;
+                orderByStop.put(stopId, order);
             }
+            orderByStop.forEach((stopId, stopOrder) -> routeStops.add(new RouteStopRow(routeId, stopId, stopOrder)));
+        }
+        osmImportRepo.insertRouteStops(routeStops);
+        return routeStops.size();
+    }
 
-            // 3) iterate relations and build routes
-            for (JsonNode el : elements) {
-                if (!"relation".equals(el.path("type").asText())) continue;
-
-                JsonNode tags = el.path("tags");
-                if (tags.isMissingNode()) continue;
-
-                // only bus routes (but you can remove this check to load other route types)
-                String routeType = tags.path("route").asText(null);
-                if (!"bus".equals(routeType)) continue;
-
-                Long relationOsmId = el.path("id").asLong();
-                String routeName = tags.path("name").asText(null);
-                String ref = tags.path("ref").asText(null);
-
-                Optional<Route> existingRouteOpt = routeRepo.findByOsmId(relationOsmId);
-
-                if (!existingRouteOpt.isPresent()) {
-                    Route route = new Route();
-                    route.setOsmId(relationOsmId);
-                    route.setName(routeName != null ? routeName : "route-" + el.path("id").asText());
-                    route.setNum(ref != null ? ref : (routeName != null ? routeName : "unknown"));
-                    route.setDescription(buildDescriptionFromTags(tags));
-                    route = routeRepo.save(route);
-
-                    // create route stops in order of members
-                    JsonNode members = el.path("members");
-                    if (members.isArray()) {
-                        int order = 0;
-                        for (JsonNode member : members) {
-                            if (!"node".equals(member.path("type").asText())) continue;
-                            long refOsmId = member.path("ref").asLong();
-                            Stop stop = osmToStop.get(refOsmId);
-                            if (stop == null) {
-                                // node not found among elements; skip or log
-                                System.out.println("Warning: member node " + refOsmId + " not found as element; skipping");
-                                continue;
-                            }
-                            order++;
-                            RouteStop routeStop = new RouteStop();
-                            routeStop.setRoute(route);
-                            routeStop.setStop(stop);
-                            routeStop.setStopOrder(order);
-                            routeStopRepo.save(routeStop);
-                        }
-                    }
-                }
+    // Returns null for nodes that are already stored or were already seen in this file.
+    private Stop newStop(JsonNode el, Map<Long, Long> stopIdByOsmId, Set<Long> newNodes) {
+        long osmId = el.path("id").asLong();
+        if (stopIdByOsmId.containsKey(osmId) || !newNodes.add(osmId)) {
+            return null;
+        }
+        String name = el.path("tags").path("name").asText(null);
+        Stop stop = new Stop();
+        stop.setOsmId(osmId);
+        stop.setName(name != null ? name : "stop-" + osmId);
+        stop.setLat(el.path("lat").asDouble());
+        stop.setLon(el.path("lon").asDouble());
+        stop.setAddress(el.path("tags").path("addr:full").asText(null));
+        return stop;
+    }
+
+    // Returns null for relations that are not bus routes or are already stored.
+    private PendingRoute newRoute(JsonNode el, Map<Long, Long> routeIdByOsmId) {
+        JsonNode tags = el.path("tags");
+        if (tags.isMissingNode()) return null;
+
+        // only bus routes (but you can remove this check to load other route types)
+        String routeType = tags.path("route").asText(null);
+        if (!"bus".equals(routeType)) return null;
+
+        Long relationOsmId = el.path("id").asLong();
+        if (routeIdByOsmId.containsKey(relationOsmId)) return null;
+
+        String routeName = tags.path("name").asText(null);
+        String ref = tags.path("ref").asText(null);
+        Route route = new Route();
+        route.setOsmId(relationOsmId);
+        route.setName(routeName != null ? routeName : "route-" + el.path("id").asText());
+        route.setNum(ref != null ? ref : (routeName != null ? routeName : "unknown"));
+        route.setDescription(buildDescriptionFromTags(tags));
+
+        List<Long> memberNodes = new ArrayList<>();
+        for (JsonNode member : el.path("members")) {
+            if ("node".equals(member.path("type").asText())) {
+                memberNodes.add(member.path("ref").asLong());
             }
-            System.out.println("OSM import finished. Stops: " + osmToStop.size());
+        }
+        return new PendingRoute(route, memberNodes.stream().mapToLong(Long::longValue).toArray());
+    }
+
+    private <T> void writeInChunks(List<T> rows, Consumer<List<T>> writer) {
+        for (int from = 0; from < rows.size(); from += batchSize) {
+            List<T> chunk = rows.subList(from, Math.min(from + batchSize, rows.size()));
+            transactionTemplate.executeWithoutResult(status -> writer.accept(chunk));
         }
     }
 
@@ -145,4 +198,7 @@ public class OsmDataLoader implements ApplicationRunner {
         }
         return tags.path("description").asText(null);
     }
+
+    private record PendingRoute(Route route, long[] memberNodes) {
+    }
 }
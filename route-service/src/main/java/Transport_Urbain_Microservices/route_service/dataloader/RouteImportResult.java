@@ -0,0 +1,30 @@
+package Transport_Urbain_Microservices.route_service.dataloader;
+
+// Outcome of importing the schedule of one route.
+public record RouteImportResult(String route, Status status, int runs, int offsets, long millis, String message) {
+
+    public enum Status {
+        IMPORTED, SKIPPED, FAILED
+    }
+
+    static RouteImportResult imported(String route, int runs, int offsets, String message) {
+        return new RouteImportResult(route, Status.IMPORTED, runs, offsets, 0, message);
+    }
+
+    static RouteImportResult skipped(String route, String message) {
+        return new RouteImportResult(route, Status.SKIPPED, 0, 0, 0, message);
+    }
+
+    static RouteImportResult failed(String route, Exception error, long millis) {
+        String message = error.toString();
+        // driver errors can quote a whole multi-row statement
+        if (message.length() > 500) {
+            message = message.substring(0, 500) + "...";
+        }
+        return new RouteImportResult(route, Status.FAILED, 0, 0, millis, message);
+    }
+
+    RouteImportResult withMillis(long millis) {
+        return new RouteImportResult(route, status, runs, offsets, millis, message);
+    }
+}
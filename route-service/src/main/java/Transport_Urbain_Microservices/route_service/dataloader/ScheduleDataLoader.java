@@ -1,7 +1,11 @@
 package Transport_Urbain_Microservices.route_service.dataloader;
 
-import Transport_Urbain_Microservices.route_service.entity.*;
-import Transport_Urbain_Microservices.route_service.repo.*;
+import Transport_Urbain_Microservices.route_service.repo.OsmImportRepo;
+import Transport_Urbain_Microservices.route_service.repo.ScheduleImportRepo;
+import Transport_Urbain_Microservices.route_service.repo.ScheduleImportRepo.OffsetRow;
+import Transport_Urbain_Microservices.route_service.repo.ScheduleImportRepo.RunRow;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.springframework.beans.factory.annotation.Value;
@@ -10,166 +14,236 @@ import org.springframework.boot.ApplicationRunner;
 import org.springframework.core.annotation.Order;
 import org.springframework.core.io.Resource;
 import org.springframework.stereotype.Component;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.io.InputStream;
+import java.time.LocalDateTime;
 import java.time.LocalTime;
 import java.time.format.DateTimeFormatter;
-import java.util.HashMap;
-import java.util.Iterator;
-import java.util.Map;
-import java.util.Optional;
-
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+
+// Runs and offsets are computed in memory against the departures and offsets already stored, then written
+// with batched run inserts and multi-row offset upserts. Routes are independent: each one is imported by its
+// own worker in its own transaction, at most app.import.parallelism at a time, so a failing route only
+// loses its own rows. The outcome of the last import is kept in ScheduleImportReport.
 @Component
 @Order(2)
 public class ScheduleDataLoader implements ApplicationRunner {
     @Value("${app.schedule-file:classpath:schedules.json}")
     private Resource scheduleFile;
 
+    // routes and stops come from the OSM file, so a change there needs a new schedule import too
+    @Value("${app.osm-file:classpath:osm-data.json}")
+    private Resource osmFile;
+
+    @Value("${app.import.batch-size:1000}")
+    private int batchSize;
+
+    @Value("${app.import.parallelism:4}")
+    private int parallelism;
+
     private final ObjectMapper objectMapper = new ObjectMapper();
 
-    private final RouteRepo routeRepo;
-    private final StopRepo stopRepo;
-    private final RunRepo runRepo;
-    private final RouteStopOffsetRepo routeStopOffsetRepo;
-
-    public ScheduleDataLoader(RouteRepo routeRepo,
-                              StopRepo stopRepo,
-                              RunRepo runRepo,
-                              RouteStopOffsetRepo routeStopOffsetRepo) {
-        this.routeRepo = routeRepo;
-        this.stopRepo = stopRepo;
-        this.runRepo = runRepo;
-        this.routeStopOffsetRepo = routeStopOffsetRepo;
+    private final OsmImportRepo osmImportRepo;
+    private final ScheduleImportRepo scheduleImportRepo;
+    private final ImportGuard importGuard;
+    private final ScheduleImportReport importReport;
+    private final TransactionTemplate transactionTemplate;
+
+    public ScheduleDataLoader(OsmImportRepo osmImportRepo,
+                              ScheduleImportRepo scheduleImportRepo,
+                              ImportGuard importGuard,
+                              ScheduleImportReport importReport,
+                              PlatformTransactionManager transactionManager) {
+        this.osmImportRepo = osmImportRepo;
+        this.scheduleImportRepo = scheduleImportRepo;
+        this.importGuard = importGuard;
+        this.importReport = importReport;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    // ids known before the import starts, only read by the workers
+    private record Lookups(Map<Long, Long> routeIdByOsmId,
+                           Map<Long, Long> stopIdByOsmId,
+                           Map<Long, Set<Integer>> departureKeysByRoute) {
     }
 
     @Override
-    @Transactional
     public void run(ApplicationArguments args) throws Exception {
-        try (InputStream is = scheduleFile.getInputStream()) {
-            JsonNode root = objectMapper.readTree(is);
-            JsonNode routesNode = root.path("routes");
-            if (routesNode.isMissingNode() || !routesNode.isObject()) {
+        importGuard.runIfChanged("schedule", List.of(osmFile, scheduleFile), this::importFile);
+    }
+
+    private boolean importFile() throws Exception {
+        long start = System.currentTimeMillis();
+        LocalDateTime startedAt = LocalDateTime.now();
+        Lookups lookups = new Lookups(
+                osmImportRepo.findRouteIdsByOsmId(),
+                osmImportRepo.findStopIdsByOsmId(),
+                scheduleImportRepo.findRegularDepartureKeysByRoute());
+        List<Future<RouteImportResult>> futures = new ArrayList<>();
+        // bounds both the concurrent transactions and the routes parsed ahead of the workers
+        Semaphore slots = new Semaphore(parallelism);
+        try (InputStream is = scheduleFile.getInputStream();
+             JsonParser parser = objectMapper.createParser(is);
+             ExecutorService workers = Executors.newVirtualThreadPerTaskExecutor()) {
+            if (JsonStreams.moveToField(parser, "routes") != JsonToken.START_OBJECT) {
                 System.out.println("No routes object found in schedule file");
-                return;
+                return true;
             }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String relationIdStr = parser.currentName();
+                parser.nextToken();
+                JsonNode routeJson = objectMapper.readTree(parser);
+                slots.acquire();
+                futures.add(workers.submit(() -> {
+                    try {
+                        return importRouteTimed(relationIdStr, routeJson, lookups);
+                    } finally {
+                        slots.release();
+                    }
+                }));
+            }
+        }
 
-            Iterator<Map.Entry<String, JsonNode>> routesIter = routesNode.fields();
-            while (routesIter.hasNext()) {
-                Map.Entry<String, JsonNode> entry = routesIter.next();
-                String relationIdStr = entry.getKey();
-                JsonNode routeJson = entry.getValue();
-
-                Long relationOsmId;
-                try {
-                    relationOsmId = Long.parseLong(relationIdStr);
-                } catch (NumberFormatException e) {
-                    System.out.println("Skipping route with non-numeric key: " + relationIdStr);
-                    continue;
-                }
+        List<RouteImportResult> results = new ArrayList<>(futures.size());
+        for (Future<RouteImportResult> future : futures) {
+            results.add(future.get());
+        }
+        long millis = Math.max(System.currentTimeMillis() - start, 1);
+        importReport.record(startedAt, millis, results);
+
+        int runs = results.stream().mapToInt(RouteImportResult::runs).sum();
+        int offsets = results.stream().mapToInt(RouteImportResult::offsets).sum();
+        long failed = results.stream().filter(r -> r.status() == RouteImportResult.Status.FAILED).count();
+        System.out.println("Schedule import finished. Routes: " + results.size() + " (" + failed + " failed), runs: "
+                + runs + ", offsets: " + offsets + " in " + millis + " ms ("
+                + ((runs + offsets) * 1000L / millis) + " rows/s)");
+        return failed == 0;
+    }
 
-                // Find route by osmId
-                Optional<Route> routeOpt = routeRepo.findByOsmId(relationOsmId);
-                if (!routeOpt.isPresent()) {
-                    System.out.println("Schedule: route with osmId " + relationOsmId + " not found in DB. Skipping.");
-                    continue;
-                }
-                Route route = routeOpt.get();
-
-                JsonNode stopsNode = routeJson.path("stops");
-                if (stopsNode.isArray()) {
-                    for (JsonNode stopJson : stopsNode) {
-                        Long stopOsmId = stopJson.path("id").asLong();
-                        Integer minutes = stopJson.path("arrival_time_from_start_minutes").isNumber()
-                                ? stopJson.path("arrival_time_from_start_minutes").asInt()
-                                : null;
-
-                        if (minutes == null) {
-                            System.out.println("Schedule: missing arrival_time_from_start_minutes for stop " + stopOsmId + " on route " + relationOsmId + ". Skipping offset.");
-                            continue;
-                        }
-
-                        Optional<Stop> stopOpt = stopRepo.findByOsmId(stopOsmId);
-                        if (!stopOpt.isPresent()) {
-                            System.out.println("Schedule: stop osmId " + stopOsmId + " not found in DB for route " + relationOsmId + ". Skipping offset creation.");
-                            continue;
-                        }
-                        Stop stop = stopOpt.get();
-
-                        // Upsert RouteStopOffset
-                        Optional<RouteStopOffset> maybeOffset = routeStopOffsetRepo.findByRouteAndStop(route, stop);
-                        if (maybeOffset.isPresent()) {
-                            RouteStopOffset offset = maybeOffset.get();
-                            if (!Integer.valueOf(minutes).equals(offset.getCumulativeMinutesFromStart())) {
-                                offset.setCumulativeMinutesFromStart(minutes);
-                                routeStopOffsetRepo.save(offset);
-                            }
-                        } else {
-                            RouteStopOffset newOffset = new RouteStopOffset();
-                            newOffset.setRoute(route);
-                            newOffset.setStop(stop);
-                            newOffset.setCumulativeMinutesFromStart(minutes);
-                            routeStopOffsetRepo.save(newOffset);
-                        }
-                    }
-                } else {
-                    System.out.println("Schedule: no stops array for route " + relationOsmId);
-                }
+    private RouteImportResult importRouteTimed(String relationIdStr, JsonNode routeJson, Lookups lookups) {
+        long start = System.currentTimeMillis();
+        try {
+            return importRoute(relationIdStr, routeJson, lookups).withMillis(System.currentTimeMillis() - start);
+        } catch (RuntimeException e) {
+            System.out.println("Schedule: route " + relationIdStr + " failed: " + e.getMessage());
+            return RouteImportResult.failed(relationIdStr, e, System.currentTimeMillis() - start);
+        }
+    }
 
-                String operatingHours = routeJson.path("operating_hours").asText(null);
-                Integer frequencyMinutes = routeJson.path("frequency_minutes").isNumber()
-                        ? routeJson.path("frequency_minutes").asInt()
+    private void write(List<RunRow> runs, List<OffsetRow> offsets) {
+        transactionTemplate.executeWithoutResult(status -> {
+            for (int from = 0; from < offsets.size(); from += batchSize) {
+                scheduleImportRepo.upsertOffsets(offsets.subList(from, Math.min(from + batchSize, offsets.size())));
+            }
+            for (int from = 0; from < runs.size(); from += batchSize) {
+                scheduleImportRepo.insertRegularRuns(runs.subList(from, Math.min(from + batchSize, runs.size())));
+            }
+        });
+    }
+
+    private RouteImportResult importRoute(String relationIdStr, JsonNode routeJson, Lookups lookups) {
+        Long relationOsmId;
+        try {
+            relationOsmId = Long.parseLong(relationIdStr);
+        } catch (NumberFormatException e) {
+            System.out.println("Skipping route with non-numeric key: " + relationIdStr);
+            return RouteImportResult.skipped(relationIdStr, "non-numeric key");
+        }
+
+        // Find route by osmId
+        Long routeId = lookups.routeIdByOsmId().get(relationOsmId);
+        if (routeId == null) {
+            System.out.println("Schedule: route with osmId " + relationOsmId + " not found in DB. Skipping.");
+            return RouteImportResult.skipped(relationIdStr, "route not found");
+        }
+        List<OffsetRow> offsets = new ArrayList<>();
+        List<RunRow> runs = new ArrayList<>();
+
+        JsonNode stopsNode = routeJson.path("stops");
+        if (stopsNode.isArray()) {
+            // the upsert cannot touch a row twice, so a stop listed twice keeps its last offset
+            Map<Long, Integer> minutesByStop = new LinkedHashMap<>();
+            for (JsonNode stopJson : stopsNode) {
+                Long stopOsmId = stopJson.path("id").asLong();
+                Integer minutes = stopJson.path("arrival_time_from_start_minutes").isNumber()
+                        ? stopJson.path("arrival_time_from_start_minutes").asInt()
                         : null;
 
-                if (operatingHours == null || frequencyMinutes == null) {
-                    System.out.println("Schedule: missing operating_hours or frequency_minutes for route " + relationOsmId + ". Skipping runs creation.");
+                if (minutes == null) {
+                    System.out.println("Schedule: missing arrival_time_from_start_minutes for stop " + stopOsmId + " on route " + relationOsmId + ". Skipping offset.");
                     continue;
                 }
 
-                LocalTime startTime;
-                LocalTime endTime;
-                try {
-                    String[] parts = operatingHours.split("-");
-                    DateTimeFormatter tf = DateTimeFormatter.ofPattern("H:mm"); // accept e.g. 06:00 or 6:00
-                    startTime = LocalTime.parse(parts[0].trim(), tf);
-                    endTime = LocalTime.parse(parts[1].trim(), tf);
-                } catch (Exception ex) {
-                    System.out.println("Schedule: could not parse operating_hours '" + operatingHours + "' for route " + relationOsmId + ". Skipping runs.");
+                Long stopId = lookups.stopIdByOsmId().get(stopOsmId);
+                if (stopId == null) {
+                    System.out.println("Schedule: stop osmId " + stopOsmId + " not found in DB for route " + relationOsmId + ". Skipping offset creation.");
                     continue;
                 }
+                minutesByStop.put(stopId, minutes);
+            }
+            minutesByStop.forEach((stopId, minutes) -> offsets.add(new OffsetRow(routeId, stopId, minutes)));
+        } else {
+            System.out.println("Schedule: no stops array for route " + relationOsmId);
+        }
 
-                boolean hasAnyRegular = runRepo.existsByRouteAndScheduleType(route, ScheduleType.REGULAR);
-                if (hasAnyRegular) {
-                    System.out.println("Schedule: route " + relationOsmId + " already has regular runs. Use app.osm.force-refresh-schedules=true to replace. Skipping run creation.");
-                    continue;
-                }
+        String operatingHours = routeJson.path("operating_hours").asText(null);
+        Integer frequencyMinutes = routeJson.path("frequency_minutes").isNumber()
+                ? routeJson.path("frequency_minutes").asInt()
+                : null;
 
-                Map<Integer, Integer> dayRunNumCounter = new HashMap<>(); // day -> next runNum
-
-                for (int day = 1; day <= 7; day++) {
-                    LocalTime t = startTime;
-                    int runNum = 0;
-                    while (!t.isAfter(endTime)) {
-                        runNum++;
-                        // Dedup check: exist by route, scheduleType REGULAR, dayOfWeek day, startTime t
-                        boolean exists = runRepo.existsByRouteAndScheduleTypeAndDayOfWeekAndStartTime(route, ScheduleType.REGULAR, day, t);
-                        if (!exists) {
-                            Run run = new Run();
-                            run.setRoute(route);
-                            run.setDestinationStopName(routeJson.path("to").asText(null)); // optional
-                            run.setScheduleType(ScheduleType.REGULAR);
-                            run.setDayOfWeek(day);
-                            run.setSpecificDate(null);
-                            run.setRunNum(runNum);
-                            run.setStartTime(t);
-                            runRepo.save(run);
-                        }
-                        t = t.plusMinutes(frequencyMinutes);
-                    }
-                }
+        if (operatingHours == null || frequencyMinutes == null) {
+            System.out.println("Schedule: missing operating_hours or frequency_minutes for route " + relationOsmId + ". Skipping runs creation.");
+            write(runs, offsets);
+            return RouteImportResult.imported(relationIdStr, 0, offsets.size(), "no operating hours or frequency");
+        }
+
+        LocalTime startTime;
+        LocalTime endTime;
+        try {
+            String[] parts = operatingHours.split("-");
+            DateTimeFormatter tf = DateTimeFormatter.ofPattern("H:mm"); // accept e.g. 06:00 or 6:00
+            startTime = LocalTime.parse(parts[0].trim(), tf);
+            endTime = LocalTime.parse(parts[1].trim(), tf);
+        } catch (Exception ex) {
+            System.out.println("Schedule: could not parse operating_hours '" + operatingHours + "' for route " + relationOsmId + ". Skipping runs.");
+            write(runs, offsets);
+            return RouteImportResult.imported(relationIdStr, 0, offsets.size(), "unparseable operating hours");
+        }
+
+        Set<Integer> existing = lookups.departureKeysByRoute().getOrDefault(routeId, Set.of());
+        if (!existing.isEmpty()) {
+            System.out.println("Schedule: route " + relationOsmId + " already has regular runs. Use app.osm.force-refresh-schedules=true to replace. Skipping run creation.");
+            write(runs, offsets);
+            return RouteImportResult.imported(relationIdStr, 0, offsets.size(), "already has regular runs");
+        }
 
-                System.out.println("Schedule: processed route " + relationOsmId + " (" + route.getName() + ")");
+        String destination = routeJson.path("to").asText(null); // optional
+        for (int day = 1; day <= 7; day++) {
+            LocalTime t = startTime;
+            int runNum = 0;
+            while (!t.isAfter(endTime)) {
+                runNum++;
+                // Dedup check against the departures loaded up front
+                if (!existing.contains(ScheduleImportRepo.departureKey(day, t))) {
+                    runs.add(new RunRow(routeId, destination, day, runNum, t));
+                }
+                LocalTime next = t.plusMinutes(frequencyMinutes);
+                if (next.isBefore(t)) {
+                    break; // wrapped past midnight
+                }
+                t = next;
             }
         }
+        write(runs, offsets);
+
+        System.out.println("Schedule: processed route " + relationOsmId + " (" + routeJson.path("name").asText() + ")");
+        return RouteImportResult.imported(relationIdStr, runs.size(), offsets.size(), null);
     }
 }
+
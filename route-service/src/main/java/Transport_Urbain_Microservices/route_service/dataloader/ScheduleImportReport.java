@@ -0,0 +1,40 @@
+package Transport_Urbain_Microservices.route_service.dataloader;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.*;
+
+// Per-route timings and errors of the last schedule import, exposed at /actuator/scheduleimport.
+@Component
+@Endpoint(id = "scheduleimport")
+public class ScheduleImportReport {
+
+    private volatile Map<String, Object> lastImport = Map.of("status", "no import since startup");
+
+    void record(LocalDateTime startedAt, long millis, List<RouteImportResult> results) {
+        Map<RouteImportResult.Status, Long> counts = new EnumMap<>(RouteImportResult.Status.class);
+        for (RouteImportResult result : results) {
+            counts.merge(result.status(), 1L, Long::sum);
+        }
+        // slowest first, failures on top
+        List<RouteImportResult> routes = results.stream()
+                .sorted(Comparator.comparing((RouteImportResult r) -> r.status() != RouteImportResult.Status.FAILED)
+                        .thenComparing(RouteImportResult::millis, Comparator.reverseOrder()))
+                .toList();
+
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("startedAt", startedAt);
+        report.put("durationMillis", millis);
+        report.put("routeCounts", counts);
+        report.put("routes", routes);
+        lastImport = Collections.unmodifiableMap(report);
+    }
+
+    @ReadOperation
+    public Map<String, Object> lastImport() {
+        return lastImport;
+    }
+}
@@ -0,0 +1,34 @@
+package Transport_Urbain_Microservices.route_service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class JourneyDto {
+    private LocalDateTime departureTime;
+    private LocalDateTime arrivalTime;
+    private Integer transfers;
+    private List<LegDto> legs;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class LegDto {
+        private Long runId;
+        private Long routeId;
+        private String routeNum;
+        private String destinationStopName;
+        private Long fromStopId;
+        private String fromStopName;
+        private LocalDateTime departureTime;
+        private Long toStopId;
+        private String toStopName;
+        private LocalDateTime arrivalTime;
+    }
+}
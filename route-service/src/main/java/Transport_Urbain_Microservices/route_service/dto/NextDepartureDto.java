@@ -0,0 +1,16 @@
+package Transport_Urbain_Microservices.route_service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class NextDepartureDto {
+    private String routeNum;
+    private String destinationStopName;
+    private LocalDateTime arrivalTime;
+}
@@ -0,0 +1,38 @@
+package Transport_Urbain_Microservices.route_service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.function.Function;
+
+// One page of a list ordered by id. nextAfter is the value to send as ?after= to get the following page,
+// null on the last page.
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PageDto<T> {
+
+    public static final int MAX_SIZE = 1000;
+
+    private List<T> items;
+    private Long nextAfter;
+
+    public static int checkSize(int size) {
+        if (size < 1) {
+            throw new IllegalArgumentException("Page size must be positive");
+        }
+        return Math.min(size, MAX_SIZE);
+    }
+
+    // rows must have been fetched with a limit of size + 1, the extra row only tells whether a next page exists
+    public static <E, T> PageDto<T> of(List<E> rows, int size, Function<E, Long> idOf,
+                                       Function<List<E>, List<T>> mapper) {
+        if (rows.size() <= size) {
+            return new PageDto<>(mapper.apply(rows), null);
+        }
+        List<E> page = rows.subList(0, size);
+        return new PageDto<>(mapper.apply(page), idOf.apply(page.getLast()));
+    }
+}
@@ -0,0 +1,28 @@
+package Transport_Urbain_Microservices.route_service.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+// Revision of the data shared by every instance, moved on by each committed change.
+@Entity
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class DatasetRevision {
+    public static final String TIMETABLE = "timetable";
+
+    @Id
+    private String name;
+
+    @Column(nullable = false)
+    private long revision;
+
+    // when the revision was moved on, the Last-Modified of its data
+    private Instant changedAt;
+}
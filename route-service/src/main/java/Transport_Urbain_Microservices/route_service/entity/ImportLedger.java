@@ -0,0 +1,26 @@
+package Transport_Urbain_Microservices.route_service.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+// Checksum of the files behind the last successful run of each startup import.
+@Entity
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ImportLedger {
+    @Id
+    private String name;
+
+    @Column(nullable = false)
+    private String checksum;
+
+    @Column(nullable = false)
+    private LocalDateTime importedAt;
+}
@@ -22,6 +22,8 @@ public class Route {
 
     private Long osmId;
 
+    private String gtfsId;
+
     @Column(nullable = false)
     private String num;
 
@@ -10,6 +10,8 @@ import lombok.NoArgsConstructor;
 @NoArgsConstructor
 @AllArgsConstructor
 @IdClass(RouteStopId.class)
+// the primary key starts with the route, lookups by stop need their own index
+@Table(indexes = @Index(name = "idx_route_stop_stop", columnList = "id_stop"))
 public class RouteStop {
 
     @Id
@@ -13,6 +13,14 @@ import java.util.List;
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
+@Table(indexes = {
+        // regular runs of a route by day: counts, day lookups and the duplicate start time check
+        @Index(name = "idx_run_route_regular", columnList = "route_id, schedule_type, day_of_week, start_time"),
+        // special runs of a route by date
+        @Index(name = "idx_run_route_special", columnList = "route_id, schedule_type, specific_date"),
+        // special runs of every route on a date
+        @Index(name = "idx_run_special_date", columnList = "schedule_type, specific_date")
+})
 public class Run {
 
     @Id
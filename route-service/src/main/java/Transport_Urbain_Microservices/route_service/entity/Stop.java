@@ -19,6 +19,8 @@ public class Stop {
 
     private Long osmId;
 
+    private String gtfsId;
+
     @Column(nullable = false)
     private String name;
 
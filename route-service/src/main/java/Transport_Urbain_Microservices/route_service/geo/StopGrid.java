@@ -0,0 +1,136 @@
+package Transport_Urbain_Microservices.route_service.geo;
+
+import Transport_Urbain_Microservices.route_service.entity.Stop;
+
+import java.util.*;
+
+// Immutable grid index over stop coordinates. Stops are sorted by cell, the cells of one grid row are
+// contiguous, so a search visits one binary-searched slice per row of the bounding box.
+public final class StopGrid {
+
+    static final double CELL_DEGREES = 0.005; // about 550 m of latitude
+    private static final long COLUMNS = (long) Math.ceil(360 / CELL_DEGREES) + 1;
+    private static final double EARTH_RADIUS_METERS = 6_371_000;
+    private static final double METERS_PER_DEGREE = Math.toRadians(1) * EARTH_RADIUS_METERS;
+
+    public static final StopGrid EMPTY = of(List.of());
+
+    // parallel arrays sorted by cell
+    private final long[] cells;
+    private final long[] ids;
+    private final double[] lats;
+    private final double[] lons;
+    private final String[] names;
+    private final String[] addresses;
+
+    private StopGrid(long[] cells, long[] ids, double[] lats, double[] lons, String[] names, String[] addresses) {
+        this.cells = cells;
+        this.ids = ids;
+        this.lats = lats;
+        this.lons = lons;
+        this.names = names;
+        this.addresses = addresses;
+    }
+
+    public record Hit(long id, String name, double lat, double lon, String address, double distanceMeters) {
+    }
+
+    public static StopGrid of(Collection<Stop> stops) {
+        List<Stop> sorted = stops.stream()
+                .filter(stop -> stop.getLat() != null && stop.getLon() != null)
+                .sorted(Comparator.comparingLong(stop -> cell(stop.getLat(), stop.getLon())))
+                .toList();
+        int n = sorted.size();
+        long[] cells = new long[n];
+        long[] ids = new long[n];
+        double[] lats = new double[n];
+        double[] lons = new double[n];
+        String[] names = new String[n];
+        String[] addresses = new String[n];
+        for (int i = 0; i < n; i++) {
+            Stop stop = sorted.get(i);
+            cells[i] = cell(stop.getLat(), stop.getLon());
+            ids[i] = stop.getId();
+            lats[i] = stop.getLat();
+            lons[i] = stop.getLon();
+            names[i] = stop.getName();
+            addresses[i] = stop.getAddress();
+        }
+        return new StopGrid(cells, ids, lats, lons, names, addresses);
+    }
+
+    public int size() {
+        return ids.length;
+    }
+
+    // The limit nearest stops within radiusMeters, nearest first.
+    public List<Hit> nearest(double lat, double lon, double radiusMeters, int limit) {
+        double latDelta = radiusMeters / METERS_PER_DEGREE;
+        double lonDelta = radiusMeters / (METERS_PER_DEGREE * Math.max(Math.cos(Math.toRadians(lat)), 1e-6));
+        long rowFrom = row(Math.max(lat - latDelta, -90));
+        long rowTo = row(Math.min(lat + latDelta, 90));
+        long columnFrom = column(Math.max(lon - lonDelta, -180));
+        long columnTo = column(Math.min(lon + lonDelta, 180));
+
+        // max-heap on distance holding the best candidates so far
+        PriorityQueue<double[]> best = new PriorityQueue<>(limit + 1, (a, b) -> Double.compare(b[0], a[0]));
+        for (long row = rowFrom; row <= rowTo; row++) {
+            int to = lowerBound(row * COLUMNS + columnTo + 1);
+            for (int i = lowerBound(row * COLUMNS + columnFrom); i < to; i++) {
+                double distance = distanceMeters(lat, lon, lats[i], lons[i]);
+                if (distance > radiusMeters) {
+                    continue;
+                }
+                if (best.size() < limit) {
+                    best.add(new double[]{distance, i});
+                } else if (distance < best.peek()[0]) {
+                    best.poll();
+                    best.add(new double[]{distance, i});
+                }
+            }
+        }
+
+        Hit[] hits = new Hit[best.size()];
+        for (int h = hits.length - 1; h >= 0; h--) {
+            double[] candidate = best.poll();
+            int i = (int) candidate[1];
+            hits[h] = new Hit(ids[i], names[i], lats[i], lons[i], addresses[i], candidate[0]);
+        }
+        return Arrays.asList(hits);
+    }
+
+    private int lowerBound(long cell) {
+        int low = 0;
+        int high = cells.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (cells[mid] < cell) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private static long cell(double lat, double lon) {
+        return row(lat) * COLUMNS + column(lon);
+    }
+
+    private static long row(double lat) {
+        return (long) Math.floor((lat + 90) / CELL_DEGREES);
+    }
+
+    private static long column(double lon) {
+        return (long) Math.floor((lon + 180) / CELL_DEGREES);
+    }
+
+    // haversine
+    static double distanceMeters(double lat1, double lon1, double lat2, double lon2) {
+        double dLat = Math.toRadians(lat2 - lat1);
+        double dLon = Math.toRadians(lon2 - lon1);
+        double a = Math.sin(dLat / 2) * Math.sin(dLat / 2)
+                + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2)) * Math.sin(dLon / 2) * Math.sin(dLon / 2);
+        return 2 * EARTH_RADIUS_METERS * Math.asin(Math.min(1, Math.sqrt(a)));
+    }
+}
@@ -0,0 +1,62 @@
+package Transport_Urbain_Microservices.route_service.geo;
+
+import Transport_Urbain_Microservices.route_service.repo.StopRepo;
+import Transport_Urbain_Microservices.route_service.timetable.TimetableChangedEvent;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+// Holds the stop grid used by nearby-stop queries. Built once the data loaders are done and rebuilt
+// after stop changes have been committed; route-only changes leave stop positions alone.
+@Component
+@Order(3)
+public class StopLocator implements ApplicationRunner {
+
+    private final StopRepo stopRepo;
+    private final TransactionTemplate readTransaction;
+
+    private final AtomicReference<StopGrid> current = new AtomicReference<>();
+
+    public StopLocator(StopRepo stopRepo, PlatformTransactionManager transactionManager) {
+        this.stopRepo = stopRepo;
+        this.readTransaction = new TransactionTemplate(transactionManager);
+        this.readTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.readTransaction.setReadOnly(true);
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        rebuild();
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    @Order(TimetableChangedEvent.REFRESH_ORDER)
+    public void onTimetableChanged(TimetableChangedEvent event) {
+        if (event.isFullReload()) {
+            rebuild();
+        }
+    }
+
+    public synchronized void rebuild() {
+        current.set(readTransaction.execute(status -> StopGrid.of(stopRepo.findAll())));
+    }
+
+    public List<StopGrid.Hit> nearest(double lat, double lon, double radiusMeters, int limit) {
+        StopGrid grid = current.get();
+        if (grid == null) {
+            // a request arrived before the startup build finished
+            rebuild();
+            grid = current.get();
+        }
+        return grid.nearest(lat, lon, radiusMeters, limit);
+    }
+}
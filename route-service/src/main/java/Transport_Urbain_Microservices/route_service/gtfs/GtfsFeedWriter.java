@@ -0,0 +1,91 @@
+package Transport_Urbain_Microservices.route_service.gtfs;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+// Writes the CSV files of a GTFS feed one after the other into a zip, row by row.
+// Nothing is buffered beyond the writer, so a file can be as large as the output allows.
+public final class GtfsFeedWriter implements Closeable {
+
+    private final ZipOutputStream zip;
+    private final Writer writer;
+    private final StringBuilder line = new StringBuilder(128);
+
+    public GtfsFeedWriter(OutputStream out) {
+        this.zip = new ZipOutputStream(new BufferedOutputStream(out, 64 * 1024));
+        this.writer = new BufferedWriter(new OutputStreamWriter(zip, StandardCharsets.UTF_8), 64 * 1024);
+    }
+
+    public void startFile(String name, String... header) {
+        try {
+            writer.flush();
+            zip.putNextEntry(new ZipEntry(name));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        row((Object[]) header);
+    }
+
+    public void row(Object... values) {
+        line.setLength(0);
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                line.append(',');
+            }
+            appendField(values[i]);
+        }
+        line.append("\r\n");
+        try {
+            writer.append(line);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void appendField(Object value) {
+        if (value == null) {
+            return;
+        }
+        String text = value.toString();
+        boolean quote = false;
+        for (int i = 0; i < text.length() && !quote; i++) {
+            char c = text.charAt(i);
+            quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!quote) {
+            line.append(text);
+            return;
+        }
+        line.append('"');
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '"') {
+                line.append('"');
+            }
+            line.append(c);
+        }
+        line.append('"');
+    }
+
+    @Override
+    public void close() throws IOException {
+        writer.flush();
+        zip.finish();
+        zip.close();
+    }
+
+    // GTFS times may go past 24:00:00 for trips that end after midnight of their service day
+    public static String time(int minutesAfterMidnight) {
+        int hours = minutesAfterMidnight / 60;
+        int minutes = minutesAfterMidnight % 60;
+        return (hours < 10 ? "0" : "") + hours + (minutes < 10 ? ":0" : ":") + minutes + ":00";
+    }
+
+    public static String date(LocalDate date) {
+        return date.format(DateTimeFormatter.BASIC_ISO_DATE);
+    }
+}
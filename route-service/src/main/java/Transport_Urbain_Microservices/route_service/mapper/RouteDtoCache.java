@@ -0,0 +1,216 @@
+package Transport_Urbain_Microservices.route_service.mapper;
+
+import Transport_Urbain_Microservices.route_service.dto.RouteDto;
+import Transport_Urbain_Microservices.route_service.entity.Route;
+import Transport_Urbain_Microservices.route_service.repo.RouteRepo;
+import Transport_Urbain_Microservices.route_service.timetable.TimetableChangedEvent;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Built route DTOs by route id, bounded in size (least recently used first out) and in age.
+// Entries are dropped once a change to the route has been committed, the full list is kept
+// as a snapshot until any route changes.
+@Component
+public class RouteDtoCache implements MeterBinder {
+
+    private final RouteRepo routeRepo;
+    private final RouteMapper routeMapper;
+    private final int maxSize;
+    private final long ttlNanos;
+
+    private final LinkedHashMap<Long, Entry> entries;
+    private List<RouteDto> snapshot;
+    private long snapshotExpiresAt;
+    // bumped on every invalidation so that a load racing with a change is not cached
+    private final AtomicLong generation = new AtomicLong();
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    public RouteDtoCache(RouteRepo routeRepo,
+                         RouteMapper routeMapper,
+                         @Value("${app.cache.routes.max-size:500}") int maxSize,
+                         @Value("${app.cache.routes.ttl:10m}") Duration ttl) {
+        if (maxSize < 1) {
+            throw new IllegalArgumentException("Route cache size must be at least 1");
+        }
+        this.routeRepo = routeRepo;
+        this.routeMapper = routeMapper;
+        this.maxSize = maxSize;
+        this.ttlNanos = ttl.toNanos();
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Entry> eldest) {
+                if (size() > RouteDtoCache.this.maxSize) {
+                    evictions.incrementAndGet();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    // Returns null when the route does not exist.
+    public RouteDto get(Long routeId) {
+        RouteDto cached = lookup(routeId);
+        if (cached != null) {
+            hits.incrementAndGet();
+            return cached;
+        }
+        misses.incrementAndGet();
+        long loadGeneration = generation.get();
+        Optional<Route> route = routeRepo.findById(routeId);
+        if (route.isEmpty()) {
+            return null;
+        }
+        RouteDto dto = routeMapper.toDto(route.get());
+        store(List.of(dto), loadGeneration);
+        return dto;
+    }
+
+    public List<RouteDto> getAll() {
+        List<RouteDto> cached = lookupSnapshot();
+        if (cached != null) {
+            hits.incrementAndGet();
+            return cached;
+        }
+        misses.incrementAndGet();
+        long loadGeneration = generation.get();
+        List<RouteDto> dtos = routeMapper.toDtos(routeRepo.findAll());
+        storeSnapshot(dtos, loadGeneration);
+        return dtos;
+    }
+
+    // DTOs of the given routes in the same order; the missing ones are built together.
+    public List<RouteDto> getAll(List<Route> routes) {
+        RouteDto[] result = new RouteDto[routes.size()];
+        List<Route> missing = new ArrayList<>();
+        List<Integer> missingAt = new ArrayList<>();
+        for (int i = 0; i < routes.size(); i++) {
+            RouteDto cached = lookup(routes.get(i).getId());
+            if (cached != null) {
+                hits.incrementAndGet();
+                result[i] = cached;
+            } else {
+                misses.incrementAndGet();
+                missing.add(routes.get(i));
+                missingAt.add(i);
+            }
+        }
+        if (!missing.isEmpty()) {
+            long loadGeneration = generation.get();
+            List<RouteDto> loaded = routeMapper.toDtos(missing);
+            store(loaded, loadGeneration);
+            for (int i = 0; i < loaded.size(); i++) {
+                result[missingAt.get(i)] = loaded.get(i);
+            }
+        }
+        return Arrays.asList(result);
+    }
+
+    private synchronized RouteDto lookup(Long routeId) {
+        Entry entry = entries.get(routeId);
+        if (entry == null) {
+            return null;
+        }
+        if (System.nanoTime() - entry.expiresAt() > 0) {
+            entries.remove(routeId);
+            evictions.incrementAndGet();
+            return null;
+        }
+        return entry.dto();
+    }
+
+    private synchronized List<RouteDto> lookupSnapshot() {
+        if (snapshot != null && System.nanoTime() - snapshotExpiresAt > 0) {
+            snapshot = null;
+        }
+        return snapshot;
+    }
+
+    private synchronized void store(List<RouteDto> dtos, long loadGeneration) {
+        if (generation.get() == loadGeneration) {
+            long expiresAt = System.nanoTime() + ttlNanos;
+            for (RouteDto dto : dtos) {
+                entries.put(dto.getId(), new Entry(dto, expiresAt));
+            }
+        }
+    }
+
+    private synchronized void storeSnapshot(List<RouteDto> dtos, long loadGeneration) {
+        if (generation.get() == loadGeneration) {
+            snapshot = List.copyOf(dtos);
+            snapshotExpiresAt = System.nanoTime() + ttlNanos;
+            store(dtos, loadGeneration);
+        }
+    }
+
+    public synchronized void invalidate(Long routeId) {
+        generation.incrementAndGet();
+        entries.remove(routeId);
+        snapshot = null;
+    }
+
+    public synchronized void invalidateAll() {
+        generation.incrementAndGet();
+        entries.clear();
+        snapshot = null;
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    @Order(TimetableChangedEvent.REFRESH_ORDER)
+    public void onTimetableChanged(TimetableChangedEvent event) {
+        if (event.isFullReload()) {
+            invalidateAll();
+        } else {
+            invalidate(event.routeId());
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("cache.gets", hits, AtomicLong::get)
+                .tags("cache", "routeDtos", "result", "hit")
+                .register(registry);
+        FunctionCounter.builder("cache.gets", misses, AtomicLong::get)
+                .tags("cache", "routeDtos", "result", "miss")
+                .register(registry);
+        FunctionCounter.builder("cache.evictions", evictions, AtomicLong::get)
+                .tags("cache", "routeDtos")
+                .register(registry);
+        Gauge.builder("cache.size", this, RouteDtoCache::size)
+                .tags("cache", "routeDtos")
+                .register(registry);
+    }
+
+    public long hitCount() {
+        return hits.get();
+    }
+
+    public long missCount() {
+        return misses.get();
+    }
+
+    public long evictionCount() {
+        return evictions.get();
+    }
+
+    private record Entry(RouteDto dto, long expiresAt) {
+    }
+}
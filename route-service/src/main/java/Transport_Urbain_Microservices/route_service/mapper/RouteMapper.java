@@ -9,11 +9,7 @@ import Transport_Urbain_Microservices.route_service.repo.RouteStopRepo;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Component;
 
-import java.util.ArrayList;
-import java.util.Comparator;
-import java.util.List;
-import java.util.Map;
-import java.util.stream.Collectors;
+import java.util.*;
 
 @Component
 @RequiredArgsConstructor
@@ -23,6 +19,39 @@ public class RouteMapper {
     private final RouteStopOffsetRepo routeStopOffsetRepo;
 
     public RouteDto toDto(Route route) {
+        return toDtos(List.of(route)).getFirst();
+    }
+
+    // Route stops and offsets of all the routes are loaded with one query each, whatever the number of routes.
+    public List<RouteDto> toDtos(List<Route> routes) {
+        if (routes.isEmpty()) {
+            return List.of();
+        }
+        List<Long> routeIds = routes.stream().map(Route::getId).toList();
+
+        // Get route stops, already sorted by stop order
+        Map<Long, List<RouteStop>> routeStopsByRoute = new HashMap<>();
+        for (RouteStop rs : routeStopRepo.findWithStopByRouteIdIn(routeIds)) {
+            routeStopsByRoute.computeIfAbsent(rs.getRoute().getId(), id -> new ArrayList<>()).add(rs);
+        }
+
+        // Get offsets and map by stop ID for lookup
+        Map<Long, Map<Long, Integer>> offsetsByRoute = new HashMap<>();
+        for (RouteStopOffset offset : routeStopOffsetRepo.findByRouteIdIn(routeIds)) {
+            offsetsByRoute.computeIfAbsent(offset.getRoute().getId(), id -> new HashMap<>())
+                    .put(offset.getStop().getId(), offset.getCumulativeMinutesFromStart());
+        }
+
+        List<RouteDto> dtos = new ArrayList<>(routes.size());
+        for (Route route : routes) {
+            dtos.add(toDto(route,
+                    routeStopsByRoute.getOrDefault(route.getId(), List.of()),
+                    offsetsByRoute.getOrDefault(route.getId(), Map.of())));
+        }
+        return dtos;
+    }
+
+    private RouteDto toDto(Route route, List<RouteStop> sortedRouteStops, Map<Long, Integer> offsetMap) {
         RouteDto dto = new RouteDto();
         dto.setId(route.getId());
         dto.setName(route.getName());
@@ -30,29 +59,17 @@ public class RouteMapper {
         dto.setDescription(route.getDescription());
         dto.setStatus(route.getStatus());
 
-        // Get sorted route stops
-        List<RouteStop> sortedRouteStops = routeStopRepo.findByRouteOrderByStopOrderAsc(route);
-
         // Extract stop IDs in order
-        List<Long> routeStops = sortedRouteStops.stream()
-                .map(rs -> rs.getStop().getId())
-                .collect(Collectors.toList());
-        dto.setRouteStops(routeStops);
-
-        // Get offsets and map by stop ID for lookup
-        List<RouteStopOffset> offsets = routeStopOffsetRepo.findByRoute(route);
-        Map<Long, Integer> offsetMap = offsets.stream()
-                .collect(Collectors.toMap(
-                        offset -> offset.getStop().getId(),
-                        RouteStopOffset::getCumulativeMinutesFromStart
-                ));
-
+        List<Long> routeStops = new ArrayList<>(sortedRouteStops.size());
         // Extract cumulative minutes in the same order as stops
-        List<Integer> cumulativeMinutes = sortedRouteStops.stream()
-                .map(rs -> offsetMap.get(rs.getStop().getId()))
-                .collect(Collectors.toList());
+        List<Integer> cumulativeMinutes = new ArrayList<>(sortedRouteStops.size());
+        for (RouteStop rs : sortedRouteStops) {
+            routeStops.add(rs.getStop().getId());
+            cumulativeMinutes.add(offsetMap.get(rs.getStop().getId()));
+        }
+        dto.setRouteStops(routeStops);
         dto.setCumulativeMinutesFromStartForStops(cumulativeMinutes);
 
         return dto;
     }
-}
\ No newline at end of file
+}
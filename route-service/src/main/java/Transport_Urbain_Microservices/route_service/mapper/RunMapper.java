@@ -1,28 +1,43 @@
 package Transport_Urbain_Microservices.route_service.mapper;
 import Transport_Urbain_Microservices.route_service.dto.RunDetailsDto;
-import Transport_Urbain_Microservices.route_service.entity.RouteStop;
-import Transport_Urbain_Microservices.route_service.entity.RouteStopOffset;
 import Transport_Urbain_Microservices.route_service.entity.Run;
-import Transport_Urbain_Microservices.route_service.entity.Stop;
-import Transport_Urbain_Microservices.route_service.repo.RouteStopOffsetRepo;
-import Transport_Urbain_Microservices.route_service.repo.RouteStopRepo;
+import Transport_Urbain_Microservices.route_service.timetable.StopPattern;
+import Transport_Urbain_Microservices.route_service.timetable.StopPatternCache;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Component;
 
-import java.time.LocalTime;
-import java.util.ArrayList;
-import java.util.List;
-import java.util.Map;
-import java.util.stream.Collectors;
+import java.util.*;
 
 @Component
 @RequiredArgsConstructor
 public class RunMapper {
 
-    private final RouteStopRepo routeStopRepository;
-    private final RouteStopOffsetRepo routeStopOffsetRepository;
+    private final StopPatternCache stopPatternCache;
 
     public RunDetailsDto toDetailsDto(Run run) {
+        return toDetailsDtos(List.of(run)).getFirst();
+    }
+
+    // Every run of a route shares the route's stop pattern, so mapping a run only adds its start time
+    // to the pattern's offsets. Patterns missing from the cache are loaded together, whatever the number of runs.
+    public List<RunDetailsDto> toDetailsDtos(List<Run> runs) {
+        if (runs.isEmpty()) {
+            return List.of();
+        }
+        Set<Long> routeIds = new HashSet<>();
+        for (Run run : runs) {
+            routeIds.add(run.getRoute().getId());
+        }
+        Map<Long, StopPattern> patterns = stopPatternCache.getAll(routeIds);
+
+        List<RunDetailsDto> dtos = new ArrayList<>(runs.size());
+        for (Run run : runs) {
+            dtos.add(toDetailsDto(run, patterns.get(run.getRoute().getId())));
+        }
+        return dtos;
+    }
+
+    private RunDetailsDto toDetailsDto(Run run, StopPattern pattern) {
         RunDetailsDto dto = new RunDetailsDto();
         dto.setId(run.getId());
         dto.setRouteId(run.getRoute().getId());
@@ -34,35 +49,7 @@ public class RunMapper {
         dto.setSpecificDate(run.getSpecificDate());
         dto.setRunNum(run.getRunNum());
         dto.setStartTime(run.getStartTime());
-
-        // Fetch ordered route stops for the route
-        List<RouteStop> routeStops = routeStopRepository.findByRouteOrderByStopOrderAsc(run.getRoute());
-
-        // Fetch all offsets for the route
-        List<RouteStopOffset> offsets = routeStopOffsetRepository.findByRoute(run.getRoute());
-
-        // Create a map for quick lookup of offsets by Stop
-        Map<Stop, Integer> offsetMap = offsets.stream()
-                .collect(Collectors.toMap(RouteStopOffset::getStop, RouteStopOffset::getCumulativeMinutesFromStart));
-
-        // Build the list of StopTimeDetailDTO
-        List<RunDetailsDto.StopTimeDetailDTO> stopTimes = new ArrayList<>();
-        for (RouteStop rs : routeStops) {
-            Stop stop = rs.getStop();
-            Integer minutes = offsetMap.get(stop);
-            if (minutes != null) {
-                LocalTime arrival = run.getStartTime().plusMinutes(minutes.longValue());
-                RunDetailsDto.StopTimeDetailDTO detail = new RunDetailsDto.StopTimeDetailDTO(
-                        stop.getId(),
-                        stop.getName(),
-                        minutes,
-                        arrival
-                );
-                stopTimes.add(detail);
-            }
-        }
-
-        dto.setStopTimes(stopTimes);
+        dto.setStopTimes(pattern.materialize(run.getStartTime()));
         return dto;
     }
-}
\ No newline at end of file
+}
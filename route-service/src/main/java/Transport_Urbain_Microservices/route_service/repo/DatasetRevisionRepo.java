@@ -0,0 +1,28 @@
+package Transport_Urbain_Microservices.route_service.repo;
+
+import Transport_Urbain_Microservices.route_service.entity.DatasetRevision;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.Optional;
+
+public interface DatasetRevisionRepo extends JpaRepository<DatasetRevision, String> {
+
+    @Query("select d.revision from DatasetRevision d where d.name = :name")
+    Optional<Long> findRevision(@Param("name") String name);
+
+    // the row stays locked until the caller's transaction ends, so concurrent changes get consecutive revisions
+    @Transactional
+    @Modifying
+    @Query("update DatasetRevision d set d.revision = d.revision + 1, d.changedAt = :changedAt where d.name = :name")
+    int increment(@Param("name") String name, @Param("changedAt") Instant changedAt);
+
+    @Transactional
+    @Modifying
+    @Query("insert into DatasetRevision (name, revision, changedAt) values (:name, 0L, :changedAt)")
+    int create(@Param("name") String name, @Param("changedAt") Instant changedAt);
+}
@@ -0,0 +1,133 @@
+package Transport_Urbain_Microservices.route_service.repo;
+
+import Transport_Urbain_Microservices.route_service.entity.Route;
+import Transport_Urbain_Microservices.route_service.entity.ScheduleType;
+import Transport_Urbain_Microservices.route_service.entity.Stop;
+import Transport_Urbain_Microservices.route_service.repo.ScheduleImportRepo.OffsetRow;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.Time;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Plain JDBC access for the GTFS import. Rows are matched to the feed by gtfs id the way the OSM import
+// matches them by osm id, and written with JDBC batches.
+@Repository
+@RequiredArgsConstructor
+public class GtfsImportRepo {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public record RunRow(long routeId, String destinationStopName, ScheduleType scheduleType,
+                         Integer dayOfWeek, LocalDate specificDate, int runNum, LocalTime startTime) {
+    }
+
+    public Map<String, Long> findStopIdsByGtfsId() {
+        return findIdsByGtfsId("select gtfs_id, id from stop where gtfs_id is not null");
+    }
+
+    public Map<String, Long> findRouteIdsByGtfsId() {
+        return findIdsByGtfsId("select gtfs_id, id from route where gtfs_id is not null");
+    }
+
+    private Map<String, Long> findIdsByGtfsId(String sql) {
+        Map<String, Long> ids = new HashMap<>();
+        jdbcTemplate.query(sql, rs -> {
+            ids.put(rs.getString(1), rs.getLong(2));
+        });
+        return ids;
+    }
+
+    public void insertStops(List<Stop> stops) {
+        jdbcTemplate.batchUpdate(
+                "insert into stop (gtfs_id, name, lat, lon, address) values (?, ?, ?, ?, ?)",
+                stops, stops.size(), (ps, stop) -> {
+                    ps.setString(1, stop.getGtfsId());
+                    ps.setString(2, stop.getName());
+                    ps.setDouble(3, stop.getLat());
+                    ps.setDouble(4, stop.getLon());
+                    ps.setString(5, stop.getAddress());
+                });
+    }
+
+    // One at a time, as the import finds the stop patterns in stop_times.txt; returns the new id.
+    public long insertRoute(Route route) {
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        jdbcTemplate.update(connection -> {
+            PreparedStatement ps = connection.prepareStatement(
+                    "insert into route (gtfs_id, name, num, description, status) values (?, ?, ?, ?, ?)",
+                    new String[]{"id"});
+            ps.setString(1, route.getGtfsId());
+            ps.setString(2, route.getName());
+            ps.setString(3, route.getNum());
+            ps.setString(4, route.getDescription());
+            ps.setString(5, route.getStatus().name());
+            return ps;
+        }, keyHolder);
+        return keyHolder.getKey().longValue();
+    }
+
+    // Runs, offsets and route stops of the routes, which the import then writes again from the feed.
+    public void deleteRouteContent(List<Long> routeIds) {
+        if (routeIds.isEmpty()) {
+            return;
+        }
+        String in = String.join(", ", Collections.nCopies(routeIds.size(), "?"));
+        Object[] args = routeIds.toArray();
+        jdbcTemplate.update("delete from run where route_id in (" + in + ")", args);
+        jdbcTemplate.update("delete from route_stop_offset where id_route in (" + in + ")", args);
+        jdbcTemplate.update("delete from route_stop where id_route in (" + in + ")", args);
+    }
+
+    public void insertOffsets(List<OffsetRow> rows) {
+        jdbcTemplate.batchUpdate(
+                "insert into route_stop_offset (id_route, id_stop, cumulative_minutes_from_start) values (?, ?, ?)",
+                rows, rows.size(), (ps, row) -> {
+                    ps.setLong(1, row.routeId());
+                    ps.setLong(2, row.stopId());
+                    ps.setInt(3, row.cumulativeMinutesFromStart());
+                });
+    }
+
+    // Special runs on the date that repeat the regular runs of its day of week, for every route not imported
+    // from GTFS, so that a special day of the feed leaves their service as it was.
+    public void copyRegularRunsOfOtherRoutes(LocalDate date) {
+        jdbcTemplate.update(
+                "insert into run (route_id, destination_stop_name, schedule_type, day_of_week, specific_date, run_num, start_time)"
+                        + " select r.route_id, r.destination_stop_name, ?, null, ?, r.run_num, r.start_time"
+                        + " from run r join route ro on ro.id = r.route_id"
+                        + " where ro.gtfs_id is null and r.schedule_type = ? and r.day_of_week = ?",
+                ScheduleType.SPECIAL.name(), Date.valueOf(date), ScheduleType.REGULAR.name(),
+                date.getDayOfWeek().getValue());
+    }
+
+    public void insertRuns(List<RunRow> runs) {
+        jdbcTemplate.batchUpdate(
+                "insert into run (route_id, destination_stop_name, schedule_type, day_of_week, specific_date, run_num, start_time)"
+                        + " values (?, ?, ?, ?, ?, ?, ?)",
+                runs, runs.size(), (ps, run) -> {
+                    ps.setLong(1, run.routeId());
+                    ps.setString(2, run.destinationStopName());
+                    ps.setString(3, run.scheduleType().name());
+                    if (run.dayOfWeek() != null) {
+                        ps.setInt(4, run.dayOfWeek());
+                    } else {
+                        ps.setNull(4, Types.INTEGER);
+                    }
+                    ps.setDate(5, run.specificDate() != null ? Date.valueOf(run.specificDate()) : null);
+                    ps.setInt(6, run.runNum());
+                    ps.setTime(7, Time.valueOf(run.startTime()));
+                });
+    }
+}
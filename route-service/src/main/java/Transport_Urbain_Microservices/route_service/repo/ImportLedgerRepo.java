@@ -0,0 +1,7 @@
+package Transport_Urbain_Microservices.route_service.repo;
+
+import Transport_Urbain_Microservices.route_service.entity.ImportLedger;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface ImportLedgerRepo extends JpaRepository<ImportLedger, String> {
+}
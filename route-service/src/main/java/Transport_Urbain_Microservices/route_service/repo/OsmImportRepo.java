@@ -0,0 +1,82 @@
+package Transport_Urbain_Microservices.route_service.repo;
+
+import Transport_Urbain_Microservices.route_service.entity.Route;
+import Transport_Urbain_Microservices.route_service.entity.Stop;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Plain JDBC access for the OSM import. IDENTITY ids keep Hibernate from batching inserts,
+// so new rows are written with JDBC batches and their ids read back by osm id afterwards.
+@Repository
+@RequiredArgsConstructor
+public class OsmImportRepo {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public record RouteStopRow(long routeId, long stopId, int stopOrder) {
+    }
+
+    public Map<Long, Long> findStopIdsByOsmId() {
+        return findIdsByOsmId("select osm_id, id from stop where osm_id is not null");
+    }
+
+    public Map<Long, Long> findRouteIdsByOsmId() {
+        return findIdsByOsmId("select osm_id, id from route where osm_id is not null");
+    }
+
+    public Map<Long, Long> findRouteIdsByOsmId(List<Long> osmIds) {
+        if (osmIds.isEmpty()) {
+            return new HashMap<>();
+        }
+        String in = String.join(", ", Collections.nCopies(osmIds.size(), "?"));
+        return findIdsByOsmId("select osm_id, id from route where osm_id in (" + in + ")", osmIds.toArray());
+    }
+
+    private Map<Long, Long> findIdsByOsmId(String sql, Object... args) {
+        Map<Long, Long> ids = new HashMap<>();
+        jdbcTemplate.query(sql, rs -> {
+            ids.put(rs.getLong(1), rs.getLong(2));
+        }, args);
+        return ids;
+    }
+
+    public void insertStops(List<Stop> stops) {
+        jdbcTemplate.batchUpdate(
+                "insert into stop (osm_id, name, lat, lon, address) values (?, ?, ?, ?, ?)",
+                stops, stops.size(), (ps, stop) -> {
+                    ps.setLong(1, stop.getOsmId());
+                    ps.setString(2, stop.getName());
+                    ps.setDouble(3, stop.getLat());
+                    ps.setDouble(4, stop.getLon());
+                    ps.setString(5, stop.getAddress());
+                });
+    }
+
+    public void insertRoutes(List<Route> routes) {
+        jdbcTemplate.batchUpdate(
+                "insert into route (osm_id, name, num, description, status) values (?, ?, ?, ?, ?)",
+                routes, routes.size(), (ps, route) -> {
+                    ps.setLong(1, route.getOsmId());
+                    ps.setString(2, route.getName());
+                    ps.setString(3, route.getNum());
+                    ps.setString(4, route.getDescription());
+                    ps.setString(5, route.getStatus().name());
+                });
+    }
+
+    public void insertRouteStops(List<RouteStopRow> rows) {
+        jdbcTemplate.batchUpdate(
+                "insert into route_stop (id_route, id_stop, stop_order) values (?, ?, ?)",
+                rows, rows.size(), (ps, row) -> {
+                    ps.setLong(1, row.routeId());
+                    ps.setLong(2, row.stopId());
+                    ps.setInt(3, row.stopOrder());
+                });
+    }
+}
@@ -1,10 +1,24 @@
 package Transport_Urbain_Microservices.route_service.repo;
 
 import Transport_Urbain_Microservices.route_service.entity.Route;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 public interface RouteRepo extends JpaRepository<Route, Long> {
     Optional<Route> findByOsmId(Long osmId);
+
+    List<Route> findByIdGreaterThanOrderByIdAsc(Long after, Limit limit);
+
+    // must be consumed inside a transaction and closed
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("select r from Route r order by r.id")
+    Stream<Route> streamAll();
 }
@@ -2,7 +2,11 @@ package Transport_Urbain_Microservices.route_service.repo;
 
 import Transport_Urbain_Microservices.route_service.entity.*;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -11,5 +15,12 @@ public interface RouteStopOffsetRepo extends JpaRepository<RouteStopOffset, Rout
 
     List<RouteStopOffset> findByRoute(Route route);
 
-    void deleteByRoute(Route route);
+    // the derived version joins route and filters on route.id, which reads the whole offset table
+    @Query("select o from RouteStopOffset o where o.route.id in :routeIds")
+    List<RouteStopOffset> findByRouteIdIn(@Param("routeIds") Collection<Long> routeIds);
+
+    // one statement, the derived deleteByRoute loaded every offset and deleted them one by one
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("delete from RouteStopOffset o where o.route.id = :routeId")
+    int deleteByRouteId(@Param("routeId") Long routeId);
 }
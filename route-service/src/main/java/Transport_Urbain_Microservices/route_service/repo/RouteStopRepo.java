@@ -5,6 +5,9 @@ import Transport_Urbain_Microservices.route_service.entity.RouteStop;
 import Transport_Urbain_Microservices.route_service.entity.RouteStopId;
 import Transport_Urbain_Microservices.route_service.entity.Stop;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import java.util.Collection;
 import java.util.List;
@@ -12,7 +15,17 @@ import java.util.List;
 public interface RouteStopRepo extends JpaRepository<RouteStop, RouteStopId> {
     void deleteByRoute(Route route);
 
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("delete from RouteStop rs where rs.route.id = :routeId")
+    int deleteByRouteId(@Param("routeId") Long routeId);
+
     List<RouteStop> findByRouteOrderByStopOrderAsc(Route route);
 
     List<RouteStop> findByStop(Stop stop);
+
+    @Query("select rs from RouteStop rs join fetch rs.route where rs.stop = :stop")
+    List<RouteStop> findWithRouteByStop(@Param("stop") Stop stop);
+
+    @Query("select rs from RouteStop rs join fetch rs.stop where rs.route.id in :routeIds order by rs.stopOrder")
+    List<RouteStop> findWithStopByRouteIdIn(@Param("routeIds") Collection<Long> routeIds);
 }
@@ -4,13 +4,20 @@ import Transport_Urbain_Microservices.route_service.dto.RunDetailsDto;
 import Transport_Urbain_Microservices.route_service.entity.Route;
 import Transport_Urbain_Microservices.route_service.entity.Run;
 import Transport_Urbain_Microservices.route_service.entity.ScheduleType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
 import java.time.LocalDate;
 import java.time.LocalTime;
 import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 public interface RunRepo extends JpaRepository<Run, Long> {
     long countByRouteAndScheduleTypeAndDayOfWeek(
@@ -41,6 +48,19 @@ public interface RunRepo extends JpaRepository<Run, Long> {
 
     List<Run> findByRoute(Route route);
 
+    List<Run> findByRouteIn(Collection<Route> routes);
+
+    @Query("select r from Run r join fetch r.route")
+    List<Run> findAllWithRoute();
+
+    @Query("select r from Run r join fetch r.route where r.id > :after order by r.id")
+    List<Run> findPageWithRoute(@Param("after") Long after, Limit limit);
+
+    // must be consumed inside a transaction and closed
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("select r from Run r join fetch r.route order by r.id")
+    Stream<Run> streamAllWithRoute();
+
     List<Run> findByRouteAndScheduleTypeAndSpecificDate(Route route, ScheduleType scheduleType, LocalDate specificDate);
 
     List<Run> findByRouteAndScheduleTypeAndDayOfWeek(Route route, ScheduleType scheduleType, Integer dayOfWeek);
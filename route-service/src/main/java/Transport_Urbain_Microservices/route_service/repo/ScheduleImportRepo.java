@@ -0,0 +1,94 @@
+package Transport_Urbain_Microservices.route_service.repo;
+
+import Transport_Urbain_Microservices.route_service.entity.ScheduleType;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Time;
+import java.time.LocalTime;
+import java.util.*;
+
+// Plain JDBC access for the schedule import: one query for the existing regular departures,
+// batched run inserts and multi-row offset upserts.
+@Repository
+@RequiredArgsConstructor
+public class ScheduleImportRepo {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private volatile Boolean postgres;
+
+    public record RunRow(long routeId, String destinationStopName, int dayOfWeek, int runNum, LocalTime startTime) {
+    }
+
+    public record OffsetRow(long routeId, long stopId, int cumulativeMinutesFromStart) {
+    }
+
+    // Day of week and start time packed in one int, see departureKey.
+    public Map<Long, Set<Integer>> findRegularDepartureKeysByRoute() {
+        Map<Long, Set<Integer>> keys = new HashMap<>();
+        jdbcTemplate.query(
+                "select route_id, day_of_week, start_time from run where schedule_type = ?",
+                rs -> {
+                    keys.computeIfAbsent(rs.getLong(1), id -> new HashSet<>())
+                            .add(departureKey(rs.getInt(2), rs.getTime(3).toLocalTime()));
+                },
+                ScheduleType.REGULAR.name());
+        return keys;
+    }
+
+    public static int departureKey(int dayOfWeek, LocalTime startTime) {
+        return dayOfWeek * 86_400 + startTime.toSecondOfDay();
+    }
+
+    public void insertRegularRuns(List<RunRow> runs) {
+        jdbcTemplate.batchUpdate(
+                "insert into run (route_id, destination_stop_name, schedule_type, day_of_week, run_num, start_time)"
+                        + " values (?, ?, ?, ?, ?, ?)",
+                runs, runs.size(), (ps, run) -> {
+                    ps.setLong(1, run.routeId());
+                    ps.setString(2, run.destinationStopName());
+                    ps.setString(3, ScheduleType.REGULAR.name());
+                    ps.setInt(4, run.dayOfWeek());
+                    ps.setInt(5, run.runNum());
+                    ps.setTime(6, Time.valueOf(run.startTime()));
+                });
+    }
+
+    // One statement for all rows; a (route, stop) pair must not appear twice in the list.
+    // Rows whose offset did not change are left untouched. Postgres syntax, H2's MERGE for the repository tests.
+    public void upsertOffsets(List<OffsetRow> rows) {
+        if (rows.isEmpty()) {
+            return;
+        }
+        StringBuilder sql = new StringBuilder(isPostgres()
+                ? "insert into route_stop_offset (id_route, id_stop, cumulative_minutes_from_start) values "
+                : "merge into route_stop_offset (id_route, id_stop, cumulative_minutes_from_start) key (id_route, id_stop) values ");
+        Object[] args = new Object[rows.size() * 3];
+        for (int i = 0; i < rows.size(); i++) {
+            OffsetRow row = rows.get(i);
+            sql.append(i == 0 ? "(?, ?, ?)" : ", (?, ?, ?)");
+            args[i * 3] = row.routeId();
+            args[i * 3 + 1] = row.stopId();
+            args[i * 3 + 2] = row.cumulativeMinutesFromStart();
+        }
+        if (isPostgres()) {
+            sql.append(" on conflict (id_route, id_stop) do update"
+                    + " set cumulative_minutes_from_start = excluded.cumulative_minutes_from_start"
+                    + " where route_stop_offset.cumulative_minutes_from_start <> excluded.cumulative_minutes_from_start");
+        }
+        jdbcTemplate.update(sql.toString(), args);
+    }
+
+    private boolean isPostgres() {
+        Boolean postgres = this.postgres;
+        if (postgres == null) {
+            postgres = jdbcTemplate.execute((ConnectionCallback<Boolean>) connection ->
+                    "PostgreSQL".equals(connection.getMetaData().getDatabaseProductName()));
+            this.postgres = postgres;
+        }
+        return postgres;
+    }
+}
@@ -1,10 +1,24 @@
 package Transport_Urbain_Microservices.route_service.repo;
 
 import Transport_Urbain_Microservices.route_service.entity.Stop;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 public interface StopRepo extends JpaRepository<Stop, Long> {
     Optional<Stop> findByOsmId(Long osmId);
+
+    List<Stop> findByIdGreaterThanOrderByIdAsc(Long after, Limit limit);
+
+    // must be consumed inside a transaction and closed
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("select s from Stop s order by s.id")
+    Stream<Stop> streamAll();
 }
@@ -0,0 +1,238 @@
+package Transport_Urbain_Microservices.route_service.service;
+
+import Transport_Urbain_Microservices.route_service.entity.*;
+import Transport_Urbain_Microservices.route_service.gtfs.GtfsFeedWriter;
+import Transport_Urbain_Microservices.route_service.repo.RouteRepo;
+import Transport_Urbain_Microservices.route_service.repo.RunRepo;
+import Transport_Urbain_Microservices.route_service.repo.SpecialDayRepo;
+import Transport_Urbain_Microservices.route_service.repo.StopRepo;
+import Transport_Urbain_Microservices.route_service.timetable.DatasetVersion;
+import Transport_Urbain_Microservices.route_service.timetable.StopPattern;
+import Transport_Urbain_Microservices.route_service.timetable.StopPatternCache;
+import jakarta.persistence.EntityManager;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.*;
+import java.util.stream.Stream;
+
+// Writes the network as a GTFS feed to a file and keeps serving that file until the dataset version or the date
+// changes: the service calendar starts on the day the feed is generated.
+// Stops, routes and runs are streamed from the database and written as they are read: only the special days
+// and the stop patterns of the routes stay in memory, never the stop times.
+@Service
+public class GtfsExportService {
+
+    static final String FEED_FILE = "feed.zip";
+    private static final String AGENCY_ID = "1";
+    // GTFS route_type of a bus line
+    private static final int BUS = 3;
+    private static final String[] WEEKDAYS = {"monday", "tuesday", "wednesday", "thursday", "friday", "saturday", "sunday"};
+
+    @Value("${app.gtfs.dir:${java.io.tmpdir}/route-service-gtfs}")
+    private Path feedDir;
+
+    @Value("${app.gtfs.agency-name:Transport Urbain}")
+    private String agencyName;
+
+    @Value("${app.gtfs.agency-url:http://localhost:8083}")
+    private String agencyUrl;
+
+    @Value("${app.gtfs.timezone:Africa/Casablanca}")
+    private String timezone;
+
+    // regular services run from the generation date for that many days
+    @Value("${app.gtfs.horizon-days:365}")
+    private int horizonDays;
+
+    private final StopRepo stopRepo;
+    private final RouteRepo routeRepo;
+    private final RunRepo runRepo;
+    private final SpecialDayRepo specialDayRepo;
+    private final StopPatternCache stopPatternCache;
+    private final DatasetVersion datasetVersion;
+    private final EntityManager entityManager;
+    private final TransactionTemplate readTransaction;
+
+    private Path feed;
+    private long feedVersion = -1;
+    private LocalDate feedDate;
+
+    public GtfsExportService(StopRepo stopRepo,
+                             RouteRepo routeRepo,
+                             RunRepo runRepo,
+                             SpecialDayRepo specialDayRepo,
+                             StopPatternCache stopPatternCache,
+                             DatasetVersion datasetVersion,
+                             EntityManager entityManager,
+                             PlatformTransactionManager transactionManager) {
+        this.stopRepo = stopRepo;
+        this.routeRepo = routeRepo;
+        this.runRepo = runRepo;
+        this.specialDayRepo = specialDayRepo;
+        this.stopPatternCache = stopPatternCache;
+        this.datasetVersion = datasetVersion;
+        this.entityManager = entityManager;
+        this.readTransaction = new TransactionTemplate(transactionManager);
+        this.readTransaction.setReadOnly(true);
+    }
+
+    public Path currentFeed() {
+        return currentFeed(LocalDate.now());
+    }
+
+    // The feed of the current dataset version starting on the given date, generated first if the data or the date
+    // changed since the last one.
+    public synchronized Path currentFeed(LocalDate from) {
+        long version = datasetVersion.version();
+        if (feed != null && feedVersion == version && from.equals(feedDate) && Files.exists(feed)) {
+            return feed;
+        }
+        long start = System.currentTimeMillis();
+        try {
+            Files.createDirectories(feedDir);
+            Path tmp = Files.createTempFile(feedDir, "feed-", ".tmp");
+            try {
+                try (GtfsFeedWriter writer = new GtfsFeedWriter(Files.newOutputStream(tmp))) {
+                    readTransaction.executeWithoutResult(status -> write(writer, from));
+                }
+                // readers of the previous feed keep their open file, new ones get the complete new one
+                Path target = feedDir.resolve(FEED_FILE);
+                Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                feed = target;
+                feedVersion = version;
+                feedDate = from;
+            } finally {
+                Files.deleteIfExists(tmp);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        System.out.println("GTFS feed written for dataset version " + version + " from " + from + " in "
+                + (System.currentTimeMillis() - start) + " ms");
+        return feed;
+    }
+
+    // changes with the data and with the date the feed starts from
+    public String etag(LocalDate from) {
+        return datasetVersion.etag(GtfsFeedWriter.date(from));
+    }
+
+    private void write(GtfsFeedWriter writer, LocalDate from) {
+        LocalDate to = from.plusDays(horizonDays);
+        Set<LocalDate> specialDays = new TreeSet<>();
+        for (SpecialDay day : specialDayRepo.findAll()) {
+            if (!day.getDate().isBefore(from) && !day.getDate().isAfter(to)) {
+                specialDays.add(day.getDate());
+            }
+        }
+
+        writer.startFile("agency.txt", "agency_id", "agency_name", "agency_url", "agency_timezone");
+        writer.row(AGENCY_ID, agencyName, agencyUrl, timezone);
+
+        writer.startFile("stops.txt", "stop_id", "stop_name", "stop_desc", "stop_lat", "stop_lon");
+        try (Stream<Stop> stops = stopRepo.streamAll()) {
+            StreamChunks.forEach(stops, StreamChunks.SIZE, chunk -> {
+                for (Stop stop : chunk) {
+                    writer.row(stop.getId(), stop.getName(), stop.getAddress(), stop.getLat(), stop.getLon());
+                }
+                entityManager.clear();
+            });
+        }
+
+        // routes that are not active have no service, they are left out with their runs
+        writer.startFile("routes.txt",
+                "route_id", "agency_id", "route_short_name", "route_long_name", "route_desc", "route_type");
+        Set<Long> activeRoutes = new HashSet<>();
+        try (Stream<Route> routes = routeRepo.streamAll()) {
+            StreamChunks.forEach(routes, StreamChunks.SIZE, chunk -> {
+                for (Route route : chunk) {
+                    if (route.getStatus() == RouteStatus.ACTIVE) {
+                        activeRoutes.add(route.getId());
+                        writer.row(route.getId(), AGENCY_ID, route.getNum(), route.getName(), route.getDescription(), BUS);
+                    }
+                }
+                entityManager.clear();
+            });
+        }
+        Map<Long, StopPattern> patterns = stopPatternCache.getAll(activeRoutes);
+
+        // one service per day of week for the regular runs
+        writer.startFile("calendar.txt", "service_id", WEEKDAYS[0], WEEKDAYS[1], WEEKDAYS[2], WEEKDAYS[3],
+                WEEKDAYS[4], WEEKDAYS[5], WEEKDAYS[6], "start_date", "end_date");
+        for (int day = 1; day <= 7; day++) {
+            Object[] row = new Object[10];
+            row[0] = regularService(day);
+            for (int d = 1; d <= 7; d++) {
+                row[d] = d == day ? 1 : 0;
+            }
+            row[8] = GtfsFeedWriter.date(from);
+            row[9] = GtfsFeedWriter.date(to);
+            writer.row(row);
+        }
+
+        // on a special day only the special runs operate: the regular service is removed, the special one added
+        writer.startFile("calendar_dates.txt", "service_id", "date", "exception_type");
+        for (LocalDate date : specialDays) {
+            writer.row(regularService(date.getDayOfWeek().getValue()), GtfsFeedWriter.date(date), 2);
+            writer.row(specialService(date), GtfsFeedWriter.date(date), 1);
+        }
+
+        writer.startFile("trips.txt", "route_id", "service_id", "trip_id", "trip_headsign");
+        forEachServedRun(activeRoutes, specialDays, (run, serviceId) ->
+                writer.row(run.getRoute().getId(), serviceId, run.getId(), run.getDestinationStopName()));
+
+        writer.startFile("stop_times.txt", "trip_id", "arrival_time", "departure_time", "stop_id", "stop_sequence");
+        forEachServedRun(activeRoutes, specialDays, (run, serviceId) -> {
+            StopPattern pattern = patterns.get(run.getRoute().getId());
+            LocalTime start = run.getStartTime();
+            int startMinute = start.getHour() * 60 + start.getMinute();
+            for (int i = 0; i < pattern.size(); i++) {
+                String time = GtfsFeedWriter.time(startMinute + pattern.offset(i));
+                writer.row(run.getId(), time, time, pattern.stopId(i), i + 1);
+            }
+        });
+    }
+
+    // Streams the runs that operate within the feed: runs of active routes, special ones only on special days.
+    private void forEachServedRun(Set<Long> activeRoutes, Set<LocalDate> specialDays, RunAction action) {
+        try (Stream<Run> runs = runRepo.streamAllWithRoute()) {
+            StreamChunks.forEach(runs, StreamChunks.SIZE, chunk -> {
+                for (Run run : chunk) {
+                    if (!activeRoutes.contains(run.getRoute().getId())) {
+                        continue;
+                    }
+                    if (run.getScheduleType() == ScheduleType.SPECIAL) {
+                        if (specialDays.contains(run.getSpecificDate())) {
+                            action.accept(run, specialService(run.getSpecificDate()));
+                        }
+                    } else {
+                        action.accept(run, regularService(run.getDayOfWeek()));
+                    }
+                }
+                entityManager.clear();
+            });
+        }
+    }
+
+    private static String regularService(int dayOfWeek) {
+        return "D" + dayOfWeek;
+    }
+
+    private static String specialService(LocalDate date) {
+        return "S" + GtfsFeedWriter.date(date);
+    }
+
+    private interface RunAction {
+        void accept(Run run, String serviceId);
+    }
+}
@@ -0,0 +1,27 @@
+package Transport_Urbain_Microservices.route_service.service;
+
+import Transport_Urbain_Microservices.route_service.dto.JourneyDto;
+import Transport_Urbain_Microservices.route_service.timetable.JourneyPlanner;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Service
+@RequiredArgsConstructor
+public class JourneyService {
+
+    private final JourneyPlanner journeyPlanner;
+
+    public List<JourneyDto> planJourney(Long fromStopId, Long toStopId, LocalDateTime departAt) {
+        if (fromStopId.equals(toStopId)) {
+            throw new IllegalArgumentException("Origin and destination must be different stops");
+        }
+        List<JourneyDto> journeys = journeyPlanner.plan(fromStopId, toStopId, departAt);
+        if (journeys == null) {
+            throw new IllegalArgumentException("Stop not found");
+        }
+        return journeys;
+    }
+}
@@ -2,20 +2,25 @@ package Transport_Urbain_Microservices.route_service.service;
 
 import Transport_Urbain_Microservices.route_service.dto.*;
 import Transport_Urbain_Microservices.route_service.entity.*;
+import Transport_Urbain_Microservices.route_service.mapper.RouteDtoCache;
 import Transport_Urbain_Microservices.route_service.mapper.RouteMapper;
 import Transport_Urbain_Microservices.route_service.repo.RouteRepo;
 import Transport_Urbain_Microservices.route_service.repo.RouteStopOffsetRepo;
 import Transport_Urbain_Microservices.route_service.repo.RouteStopRepo;
 import Transport_Urbain_Microservices.route_service.repo.StopRepo;
+import Transport_Urbain_Microservices.route_service.timetable.TimetableChangedEvent;
+import jakarta.persistence.EntityManager;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.List;
-import java.util.Map;
-import java.util.stream.Collectors;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 @Service
 @RequiredArgsConstructor
@@ -26,6 +31,9 @@ public class RouteService {
     private final RouteStopRepo routeStopRepo;
     private final RouteStopOffsetRepo  routeStopOffsetRepo;
     private final RouteMapper routeMapper;
+    private final RouteDtoCache routeDtoCache;
+    private final ApplicationEventPublisher eventPublisher;
+    private final EntityManager entityManager;
 
     @Transactional
     public RouteDto createRoute(RouteDto routeDto) {
@@ -46,39 +54,16 @@ public class RouteService {
             throw new IllegalArgumentException("One or more stop IDs are invalid");
         }
 
-        Map<Long, Stop> stopMap = stops.stream()
-                .collect(Collectors.toMap(Stop::getId, stop -> stop));
-
-        for (int i = 0; i < routeDto.getRouteStops().size(); i++) {
-            Long stopId = routeDto.getRouteStops().get(i);
-            Stop stop = stopMap.get(stopId);
-
-            RouteStop routeStop = new RouteStop();
-            routeStop.setRoute(route);
-            routeStop.setStop(stop);
-            routeStop.setStopOrder(i+1);
-
-            route.getRouteStops().add(routeStop);
-        }
-        Route savedRoute = routeRepo.save(route);
-
-        List<RouteStop> sortedStops = savedRoute.getRouteStops().stream()
-                .sorted(Comparator.comparing(RouteStop::getStopOrder))
-                .toList();
-
         for (int i = 0; i < routeDto.getCumulativeMinutesFromStartForStops().size()-1; i++) {
             if (routeDto.getCumulativeMinutesFromStartForStops().get(i)> routeDto.getCumulativeMinutesFromStartForStops().get(i+1)){
                 throw new IllegalArgumentException("CumulativeMinutesFromStart must be in ascending order");
             }
         }
 
-        for (int i = 0; i < sortedStops.size(); i++) {
-            RouteStop rs = sortedStops.get(i);
-            Integer c = routeDto.getCumulativeMinutesFromStartForStops().get(i);
-            RouteStopOffset offset = new RouteStopOffset(rs.getRoute(), rs.getStop(), c);
-            routeStopOffsetRepo.save(offset);
-        }
+        Route savedRoute = routeRepo.save(route);
+        insertRouteStops(savedRoute.getId(), routeDto.getRouteStops(), routeDto.getCumulativeMinutesFromStartForStops());
 
+        eventPublisher.publishEvent(TimetableChangedEvent.forRoute(savedRoute.getId()));
         return routeMapper.toDto(savedRoute);
     }
 
@@ -91,6 +76,7 @@ public class RouteService {
         existingRoute.setNum(changeRouteInfoDto.getNum());
         existingRoute.setDescription(changeRouteInfoDto.getDescription());
         existingRoute = routeRepo.save(existingRoute);
+        eventPublisher.publishEvent(TimetableChangedEvent.forRoute(existingRoute.getId()));
         return routeMapper.toDto(existingRoute);
     }
 
@@ -111,41 +97,17 @@ public class RouteService {
             }
         }
 
-        routeStopOffsetRepo.deleteByRoute(route);
-
         List<Stop> stops = stopRepo.findAllById(changeDto.getRouteStops());
         if (stops.size() != changeDto.getRouteStops().size()) {
             throw new IllegalArgumentException("One or more stop IDs are invalid");
         }
 
-        Map<Long, Stop> stopMap = stops.stream().collect(Collectors.toMap(Stop::getId, stop -> stop));
-
-        route.getRouteStops().clear();
-
-        for (int i = 0; i < changeDto.getRouteStops().size(); i++) {
-            Long stopId = changeDto.getRouteStops().get(i);
-            Stop stop = stopMap.get(stopId);
-
-            RouteStop routeStop = new RouteStop();
-            routeStop.setRoute(route);
-            routeStop.setStop(stop);
-            routeStop.setStopOrder(i+1);
-
-            route.getRouteStops().add(routeStop);
-        }
-        Route updatedRoute = routeRepo.save(route);
-
-        List<RouteStop> sortedStops = updatedRoute.getRouteStops().stream()
-                .sorted(Comparator.comparing(RouteStop::getStopOrder))
-                .toList();
+        routeStopOffsetRepo.deleteByRouteId(route.getId());
+        routeStopRepo.deleteByRouteId(route.getId());
+        insertRouteStops(route.getId(), changeDto.getRouteStops(), changeDto.getCumulativeMinutesFromStartForStops());
 
-        for (int i = 0; i < sortedStops.size(); i++) {
-            RouteStop rs = sortedStops.get(i);
-            Integer c = changeDto.getCumulativeMinutesFromStartForStops().get(i);
-            RouteStopOffset offset = new RouteStopOffset(rs.getRoute(), rs.getStop(), c);
-            routeStopOffsetRepo.save(offset);
-        }
-        return routeMapper.toDto(updatedRoute);
+        eventPublisher.publishEvent(TimetableChangedEvent.forRoute(route.getId()));
+        return routeMapper.toDto(route);
     }
 
     @Transactional
@@ -154,7 +116,9 @@ public class RouteService {
                 ()-> new RuntimeException("Route with id " + changeRouteStatusDto.getId() + " not found")
         );
         existingRoute.setStatus(changeRouteStatusDto.getNewRouteStatus());
-        return routeMapper.toDto(routeRepo.save(existingRoute));
+        Route savedRoute = routeRepo.save(existingRoute);
+        eventPublisher.publishEvent(TimetableChangedEvent.forRoute(savedRoute.getId()));
+        return routeMapper.toDto(savedRoute);
     }
 
     @Transactional
@@ -175,38 +139,69 @@ public class RouteService {
         if (sortedStops.size() != updateDto.getCumulativeMinutesFromStartForStops().size()) {
             throw new IllegalArgumentException("Cumulative minutes list must match the number of stops in the route");
         }
-        routeStopOffsetRepo.deleteByRoute(route);
+        List<Long> stopIds = sortedStops.stream().map(rs -> rs.getStop().getId()).toList();
+        routeStopOffsetRepo.deleteByRouteId(route.getId());
 
-        for (int i = 0; i < sortedStops.size(); i++) {
-            RouteStop rs = sortedStops.get(i);
-            Integer cum = updateDto.getCumulativeMinutesFromStartForStops().get(i);
-            RouteStopOffset offset = new RouteStopOffset(rs.getRoute(), rs.getStop(), cum);
-            routeStopOffsetRepo.save(offset);
+        Route routeRef = entityManager.getReference(Route.class, route.getId());
+        for (int i = 0; i < stopIds.size(); i++) {
+            Stop stop = entityManager.getReference(Stop.class, stopIds.get(i));
+            entityManager.persist(new RouteStopOffset(routeRef, stop, updateDto.getCumulativeMinutesFromStartForStops().get(i)));
         }
+        eventPublisher.publishEvent(TimetableChangedEvent.forRoute(route.getId()));
         return routeMapper.toDto(route);
     }
 
     public RouteDto getRouteById(Long routeId) {
-        Route existingRoute = routeRepo.findById(routeId).orElseThrow(
-                ()-> new RuntimeException("Route with id " + routeId + " not found")
-        );
-        return routeMapper.toDto(existingRoute);
+        RouteDto route = routeDtoCache.get(routeId);
+        if (route == null) {
+            throw new RuntimeException("Route with id " + routeId + " not found");
+        }
+        return route;
     }
 
     public List<RouteDto> getAllRoutes(){
-        List<Route> routes = routeRepo.findAll();
-        return routes.stream().map(routeMapper::toDto).toList();
+        return routeDtoCache.getAll();
+    }
+
+    public PageDto<RouteDto> getRoutesPage(long after, int size) {
+        int pageSize = PageDto.checkSize(size);
+        List<Route> routes = routeRepo.findByIdGreaterThanOrderByIdAsc(after, Limit.of(pageSize + 1));
+        return PageDto.of(routes, pageSize, Route::getId, routeDtoCache::getAll);
+    }
+
+    @Transactional(readOnly = true)
+    public void streamRoutes(Consumer<RouteDto> sink) {
+        try (Stream<Route> routes = routeRepo.streamAll()) {
+            StreamChunks.forEach(routes, StreamChunks.SIZE, chunk -> {
+                routeDtoCache.getAll(chunk).forEach(sink);
+                entityManager.clear();
+            });
+        }
     }
 
     @Transactional
     public boolean deleteRouteById(Long routeId){
         try{
-            routeRepo.findById(routeId).ifPresent(routeStopOffsetRepo::deleteByRoute);
+            routeStopOffsetRepo.deleteByRouteId(routeId);
+            routeStopRepo.deleteByRouteId(routeId);
             routeRepo.deleteById(routeId);
+            eventPublisher.publishEvent(TimetableChangedEvent.forRoute(routeId));
             return true;
         } catch (Exception e) {
             return false;
         }
     }
 
+    // The route stops and offsets inserted here must not already be in the persistence context: a new route has
+    // none, and an update removes the old ones with clearing bulk deletes first. They are only referenced by id,
+    // and persist inserts the new composite keys in JDBC batches where save would merge and select each row first.
+    private void insertRouteStops(Long routeId, List<Long> stopIds, List<Integer> cumulativeMinutes) {
+        Route route = entityManager.getReference(Route.class, routeId);
+        for (int i = 0; i < stopIds.size(); i++) {
+            Stop stop = entityManager.getReference(Stop.class, stopIds.get(i));
+            entityManager.persist(new RouteStop(route, stop, i + 1));
+            entityManager.persist(new RouteStopOffset(route, stop, cumulativeMinutes.get(i)));
+        }
+    }
+
 }
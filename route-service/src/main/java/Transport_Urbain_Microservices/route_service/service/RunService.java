@@ -1,24 +1,35 @@
 package Transport_Urbain_Microservices.route_service.service;
 
 import Transport_Urbain_Microservices.route_service.dto.CreateRunDTO;
+import Transport_Urbain_Microservices.route_service.dto.NextDepartureDto;
+import Transport_Urbain_Microservices.route_service.dto.PageDto;
 import Transport_Urbain_Microservices.route_service.dto.RunDetailsDto;
 import Transport_Urbain_Microservices.route_service.entity.*;
 import Transport_Urbain_Microservices.route_service.exception.ResourceNotFoundException;
 import Transport_Urbain_Microservices.route_service.mapper.RunMapper;
 import Transport_Urbain_Microservices.route_service.repo.*;
+import Transport_Urbain_Microservices.route_service.timetable.TimetableChangedEvent;
+import Transport_Urbain_Microservices.route_service.timetable.TimetableEngine;
+import jakarta.persistence.EntityManager;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
-import java.util.ArrayList;
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 @RequiredArgsConstructor
 public class RunService{
 
+    private static final int MAX_NEXT_DEPARTURES = 50;
+
     private final RunMapper runMapper;
 
     private final RunRepo runRepo;
@@ -26,6 +37,9 @@ public class RunService{
     private final StopRepo stopRepo;
     private final RouteStopRepo routeStopRepo;
     private final SpecialDayRepo specialDayRepo;
+    private final TimetableEngine timetableEngine;
+    private final ApplicationEventPublisher eventPublisher;
+    private final EntityManager entityManager;
 
     public RunDetailsDto getRunById(Long runId){
         Run run = runRepo.findById(runId)
@@ -34,8 +48,25 @@ public class RunService{
     }
 
     public List<RunDetailsDto> getAllRuns(){
-        List<Run> runs = runRepo.findAll();
-        return runs.stream().map(runMapper::toDetailsDto).toList();
+        return runMapper.toDetailsDtos(runRepo.findAllWithRoute());
+    }
+
+    public PageDto<RunDetailsDto> getRunsPage(long after, int size) {
+        int pageSize = PageDto.checkSize(size);
+        List<Run> runs = runRepo.findPageWithRoute(after, Limit.of(pageSize + 1));
+        return PageDto.of(runs, pageSize, Run::getId, runMapper::toDetailsDtos);
+    }
+
+    // Runs are mapped a chunk at a time, the persistence context is cleared in between
+    // so that memory does not grow with the number of runs.
+    @Transactional(readOnly = true)
+    public void streamRuns(Consumer<RunDetailsDto> sink) {
+        try (Stream<Run> runs = runRepo.streamAllWithRoute()) {
+            StreamChunks.forEach(runs, StreamChunks.SIZE, chunk -> {
+                runMapper.toDetailsDtos(chunk).forEach(sink);
+                entityManager.clear();
+            });
+        }
     }
 
     public List<RunDetailsDto> getAllRunsForRoute(Long routeId) {
@@ -44,64 +75,49 @@ public class RunService{
         if (route.getStatus() != RouteStatus.ACTIVE) {
             return List.of(); // Empty list if suspended or under maintenance
         }
-        return runRepo.findByRoute(route).stream().map(runMapper::toDetailsDto).toList();
+        return runMapper.toDetailsDtos(runRepo.findByRoute(route));
     }
 
     public List<RunDetailsDto> getAllRunsForRouteForGivenDay(Long routeId, LocalDate givenDay) {
-        Route route = routeRepo.findById(routeId)
-                .orElseThrow(() -> new IllegalArgumentException("Route not found"));
-        if (route.getStatus() != RouteStatus.ACTIVE) {
-            return List.of(); // Empty list if suspended or under maintenance
-        }
-        boolean isSpecial = specialDayRepo.existsById(givenDay);
-        if (isSpecial) {
-            return runRepo.findByRouteAndScheduleTypeAndSpecificDate(route, ScheduleType.SPECIAL, givenDay)
-                    .stream()
-                    .map(runMapper::toDetailsDto)
-                    .toList();
-        } else {
-            int dayOfWeek = givenDay.getDayOfWeek().getValue(); // 1=MONDAY to 7=SUNDAY
-            return runRepo.findByRouteAndScheduleTypeAndDayOfWeek(route, ScheduleType.REGULAR, dayOfWeek)
-                    .stream()
-                    .map(runMapper::toDetailsDto)
-                    .toList();
+        List<RunDetailsDto> runs = timetableEngine.getRunsForRouteOnDay(routeId, givenDay);
+        if (runs == null) {
+            throw new IllegalArgumentException("Route not found");
         }
+        return runs;
     }
 
     public List<RunDetailsDto> getAllRunsForStop(Long stopId) {
         Stop stop = stopRepo.findById(stopId)
                 .orElseThrow(() -> new IllegalArgumentException("Stop not found"));
-        List<Route> routes = routeStopRepo.findByStop(stop).stream()
+        List<Route> routes = routeStopRepo.findWithRouteByStop(stop).stream()
                 .map(RouteStop::getRoute)
                 .filter(route -> route.getStatus() == RouteStatus.ACTIVE)
                 .distinct()
                 .toList();
-        List<Run> runs = new ArrayList<>();
-        for (Route route : routes) {
-            runs.addAll(runRepo.findByRoute(route));
+        if (routes.isEmpty()) {
+            return List.of();
         }
-        return runs.stream().map(runMapper::toDetailsDto).toList();
+        return runMapper.toDetailsDtos(runRepo.findByRouteIn(routes));
     }
 
     public List<RunDetailsDto> getAllRunsForStopForGivenDay(Long stopId, LocalDate givenDay) {
-        Stop stop = stopRepo.findById(stopId)
-                .orElseThrow(() -> new IllegalArgumentException("Stop not found"));
-        List<Route> routes = routeStopRepo.findByStop(stop).stream()
-                .map(RouteStop::getRoute)
-                .filter(route -> route.getStatus() == RouteStatus.ACTIVE) // Filter active routes only
-                .distinct()
-                .toList();
-        List<Run> runs = new ArrayList<>();
-        boolean isSpecial = specialDayRepo.existsByDate(givenDay);
-        for (Route route : routes) {
-            if (isSpecial) {
-                runs.addAll(runRepo.findByRouteAndScheduleTypeAndSpecificDate(route, ScheduleType.SPECIAL, givenDay));
-            } else {
-                int dayOfWeek = givenDay.getDayOfWeek().getValue();
-                runs.addAll(runRepo.findByRouteAndScheduleTypeAndDayOfWeek(route, ScheduleType.REGULAR, dayOfWeek));
-            }
+        List<RunDetailsDto> runs = timetableEngine.getRunsForStopOnDay(stopId, givenDay);
+        if (runs == null) {
+            throw new IllegalArgumentException("Stop not found");
+        }
+        return runs;
+    }
+
+    public List<NextDepartureDto> getNextDeparturesForStop(Long stopId, LocalDateTime at, int limit) {
+        if (limit < 1) {
+            throw new IllegalArgumentException("Limit must be at least 1");
+        }
+        List<NextDepartureDto> departures = timetableEngine.getNextDeparturesForStop(
+                stopId, at, Math.min(limit, MAX_NEXT_DEPARTURES));
+        if (departures == null) {
+            throw new IllegalArgumentException("Stop not found");
         }
-        return runs.stream().map(runMapper::toDetailsDto).toList();
+        return departures;
     }
 
     @Transactional
@@ -118,6 +134,7 @@ public class RunService{
         } else {
             runRepo.delete(run);
         }
+        eventPublisher.publishEvent(TimetableChangedEvent.forRoute(run.getRoute().getId()));
     }
 
     @Transactional
@@ -125,6 +142,7 @@ public class RunService{
         List<Run> specialRuns = runRepo.findByScheduleTypeAndSpecificDate(ScheduleType.SPECIAL, date);
         runRepo.deleteAll(specialRuns);
         specialDayRepo.deleteById(date);
+        eventPublisher.publishEvent(TimetableChangedEvent.all());
     }
 
     @Transactional
@@ -152,6 +170,7 @@ public class RunService{
         }
         run.setStartTime(createRunDTO.getStartTime());
         Run savedRun = runRepo.save(run);
+        eventPublisher.publishEvent(TimetableChangedEvent.forRoute(route.getId()));
         return runMapper.toDetailsDto(savedRun);
     }
 }
@@ -1,22 +1,37 @@
 package Transport_Urbain_Microservices.route_service.service;
 
+import Transport_Urbain_Microservices.route_service.dto.NearbyStopDto;
+import Transport_Urbain_Microservices.route_service.dto.PageDto;
 import Transport_Urbain_Microservices.route_service.dto.StopDto;
 import Transport_Urbain_Microservices.route_service.entity.Route;
 import Transport_Urbain_Microservices.route_service.entity.Stop;
+import Transport_Urbain_Microservices.route_service.geo.StopLocator;
 import Transport_Urbain_Microservices.route_service.mapper.StopMapper;
 import Transport_Urbain_Microservices.route_service.repo.StopRepo;
+import Transport_Urbain_Microservices.route_service.timetable.TimetableChangedEvent;
+import jakarta.persistence.EntityManager;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
 import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 @Service
 @RequiredArgsConstructor
 public class StopService {
 
+    private static final int MAX_NEARBY_RADIUS_METERS = 5000;
+    private static final int MAX_NEARBY_STOPS = 100;
+
     private final StopRepo stopRepo;
+    private final StopLocator stopLocator;
+    private final ApplicationEventPublisher eventPublisher;
+    private final EntityManager entityManager;
 
     @Transactional
     public StopDto createStop(StopDto stopDto) {
@@ -25,7 +40,9 @@ public class StopService {
         newStop.setAddress(stopDto.getAddress());
         newStop.setLat(stopDto.getLat());
         newStop.setLon(stopDto.getLon());
-        return StopMapper.toDto(stopRepo.save(newStop));
+        Stop savedStop = stopRepo.save(newStop);
+        eventPublisher.publishEvent(TimetableChangedEvent.all());
+        return StopMapper.toDto(savedStop);
     }
 
     @Transactional
@@ -37,7 +54,9 @@ public class StopService {
         existingStop.setAddress(stopDto.getAddress());
         existingStop.setLat(stopDto.getLat());
         existingStop.setLon(stopDto.getLon());
-        return StopMapper.toDto(stopRepo.save(existingStop));
+        Stop savedStop = stopRepo.save(existingStop);
+        eventPublisher.publishEvent(TimetableChangedEvent.all());
+        return StopMapper.toDto(savedStop);
     }
 
     public StopDto getStopById(Long id) {
@@ -52,9 +71,40 @@ public class StopService {
         return stops.stream().map(StopMapper::toDto).toList();
     }
 
+    public PageDto<StopDto> getStopsPage(long after, int size) {
+        int pageSize = PageDto.checkSize(size);
+        List<Stop> stops = stopRepo.findByIdGreaterThanOrderByIdAsc(after, Limit.of(pageSize + 1));
+        return PageDto.of(stops, pageSize, Stop::getId, page -> page.stream().map(StopMapper::toDto).toList());
+    }
+
+    @Transactional(readOnly = true)
+    public void streamStops(Consumer<StopDto> sink) {
+        try (Stream<Stop> stops = stopRepo.streamAll()) {
+            StreamChunks.forEach(stops, StreamChunks.SIZE, chunk -> {
+                chunk.stream().map(StopMapper::toDto).forEach(sink);
+                entityManager.clear();
+            });
+        }
+    }
+
+    public List<NearbyStopDto> getNearbyStops(double lat, double lon, int radiusMeters, int limit) {
+        if (lat < -90 || lat > 90 || lon < -180 || lon > 180) {
+            throw new IllegalArgumentException("Invalid coordinates");
+        }
+        if (radiusMeters < 1 || limit < 1) {
+            throw new IllegalArgumentException("Radius and limit must be at least 1");
+        }
+        return stopLocator.nearest(lat, lon, Math.min(radiusMeters, MAX_NEARBY_RADIUS_METERS),
+                        Math.min(limit, MAX_NEARBY_STOPS)).stream()
+                .map(hit -> new NearbyStopDto(hit.id(), hit.name(), hit.lat(), hit.lon(), hit.address(),
+                        (int) Math.round(hit.distanceMeters())))
+                .toList();
+    }
+
     public void deleteStopById(Long id) {
         try {
             stopRepo.deleteById(id);
+            eventPublisher.publishEvent(TimetableChangedEvent.all());
         } catch (DataIntegrityViolationException ex) {
             throw new IllegalStateException("Cannot delete stop because it is used by one or more routes.", ex);
         }
@@ -0,0 +1,33 @@
+package Transport_Urbain_Microservices.route_service.service;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+// Hands the rows of a database stream over in fixed-size chunks, so that callers can map a chunk
+// and clear the persistence context before reading on.
+final class StreamChunks {
+
+    // same as the fetch size of the streaming queries
+    static final int SIZE = 500;
+
+    private StreamChunks() {
+    }
+
+    static <E> void forEach(Stream<E> rows, int chunkSize, Consumer<List<E>> action) {
+        List<E> chunk = new ArrayList<>(chunkSize);
+        Iterator<E> it = rows.iterator();
+        while (it.hasNext()) {
+            chunk.add(it.next());
+            if (chunk.size() == chunkSize) {
+                action.accept(chunk);
+                chunk = new ArrayList<>(chunkSize);
+            }
+        }
+        if (!chunk.isEmpty()) {
+            action.accept(chunk);
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package Transport_Urbain_Microservices.route_service.timetable;
+
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+
+// Version of the data served by this instance, moved on by TimetableSync once a committed change to routes, runs
+// or stops has reached the timetable and every cache.
+// While the instance serves exactly the data of a shared revision, the ETag is that revision, so it matches on
+// every instance and across restarts. A change made here while a change of another instance is not loaded yet
+// gets an ETag of this instance until the next poll reloads everything.
+@Component
+public class DatasetVersion {
+
+    private record State(long version, long revision, long localChanges, Instant lastModified) {
+    }
+
+    private final String instance = Long.toString(System.currentTimeMillis(), 36);
+    // highest revision of the changes made on this instance
+    private long localRevision;
+    private volatile State state = new State(0, 0, 0, Instant.now().truncatedTo(ChronoUnit.SECONDS));
+
+    // Everything up to the shared revision is loaded: after the startup load or a full reload.
+    public synchronized void applied(long revision, Instant changedAt) {
+        State current = state;
+        if (revision < current.revision()) {
+            revision = current.revision();
+        }
+        // a change of this instance committed after the reload read the revision stays apart until the next one
+        state = next(revision, localRevision > revision ? 1 : 0, changedAt);
+    }
+
+    // A change of this instance, which moved the shared revision to the given one, is loaded.
+    public synchronized void appliedChange(long revision, Instant changedAt) {
+        localRevision = Math.max(localRevision, revision);
+        State current = state;
+        if (current.localChanges() == 0 && revision == current.revision() + 1) {
+            state = next(revision, 0, changedAt);
+        } else {
+            // the revisions in between are changes of other instances, not loaded yet
+            state = next(current.revision(), current.localChanges() + 1, Instant.now());
+        }
+    }
+
+    private State next(long revision, long localChanges, Instant changedAt) {
+        State current = state;
+        // never earlier than what this instance already served
+        Instant lastModified = changedAt.truncatedTo(ChronoUnit.SECONDS);
+        if (lastModified.isBefore(current.lastModified())) {
+            lastModified = current.lastModified();
+        }
+        return new State(current.version() + 1, revision, localChanges, lastModified);
+    }
+
+    // moved on by every change applied here, the key of what is built from the data
+    public long version() {
+        return state.version();
+    }
+
+    public long revision() {
+        return state.revision();
+    }
+
+    // weak because the same version is served as JSON or in the binary format
+    public String etag() {
+        return "W/\"" + tag() + "\"";
+    }
+
+    // ETag of what is built from the data and something else, like the date it starts from
+    public String etag(String variant) {
+        return "W/\"" + tag() + "-" + variant + "\"";
+    }
+
+    private String tag() {
+        State current = state;
+        if (current.localChanges() == 0) {
+            return Long.toString(current.revision());
+        }
+        return current.revision() + "-" + instance + "-" + current.localChanges();
+    }
+
+    public Instant lastModified() {
+        return state.lastModified();
+    }
+}
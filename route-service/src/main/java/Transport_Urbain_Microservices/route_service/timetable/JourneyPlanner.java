@@ -0,0 +1,206 @@
+package Transport_Urbain_Microservices.route_service.timetable;
+
+import Transport_Urbain_Microservices.route_service.dto.JourneyDto;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.*;
+
+// Round-based public transit routing (RAPTOR) over the timetable snapshot. Round k finds the earliest
+// arrival at every stop using k vehicles; transfers happen between routes at a shared stop.
+// Times are minutes from midnight of the service day of the departure, below zero for runs of the day before
+// and past 1440 for the day after.
+@Component
+public class JourneyPlanner {
+
+    static final int MAX_ROUNDS = 5; // up to 4 transfers
+    static final int TRANSFER_MINUTES = 2;
+    private static final int UNREACHED = Integer.MAX_VALUE;
+
+    private final TimetableEngine timetableEngine;
+
+    public JourneyPlanner(TimetableEngine timetableEngine) {
+        this.timetableEngine = timetableEngine;
+    }
+
+    // Returns null when one of the stops does not exist. Otherwise one journey per number of vehicles
+    // that arrives earlier than every journey using fewer, fewest transfers first.
+    public List<JourneyDto> plan(Long fromStopId, Long toStopId, LocalDateTime departAt) {
+        return plan(timetableEngine.snapshot(), fromStopId, toStopId, departAt);
+    }
+
+    static List<JourneyDto> plan(Timetable timetable, Long fromStopId, Long toStopId, LocalDateTime departAt) {
+        if (!timetable.hasStop(fromStopId) || !timetable.hasStop(toStopId)) {
+            return null;
+        }
+        TransitNetwork network = timetable.network();
+        int source = network.stopIndex(fromStopId);
+        int target = network.stopIndex(toStopId);
+        if (source < 0 || target < 0 || source == target) {
+            return List.of();
+        }
+        LocalDate day = departAt.toLocalDate();
+        LocalDate previousDay = day.minusDays(1);
+        LocalDate nextDay = day.plusDays(1);
+        RunTable[] runs = new RunTable[network.routeCount()];
+        for (int r = 0; r < runs.length; r++) {
+            // runs of the day before still running after midnight, and journeys going on past midnight
+            RouteTimetable route = network.route(r);
+            runs[r] = RunTable.spanning(timetable.runsOn(route, previousDay), timetable.runsOn(route, day),
+                    timetable.runsOn(route, nextDay));
+        }
+        Search search = new Search(network, runs, source, target, departAt.getHour() * 60 + departAt.getMinute());
+        search.run();
+        return search.journeys(day);
+    }
+
+    private static final class Search {
+        private final TransitNetwork network;
+        private final RunTable[] runs;
+        private final int source;
+        private final int target;
+
+        // per round and stop: arrival minute, and the trip that got there in that round
+        private final int[][] arrival = new int[MAX_ROUNDS + 1][];
+        private final int[][] parentRoute = new int[MAX_ROUNDS + 1][];
+        private final int[][] parentRun = new int[MAX_ROUNDS + 1][];
+        private final int[][] parentBoardPosition = new int[MAX_ROUNDS + 1][];
+        private final int[][] parentAlightPosition = new int[MAX_ROUNDS + 1][];
+        private final int[] best;
+        private int rounds;
+
+        Search(TransitNetwork network, RunTable[] runs, int source, int target, int departMinute) {
+            this.network = network;
+            this.runs = runs;
+            this.source = source;
+            this.target = target;
+            int stops = network.stopCount();
+            for (int k = 0; k <= MAX_ROUNDS; k++) {
+                arrival[k] = new int[stops];
+                Arrays.fill(arrival[k], UNREACHED);
+                parentRoute[k] = new int[stops];
+                Arrays.fill(parentRoute[k], -1);
+                parentRun[k] = new int[stops];
+                parentBoardPosition[k] = new int[stops];
+                parentAlightPosition[k] = new int[stops];
+            }
+            best = new int[stops];
+            Arrays.fill(best, UNREACHED);
+            arrival[0][source] = departMinute;
+            best[source] = departMinute;
+        }
+
+        void run() {
+            BitSet marked = new BitSet(network.stopCount());
+            marked.set(source);
+            int[] firstPosition = new int[network.routeCount()];
+            for (int k = 1; k <= MAX_ROUNDS && !marked.isEmpty(); k++) {
+                rounds = k;
+                System.arraycopy(arrival[k - 1], 0, arrival[k], 0, arrival[k].length);
+
+                // routes through a stop improved in the previous round, from the earliest such position
+                Arrays.fill(firstPosition, Integer.MAX_VALUE);
+                for (int s = marked.nextSetBit(0); s >= 0; s = marked.nextSetBit(s + 1)) {
+                    int[] pairs = network.stopRoutes(s);
+                    for (int i = 0; i < pairs.length; i += 2) {
+                        firstPosition[pairs[i]] = Math.min(firstPosition[pairs[i]], pairs[i + 1]);
+                    }
+                }
+                marked.clear();
+
+                for (int r = 0; r < firstPosition.length; r++) {
+                    if (firstPosition[r] != Integer.MAX_VALUE && runs[r].size() > 0) {
+                        scanRoute(k, r, firstPosition[r], marked);
+                    }
+                }
+            }
+        }
+
+        private void scanRoute(int k, int r, int fromPosition, BitSet marked) {
+            int[] stops = network.routeStops(r);
+            StopPattern pattern = network.route(r).pattern();
+            RunTable routeRuns = runs[r];
+            int run = -1;
+            int boardPosition = -1;
+            for (int p = fromPosition; p < stops.length; p++) {
+                int s = stops[p];
+                if (run >= 0) {
+                    int arrive = startMinute(routeRuns, run) + pattern.offset(p);
+                    if (arrive < Math.min(best[s], best[target])) {
+                        arrival[k][s] = arrive;
+                        best[s] = arrive;
+                        parentRoute[k][s] = r;
+                        parentRun[k][s] = run;
+                        parentBoardPosition[k][s] = boardPosition;
+                        parentAlightPosition[k][s] = p;
+                        marked.set(s);
+                    }
+                }
+                int reached = arrival[k - 1][s];
+                if (reached == UNREACHED) {
+                    continue;
+                }
+                int ready = reached + (k > 1 ? TRANSFER_MINUTES : 0);
+                if (run >= 0 && startMinute(routeRuns, run) + pattern.offset(p) <= ready) {
+                    continue; // the current run is already the earliest one we can take here
+                }
+                int earliest = routeRuns.firstStartingAtOrAfter((ready - pattern.offset(p)) * 60);
+                if (earliest < routeRuns.size() && (run < 0 || earliest < run)) {
+                    run = earliest;
+                    boardPosition = p;
+                }
+            }
+        }
+
+        // rounded down, also below zero
+        private static int startMinute(RunTable runs, int run) {
+            return Math.floorDiv(runs.startSecond(run), 60);
+        }
+
+        List<JourneyDto> journeys(LocalDate day) {
+            List<JourneyDto> journeys = new ArrayList<>();
+            int previous = UNREACHED;
+            for (int k = 1; k <= rounds; k++) {
+                if (arrival[k][target] < previous) {
+                    previous = arrival[k][target];
+                    journeys.add(journey(k, day));
+                }
+            }
+            return journeys;
+        }
+
+        // Walks the parents back from the target; a stop not improved in round k was reached in an earlier one.
+        private JourneyDto journey(int rounds, LocalDate day) {
+            LocalDateTime midnight = day.atStartOfDay();
+            LinkedList<JourneyDto.LegDto> legs = new LinkedList<>();
+            int s = target;
+            for (int k = rounds; k > 0 && s != source; k--) {
+                int r = parentRoute[k][s];
+                if (r < 0) {
+                    continue;
+                }
+                RouteTimetable route = network.route(r);
+                StopPattern pattern = route.pattern();
+                int run = parentRun[k][s];
+                int board = parentBoardPosition[k][s];
+                int alight = parentAlightPosition[k][s];
+                int start = startMinute(runs[r], run);
+                legs.addFirst(new JourneyDto.LegDto(
+                        runs[r].runId(run),
+                        route.routeId(),
+                        route.num(),
+                        runs[r].destination(run),
+                        pattern.stopId(board),
+                        pattern.stopName(board),
+                        midnight.plusMinutes(start + pattern.offset(board)),
+                        pattern.stopId(alight),
+                        pattern.stopName(alight),
+                        midnight.plusMinutes(start + pattern.offset(alight))));
+                s = network.routeStops(r)[board];
+            }
+            return new JourneyDto(legs.getFirst().getDepartureTime(), legs.getLast().getArrivalTime(),
+                    legs.size() - 1, List.copyOf(legs));
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package Transport_Urbain_Microservices.route_service.timetable;
+
+import Transport_Urbain_Microservices.route_service.entity.*;
+
+import java.time.LocalDate;
+import java.util.*;
+
+// Read-only view of one route: its stop pattern and its runs per service day.
+public final class RouteTimetable {
+
+    private final long routeId;
+    private final String num;
+    private final String name;
+    private final RouteStatus status;
+
+    private final StopPattern pattern;
+
+    // index 1..7 = ISO day of week, index 0 unused
+    private final RunTable[] regularRuns;
+    private final Map<LocalDate, RunTable> specialRuns;
+
+    private RouteTimetable(long routeId, String num, String name, RouteStatus status,
+                           StopPattern pattern, RunTable[] regularRuns, Map<LocalDate, RunTable> specialRuns) {
+        this.routeId = routeId;
+        this.num = num;
+        this.name = name;
+        this.status = status;
+        this.pattern = pattern;
+        this.regularRuns = regularRuns;
+        this.specialRuns = specialRuns;
+    }
+
+    // routeStops must have their stops initialized
+    static RouteTimetable of(Route route,
+                             List<RouteStop> routeStops,
+                             List<RouteStopOffset> routeOffsets,
+                             List<Run> runs) {
+        StopPattern pattern = StopPattern.of(route.getId(), routeStops, routeOffsets);
+
+        List<List<Run>> regularByDay = new ArrayList<>();
+        for (int day = 0; day <= 7; day++) {
+            regularByDay.add(new ArrayList<>());
+        }
+        Map<LocalDate, List<Run>> specialByDate = new HashMap<>();
+        for (Run run : runs) {
+            if (run.getScheduleType() == ScheduleType.SPECIAL) {
+                specialByDate.computeIfAbsent(run.getSpecificDate(), d -> new ArrayList<>()).add(run);
+            } else {
+                regularByDay.get(run.getDayOfWeek()).add(run);
+            }
+        }
+        RunTable[] regularRuns = new RunTable[8];
+        for (int day = 0; day <= 7; day++) {
+            regularRuns[day] = RunTable.of(regularByDay.get(day));
+        }
+        Map<LocalDate, RunTable> specialRuns = new HashMap<>();
+        specialByDate.forEach((date, dateRuns) -> specialRuns.put(date, RunTable.of(dateRuns)));
+
+        return new RouteTimetable(route.getId(), route.getNum(), route.getName(), route.getStatus(),
+                pattern, regularRuns, Map.copyOf(specialRuns));
+    }
+
+    public long routeId() {
+        return routeId;
+    }
+
+    public String num() {
+        return num;
+    }
+
+    public String name() {
+        return name;
+    }
+
+    public RouteStatus status() {
+        return status;
+    }
+
+    public boolean isActive() {
+        return status == RouteStatus.ACTIVE;
+    }
+
+    public StopPattern pattern() {
+        return pattern;
+    }
+
+    public RunTable regularRuns(int dayOfWeek) {
+        return regularRuns[dayOfWeek];
+    }
+
+    public RunTable specialRuns(LocalDate date) {
+        return specialRuns.getOrDefault(date, RunTable.EMPTY);
+    }
+
+    public RunTable runs(ServiceDay serviceDay) {
+        return serviceDay.isSpecial() ? specialRuns(serviceDay.specialDate()) : regularRuns(serviceDay.dayOfWeek());
+    }
+}
@@ -0,0 +1,112 @@
+package Transport_Urbain_Microservices.route_service.timetable;
+
+import Transport_Urbain_Microservices.route_service.entity.Run;
+
+import java.time.LocalTime;
+import java.util.Comparator;
+import java.util.List;
+
+// Runs of one route for one service day, stored as parallel arrays sorted by start time.
+public final class RunTable {
+
+    static final RunTable EMPTY = new RunTable(new long[0], new int[0], new int[0], new String[0]);
+    static final int SECONDS_PER_DAY = 86_400;
+
+    private final long[] runIds;
+    private final int[] runNums;
+    private final int[] startSeconds;
+    private final String[] destinations;
+
+    private RunTable(long[] runIds, int[] runNums, int[] startSeconds, String[] destinations) {
+        this.runIds = runIds;
+        this.runNums = runNums;
+        this.startSeconds = startSeconds;
+        this.destinations = destinations;
+    }
+
+    static RunTable of(List<Run> runs) {
+        if (runs.isEmpty()) {
+            return EMPTY;
+        }
+        List<Run> sorted = runs.stream()
+                .sorted(Comparator.comparing(Run::getStartTime).thenComparing(Run::getRunNum))
+                .toList();
+        int n = sorted.size();
+        long[] runIds = new long[n];
+        int[] runNums = new int[n];
+        int[] startSeconds = new int[n];
+        String[] destinations = new String[n];
+        for (int i = 0; i < n; i++) {
+            Run run = sorted.get(i);
+            runIds[i] = run.getId();
+            runNums[i] = run.getRunNum();
+            startSeconds[i] = run.getStartTime().toSecondOfDay();
+            destinations[i] = run.getDestinationStopName();
+        }
+        return new RunTable(runIds, runNums, startSeconds, destinations);
+    }
+
+    // Runs of three consecutive service days on the clock of the middle one: the runs of the day before start
+    // a day earlier, below zero, and the runs of the day after a day later. Sorted as long as each table is.
+    static RunTable spanning(RunTable previousDay, RunTable day, RunTable nextDay) {
+        if (previousDay.size() == 0 && nextDay.size() == 0) {
+            return day;
+        }
+        int n = previousDay.size() + day.size() + nextDay.size();
+        long[] runIds = new long[n];
+        int[] runNums = new int[n];
+        int[] startSeconds = new int[n];
+        String[] destinations = new String[n];
+        int i = 0;
+        for (RunTable table : new RunTable[]{previousDay, day, nextDay}) {
+            int shift = table == previousDay ? -SECONDS_PER_DAY : table == nextDay ? SECONDS_PER_DAY : 0;
+            for (int r = 0; r < table.size(); r++, i++) {
+                runIds[i] = table.runIds[r];
+                runNums[i] = table.runNums[r];
+                startSeconds[i] = table.startSeconds[r] + shift;
+                destinations[i] = table.destinations[r];
+            }
+        }
+        return new RunTable(runIds, runNums, startSeconds, destinations);
+    }
+
+    // Index of the first run starting at or after the given second of day, size() if there is none.
+    public int firstStartingAtOrAfter(int second) {
+        int low = 0;
+        int high = startSeconds.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (startSeconds[mid] < second) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    public int size() {
+        return runIds.length;
+    }
+
+    public long runId(int i) {
+        return runIds[i];
+    }
+
+    public int runNum(int i) {
+        return runNums[i];
+    }
+
+    public int startSecond(int i) {
+        return startSeconds[i];
+    }
+
+    // only for a table of a single service day
+    public LocalTime startTime(int i) {
+        return LocalTime.ofSecondOfDay(startSeconds[i]);
+    }
+
+    public String destination(int i) {
+        return destinations[i];
+    }
+}
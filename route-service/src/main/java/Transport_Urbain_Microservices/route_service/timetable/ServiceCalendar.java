@@ -0,0 +1,48 @@
+package Transport_Urbain_Microservices.route_service.timetable;
+
+import java.time.LocalDate;
+import java.util.Set;
+
+// Resolves dates to their service day. The days around the build date are resolved up front into an array
+// indexed by day, the rest is resolved on demand from the same set of special days.
+public final class ServiceCalendar {
+
+    static final int DAYS_BEFORE = 7;
+    static final int DAYS_AFTER = 90;
+
+    private final Set<LocalDate> specialDays;
+    private final long firstEpochDay;
+    private final ServiceDay[] window;
+
+    ServiceCalendar(Set<LocalDate> specialDays, LocalDate today) {
+        this.specialDays = Set.copyOf(specialDays);
+        LocalDate first = today.minusDays(DAYS_BEFORE);
+        this.firstEpochDay = first.toEpochDay();
+        this.window = new ServiceDay[DAYS_BEFORE + DAYS_AFTER + 1];
+        for (int i = 0; i < window.length; i++) {
+            window[i] = resolve(first.plusDays(i));
+        }
+    }
+
+    public ServiceDay serviceDay(LocalDate date) {
+        long index = date.toEpochDay() - firstEpochDay;
+        if (index >= 0 && index < window.length) {
+            return window[(int) index];
+        }
+        return resolve(date);
+    }
+
+    public boolean isSpecialDay(LocalDate date) {
+        return serviceDay(date).isSpecial();
+    }
+
+    Set<LocalDate> specialDays() {
+        return specialDays;
+    }
+
+    private ServiceDay resolve(LocalDate date) {
+        return specialDays.contains(date)
+                ? ServiceDay.special(date)
+                : ServiceDay.regular(date.getDayOfWeek().getValue());
+    }
+}
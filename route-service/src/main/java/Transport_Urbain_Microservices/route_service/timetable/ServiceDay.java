@@ -0,0 +1,27 @@
+package Transport_Urbain_Microservices.route_service.timetable;
+
+import java.time.LocalDate;
+
+// The schedule a date runs on: the regular runs of its day of week, or the special runs of the date itself.
+public record ServiceDay(int dayOfWeek, LocalDate specialDate) {
+
+    private static final ServiceDay[] REGULAR = new ServiceDay[8];
+
+    static {
+        for (int day = 1; day <= 7; day++) {
+            REGULAR[day] = new ServiceDay(day, null);
+        }
+    }
+
+    public static ServiceDay regular(int dayOfWeek) {
+        return REGULAR[dayOfWeek];
+    }
+
+    public static ServiceDay special(LocalDate date) {
+        return new ServiceDay(0, date);
+    }
+
+    public boolean isSpecial() {
+        return specialDate != null;
+    }
+}
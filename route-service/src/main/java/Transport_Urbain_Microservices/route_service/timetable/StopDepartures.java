@@ -0,0 +1,92 @@
+package Transport_Urbain_Microservices.route_service.timetable;
+
+import java.util.*;
+
+// Every arrival at one stop for one service day, as parallel arrays sorted by arrival minute.
+// Minutes are counted from midnight of the service day and go past 1440 for runs ending after midnight.
+public final class StopDepartures {
+
+    static final StopDepartures EMPTY = new StopDepartures(new int[0], new long[0], new String[0], new String[0]);
+
+    private final int[] arrivalMinutes;
+    private final long[] routeIds;
+    private final String[] routeNums;
+    private final String[] destinations;
+
+    private StopDepartures(int[] arrivalMinutes, long[] routeIds, String[] routeNums, String[] destinations) {
+        this.arrivalMinutes = arrivalMinutes;
+        this.routeIds = routeIds;
+        this.routeNums = routeNums;
+        this.destinations = destinations;
+    }
+
+    // One entry per run and per time the route's pattern passes through the stop.
+    static StopDepartures of(long stopId, List<RouteTimetable> routes, List<RunTable> runsByRoute) {
+        List<int[]> entries = new ArrayList<>(); // {arrival minute, route index, run index}
+        for (int r = 0; r < routes.size(); r++) {
+            StopPattern pattern = routes.get(r).pattern();
+            RunTable runs = runsByRoute.get(r);
+            for (int s = 0; s < pattern.size(); s++) {
+                if (pattern.stopId(s) != stopId) {
+                    continue;
+                }
+                for (int i = 0; i < runs.size(); i++) {
+                    entries.add(new int[]{runs.startSecond(i) / 60 + pattern.offset(s), r, i});
+                }
+            }
+        }
+        if (entries.isEmpty()) {
+            return EMPTY;
+        }
+        entries.sort(Comparator.comparingInt(e -> e[0]));
+        int n = entries.size();
+        int[] arrivalMinutes = new int[n];
+        long[] routeIds = new long[n];
+        String[] routeNums = new String[n];
+        String[] destinations = new String[n];
+        for (int i = 0; i < n; i++) {
+            int[] entry = entries.get(i);
+            RouteTimetable route = routes.get(entry[1]);
+            arrivalMinutes[i] = entry[0];
+            routeIds[i] = route.routeId();
+            routeNums[i] = route.num();
+            destinations[i] = runsByRoute.get(entry[1]).destination(entry[2]);
+        }
+        return new StopDepartures(arrivalMinutes, routeIds, routeNums, destinations);
+    }
+
+    // Index of the first arrival at or after the given minute, size() if there is none.
+    public int firstAtOrAfter(int minute) {
+        int low = 0;
+        int high = arrivalMinutes.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (arrivalMinutes[mid] < minute) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    public int size() {
+        return arrivalMinutes.length;
+    }
+
+    public int arrivalMinute(int i) {
+        return arrivalMinutes[i];
+    }
+
+    public long routeId(int i) {
+        return routeIds[i];
+    }
+
+    public String routeNum(int i) {
+        return routeNums[i];
+    }
+
+    public String destination(int i) {
+        return destinations[i];
+    }
+}
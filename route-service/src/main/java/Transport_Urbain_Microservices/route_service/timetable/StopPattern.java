@@ -0,0 +1,78 @@
+package Transport_Urbain_Microservices.route_service.timetable;
+
+import Transport_Urbain_Microservices.route_service.dto.RunDetailsDto;
+import Transport_Urbain_Microservices.route_service.entity.RouteStop;
+import Transport_Urbain_Microservices.route_service.entity.RouteStopOffset;
+
+import java.time.LocalTime;
+import java.util.*;
+
+// Ordered stops of a route with their cumulative offsets, as parallel arrays.
+// Every run of the route shares it; only the start time differs between runs.
+// Stops without an offset are left out, as the run mapper has always done.
+public final class StopPattern {
+
+    private final long routeId;
+    private final long[] stopIds;
+    private final String[] stopNames;
+    private final int[] offsets;
+
+    private StopPattern(long routeId, long[] stopIds, String[] stopNames, int[] offsets) {
+        this.routeId = routeId;
+        this.stopIds = stopIds;
+        this.stopNames = stopNames;
+        this.offsets = offsets;
+    }
+
+    // routeStops must have their stops initialized; they do not need to be sorted.
+    public static StopPattern of(Long routeId, Collection<RouteStop> routeStops, Collection<RouteStopOffset> routeOffsets) {
+        Map<Long, Integer> offsetByStop = new HashMap<>();
+        for (RouteStopOffset offset : routeOffsets) {
+            offsetByStop.put(offset.getStop().getId(), offset.getCumulativeMinutesFromStart());
+        }
+        List<RouteStop> ordered = routeStops.stream()
+                .filter(rs -> offsetByStop.containsKey(rs.getStop().getId()))
+                .sorted(Comparator.comparing(RouteStop::getStopOrder))
+                .toList();
+        int n = ordered.size();
+        long[] stopIds = new long[n];
+        String[] stopNames = new String[n];
+        int[] offsets = new int[n];
+        for (int i = 0; i < n; i++) {
+            RouteStop rs = ordered.get(i);
+            stopIds[i] = rs.getStop().getId();
+            stopNames[i] = rs.getStop().getName();
+            offsets[i] = offsetByStop.get(stopIds[i]);
+        }
+        return new StopPattern(routeId, stopIds, stopNames, offsets);
+    }
+
+    public List<RunDetailsDto.StopTimeDetailDTO> materialize(LocalTime startTime) {
+        List<RunDetailsDto.StopTimeDetailDTO> stopTimes = new ArrayList<>(stopIds.length);
+        for (int i = 0; i < stopIds.length; i++) {
+            stopTimes.add(new RunDetailsDto.StopTimeDetailDTO(
+                    stopIds[i], stopNames[i], offsets[i], startTime.plusMinutes(offsets[i])));
+        }
+        return stopTimes;
+    }
+
+    public long routeId() {
+        return routeId;
+    }
+
+    public int size() {
+        return stopIds.length;
+    }
+
+    public long stopId(int i) {
+        return stopIds[i];
+    }
+
+    public String stopName(int i) {
+        return stopNames[i];
+    }
+
+    public int offset(int i) {
+        return offsets[i];
+    }
+}
@@ -0,0 +1,97 @@
+package Transport_Urbain_Microservices.route_service.timetable;
+
+import Transport_Urbain_Microservices.route_service.entity.RouteStop;
+import Transport_Urbain_Microservices.route_service.entity.RouteStopOffset;
+import Transport_Urbain_Microservices.route_service.repo.RouteStopOffsetRepo;
+import Transport_Urbain_Microservices.route_service.repo.RouteStopRepo;
+import lombok.RequiredArgsConstructor;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Stop patterns by route id. Missing routes are loaded together with two queries,
+// entries are dropped once a change to the route has been committed.
+@Component
+@RequiredArgsConstructor
+public class StopPatternCache {
+
+    private final RouteStopRepo routeStopRepo;
+    private final RouteStopOffsetRepo routeStopOffsetRepo;
+
+    private final Map<Long, StopPattern> patterns = new ConcurrentHashMap<>();
+    // bumped on every invalidation so that a load racing with a change is not cached
+    private final AtomicLong generation = new AtomicLong();
+
+    public Map<Long, StopPattern> getAll(Collection<Long> routeIds) {
+        Map<Long, StopPattern> result = new HashMap<>();
+        List<Long> missing = new ArrayList<>();
+        for (Long routeId : routeIds) {
+            StopPattern pattern = patterns.get(routeId);
+            if (pattern != null) {
+                result.put(routeId, pattern);
+            } else {
+                missing.add(routeId);
+            }
+        }
+        if (!missing.isEmpty()) {
+            long loadGeneration = generation.get();
+            Map<Long, StopPattern> loaded = load(missing);
+            store(loaded, loadGeneration);
+            result.putAll(loaded);
+        }
+        return result;
+    }
+
+    public StopPattern get(Long routeId) {
+        return getAll(List.of(routeId)).get(routeId);
+    }
+
+    private synchronized void store(Map<Long, StopPattern> loaded, long loadGeneration) {
+        if (generation.get() == loadGeneration) {
+            patterns.putAll(loaded);
+        }
+    }
+
+    public synchronized void invalidate(Long routeId) {
+        generation.incrementAndGet();
+        patterns.remove(routeId);
+    }
+
+    public synchronized void invalidateAll() {
+        generation.incrementAndGet();
+        patterns.clear();
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    @Order(TimetableChangedEvent.REFRESH_ORDER)
+    public void onTimetableChanged(TimetableChangedEvent event) {
+        if (event.isFullReload()) {
+            invalidateAll();
+        } else {
+            invalidate(event.routeId());
+        }
+    }
+
+    private Map<Long, StopPattern> load(Collection<Long> routeIds) {
+        Map<Long, List<RouteStop>> routeStopsByRoute = new HashMap<>();
+        for (RouteStop rs : routeStopRepo.findWithStopByRouteIdIn(routeIds)) {
+            routeStopsByRoute.computeIfAbsent(rs.getRoute().getId(), id -> new ArrayList<>()).add(rs);
+        }
+        Map<Long, List<RouteStopOffset>> offsetsByRoute = new HashMap<>();
+        for (RouteStopOffset offset : routeStopOffsetRepo.findByRouteIdIn(routeIds)) {
+            offsetsByRoute.computeIfAbsent(offset.getRoute().getId(), id -> new ArrayList<>()).add(offset);
+        }
+        Map<Long, StopPattern> loaded = new HashMap<>();
+        for (Long routeId : routeIds) {
+            loaded.put(routeId, StopPattern.of(routeId,
+                    routeStopsByRoute.getOrDefault(routeId, List.of()),
+                    offsetsByRoute.getOrDefault(routeId, List.of())));
+        }
+        return loaded;
+    }
+}
@@ -0,0 +1,133 @@
+package Transport_Urbain_Microservices.route_service.timetable;
+
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Immutable snapshot of the whole network. The engine swaps snapshots atomically, readers never lock.
+public final class Timetable {
+
+    private static final long[] NO_ROUTES = new long[0];
+
+    private final Map<Long, RouteTimetable> routes;
+    private final Map<Long, String> stopNames;
+    private final Map<Long, long[]> routesByStop;
+    private final ServiceCalendar calendar;
+    // built on first request, thrown away with the snapshot
+    private final Map<DepartureKey, StopDepartures> departures = new ConcurrentHashMap<>();
+    private volatile TransitNetwork network;
+
+    Timetable(Map<Long, RouteTimetable> routes, Map<Long, String> stopNames, Set<LocalDate> specialDays) {
+        this(routes, stopNames, new ServiceCalendar(specialDays, LocalDate.now()));
+    }
+
+    private Timetable(Map<Long, RouteTimetable> routes, Map<Long, String> stopNames, ServiceCalendar calendar) {
+        this.routes = Map.copyOf(routes);
+        this.stopNames = Map.copyOf(stopNames);
+        this.calendar = calendar;
+        this.routesByStop = indexRoutesByStop(this.routes.values());
+    }
+
+    private static Map<Long, long[]> indexRoutesByStop(Collection<RouteTimetable> routes) {
+        Map<Long, Set<Long>> byStop = new HashMap<>();
+        for (RouteTimetable route : routes) {
+            StopPattern pattern = route.pattern();
+            for (int i = 0; i < pattern.size(); i++) {
+                byStop.computeIfAbsent(pattern.stopId(i), s -> new TreeSet<>()).add(route.routeId());
+            }
+        }
+        Map<Long, long[]> index = new HashMap<>();
+        byStop.forEach((stopId, routeIds) ->
+                index.put(stopId, routeIds.stream().mapToLong(Long::longValue).toArray()));
+        return Map.copyOf(index);
+    }
+
+    Timetable withRoute(RouteTimetable route) {
+        Map<Long, RouteTimetable> updated = new HashMap<>(routes);
+        updated.put(route.routeId(), route);
+        return new Timetable(updated, stopNames, calendar);
+    }
+
+    Timetable withoutRoute(Long routeId) {
+        Map<Long, RouteTimetable> updated = new HashMap<>(routes);
+        updated.remove(routeId);
+        return new Timetable(updated, stopNames, calendar);
+    }
+
+    Timetable withSpecialDays(Set<LocalDate> days) {
+        if (calendar.specialDays().equals(days)) {
+            return this;
+        }
+        return new Timetable(routes, stopNames, days);
+    }
+
+    Map<Long, String> stopNames() {
+        return stopNames;
+    }
+
+    public RouteTimetable route(Long routeId) {
+        return routes.get(routeId);
+    }
+
+    public Collection<RouteTimetable> routes() {
+        return routes.values();
+    }
+
+    public boolean hasStop(Long stopId) {
+        return stopNames.containsKey(stopId);
+    }
+
+    public long[] routesServingStop(Long stopId) {
+        return routesByStop.getOrDefault(stopId, NO_ROUTES);
+    }
+
+    public ServiceDay serviceDay(LocalDate date) {
+        return calendar.serviceDay(date);
+    }
+
+    public boolean isSpecialDay(LocalDate date) {
+        return calendar.isSpecialDay(date);
+    }
+
+    // Arrivals at the stop on the given date over every active route serving it.
+    public StopDepartures departures(Long stopId, LocalDate date) {
+        ServiceDay serviceDay = serviceDay(date);
+        return departures.computeIfAbsent(new DepartureKey(stopId, serviceDay), k -> {
+            List<RouteTimetable> servingRoutes = new ArrayList<>();
+            List<RunTable> runs = new ArrayList<>();
+            for (long routeId : routesServingStop(stopId)) {
+                RouteTimetable route = routes.get(routeId);
+                if (route.isActive()) {
+                    servingRoutes.add(route);
+                    runs.add(route.runs(serviceDay));
+                }
+            }
+            return StopDepartures.of(stopId, servingRoutes, runs);
+        });
+    }
+
+    // Dense stop and route indexes used by the journey planner, built on first use.
+    public TransitNetwork network() {
+        TransitNetwork built = network;
+        if (built == null) {
+            synchronized (this) {
+                built = network;
+                if (built == null) {
+                    built = TransitNetwork.of(routes.values());
+                    network = built;
+                }
+            }
+        }
+        return built;
+    }
+
+    // Runs of the route that operate on the given date: the special runs if the date is a special day,
+    // otherwise the regular runs of that day of week.
+    public RunTable runsOn(RouteTimetable route, LocalDate date) {
+        return route.runs(serviceDay(date));
+    }
+
+    // every regular date of the same day of week shares one entry
+    private record DepartureKey(long stopId, ServiceDay serviceDay) {
+    }
+}
@@ -0,0 +1,28 @@
+package Transport_Urbain_Microservices.route_service.timetable;
+
+// Published by the services whenever timetable data is mutated.
+// A null routeId means the change is not limited to one route and the whole timetable must be reloaded.
+// A remote event reloads a change another instance made, see TimetableSync.
+public record TimetableChangedEvent(Long routeId, boolean remote) {
+
+    // Listener order: the timetable and the caches are refreshed first, then TimetableSync moves the dataset
+    // version on, so that a request never gets the old data under the new ETag.
+    public static final int REFRESH_ORDER = 0;
+    public static final int VERSION_ORDER = 1;
+
+    public static TimetableChangedEvent forRoute(Long routeId) {
+        return new TimetableChangedEvent(routeId, false);
+    }
+
+    public static TimetableChangedEvent all() {
+        return new TimetableChangedEvent(null, false);
+    }
+
+    public static TimetableChangedEvent fromOtherInstance() {
+        return new TimetableChangedEvent(null, true);
+    }
+
+    public boolean isFullReload() {
+        return routeId == null;
+    }
+}
@@ -0,0 +1,232 @@
+package Transport_Urbain_Microservices.route_service.timetable;
+
+import Transport_Urbain_Microservices.route_service.dto.NextDepartureDto;
+import Transport_Urbain_Microservices.route_service.dto.RunDetailsDto;
+import Transport_Urbain_Microservices.route_service.entity.*;
+import Transport_Urbain_Microservices.route_service.repo.*;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+
+// Read-optimized copy of the timetable used to answer day-filtered run queries without touching the database.
+// Loaded once the data loaders are done (@Order(3)) and refreshed after every committed change, including the
+// changes of other instances (see TimetableSync).
+@Component
+@Order(3)
+public class TimetableEngine implements ApplicationRunner {
+
+    private final RouteRepo routeRepo;
+    private final StopRepo stopRepo;
+    private final RouteStopRepo routeStopRepo;
+    private final RouteStopOffsetRepo routeStopOffsetRepo;
+    private final RunRepo runRepo;
+    private final SpecialDayRepo specialDayRepo;
+    private final TransactionTemplate readTransaction;
+
+    private final AtomicReference<Timetable> current = new AtomicReference<>();
+
+    public TimetableEngine(RouteRepo routeRepo,
+                           StopRepo stopRepo,
+                           RouteStopRepo routeStopRepo,
+                           RouteStopOffsetRepo routeStopOffsetRepo,
+                           RunRepo runRepo,
+                           SpecialDayRepo specialDayRepo,
+                           PlatformTransactionManager transactionManager) {
+        this.routeRepo = routeRepo;
+        this.stopRepo = stopRepo;
+        this.routeStopRepo = routeStopRepo;
+        this.routeStopOffsetRepo = routeStopOffsetRepo;
+        this.runRepo = runRepo;
+        this.specialDayRepo = specialDayRepo;
+        // refreshes run after the publisher's transaction has committed, so they need a fresh one
+        this.readTransaction = new TransactionTemplate(transactionManager);
+        this.readTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.readTransaction.setReadOnly(true);
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        reload();
+    }
+
+    public Timetable snapshot() {
+        Timetable timetable = current.get();
+        if (timetable == null) {
+            // a request arrived before the startup load finished
+            reload();
+            timetable = current.get();
+        }
+        return timetable;
+    }
+
+    // false until the startup load, or a request arriving before it, has loaded the timetable
+    public boolean isLoaded() {
+        return current.get() != null;
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    @Order(TimetableChangedEvent.REFRESH_ORDER)
+    public void onTimetableChanged(TimetableChangedEvent event) {
+        if (event.isFullReload()) {
+            reload();
+        } else {
+            reloadRoute(event.routeId());
+        }
+    }
+
+    public synchronized void reload() {
+        long start = System.currentTimeMillis();
+        Timetable timetable = readTransaction.execute(status -> loadAll());
+        current.set(timetable);
+        System.out.println("Timetable loaded: " + timetable.routes().size() + " routes in "
+                + (System.currentTimeMillis() - start) + " ms");
+    }
+
+    public synchronized void reloadRoute(Long routeId) {
+        Timetable updated = readTransaction.execute(status -> {
+            Timetable base = current.get();
+            if (base == null) {
+                return loadAll();
+            }
+            Set<LocalDate> specialDays = loadSpecialDays();
+            Optional<Route> route = routeRepo.findById(routeId);
+            if (route.isEmpty()) {
+                return base.withoutRoute(routeId).withSpecialDays(specialDays);
+            }
+            RouteTimetable routeTimetable = RouteTimetable.of(
+                    route.get(),
+                    routeStopRepo.findWithStopByRouteIdIn(List.of(routeId)),
+                    routeStopOffsetRepo.findByRoute(route.get()),
+                    runRepo.findByRoute(route.get()));
+            return base.withRoute(routeTimetable).withSpecialDays(specialDays);
+        });
+        current.set(updated);
+    }
+
+    private Timetable loadAll() {
+        Map<Long, String> stopNames = new HashMap<>();
+        for (Stop stop : stopRepo.findAll()) {
+            stopNames.put(stop.getId(), stop.getName());
+        }
+        // stops are all in the persistence context already, so route stops resolve them without queries
+        Map<Long, List<RouteStop>> routeStopsByRoute = routeStopRepo.findAll().stream()
+                .collect(Collectors.groupingBy(rs -> rs.getRoute().getId()));
+        Map<Long, List<RouteStopOffset>> offsetsByRoute = routeStopOffsetRepo.findAll().stream()
+                .collect(Collectors.groupingBy(o -> o.getRoute().getId()));
+        Map<Long, List<Run>> runsByRoute = runRepo.findAll().stream()
+                .collect(Collectors.groupingBy(r -> r.getRoute().getId()));
+
+        Map<Long, RouteTimetable> routes = new HashMap<>();
+        for (Route route : routeRepo.findAll()) {
+            routes.put(route.getId(), RouteTimetable.of(
+                    route,
+                    routeStopsByRoute.getOrDefault(route.getId(), List.of()),
+                    offsetsByRoute.getOrDefault(route.getId(), List.of()),
+                    runsByRoute.getOrDefault(route.getId(), List.of())));
+        }
+        return new Timetable(routes, stopNames, loadSpecialDays());
+    }
+
+    private Set<LocalDate> loadSpecialDays() {
+        return specialDayRepo.findAll().stream()
+                .map(SpecialDay::getDate)
+                .collect(Collectors.toSet());
+    }
+
+    // Returns null when the route does not exist.
+    public List<RunDetailsDto> getRunsForRouteOnDay(Long routeId, LocalDate day) {
+        Timetable timetable = snapshot();
+        RouteTimetable route = timetable.route(routeId);
+        if (route == null) {
+            return null;
+        }
+        if (!route.isActive()) {
+            return List.of();
+        }
+        List<RunDetailsDto> result = new ArrayList<>();
+        appendRuns(timetable, route, day, result);
+        return result;
+    }
+
+    // Returns null when the stop does not exist.
+    public List<RunDetailsDto> getRunsForStopOnDay(Long stopId, LocalDate day) {
+        Timetable timetable = snapshot();
+        if (!timetable.hasStop(stopId)) {
+            return null;
+        }
+        List<RunDetailsDto> result = new ArrayList<>();
+        for (long routeId : timetable.routesServingStop(stopId)) {
+            RouteTimetable route = timetable.route(routeId);
+            if (route.isActive()) {
+                appendRuns(timetable, route, day, result);
+            }
+        }
+        return result;
+    }
+
+    // Returns null when the stop does not exist. Runs of the day before still arriving after midnight and runs
+    // of the following day are merged in by arrival time.
+    public List<NextDepartureDto> getNextDeparturesForStop(Long stopId, LocalDateTime at, int limit) {
+        Timetable timetable = snapshot();
+        if (!timetable.hasStop(stopId)) {
+            return null;
+        }
+        List<NextDepartureDto> result = new ArrayList<>(3 * limit);
+        LocalDate day = at.toLocalDate();
+        int minute = at.getHour() * 60 + at.getMinute();
+        LocalDate previousDay = day.minusDays(1);
+        appendDepartures(timetable.departures(stopId, previousDay), previousDay, minute + 1440, limit, result);
+        appendDepartures(timetable.departures(stopId, day), day, minute, limit, result);
+        LocalDate nextDay = day.plusDays(1);
+        appendDepartures(timetable.departures(stopId, nextDay), nextDay, 0, limit, result);
+        result.sort(Comparator.comparing(NextDepartureDto::getArrivalTime));
+        return result.size() > limit ? new ArrayList<>(result.subList(0, limit)) : result;
+    }
+
+    // Appends at most limit departures of the service day from the given minute on.
+    private void appendDepartures(StopDepartures departures, LocalDate day, int fromMinute, int limit,
+                                  List<NextDepartureDto> result) {
+        int first = departures.firstAtOrAfter(fromMinute);
+        int end = Math.min(first + limit, departures.size());
+        for (int i = first; i < end; i++) {
+            result.add(new NextDepartureDto(
+                    departures.routeNum(i),
+                    departures.destination(i),
+                    day.atStartOfDay().plusMinutes(departures.arrivalMinute(i))));
+        }
+    }
+
+    private void appendRuns(Timetable timetable, RouteTimetable route, LocalDate day, List<RunDetailsDto> result) {
+        ServiceDay serviceDay = timetable.serviceDay(day);
+        boolean special = serviceDay.isSpecial();
+        RunTable runs = route.runs(serviceDay);
+        for (int r = 0; r < runs.size(); r++) {
+            LocalTime start = runs.startTime(r);
+            result.add(new RunDetailsDto(
+                    runs.runId(r),
+                    route.routeId(),
+                    route.num(),
+                    route.name(),
+                    runs.destination(r),
+                    special ? ScheduleType.SPECIAL : ScheduleType.REGULAR,
+                    special ? null : day.getDayOfWeek().getValue(),
+                    special ? day : null,
+                    runs.runNum(r),
+                    start,
+                    route.pattern().materialize(start)));
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package Transport_Urbain_Microservices.route_service.timetable;
+
+import Transport_Urbain_Microservices.route_service.entity.DatasetRevision;
+import Transport_Urbain_Microservices.route_service.repo.DatasetRevisionRepo;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.util.Optional;
+
+import static Transport_Urbain_Microservices.route_service.entity.DatasetRevision.TIMETABLE;
+
+// Keeps the in-memory timetable of every instance in step with the database.
+// TimetableChangedEvents only reach the instance that made the change, so each change also moves the shared
+// revision row, and every instance polls it and reloads everything (publishing a remote event) when another
+// instance moved it. The revision this instance has loaded is handed to DatasetVersion for the ETag.
+@Component
+public class TimetableSync {
+
+    private final DatasetRevisionRepo revisionRepo;
+    private final DatasetVersion datasetVersion;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate transaction;
+    private final ObjectProvider<TimetableEngine> timetableEngine;
+
+    public TimetableSync(DatasetRevisionRepo revisionRepo,
+                         DatasetVersion datasetVersion,
+                         ApplicationEventPublisher eventPublisher,
+                         PlatformTransactionManager transactionManager,
+                         ObjectProvider<TimetableEngine> timetableEngine) {
+        this.revisionRepo = revisionRepo;
+        this.datasetVersion = datasetVersion;
+        this.eventPublisher = eventPublisher;
+        this.timetableEngine = timetableEngine;
+        this.transaction = new TransactionTemplate(transactionManager);
+        if (revisionRepo.findRevision(TIMETABLE).isEmpty()) {
+            try {
+                revisionRepo.create(TIMETABLE, Instant.now());
+            } catch (DataIntegrityViolationException e) {
+                // another instance created it first
+            }
+        }
+        // the startup load that follows includes everything up to here
+        revisionRepo.findById(TIMETABLE).ifPresent(current ->
+                datasetVersion.applied(current.getRevision(), changedAt(current)));
+    }
+
+    // Ordered after the listeners refreshing the timetable and the caches.
+    @EventListener
+    @Order(TimetableChangedEvent.VERSION_ORDER)
+    public void onTimetableChanged(TimetableChangedEvent event) {
+        if (event.remote()) {
+            return;
+        }
+        Instant changedAt = Instant.now();
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            // the change is already committed and the caches refreshed
+            datasetVersion.appliedChange(transaction.execute(status -> nextRevision(changedAt)), changedAt);
+            return;
+        }
+        // moved in the transaction of the change, so it only counts if the change commits
+        long revision = nextRevision(changedAt);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public int getOrder() {
+                return TimetableChangedEvent.VERSION_ORDER;
+            }
+
+            // AFTER_COMMIT listeners run on completion too, this one after them
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_COMMITTED) {
+                    datasetVersion.appliedChange(revision, changedAt);
+                }
+            }
+        });
+    }
+
+    @Scheduled(fixedDelayString = "${app.timetable.sync-interval:30s}",
+            initialDelayString = "${app.timetable.sync-interval:30s}")
+    public void poll() {
+        Optional<DatasetRevision> current = revisionRepo.findById(TIMETABLE);
+        if (current.isEmpty() || current.get().getRevision() <= datasetVersion.revision()) {
+            return;
+        }
+        long revision = current.get().getRevision();
+        System.out.println("Timetable changed on another instance (revision " + revision + "), reloading");
+        // the listeners reload in this thread, so everything up to the revision is loaded when it returns
+        eventPublisher.publishEvent(TimetableChangedEvent.fromOtherInstance());
+        datasetVersion.applied(revision, changedAt(current.get()));
+    }
+
+    // Startup imports run before this instance loads its timetable, so only the other instances reload them.
+    // An import once it is loaded, like the GTFS import of a new service period, is reloaded here as any change.
+    public void onImported() {
+        TimetableEngine engine = timetableEngine.getIfAvailable();
+        if (engine != null && engine.isLoaded()) {
+            eventPublisher.publishEvent(TimetableChangedEvent.all());
+            return;
+        }
+        Instant changedAt = Instant.now();
+        datasetVersion.appliedChange(transaction.execute(status -> nextRevision(changedAt)), changedAt);
+    }
+
+    private long nextRevision(Instant changedAt) {
+        revisionRepo.increment(TIMETABLE, changedAt);
+        return revisionRepo.findRevision(TIMETABLE).orElse(0L);
+    }
+
+    private static Instant changedAt(DatasetRevision revision) {
+        return revision.getChangedAt() != null ? revision.getChangedAt() : Instant.now();
+    }
+}
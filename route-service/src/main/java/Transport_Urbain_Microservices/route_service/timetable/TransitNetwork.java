@@ -0,0 +1,87 @@
+package Transport_Urbain_Microservices.route_service.timetable;
+
+import java.util.*;
+
+// Active routes and the stops they serve, renumbered densely so that the planner can work on plain arrays.
+public final class TransitNetwork {
+
+    private final RouteTimetable[] routes;
+    private final long[] stopIds;
+    private final Map<Long, Integer> stopIndex;
+    // stop index at each position of each route's pattern
+    private final int[][] routeStops;
+    // (route index, position) pairs of every route passing through each stop
+    private final int[][] stopRoutes;
+
+    private TransitNetwork(RouteTimetable[] routes, long[] stopIds, Map<Long, Integer> stopIndex,
+                           int[][] routeStops, int[][] stopRoutes) {
+        this.routes = routes;
+        this.stopIds = stopIds;
+        this.stopIndex = stopIndex;
+        this.routeStops = routeStops;
+        this.stopRoutes = stopRoutes;
+    }
+
+    static TransitNetwork of(Collection<RouteTimetable> allRoutes) {
+        RouteTimetable[] routes = allRoutes.stream()
+                .filter(RouteTimetable::isActive)
+                .sorted(Comparator.comparingLong(RouteTimetable::routeId))
+                .toArray(RouteTimetable[]::new);
+        Map<Long, Integer> stopIndex = new HashMap<>();
+        List<Long> stopIds = new ArrayList<>();
+        int[][] routeStops = new int[routes.length][];
+        List<List<Integer>> stopRouteLists = new ArrayList<>();
+        for (int r = 0; r < routes.length; r++) {
+            StopPattern pattern = routes[r].pattern();
+            routeStops[r] = new int[pattern.size()];
+            for (int p = 0; p < pattern.size(); p++) {
+                long stopId = pattern.stopId(p);
+                Integer s = stopIndex.get(stopId);
+                if (s == null) {
+                    s = stopIds.size();
+                    stopIndex.put(stopId, s);
+                    stopIds.add(stopId);
+                    stopRouteLists.add(new ArrayList<>());
+                }
+                routeStops[r][p] = s;
+                stopRouteLists.get(s).add(r);
+                stopRouteLists.get(s).add(p);
+            }
+        }
+        int[][] stopRoutes = new int[stopIds.size()][];
+        for (int s = 0; s < stopRoutes.length; s++) {
+            stopRoutes[s] = stopRouteLists.get(s).stream().mapToInt(Integer::intValue).toArray();
+        }
+        return new TransitNetwork(routes, stopIds.stream().mapToLong(Long::longValue).toArray(),
+                Map.copyOf(stopIndex), routeStops, stopRoutes);
+    }
+
+    public int routeCount() {
+        return routes.length;
+    }
+
+    public int stopCount() {
+        return stopIds.length;
+    }
+
+    public RouteTimetable route(int r) {
+        return routes[r];
+    }
+
+    public long stopId(int s) {
+        return stopIds[s];
+    }
+
+    // -1 when no active route serves the stop
+    public int stopIndex(long stopId) {
+        return stopIndex.getOrDefault(stopId, -1);
+    }
+
+    public int[] routeStops(int r) {
+        return routeStops[r];
+    }
+
+    public int[] stopRoutes(int s) {
+        return stopRoutes[s];
+    }
+}
@@ -0,0 +1,42 @@
+package Transport_Urbain_Microservices.route_service;
+
+import Transport_Urbain_Microservices.route_service.entity.*;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+
+import java.util.ArrayList;
+
+// Routes persisted by the repository tests, each through stops of its own.
+public final class TestRoutes {
+
+    private TestRoutes() {
+    }
+
+    // An active route named "Route <num>", not persisted yet.
+    public static Route route(String num) {
+        Route route = new Route();
+        route.setName("Route " + num);
+        route.setNum(num);
+        route.setStatus(RouteStatus.ACTIVE);
+        route.setRouteStops(new ArrayList<>());
+        return route;
+    }
+
+    public static Route persist(TestEntityManager em, String num, int stopCount, int minutesBetweenStops) {
+        return persist(em, route(num), stopCount, minutesBetweenStops);
+    }
+
+    // Persists the route with stopCount new stops named "<num>-stop-<order>", with their route stops and offsets.
+    public static Route persist(TestEntityManager em, Route route, int stopCount, int minutesBetweenStops) {
+        em.persist(route);
+        for (int i = 1; i <= stopCount; i++) {
+            Stop stop = new Stop();
+            stop.setName(route.getNum() + "-stop-" + i);
+            stop.setLat(33.5 + i * 0.01);
+            stop.setLon(-7.6 + i * 0.01);
+            em.persist(stop);
+            em.persist(new RouteStop(route, stop, i));
+            em.persist(new RouteStopOffset(route, stop, (i - 1) * minutesBetweenStops));
+        }
+        return route;
+    }
+}
@@ -0,0 +1,111 @@
+package Transport_Urbain_Microservices.route_service.codec;
+
+import Transport_Urbain_Microservices.route_service.controller.RunController;
+import Transport_Urbain_Microservices.route_service.dto.RouteDto;
+import Transport_Urbain_Microservices.route_service.dto.RunDetailsDto;
+import Transport_Urbain_Microservices.route_service.entity.RouteStatus;
+import Transport_Urbain_Microservices.route_service.entity.ScheduleType;
+import Transport_Urbain_Microservices.route_service.service.RunService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+
+class TimetableBinaryFormatTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+
+    @Test
+    void runsRoundTripWithDerivedArrivalTimes() throws IOException {
+        List<RunDetailsDto> runs = runs(3, 5);
+        runs.getLast().setScheduleType(ScheduleType.SPECIAL);
+        runs.getLast().setDayOfWeek(null);
+        runs.getLast().setSpecificDate(LocalDate.of(2025, 12, 25));
+
+        List<RunDetailsDto> decoded = TimetableBinaryFormat.readRuns(new ByteArrayInputStream(encodeRuns(runs)));
+
+        assertThat(decoded).isEqualTo(runs);
+    }
+
+    @Test
+    void routesRoundTripWithMissingOffsets() throws IOException {
+        RouteDto route = new RouteDto(7L, "Route 7", "7", null, RouteStatus.ACTIVE,
+                List.of(120L, 95L, 301L), Arrays.asList(0, null, 14));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        TimetableBinaryFormat.writeRoutes(TimetableBinaryFormat.Kind.ROUTES, List.of(route), out);
+
+        List<RouteDto> decoded = TimetableBinaryFormat.readRoutes(new ByteArrayInputStream(out.toByteArray()));
+
+        assertThat(decoded).containsExactly(route);
+    }
+
+    @Test
+    void encodingIsMuchSmallerThanJson() throws IOException {
+        List<RunDetailsDto> runs = runs(200, 25);
+
+        int binary = encodeRuns(runs).length;
+        int json = objectMapper.writeValueAsBytes(runs).length;
+
+        assertThat(binary * 10).isLessThan(json);
+    }
+
+    @Test
+    void runControllerNegotiatesBinaryAndKeepsJsonAsDefault() throws Exception {
+        RunService runService = mock(RunService.class);
+        List<RunDetailsDto> runs = runs(2, 3);
+        when(runService.getAllRuns()).thenReturn(runs);
+        MockMvc mockMvc = MockMvcBuilders.standaloneSetup(new RunController(runService, null))
+                .setMessageConverters(new MappingJackson2HttpMessageConverter(objectMapper),
+                        new TimetableBinaryHttpMessageConverter())
+                .build();
+
+        mockMvc.perform(get("/run"))
+                .andExpect(content().contentTypeCompatibleWith("application/json"));
+        MvcResult binary = mockMvc.perform(get("/run").accept(TimetableBinaryFormat.MEDIA_TYPE))
+                .andExpect(content().contentType(TimetableBinaryFormat.MEDIA_TYPE))
+                .andReturn();
+
+        byte[] body = binary.getResponse().getContentAsByteArray();
+        assertThat(TimetableBinaryFormat.readRuns(new ByteArrayInputStream(body))).isEqualTo(runs);
+    }
+
+    private static byte[] encodeRuns(List<RunDetailsDto> runs) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        TimetableBinaryFormat.writeRuns(TimetableBinaryFormat.Kind.RUNS, runs, out);
+        return out.toByteArray();
+    }
+
+    private static List<RunDetailsDto> runs(int count, int stops) {
+        List<RunDetailsDto> runs = new ArrayList<>();
+        for (int r = 0; r < count; r++) {
+            LocalTime start = LocalTime.of(5, 30).plusMinutes(r * 7L);
+            List<RunDetailsDto.StopTimeDetailDTO> stopTimes = new ArrayList<>();
+            for (int s = 0; s < stops; s++) {
+                int minute = s * 3;
+                stopTimes.add(new RunDetailsDto.StopTimeDetailDTO(
+                        1000L + (s * 37L) % 11, "Station number " + s, minute, start.plusMinutes(minute)));
+            }
+            runs.add(new RunDetailsDto(500L + r, 12L, "12", "Ligne 12 Ain Sebaa - Hay Hassani", "Hay Hassani",
+                    ScheduleType.REGULAR, 1 + r % 7, null, r + 1, start, stopTimes));
+        }
+        return runs;
+    }
+}
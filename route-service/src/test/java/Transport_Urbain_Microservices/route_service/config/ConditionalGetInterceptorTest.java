@@ -0,0 +1,104 @@
+package Transport_Urbain_Microservices.route_service.config;
+
+import Transport_Urbain_Microservices.route_service.controller.RouteController;
+import Transport_Urbain_Microservices.route_service.dto.RouteDto;
+import Transport_Urbain_Microservices.route_service.service.RouteService;
+import Transport_Urbain_Microservices.route_service.timetable.DatasetVersion;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.time.Instant;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class ConditionalGetInterceptorTest {
+
+    private final RouteService routeService = mock(RouteService.class);
+    private final DatasetVersion datasetVersion = new DatasetVersion();
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        when(routeService.getRouteById(1L)).thenReturn(new RouteDto(1L, "Route 1", "1", null, null, List.of(), List.of()));
+        mockMvc = MockMvcBuilders
+                .standaloneSetup(new RouteController(routeService, null))
+                .addMappedInterceptors(new String[]{"/route/**"}, new ConditionalGetInterceptor(datasetVersion))
+                .build();
+    }
+
+    @Test
+    void matchingETagIsAnsweredWithoutReachingTheService() throws Exception {
+        String etag = mockMvc.perform(get("/route/1"))
+                .andExpect(status().isOk())
+                .andExpect(header().exists(HttpHeaders.LAST_MODIFIED))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        mockMvc.perform(get("/route/1").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified());
+
+        verify(routeService, times(1)).getRouteById(1L);
+    }
+
+    @Test
+    void committedChangeInvalidatesTheETag() throws Exception {
+        String etag = mockMvc.perform(get("/route/1")).andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        datasetVersion.appliedChange(1, Instant.now());
+
+        String newEtag = mockMvc.perform(get("/route/1").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertThat(newEtag).isNotEqualTo(etag);
+        verify(routeService, times(2)).getRouteById(1L);
+    }
+
+    @Test
+    void instancesServingTheSameRevisionShareTheETag() throws Exception {
+        Instant changedAt = Instant.parse("2025-06-02T08:00:00Z");
+        // another replica, or this one after a restart
+        DatasetVersion other = new DatasetVersion();
+        datasetVersion.applied(7, changedAt);
+        other.applied(6, changedAt.minusSeconds(60));
+        other.appliedChange(7, changedAt);
+
+        mockMvc.perform(get("/route/1").header(HttpHeaders.IF_NONE_MATCH, other.etag()))
+                .andExpect(status().isNotModified());
+        assertThat(datasetVersion.lastModified()).isEqualTo(other.lastModified());
+        verify(routeService, never()).getRouteById(1L);
+    }
+
+    @Test
+    void changeMadeBeforeAnotherInstancesChangeIsLoadedGetsItsOwnETag() {
+        DatasetVersion other = new DatasetVersion();
+        datasetVersion.applied(7, Instant.now());
+        other.applied(9, Instant.now());
+
+        // revision 8 came from the other instance and is not loaded here yet
+        datasetVersion.appliedChange(9, Instant.now());
+        assertThat(datasetVersion.etag()).isNotEqualTo(other.etag());
+        assertThat(datasetVersion.revision()).isEqualTo(7);
+
+        // the next poll reloads everything
+        datasetVersion.applied(9, Instant.now());
+        assertThat(datasetVersion.etag()).isEqualTo(other.etag());
+    }
+
+    @Test
+    void mutationsAreNotConditional() throws Exception {
+        String etag = mockMvc.perform(get("/route/1")).andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        mockMvc.perform(delete("/route/1").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk());
+
+        verify(routeService).deleteRouteById(1L);
+    }
+}
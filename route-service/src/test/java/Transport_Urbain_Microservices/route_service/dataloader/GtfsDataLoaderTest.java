@@ -0,0 +1,240 @@
+package Transport_Urbain_Microservices.route_service.dataloader;
+
+import Transport_Urbain_Microservices.route_service.repo.GtfsImportRepo;
+import Transport_Urbain_Microservices.route_service.repo.ImportLedgerRepo;
+import Transport_Urbain_Microservices.route_service.repo.OsmImportRepo;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.DefaultApplicationArguments;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.TemporalAdjusters;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest
+@ActiveProfiles("test")
+@Import({GtfsDataLoader.class, GtfsImportRepo.class, OsmImportRepo.class, ImportGuard.class})
+class GtfsDataLoaderTest {
+
+    private static final LocalDate HOLIDAY = LocalDate.now().with(TemporalAdjusters.next(DayOfWeek.WEDNESDAY));
+    private static final LocalDate METRO_EVENT = HOLIDAY.plusWeeks(1);
+
+    @TempDir
+    static Path dir;
+
+    @DynamicPropertySource
+    static void gtfsFile(DynamicPropertyRegistry registry) throws IOException {
+        Path feed = dir.resolve("gtfs.zip");
+        writeFeed(feed);
+        registry.add("app.gtfs-file", () -> feed.toUri().toString());
+    }
+
+    @Autowired
+    private GtfsDataLoader gtfsDataLoader;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ImportLedgerRepo importLedgerRepo;
+
+    @Test
+    void importsTripsAsRunsOfOneRoutePerDirectionAndStopPatternAndReplacesThemOnRerun() throws Exception {
+        importLedgerRepo.deleteAll();
+        gtfsDataLoader.run(new DefaultApplicationArguments());
+
+        // the station is left out
+        assertThat(count("stop")).isEqualTo(3);
+        assertThat(jdbcTemplate.queryForObject("select name from stop where gtfs_id = 'S2'", String.class))
+                .isEqualTo("Place, centre");
+        // the metro route is left out, the bus route has one route per direction and stop pattern
+        assertThat(jdbcTemplate.queryForList("select gtfs_id from route order by gtfs_id", String.class))
+                .satisfiesExactly(
+                        id -> assertThat(id).startsWith("R1:0:"),
+                        id -> assertThat(id).startsWith("R1:0:"),
+                        id -> assertThat(id).startsWith("R1:1:"));
+        long outbound = routeId("R1:0", 3);
+        long express = routeId("R1:0", 2);
+        assertThat(jdbcTemplate.queryForList(
+                "select o.cumulative_minutes_from_start from route_stop rs join route_stop_offset o"
+                        + " on o.id_route = rs.id_route and o.id_stop = rs.id_stop"
+                        + " where rs.id_route = ? order by rs.stop_order", Integer.class, outbound))
+                .containsExactly(0, 10, 25);
+
+        // T1 on weekdays, T2 after midnight so one day later, T3 on the holiday only;
+        // T7's service has ended and T9's summer service has not started yet
+        assertThat(jdbcTemplate.queryForList(
+                "select day_of_week from run where route_id = ? and schedule_type = 'REGULAR'"
+                        + " and start_time = '08:00:00' order by day_of_week",
+                Integer.class, outbound)).containsExactly(1, 2, 3, 4, 5);
+        assertThat(jdbcTemplate.queryForList(
+                "select day_of_week from run where route_id = ? and schedule_type = 'REGULAR'"
+                        + " and start_time = '00:30:00' order by day_of_week",
+                Integer.class, outbound)).containsExactly(2, 3, 4, 5, 6);
+        // the day after the holiday is special too: it gets the weekday runs, but not T2 of the cancelled
+        // holiday service day, while T2 of the day before still runs just after midnight on the holiday
+        assertThat(jdbcTemplate.queryForList(
+                "select specific_date || ' ' || start_time from run where route_id = ? and schedule_type = 'SPECIAL'"
+                        + " order by specific_date, start_time", String.class, outbound))
+                .containsExactly(HOLIDAY + " 00:30:00", HOLIDAY + " 09:00:00", HOLIDAY.plusDays(1) + " 08:00:00");
+        // T5 skips the second stop, so it runs on a route of its own
+        assertThat(jdbcTemplate.queryForList(
+                "select day_of_week from run where route_id = ? and schedule_type = 'REGULAR' order by day_of_week",
+                Integer.class, express)).containsExactly(1, 2, 3, 4, 5);
+        assertThat(count("run")).isEqualTo(20);
+        // the metro event and a service without trips do not make a special day
+        assertThat(jdbcTemplate.queryForList("select date from special_day order by date", LocalDate.class))
+                .containsExactly(HOLIDAY, HOLIDAY.plusDays(1));
+
+        importLedgerRepo.deleteAll();
+        gtfsDataLoader.run(new DefaultApplicationArguments());
+
+        assertThat(count("stop")).isEqualTo(3);
+        assertThat(count("route")).isEqualTo(3);
+        assertThat(count("route_stop")).isEqualTo(7);
+        assertThat(count("route_stop_offset")).isEqualTo(7);
+        assertThat(count("run")).isEqualTo(20);
+    }
+
+    @Test
+    void importsAgainOnceAServiceStartsOrEnds() throws Exception {
+        importLedgerRepo.deleteAll();
+        LocalDate summer = LocalDate.of(2099, 6, 1);
+        assertThat(gtfsDataLoader.importFeed(summer.minusDays(1))).isTrue();
+        assertThat(gtfsDataLoader.importFeed(summer.minusDays(1))).isFalse();
+        assertThat(regularRunsAt("12:00:00")).isZero();
+
+        // T9's summer service has started
+        assertThat(gtfsDataLoader.importFeed(summer)).isTrue();
+        assertThat(regularRunsAt("12:00:00")).isEqualTo(7);
+        assertThat(gtfsDataLoader.importFeed(summer.plusDays(1))).isFalse();
+    }
+
+    @Test
+    void keepsTheRegularServiceOfOtherRoutesOnTheSpecialDaysOfTheFeed() throws Exception {
+        // as before the startup import
+        importLedgerRepo.deleteAll();
+        jdbcTemplate.update("delete from special_day");
+        jdbcTemplate.update("insert into route (name, num, status) values ('Route 7', '7', 'ACTIVE')");
+        long osmRoute = jdbcTemplate.queryForObject("select id from route where num = '7'", Long.class);
+        for (int day : new int[]{1, 3, 4}) {
+            jdbcTemplate.update("insert into run (route_id, destination_stop_name, schedule_type, day_of_week, run_num,"
+                    + " start_time) values (?, 'Terminus', 'REGULAR', ?, 1, '07:15:00')", osmRoute, day);
+        }
+
+        gtfsDataLoader.run(new DefaultApplicationArguments());
+        importLedgerRepo.deleteAll();
+        gtfsDataLoader.run(new DefaultApplicationArguments());
+
+        // the holiday is a Wednesday, the day after a Thursday; the second import adds no copies
+        assertThat(jdbcTemplate.queryForList(
+                "select specific_date || ' ' || start_time from run where route_id = ? and schedule_type = 'SPECIAL'"
+                        + " order by specific_date", String.class, osmRoute))
+                .containsExactly(HOLIDAY + " 07:15:00", HOLIDAY.plusDays(1) + " 07:15:00");
+    }
+
+    private int regularRunsAt(String startTime) {
+        return jdbcTemplate.queryForObject("select count(*) from run where schedule_type = 'REGULAR' and start_time = ?",
+                Integer.class, startTime);
+    }
+
+    // the route of the GTFS route and direction with that many stops
+    private long routeId(String gtfsRouteAndDirection, int stops) {
+        return jdbcTemplate.queryForObject("select r.id from route r where r.gtfs_id like ?"
+                        + " and (select count(*) from route_stop rs where rs.id_route = r.id) = ?",
+                Long.class, gtfsRouteAndDirection + ":%", stops);
+    }
+
+    private int count(String table) {
+        return jdbcTemplate.queryForObject("select count(*) from " + table, Integer.class);
+    }
+
+    private static void writeFeed(Path feed) throws IOException {
+        String holiday = HOLIDAY.format(DateTimeFormatter.BASIC_ISO_DATE);
+        String metroEvent = METRO_EVENT.format(DateTimeFormatter.BASIC_ISO_DATE);
+        try (OutputStream out = Files.newOutputStream(feed); ZipOutputStream zip = new ZipOutputStream(out)) {
+            entry(zip, "stops.txt", """
+                    \uFEFFstop_id,stop_name,stop_lat,stop_lon,location_type
+                    ST,Gare,33.59,-7.61,1
+                    S1,Gare,33.59,-7.61,0
+                    S2,"Place, centre",33.60,-7.62,
+                    S3,Port,33.61,-7.63,0
+                    """);
+            entry(zip, "routes.txt", """
+                    route_id,route_short_name,route_long_name,route_type
+                    R1,12,Gare - Port,3
+                    M1,M,Metro,1
+                    """);
+            entry(zip, "calendar.txt", """
+                    service_id,monday,tuesday,wednesday,thursday,friday,saturday,sunday,start_date,end_date
+                    WK,1,1,1,1,1,0,0,20200101,20991231
+                    SUN,0,0,0,0,0,0,1,20200101,20991231
+                    OLD,1,1,1,1,1,1,1,20190101,20200101
+                    SUM,1,1,1,1,1,1,1,20990601,20990831
+                    """);
+            entry(zip, "calendar_dates.txt", "service_id,date,exception_type\r\n"
+                    + "HOL," + holiday + ",1\r\n"
+                    + "WK," + holiday + ",2\r\n"
+                    + "MEV," + metroEvent + ",1\r\n"
+                    + "NONE," + metroEvent + ",1\r\n");
+            entry(zip, "trips.txt", """
+                    route_id,service_id,trip_id,trip_headsign,direction_id
+                    R1,WK,T1,Port,0
+                    R1,WK,T2,Port,0
+                    R1,HOL,T3,Port,0
+                    R1,SUN,T4,Gare,1
+                    R1,WK,T5,Port,0
+                    M1,WK,T6,Metro,0
+                    M1,MEV,T8,Metro,0
+                    R1,OLD,T7,Port,0
+                    R1,SUM,T9,Port,0
+                    """);
+            entry(zip, "stop_times.txt", """
+                    trip_id,arrival_time,departure_time,stop_id,stop_sequence
+                    T1,08:10:00,08:10:00,S2,2
+                    T1,08:00:00,08:00:00,S1,1
+                    T1,08:25:00,08:25:00,S3,3
+                    T2,24:30:00,24:30:00,S1,1
+                    T2,24:40:00,24:40:00,S2,2
+                    T2,24:55:00,24:55:00,S3,3
+                    T3,09:00:00,09:00:00,S1,1
+                    T3,,,S2,2
+                    T3,09:20:00,09:20:00,S3,3
+                    T4,07:00:00,07:00:00,S3,1
+                    T4,07:30:00,07:30:00,S1,2
+                    T5,10:00:00,10:00:00,S1,1
+                    T5,10:20:00,10:20:00,S3,2
+                    T6,11:00:00,11:00:00,S1,1
+                    T7,11:00:00,11:00:00,S1,1
+                    T7,11:10:00,11:10:00,S2,2
+                    T7,11:25:00,11:25:00,S3,3
+                    T9,12:00:00,12:00:00,S1,1
+                    T9,12:10:00,12:10:00,S2,2
+                    T9,12:25:00,12:25:00,S3,3
+                    """);
+        }
+    }
+
+    private static void entry(ZipOutputStream zip, String name, String content) throws IOException {
+        zip.putNextEntry(new ZipEntry(name));
+        zip.write(content.getBytes(StandardCharsets.UTF_8));
+        zip.closeEntry();
+    }
+}
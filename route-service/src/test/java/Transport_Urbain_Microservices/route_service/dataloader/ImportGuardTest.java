@@ -0,0 +1,73 @@
+package Transport_Urbain_Microservices.route_service.dataloader;
+
+import Transport_Urbain_Microservices.route_service.repo.ImportLedgerRepo;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.Resource;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@DataJpaTest
+@ActiveProfiles("test")
+@Import(ImportGuard.class)
+class ImportGuardTest {
+
+    @Autowired
+    private ImportGuard importGuard;
+
+    @Autowired
+    private ImportLedgerRepo importLedgerRepo;
+
+    private final AtomicInteger imports = new AtomicInteger();
+
+    @Test
+    void importRunsOnlyWhenFilesChange() throws Exception {
+        assertThat(importGuard.runIfChanged("test", files("a", "b"), this::countImport)).isTrue();
+        assertThat(importGuard.runIfChanged("test", files("a", "b"), this::countImport)).isFalse();
+        assertThat(importGuard.runIfChanged("test", files("a", "c"), this::countImport)).isTrue();
+
+        assertThat(imports).hasValue(2);
+        assertThat(importLedgerRepo.findById("test")).get()
+                .extracting(ledger -> ledger.getChecksum())
+                .isEqualTo(ImportGuard.checksum(files("a", "c")));
+    }
+
+    @Test
+    void failedImportIsNotRecorded() throws Exception {
+        assertThatThrownBy(() -> importGuard.runIfChanged("failing", files("a"), () -> {
+            throw new IllegalStateException("boom");
+        })).isInstanceOf(IllegalStateException.class);
+
+        assertThat(importLedgerRepo.findById("failing")).isEmpty();
+        assertThat(importGuard.runIfChanged("failing", files("a"), this::countImport)).isTrue();
+    }
+
+    @Test
+    void incompleteImportIsNotRecorded() throws Exception {
+        assertThat(importGuard.runIfChanged("partial", files("a"), () -> false)).isFalse();
+
+        assertThat(importLedgerRepo.findById("partial")).isEmpty();
+        assertThat(importGuard.runIfChanged("partial", files("a"), this::countImport)).isTrue();
+    }
+
+    private boolean countImport() {
+        imports.incrementAndGet();
+        return true;
+    }
+
+    private List<Resource> files(String... contents) {
+        return Arrays.stream(contents)
+                .<Resource>map(content -> new ByteArrayResource(content.getBytes(StandardCharsets.UTF_8)))
+                .toList();
+    }
+}
@@ -0,0 +1,104 @@
+package Transport_Urbain_Microservices.route_service.dataloader;
+
+import Transport_Urbain_Microservices.route_service.repo.ImportLedgerRepo;
+import Transport_Urbain_Microservices.route_service.repo.OsmImportRepo;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.DefaultApplicationArguments;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doCallRealMethod;
+import static org.mockito.Mockito.doThrow;
+
+@DataJpaTest
+@ActiveProfiles("test")
+@Import({OsmDataLoader.class, OsmImportRepo.class, ImportGuard.class})
+class OsmDataLoaderTest {
+
+    @Autowired
+    private OsmDataLoader osmDataLoader;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ImportLedgerRepo importLedgerRepo;
+
+    @MockitoSpyBean
+    private OsmImportRepo osmImportRepo;
+
+    @Test
+    void importsBundledFileOnceAndSkipsKnownRowsOnRerun() throws Exception {
+        importLedgerRepo.deleteAll();
+        osmDataLoader.run(new DefaultApplicationArguments());
+        int stops = count("stop");
+        int routes = count("route");
+        int routeStops = count("route_stop");
+
+        assertThat(stops).isPositive();
+        assertThat(routes).isPositive();
+        assertThat(routeStops).isPositive();
+        assertThat(jdbcTemplate.queryForObject(
+                "select count(*) from route_stop rs join stop s on s.id = rs.id_stop", Integer.class))
+                .isEqualTo(routeStops);
+
+        // forget the checksum so the rerun walks the file against the stored rows
+        importLedgerRepo.deleteAll();
+        osmDataLoader.run(new DefaultApplicationArguments());
+
+        assertThat(count("stop")).isEqualTo(stops);
+        assertThat(count("route")).isEqualTo(routes);
+        assertThat(count("route_stop")).isEqualTo(routeStops);
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)  // the loader's chunk transactions really commit
+    void failedRouteStopsRollBackTheirRoutesAndRerunCompletesThem() throws Exception {
+        // the runner already imported the file when the context started
+        clearImportedRows();
+        doThrow(new DataAccessResourceFailureException("connection lost"))
+                .doCallRealMethod()
+                .when(osmImportRepo).insertRouteStops(anyList());
+        try {
+            assertThatThrownBy(() -> osmDataLoader.run(new DefaultApplicationArguments()))
+                    .isInstanceOf(DataAccessResourceFailureException.class);
+            assertThat(count("stop")).isPositive();
+            assertThat(routesWithoutStops()).isZero();
+
+            osmDataLoader.run(new DefaultApplicationArguments());
+
+            assertThat(count("route")).isPositive();
+            assertThat(count("route_stop")).isPositive();
+            assertThat(routesWithoutStops()).isZero();
+        } finally {
+            clearImportedRows();
+        }
+    }
+
+    private void clearImportedRows() {
+        jdbcTemplate.update("delete from route_stop");
+        jdbcTemplate.update("delete from route");
+        jdbcTemplate.update("delete from stop");
+        importLedgerRepo.deleteAll();
+    }
+
+    private int routesWithoutStops() {
+        return jdbcTemplate.queryForObject(
+                "select count(*) from route r where not exists (select 1 from route_stop rs where rs.id_route = r.id)",
+                Integer.class);
+    }
+
+    private int count(String table) {
+        return jdbcTemplate.queryForObject("select count(*) from " + table, Integer.class);
+    }
+}
@@ -0,0 +1,264 @@
+package Transport_Urbain_Microservices.route_service.dataloader;
+
+import Transport_Urbain_Microservices.route_service.repo.ImportLedgerRepo;
+import Transport_Urbain_Microservices.route_service.repo.OsmImportRepo;
+import Transport_Urbain_Microservices.route_service.repo.ScheduleImportRepo;
+import Transport_Urbain_Microservices.route_service.repo.ScheduleImportRepo.RunRow;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.DefaultApplicationArguments;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doAnswer;
+
+// The routes are imported by worker threads in transactions of their own, so the test does not run in one
+// and clears the tables itself.
+@DataJpaTest
+@ActiveProfiles("test")
+@Import({ScheduleDataLoader.class, OsmImportRepo.class, ScheduleImportRepo.class, ImportGuard.class,
+        ScheduleImportReport.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class ScheduleDataLoaderTest {
+
+    @TempDir
+    static Path dir;
+
+    @DynamicPropertySource
+    static void scheduleFile(DynamicPropertyRegistry registry) throws IOException {
+        Files.writeString(dir.resolve("schedules.json"), "{}");
+        Files.writeString(dir.resolve("osm.json"), "{}");
+        registry.add("app.schedule-file", () -> dir.resolve("schedules.json").toUri().toString());
+        registry.add("app.osm-file", () -> dir.resolve("osm.json").toUri().toString());
+    }
+
+    @Autowired
+    private ScheduleDataLoader scheduleDataLoader;
+
+    @Autowired
+    private ScheduleImportReport importReport;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ImportLedgerRepo importLedgerRepo;
+
+    @MockitoSpyBean
+    private ScheduleImportRepo scheduleImportRepo;
+
+    @BeforeEach
+    void setUp() {
+        for (long osmId = 1; osmId <= 3; osmId++) {
+            jdbcTemplate.update("insert into route (osm_id, name, num, status) values (?, ?, ?, 'ACTIVE')",
+                    osmId, "Route " + osmId, String.valueOf(osmId));
+        }
+        for (long osmId = 11; osmId <= 13; osmId++) {
+            jdbcTemplate.update("insert into stop (osm_id, name, lat, lon) values (?, ?, 33.5, -7.6)",
+                    osmId, "Stop " + osmId);
+        }
+        importLedgerRepo.deleteAll();
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.update("delete from run");
+        jdbcTemplate.update("delete from route_stop_offset");
+        jdbcTemplate.update("delete from route");
+        jdbcTemplate.update("delete from stop");
+        importLedgerRepo.deleteAll();
+    }
+
+    @Test
+    void failedRouteKeepsTheOtherRoutesAndLeavesTheImportToBeRerun() throws Exception {
+        writeSchedule("""
+                {"routes": {
+                  "1": %s,
+                  "2": %s,
+                  "3": %s
+                }}
+                """.formatted(route("06:00-07:00", 30), route("06:00-07:00", 30), route("06:00-07:00", 30)));
+        long failing = routeId(2);
+        doAnswer(invocation -> {
+            List<RunRow> runs = invocation.getArgument(0);
+            if (runs.getFirst().routeId() == failing) {
+                throw new DataAccessResourceFailureException("connection reset");
+            }
+            return invocation.callRealMethod();
+        }).when(scheduleImportRepo).insertRegularRuns(anyList());
+
+        scheduleDataLoader.run(new DefaultApplicationArguments());
+
+        // 3 runs a day on the other routes, their offsets too; nothing of the failed route
+        assertThat(runs(routeId(1))).isEqualTo(21);
+        assertThat(runs(routeId(3))).isEqualTo(21);
+        assertThat(runs(failing)).isZero();
+        assertThat(offsets(failing)).isZero();
+        assertThat(offsets(routeId(1))).isEqualTo(3);
+
+        List<RouteImportResult> routes = reportedRoutes();
+        assertThat(routes).hasSize(3);
+        // failures come first
+        assertThat(routes.getFirst().route()).isEqualTo("2");
+        assertThat(routes.getFirst().status()).isEqualTo(RouteImportResult.Status.FAILED);
+        assertThat(routes.getFirst().message()).contains("connection reset");
+        // not recorded, so the next start imports the file again
+        assertThat(importLedgerRepo.findById("schedule")).isEmpty();
+    }
+
+    @Test
+    void generatesRunsForEveryDayFromOperatingHoursAndFrequency() throws Exception {
+        writeSchedule("""
+                {"routes": {"1": %s, "2": %s}}
+                """.formatted(route("06:00-07:00", 20), route("22:00-23:59", 90)));
+
+        scheduleDataLoader.run(new DefaultApplicationArguments());
+
+        assertThat(jdbcTemplate.queryForList(
+                "select run_num || ' ' || start_time from run where route_id = ? and day_of_week = 3 order by run_num",
+                String.class, routeId(1)))
+                .containsExactly("1 06:00:00", "2 06:20:00", "3 06:40:00", "4 07:00:00");
+        assertThat(runs(routeId(1))).isEqualTo(7 * 4);
+        assertThat(jdbcTemplate.queryForList(
+                "select distinct destination_stop_name from run where route_id = ?", String.class, routeId(1)))
+                .containsExactly("Terminus");
+        // 22:00 and 23:30, the next one would wrap past midnight
+        assertThat(runs(routeId(2))).isEqualTo(7 * 2);
+    }
+
+    @Test
+    void rerunKeepsExistingRunsAndUpsertsChangedOffsets() throws Exception {
+        writeSchedule("""
+                {"routes": {"1": %s}}
+                """.formatted(route("06:00-07:00", 30)));
+        scheduleDataLoader.run(new DefaultApplicationArguments());
+        assertThat(scheduleImportRepo.findRegularDepartureKeysByRoute().get(routeId(1)))
+                .hasSize(21)
+                .contains(ScheduleImportRepo.departureKey(1, LocalTime.of(6, 30)));
+
+        // a changed file runs the import again: the departures are already there, one offset moved
+        writeSchedule("""
+                {"routes": {"1": %s}}
+                """.formatted(route("06:00-07:00", 30).replace(
+                "\"arrival_time_from_start_minutes\": 9", "\"arrival_time_from_start_minutes\": 11")));
+        scheduleDataLoader.run(new DefaultApplicationArguments());
+
+        assertThat(runs(routeId(1))).isEqualTo(21);
+        assertThat(reportedRoutes().getFirst().message()).isEqualTo("already has regular runs");
+        assertThat(offsetMinutes(routeId(1))).containsExactly(0, 4, 11);
+    }
+
+    @Test
+    void stopListedTwiceKeepsItsLastOffset() throws Exception {
+        writeSchedule("""
+                {"routes": {"1": {"operating_hours": "06:00-06:00", "frequency_minutes": 30,
+                  "stops": [{"id": 11, "arrival_time_from_start_minutes": 0},
+                            {"id": 12, "arrival_time_from_start_minutes": 4},
+                            {"id": 11, "arrival_time_from_start_minutes": 9},
+                            {"id": 13}]}}}
+                """);
+
+        scheduleDataLoader.run(new DefaultApplicationArguments());
+
+        // one row per (route, stop) in a single upsert; stop 13 has no offset
+        assertThat(jdbcTemplate.queryForList(
+                "select s.osm_id || '=' || o.cumulative_minutes_from_start from route_stop_offset o"
+                        + " join stop s on s.id = o.id_stop where o.id_route = ? order by s.osm_id",
+                String.class, routeId(1))).containsExactly("11=9", "12=4");
+        assertThat(reportedRoutes().getFirst().offsets()).isEqualTo(2);
+    }
+
+    @Test
+    void fileWithoutRoutesObjectImportsNothingAndIsRecorded() throws Exception {
+        // "routes" nested deeper or holding an array does not count, the other fields are skipped unread
+        writeSchedule("""
+                {"version": 2, "meta": {"routes": {"1": {}}}, "routes": [1, 2]}
+                """);
+
+        scheduleDataLoader.run(new DefaultApplicationArguments());
+
+        assertThat(count("run")).isZero();
+        assertThat(count("route_stop_offset")).isZero();
+        assertThat(importLedgerRepo.findById("schedule")).isPresent();
+    }
+
+    @Test
+    void nonNumericAndUnknownRouteKeysAreSkipped() throws Exception {
+        writeSchedule("""
+                {"generated": "2025-06-01", "routes": {"line-1": %s, "99": %s, "1": %s}}
+                """.formatted(route("06:00-07:00", 30), route("06:00-07:00", 30), route("06:00-07:00", 30)));
+
+        scheduleDataLoader.run(new DefaultApplicationArguments());
+
+        assertThat(runs(routeId(1))).isEqualTo(21);
+        assertThat(reportedRoutes())
+                .extracting(RouteImportResult::route, RouteImportResult::status, RouteImportResult::message)
+                .containsExactlyInAnyOrder(
+                        tuple("line-1", RouteImportResult.Status.SKIPPED, "non-numeric key"),
+                        tuple("99", RouteImportResult.Status.SKIPPED, "route not found"),
+                        tuple("1", RouteImportResult.Status.IMPORTED, null));
+        assertThat(importLedgerRepo.findById("schedule")).isPresent();
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<RouteImportResult> reportedRoutes() {
+        Map<String, Object> report = importReport.lastImport();
+        return (List<RouteImportResult>) report.get("routes");
+    }
+
+    private void writeSchedule(String json) throws IOException {
+        Files.writeString(dir.resolve("schedules.json"), json);
+    }
+
+    private static String route(String operatingHours, int frequencyMinutes) {
+        return """
+                {"name": "Line", "to": "Terminus", "operating_hours": "%s", "frequency_minutes": %d,
+                 "stops": [{"id": 11, "arrival_time_from_start_minutes": 0},
+                           {"id": 12, "arrival_time_from_start_minutes": 4},
+                           {"id": 13, "arrival_time_from_start_minutes": 9}]}
+                """.formatted(operatingHours, frequencyMinutes);
+    }
+
+    private long routeId(long osmId) {
+        return jdbcTemplate.queryForObject("select id from route where osm_id = ?", Long.class, osmId);
+    }
+
+    private int runs(long routeId) {
+        return jdbcTemplate.queryForObject("select count(*) from run where route_id = ?", Integer.class, routeId);
+    }
+
+    private int count(String table) {
+        return jdbcTemplate.queryForObject("select count(*) from " + table, Integer.class);
+    }
+
+    private List<Integer> offsetMinutes(long routeId) {
+        return jdbcTemplate.queryForList("select cumulative_minutes_from_start from route_stop_offset"
+                + " where id_route = ? order by cumulative_minutes_from_start", Integer.class, routeId);
+    }
+
+    private int offsets(long routeId) {
+        return jdbcTemplate.queryForObject(
+                "select count(*) from route_stop_offset where id_route = ?", Integer.class, routeId);
+    }
+}
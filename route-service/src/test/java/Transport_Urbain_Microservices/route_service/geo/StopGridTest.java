@@ -0,0 +1,62 @@
+package Transport_Urbain_Microservices.route_service.geo;
+
+import Transport_Urbain_Microservices.route_service.entity.Stop;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class StopGridTest {
+
+    @Test
+    void returnsNearestStopsInsideRadiusNearestFirst() {
+        StopGrid grid = StopGrid.of(List.of(
+                stop(1L, 34.0200, -6.8400),
+                stop(2L, 34.0210, -6.8400),   // ~111 m north
+                stop(3L, 34.0200, -6.8460),   // ~550 m west, next grid cell
+                stop(4L, 34.0500, -6.8400))); // ~3.3 km north
+
+        List<StopGrid.Hit> hits = grid.nearest(34.0201, -6.8400, 1000, 10);
+
+        assertThat(hits).extracting(StopGrid.Hit::id).containsExactly(1L, 2L, 3L);
+        assertThat(hits.get(1).distanceMeters()).isBetween(95.0, 105.0);
+        assertThat(grid.nearest(34.0201, -6.8400, 1000, 2)).extracting(StopGrid.Hit::id).containsExactly(1L, 2L);
+        assertThat(grid.nearest(0, 0, 1000, 10)).isEmpty();
+    }
+
+    @Test
+    void matchesBruteForceOnRandomStops() {
+        Random random = new Random(42);
+        List<Stop> stops = new ArrayList<>();
+        for (long id = 1; id <= 2000; id++) {
+            stops.add(stop(id, 33.9 + random.nextDouble() * 0.3, -6.95 + random.nextDouble() * 0.3));
+        }
+        StopGrid grid = StopGrid.of(stops);
+
+        for (int q = 0; q < 50; q++) {
+            double lat = 33.9 + random.nextDouble() * 0.3;
+            double lon = -6.95 + random.nextDouble() * 0.3;
+            List<Long> expected = stops.stream()
+                    .filter(s -> StopGrid.distanceMeters(lat, lon, s.getLat(), s.getLon()) <= 800)
+                    .sorted(Comparator.comparingDouble(s -> StopGrid.distanceMeters(lat, lon, s.getLat(), s.getLon())))
+                    .limit(7)
+                    .map(Stop::getId)
+                    .toList();
+
+            assertThat(grid.nearest(lat, lon, 800, 7)).extracting(StopGrid.Hit::id).isEqualTo(expected);
+        }
+    }
+
+    private static Stop stop(Long id, double lat, double lon) {
+        Stop stop = new Stop();
+        stop.setId(id);
+        stop.setName("stop-" + id);
+        stop.setLat(lat);
+        stop.setLon(lon);
+        return stop;
+    }
+}
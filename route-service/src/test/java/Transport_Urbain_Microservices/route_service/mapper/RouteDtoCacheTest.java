@@ -0,0 +1,111 @@
+package Transport_Urbain_Microservices.route_service.mapper;
+
+import Transport_Urbain_Microservices.route_service.TestRoutes;
+import Transport_Urbain_Microservices.route_service.dto.RouteDto;
+import Transport_Urbain_Microservices.route_service.entity.*;
+import Transport_Urbain_Microservices.route_service.timetable.TimetableChangedEvent;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest(properties = "app.cache.routes.max-size=2")
+@ActiveProfiles("test")
+@Import({RouteDtoCache.class, RouteMapper.class})
+class RouteDtoCacheTest {
+
+    @Autowired
+    private TestEntityManager em;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private RouteDtoCache routeDtoCache;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+        routeDtoCache.invalidateAll();
+    }
+
+    @Test
+    void allRoutesAreBuiltWithThreeQueriesThenServedFromTheSnapshot() {
+        TestRoutes.persist(em, "1", 2, 5);
+        TestRoutes.persist(em, "2", 2, 5);
+        em.flush();
+        em.clear();
+        statistics.clear();
+
+        List<RouteDto> cold = routeDtoCache.getAll();
+        // routes, then route stops and offsets of every route at once
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(3);
+        assertThat(cold).extracting(RouteDto::getNum).containsExactlyInAnyOrder("1", "2");
+        assertThat(cold.getFirst().getRouteStops()).hasSize(2);
+        assertThat(cold.getFirst().getCumulativeMinutesFromStartForStops()).containsExactly(0, 5);
+
+        statistics.clear();
+        assertThat(routeDtoCache.getAll()).isEqualTo(cold);
+        assertThat(routeDtoCache.get(cold.getFirst().getId())).isEqualTo(cold.getFirst());
+        assertThat(statistics.getPrepareStatementCount()).isZero();
+    }
+
+    @Test
+    void committedChangeDropsOnlyThatRouteAndTheSnapshot() {
+        Route first = TestRoutes.persist(em, "3", 2, 5);
+        Route second = TestRoutes.persist(em, "4", 2, 5);
+        em.flush();
+        routeDtoCache.getAll();
+
+        first.setName("Renamed");
+        em.flush();
+        routeDtoCache.onTimetableChanged(TimetableChangedEvent.forRoute(first.getId()));
+        statistics.clear();
+
+        assertThat(routeDtoCache.get(second.getId()).getName()).isEqualTo("Route 4");
+        assertThat(statistics.getPrepareStatementCount()).isZero();
+        assertThat(routeDtoCache.get(first.getId()).getName()).isEqualTo("Renamed");
+        assertThat(routeDtoCache.getAll()).extracting(RouteDto::getName).contains("Renamed");
+    }
+
+    @Test
+    void leastRecentlyUsedRouteIsEvictedAndCounted() {
+        Route a = TestRoutes.persist(em, "5", 2, 5);
+        Route b = TestRoutes.persist(em, "6", 2, 5);
+        Route c = TestRoutes.persist(em, "7", 2, 5);
+        em.flush();
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        routeDtoCache.bindTo(registry);
+        long evictions = routeDtoCache.evictionCount();
+
+        routeDtoCache.get(a.getId());
+        routeDtoCache.get(b.getId());
+        routeDtoCache.get(a.getId());
+        routeDtoCache.get(c.getId());
+
+        assertThat(routeDtoCache.size()).isEqualTo(2);
+        assertThat(routeDtoCache.evictionCount()).isEqualTo(evictions + 1);
+        statistics.clear();
+        routeDtoCache.get(a.getId());
+        assertThat(statistics.getPrepareStatementCount()).isZero();
+        routeDtoCache.get(b.getId());
+        assertThat(statistics.getPrepareStatementCount()).isPositive();
+        assertThat(registry.get("cache.gets").tag("result", "hit").functionCounter().count())
+                .isEqualTo(routeDtoCache.hitCount());
+        assertThat(registry.get("cache.size").gauge().value()).isEqualTo(2);
+    }
+}
@@ -0,0 +1,149 @@
+package Transport_Urbain_Microservices.route_service.mapper;
+
+import Transport_Urbain_Microservices.route_service.TestRoutes;
+import Transport_Urbain_Microservices.route_service.dto.RunDetailsDto;
+import Transport_Urbain_Microservices.route_service.entity.*;
+import Transport_Urbain_Microservices.route_service.repo.RunRepo;
+import Transport_Urbain_Microservices.route_service.timetable.StopPatternCache;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest
+@ActiveProfiles("test")
+@Import({RunMapper.class, StopPatternCache.class})
+class RunMapperTest {
+
+    @Autowired
+    private TestEntityManager em;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private RunRepo runRepo;
+
+    @Autowired
+    private RunMapper runMapper;
+
+    @Autowired
+    private StopPatternCache stopPatternCache;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+        stopPatternCache.invalidateAll();
+    }
+
+    @Test
+    void toDetailsDtosUsesConstantNumberOfStatements() {
+        List<Route> routes = List.of(TestRoutes.persist(em, "1", 4, 5), TestRoutes.persist(em, "2", 6, 5),
+                TestRoutes.persist(em, "3", 3, 5));
+        createRuns(routes, 2);
+        long fewRunsStatements = countStatementsForMappingAllRuns(6);
+
+        stopPatternCache.invalidateAll();
+        createRuns(routes, 40);
+        long manyRunsStatements = countStatementsForMappingAllRuns(126);
+
+        // one query for the runs with their routes, one for the stop sequences, one for the offsets
+        assertThat(fewRunsStatements).isEqualTo(3);
+        assertThat(manyRunsStatements).isEqualTo(fewRunsStatements);
+    }
+
+    @Test
+    void toDetailsDtosReusesCachedStopPatterns() {
+        List<Route> routes = List.of(TestRoutes.persist(em, "4", 5, 5), TestRoutes.persist(em, "5", 2, 5));
+        createRuns(routes, 10);
+        long coldStatements = countStatementsForMappingAllRuns(20);
+        long warmStatements = countStatementsForMappingAllRuns(20);
+
+        // once the patterns are cached only the runs query is left
+        assertThat(coldStatements).isEqualTo(3);
+        assertThat(warmStatements).isEqualTo(1);
+    }
+
+    @Test
+    void invalidatedStopPatternIsReloaded() {
+        Route route = TestRoutes.persist(em, "8", 2, 5);
+        createRuns(List.of(route), 1);
+        countStatementsForMappingAllRuns(1);
+
+        Stop stop = new Stop();
+        stop.setName("8-stop-3");
+        stop.setLat(33.6);
+        stop.setLon(-7.5);
+        em.persist(stop);
+        Route managed = em.find(Route.class, route.getId());
+        em.persist(new RouteStop(managed, stop, 3));
+        em.persist(new RouteStopOffset(managed, stop, 12));
+        em.flush();
+        stopPatternCache.invalidate(route.getId());
+        em.clear();
+
+        RunDetailsDto dto = runMapper.toDetailsDtos(runRepo.findAllWithRoute()).getFirst();
+
+        assertThat(dto.getStopTimes()).extracting(RunDetailsDto.StopTimeDetailDTO::getStopName)
+                .containsExactly("8-stop-1", "8-stop-2", "8-stop-3");
+        assertThat(dto.getStopTimes().getLast().getActualArrivalTime()).isEqualTo(LocalTime.of(6, 12));
+    }
+
+    @Test
+    void toDetailsDtosKeepsStopOrderAndArrivalTimes() {
+        Route route = TestRoutes.persist(em, "7", 3, 5);
+        createRuns(List.of(route), 1);
+        em.clear();
+
+        List<RunDetailsDto> dtos = runMapper.toDetailsDtos(runRepo.findAllWithRoute());
+
+        assertThat(dtos).hasSize(1);
+        RunDetailsDto dto = dtos.getFirst();
+        assertThat(dto.getRouteNum()).isEqualTo("7");
+        assertThat(dto.getStopTimes()).extracting(RunDetailsDto.StopTimeDetailDTO::getStopName)
+                .containsExactly("7-stop-1", "7-stop-2", "7-stop-3");
+        assertThat(dto.getStopTimes()).extracting(RunDetailsDto.StopTimeDetailDTO::getActualArrivalTime)
+                .containsExactly(LocalTime.of(6, 0), LocalTime.of(6, 5), LocalTime.of(6, 10));
+    }
+
+    private long countStatementsForMappingAllRuns(int expectedRuns) {
+        em.flush();
+        em.clear();
+        statistics.clear();
+
+        List<RunDetailsDto> dtos = runMapper.toDetailsDtos(runRepo.findAllWithRoute());
+
+        assertThat(dtos).hasSize(expectedRuns);
+        assertThat(dtos).allSatisfy(dto -> assertThat(dto.getStopTimes()).isNotEmpty());
+        return statistics.getPrepareStatementCount();
+    }
+
+    private void createRuns(List<Route> routes, int runsPerRoute) {
+        for (Route route : routes) {
+            for (int i = 0; i < runsPerRoute; i++) {
+                Run run = new Run();
+                run.setRoute(route);
+                run.setDestinationStopName("Terminus");
+                run.setScheduleType(ScheduleType.REGULAR);
+                run.setDayOfWeek(1);
+                run.setRunNum(i + 1);
+                run.setStartTime(LocalTime.of(6, 0).plusMinutes(i));
+                em.persist(run);
+            }
+        }
+    }
+}
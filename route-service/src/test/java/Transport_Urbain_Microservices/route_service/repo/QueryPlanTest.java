@@ -0,0 +1,173 @@
+package Transport_Urbain_Microservices.route_service.repo;
+
+import Transport_Urbain_Microservices.route_service.TestRoutes;
+import Transport_Urbain_Microservices.route_service.entity.*;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Runs EXPLAIN on the SQL that the hot repository methods actually generate and fails when one of them
+// does not go through the index meant for it.
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+        + "Transport_Urbain_Microservices.route_service.repo.QueryPlanTest$CapturingInspector")
+@ActiveProfiles("test")
+class QueryPlanTest {
+
+    @Autowired
+    private TestEntityManager em;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private RunRepo runRepo;
+
+    @Autowired
+    private RouteStopRepo routeStopRepo;
+
+    @Autowired
+    private RouteStopOffsetRepo routeStopOffsetRepo;
+
+    private Route route;
+    private Stop stop;
+
+    @BeforeEach
+    void setUp() {
+        List<Route> routes = new ArrayList<>();
+        for (int r = 0; r < 20; r++) {
+            routes.add(createRoute(r));
+        }
+        route = routes.getFirst();
+        stop = routeStopRepo.findByRouteOrderByStopOrderAsc(route).getFirst().getStop();
+        em.flush();
+        em.clear();
+        route = em.find(Route.class, route.getId());
+        stop = em.find(Stop.class, stop.getId());
+    }
+
+    @Test
+    void runQueriesUseIndexes() {
+        LocalDate date = LocalDate.of(2025, 12, 25);
+        assertIndex("RUN", "IDX_RUN_ROUTE_REGULAR",
+                () -> runRepo.countByRouteAndScheduleTypeAndDayOfWeek(route, ScheduleType.REGULAR, 1));
+        assertIndex("RUN", "IDX_RUN_ROUTE_REGULAR",
+                () -> runRepo.findByRouteAndScheduleTypeAndDayOfWeek(route, ScheduleType.REGULAR, 1));
+        assertIndex("RUN", "IDX_RUN_ROUTE_REGULAR", () -> runRepo.existsByRouteAndScheduleTypeAndDayOfWeekAndStartTime(
+                route, ScheduleType.REGULAR, 1, LocalTime.of(6, 0)));
+        assertIndex("RUN", "IDX_RUN_ROUTE_SPECIAL",
+                () -> runRepo.countByRouteAndScheduleTypeAndSpecificDate(route, ScheduleType.SPECIAL, date));
+        assertIndex("RUN", "IDX_RUN_ROUTE_SPECIAL",
+                () -> runRepo.findByRouteAndScheduleTypeAndSpecificDate(route, ScheduleType.SPECIAL, date));
+        assertIndex("RUN", "IDX_RUN_SPECIAL_DATE",
+                () -> runRepo.countByScheduleTypeAndSpecificDate(ScheduleType.SPECIAL, date));
+        assertIndex("RUN", "IDX_RUN_SPECIAL_DATE",
+                () -> runRepo.findByScheduleTypeAndSpecificDate(ScheduleType.SPECIAL, date));
+        assertLookupOn("RUN", "ROUTE_ID", () -> runRepo.findByRoute(route));
+        assertLookupOn("RUN", "ROUTE_ID", () -> runRepo.findByRouteIn(List.of(route)));
+    }
+
+    @Test
+    void routeStopQueriesUseIndexes() {
+        assertLookupOn("ROUTE_STOP", "ID_ROUTE", () -> routeStopRepo.findByRouteOrderByStopOrderAsc(route));
+        assertIndex("ROUTE_STOP", "IDX_ROUTE_STOP_STOP", () -> routeStopRepo.findWithRouteByStop(stop));
+        assertIndex("ROUTE_STOP", "IDX_ROUTE_STOP_STOP", () -> routeStopRepo.findByStop(stop));
+        assertLookupOn("ROUTE_STOP", "ID_ROUTE", () -> routeStopRepo.findWithStopByRouteIdIn(List.of(route.getId())));
+        assertLookupOn("ROUTE_STOP_OFFSET", "ID_ROUTE", () -> routeStopOffsetRepo.findByRoute(route));
+        assertLookupOn("ROUTE_STOP_OFFSET", "ID_ROUTE", () -> routeStopOffsetRepo.findByRouteIdIn(List.of(route.getId())));
+    }
+
+    // The query goes through the named index. H2 also indexes every foreign key, so "some index" is not enough.
+    private void assertIndex(String table, String index, Runnable query) {
+        for (String accessPath : accessPaths(table, query)) {
+            assertThat(accessPath).startsWith("PUBLIC." + index + ":");
+        }
+    }
+
+    // Lookups by route alone: Postgres serves them with the primary key or an idx_run_route_* prefix, H2 with
+    // its foreign key index, so only the looked up column is checked.
+    private void assertLookupOn(String table, String column, Runnable query) {
+        for (String accessPath : accessPaths(table, query)) {
+            assertThat(accessPath).contains(": " + column + " ").doesNotContain("TABLESCAN");
+        }
+    }
+
+    private List<String> accessPaths(String table, Runnable query) {
+        CapturingInspector.STATEMENTS.clear();
+        query.run();
+        List<String> statements = CapturingInspector.STATEMENTS.stream()
+                .filter(sql -> sql.toUpperCase().contains(" " + table + " "))
+                .toList();
+        assertThat(statements).as("statements on " + table).isNotEmpty();
+        // H2 prints the access path of each table right after it: "/* PUBLIC.INDEX: CONDITION */",
+        // an access path without condition reads the whole table or index
+        Pattern accessPath = Pattern.compile("\"PUBLIC\"\\.\"" + table + "\" \"[^\"]+\"\\s*/\\* ([^*]*) \\*/");
+        List<String> accessPaths = new ArrayList<>();
+        for (String sql : statements) {
+            String plan = explain(sql);
+            Matcher matcher = accessPath.matcher(plan);
+            assertThat(matcher.find()).as("access path of %s in %s", table, plan).isTrue();
+            accessPaths.add(matcher.group(1));
+        }
+        return accessPaths;
+    }
+
+    // H2 explains a statement with unset parameters as long as it is not executed
+    private String explain(String sql) {
+        return String.join("\n", jdbcTemplate.execute((java.sql.Connection connection) -> {
+            try (var statement = connection.prepareStatement("EXPLAIN " + sql);
+                 var rows = statement.executeQuery()) {
+                List<String> plan = new ArrayList<>();
+                while (rows.next()) {
+                    plan.add(rows.getString(1));
+                }
+                return plan;
+            }
+        }));
+    }
+
+    private Route createRoute(int r) {
+        Route created = TestRoutes.persist(em, String.valueOf(r), 10, 3);
+        for (int i = 0; i < 50; i++) {
+            Run run = new Run();
+            run.setRoute(created);
+            run.setDestinationStopName("Terminus");
+            if (i % 10 == 0) {
+                run.setScheduleType(ScheduleType.SPECIAL);
+                run.setSpecificDate(LocalDate.of(2025, 12, 20).plusDays(i / 10));
+            } else {
+                run.setScheduleType(ScheduleType.REGULAR);
+                run.setDayOfWeek(1 + i % 7);
+            }
+            run.setRunNum(i + 1);
+            run.setStartTime(LocalTime.of(5, 0).plusMinutes(i * 10L));
+            em.persist(run);
+        }
+        return created;
+    }
+
+    public static class CapturingInspector implements StatementInspector {
+
+        static final List<String> STATEMENTS = new CopyOnWriteArrayList<>();
+
+        @Override
+        public String inspect(String sql) {
+            STATEMENTS.add(sql);
+            return sql;
+        }
+    }
+}
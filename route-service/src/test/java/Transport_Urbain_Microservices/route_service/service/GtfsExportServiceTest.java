@@ -0,0 +1,170 @@
+package Transport_Urbain_Microservices.route_service.service;
+
+import Transport_Urbain_Microservices.route_service.TestRoutes;
+import Transport_Urbain_Microservices.route_service.entity.*;
+import Transport_Urbain_Microservices.route_service.timetable.DatasetVersion;
+import Transport_Urbain_Microservices.route_service.timetable.StopPatternCache;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.DayOfWeek;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.temporal.TemporalAdjusters;
+import java.util.*;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest
+@ActiveProfiles("test")
+@Import({GtfsExportService.class, StopPatternCache.class, DatasetVersion.class})
+class GtfsExportServiceTest {
+
+    @TempDir
+    static Path feedDir;
+
+    @DynamicPropertySource
+    static void gtfsDir(DynamicPropertyRegistry registry) {
+        registry.add("app.gtfs.dir", feedDir::toString);
+    }
+
+    @Autowired
+    private TestEntityManager em;
+
+    @Autowired
+    private GtfsExportService gtfsExportService;
+
+    @Autowired
+    private DatasetVersion datasetVersion;
+
+    private final LocalDate holiday = LocalDate.now().with(TemporalAdjusters.next(DayOfWeek.WEDNESDAY));
+    private Route route;
+
+    @BeforeEach
+    void setUp() {
+        datasetVersion.appliedChange(datasetVersion.revision() + 1, Instant.now());
+        route = createRoute("12", RouteStatus.ACTIVE);
+        createRun(route, ScheduleType.REGULAR, 3, null, LocalTime.of(23, 50));
+        createRun(route, ScheduleType.SPECIAL, null, holiday, LocalTime.of(9, 0));
+        // not a special day, so the run never operates
+        createRun(route, ScheduleType.SPECIAL, null, holiday.plusDays(1), LocalTime.of(9, 0));
+        createRun(createRoute("13", RouteStatus.SUSPENDED), ScheduleType.REGULAR, 1, null, LocalTime.of(8, 0));
+        em.persist(new SpecialDay(holiday));
+        em.flush();
+        em.clear();
+    }
+
+    @Test
+    void feedHoldsTheServedRunsAndTheirStopTimes() throws IOException {
+        Map<String, List<String>> files = read(gtfsExportService.currentFeed());
+
+        assertThat(files.keySet()).containsExactly("agency.txt", "stops.txt", "routes.txt", "calendar.txt",
+                "calendar_dates.txt", "trips.txt", "stop_times.txt");
+        assertThat(files.get("stops.txt")).hasSize(1 + 6);
+        assertThat(files.get("stops.txt")).contains(stopRow(1));
+        assertThat(files.get("routes.txt")).containsExactly(
+                "route_id,agency_id,route_short_name,route_long_name,route_desc,route_type",
+                route.getId() + ",1,12,\"Route 12, centre\",,3");
+        assertThat(files.get("calendar.txt")).hasSize(1 + 7);
+        String date = holiday.toString().replace("-", "");
+        assertThat(files.get("calendar_dates.txt")).containsExactly(
+                "service_id,date,exception_type", "D3," + date + ",2", "S" + date + "," + date + ",1");
+        assertThat(files.get("trips.txt")).hasSize(1 + 2);
+        assertThat(files.get("trips.txt").get(1)).startsWith(route.getId() + ",D3,");
+        assertThat(files.get("trips.txt").get(2)).startsWith(route.getId() + ",S" + date + ",");
+        // the regular run ends after midnight of its service day
+        assertThat(files.get("stop_times.txt")).hasSize(1 + 2 * 3);
+        assertThat(files.get("stop_times.txt").get(3)).endsWith(",24:10:00,24:10:00," + stopId(3) + ",3");
+    }
+
+    @Test
+    void feedIsOnlyRewrittenWhenTheDatasetChanges() throws IOException {
+        Path feed = gtfsExportService.currentFeed();
+        FileTime written = Files.getLastModifiedTime(feed);
+        Files.setLastModifiedTime(feed, FileTime.fromMillis(0));
+
+        assertThat(gtfsExportService.currentFeed()).isEqualTo(feed);
+        assertThat(Files.getLastModifiedTime(feed).toMillis()).isZero();
+
+        datasetVersion.appliedChange(datasetVersion.revision() + 1, Instant.now());
+        assertThat(Files.getLastModifiedTime(gtfsExportService.currentFeed()).toMillis())
+                .isGreaterThanOrEqualTo(written.toMillis());
+        try (var leftovers = Files.list(feedDir)) {
+            assertThat(leftovers).containsExactly(feed);
+        }
+    }
+
+    @Test
+    void feedIsRewrittenFromTheNewDateOnceTheDayChanges() throws IOException {
+        LocalDate today = LocalDate.now();
+        LocalDate tomorrow = today.plusDays(1);
+        String etag = gtfsExportService.etag(today);
+        gtfsExportService.currentFeed(today);
+
+        List<String> calendar = read(gtfsExportService.currentFeed(tomorrow)).get("calendar.txt");
+
+        assertThat(calendar.get(1)).contains("," + tomorrow.toString().replace("-", "") + ",");
+        assertThat(gtfsExportService.etag(tomorrow)).isNotEqualTo(etag);
+        assertThat(gtfsExportService.etag(today)).isEqualTo(etag);
+    }
+
+    private Route createRoute(String num, RouteStatus status) {
+        Route route = TestRoutes.route(num);
+        route.setName("Route " + num + ", centre");
+        route.setStatus(status);
+        return TestRoutes.persist(em, route, 3, 10);
+    }
+
+    private void createRun(Route route, ScheduleType type, Integer dayOfWeek, LocalDate date, LocalTime start) {
+        Run run = new Run();
+        run.setRoute(route);
+        run.setDestinationStopName("Terminus");
+        run.setScheduleType(type);
+        run.setDayOfWeek(dayOfWeek);
+        run.setSpecificDate(date);
+        run.setRunNum(1);
+        run.setStartTime(start);
+        em.persist(run);
+    }
+
+    private Long stopId(int order) {
+        return em.getEntityManager()
+                .createQuery("select rs.stop.id from RouteStop rs where rs.route.id = :route and rs.stopOrder = :order", Long.class)
+                .setParameter("route", route.getId())
+                .setParameter("order", order)
+                .getSingleResult();
+    }
+
+    private String stopRow(int order) {
+        Stop stop = em.find(Stop.class, stopId(order));
+        return stop.getId() + "," + stop.getName() + ",," + stop.getLat() + "," + stop.getLon();
+    }
+
+    private static Map<String, List<String>> read(Path feed) throws IOException {
+        Map<String, List<String>> files = new LinkedHashMap<>();
+        try (ZipInputStream zip = new ZipInputStream(Files.newInputStream(feed))) {
+            ZipEntry entry;
+            while ((entry = zip.getNextEntry()) != null) {
+                String content = new String(zip.readAllBytes(), StandardCharsets.UTF_8);
+                files.put(entry.getName(), List.of(content.split("\r\n")));
+            }
+        }
+        return files;
+    }
+}
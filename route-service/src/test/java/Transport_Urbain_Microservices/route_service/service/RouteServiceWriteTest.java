@@ -0,0 +1,120 @@
+package Transport_Urbain_Microservices.route_service.service;
+
+import Transport_Urbain_Microservices.route_service.dto.ChangeRouteOffsetsDto;
+import Transport_Urbain_Microservices.route_service.dto.ChangeRouteStopsDto;
+import Transport_Urbain_Microservices.route_service.dto.RouteDto;
+import Transport_Urbain_Microservices.route_service.entity.RouteStatus;
+import Transport_Urbain_Microservices.route_service.entity.Stop;
+import Transport_Urbain_Microservices.route_service.mapper.RouteDtoCache;
+import Transport_Urbain_Microservices.route_service.mapper.RouteMapper;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Statement counts of the route write paths for a 40-stop route.
+@DataJpaTest
+@ActiveProfiles("test")
+@Import({RouteService.class, RouteMapper.class, RouteDtoCache.class})
+class RouteServiceWriteTest {
+
+    private static final int STOPS = 40;
+
+    @Autowired
+    private TestEntityManager em;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private RouteService routeService;
+
+    private Statistics statistics;
+    private List<Long> stopIds;
+    private List<Integer> minutes;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+        stopIds = new ArrayList<>();
+        minutes = new ArrayList<>();
+        for (int i = 0; i < STOPS; i++) {
+            Stop stop = new Stop();
+            stop.setName("stop-" + i);
+            stop.setLat(33.5 + i * 0.001);
+            stop.setLon(-7.6 + i * 0.001);
+            em.persist(stop);
+            stopIds.add(stop.getId());
+            minutes.add(i * 2);
+        }
+        em.flush();
+        em.clear();
+    }
+
+    @Test
+    void createRouteInsertsStopsAndOffsetsInBatches() {
+        statistics.clear();
+        RouteDto created = routeService.createRoute(routeDto());
+        em.flush();
+
+        assertThat(created.getRouteStops()).containsExactlyElementsOf(stopIds);
+        assertThat(created.getCumulativeMinutesFromStartForStops()).containsExactlyElementsOf(minutes);
+        // stops, route, route stop batch, offset batch, then the two mapper queries
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(6);
+    }
+
+    @Test
+    void updateRouteStopsReplacesThemWithBulkDeletesAndBatchedInserts() {
+        Long routeId = routeService.createRoute(routeDto()).getId();
+        em.flush();
+        em.clear();
+        List<Long> reversed = new ArrayList<>(stopIds.reversed());
+
+        statistics.clear();
+        RouteDto updated = routeService.updateRouteStops(new ChangeRouteStopsDto(routeId, reversed, minutes));
+        em.flush();
+
+        assertThat(updated.getRouteStops()).containsExactlyElementsOf(reversed);
+        assertThat(updated.getCumulativeMinutesFromStartForStops()).containsExactlyElementsOf(minutes);
+        // route, stops, two bulk deletes, two insert batches, two mapper queries
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(8);
+    }
+
+    @Test
+    void updateRouteOffsetsReplacesThemWithABulkDeleteAndABatchedInsert() {
+        Long routeId = routeService.createRoute(routeDto()).getId();
+        em.flush();
+        em.clear();
+        List<Integer> slower = minutes.stream().map(m -> m * 3).toList();
+
+        statistics.clear();
+        RouteDto updated = routeService.updateRouteOffsets(new ChangeRouteOffsetsDto(routeId, slower));
+        em.flush();
+
+        assertThat(updated.getCumulativeMinutesFromStartForStops()).containsExactlyElementsOf(slower);
+        // route, its route stops, bulk delete, insert batch, two mapper queries
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(6);
+    }
+
+    private RouteDto routeDto() {
+        RouteDto dto = new RouteDto();
+        dto.setName("Route 40");
+        dto.setNum("40");
+        dto.setStatus(RouteStatus.ACTIVE);
+        dto.setRouteStops(stopIds);
+        dto.setCumulativeMinutesFromStartForStops(minutes);
+        return dto;
+    }
+}
@@ -0,0 +1,119 @@
+package Transport_Urbain_Microservices.route_service.service;
+
+import Transport_Urbain_Microservices.route_service.TestRoutes;
+import Transport_Urbain_Microservices.route_service.dto.PageDto;
+import Transport_Urbain_Microservices.route_service.dto.RunDetailsDto;
+import Transport_Urbain_Microservices.route_service.entity.*;
+import Transport_Urbain_Microservices.route_service.mapper.RunMapper;
+import Transport_Urbain_Microservices.route_service.timetable.StopPatternCache;
+import Transport_Urbain_Microservices.route_service.timetable.TimetableEngine;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@DataJpaTest
+@ActiveProfiles("test")
+@Import({RunService.class, RunMapper.class, StopPatternCache.class, TimetableEngine.class})
+class RunServicePagingTest {
+
+    @Autowired
+    private TestEntityManager em;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private RunService runService;
+
+    @Autowired
+    private StopPatternCache stopPatternCache;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+        stopPatternCache.invalidateAll();
+    }
+
+    @Test
+    void pagesFollowTheCursorUntilTheLastRun() {
+        List<Long> runIds = createRuns(TestRoutes.persist(em, "1", 2, 5), 7);
+        em.clear();
+
+        List<Long> seen = new ArrayList<>();
+        List<Integer> pageSizes = new ArrayList<>();
+        long after = 0;
+        while (true) {
+            PageDto<RunDetailsDto> page = runService.getRunsPage(after, 3);
+            page.getItems().forEach(run -> seen.add(run.getId()));
+            pageSizes.add(page.getItems().size());
+            if (page.getNextAfter() == null) {
+                break;
+            }
+            after = page.getNextAfter();
+        }
+
+        assertThat(seen).containsExactlyElementsOf(runIds);
+        assertThat(pageSizes).containsExactly(3, 3, 1);
+    }
+
+    @Test
+    void pageSizeIsValidatedAndCapped() {
+        createRuns(TestRoutes.persist(em, "2", 2, 5), 2);
+
+        assertThatThrownBy(() -> runService.getRunsPage(0, 0)).isInstanceOf(IllegalArgumentException.class);
+        assertThat(runService.getRunsPage(0, 100_000).getItems()).hasSize(2);
+    }
+
+    @Test
+    void streamWritesEveryRunInIdOrderWithConstantStatements() {
+        List<Long> runIds = new ArrayList<>();
+        runIds.addAll(createRuns(TestRoutes.persist(em, "3", 2, 5), 600));
+        runIds.addAll(createRuns(TestRoutes.persist(em, "4", 2, 5), 600));
+        em.flush();
+        em.clear();
+        statistics.clear();
+
+        List<Long> streamed = new ArrayList<>();
+        runService.streamRuns(run -> {
+            assertThat(run.getStopTimes()).hasSize(2);
+            streamed.add(run.getId());
+        });
+
+        assertThat(streamed).containsExactlyElementsOf(runIds);
+        // the runs query, then each route's stop pattern (two queries) loaded once whatever the chunk
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(5);
+    }
+
+    private List<Long> createRuns(Route route, int count) {
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            Run run = new Run();
+            run.setRoute(route);
+            run.setDestinationStopName("Terminus");
+            run.setScheduleType(ScheduleType.REGULAR);
+            run.setDayOfWeek(1 + i % 7);
+            run.setRunNum(i + 1);
+            run.setStartTime(LocalTime.of(5, 0).plusMinutes(i));
+            em.persist(run);
+            ids.add(run.getId());
+        }
+        return ids;
+    }
+}
@@ -0,0 +1,133 @@
+package Transport_Urbain_Microservices.route_service.timetable;
+
+import Transport_Urbain_Microservices.route_service.dto.JourneyDto;
+import Transport_Urbain_Microservices.route_service.entity.*;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.*;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class JourneyPlannerTest {
+
+    // a Monday
+    private static final LocalDate MONDAY = LocalDate.of(2025, 6, 2);
+
+    private final Map<Long, Stop> stops = new HashMap<>();
+
+    @Test
+    void transfersBetweenRoutesAtSharedStop() {
+        Timetable timetable = timetable(
+                route(1L, "A", new long[]{1, 2, 3}, new int[]{0, 5, 10}, LocalTime.of(8, 0), LocalTime.of(8, 20)),
+                // 8:11 is too tight after arriving at 8:10, 8:12 leaves the transfer time
+                route(2L, "B", new long[]{3, 4}, new int[]{0, 6}, LocalTime.of(8, 11), LocalTime.of(8, 12)));
+
+        List<JourneyDto> journeys = JourneyPlanner.plan(timetable, 1L, 4L, MONDAY.atTime(7, 55));
+
+        assertThat(journeys).hasSize(1);
+        JourneyDto journey = journeys.getFirst();
+        assertThat(journey.getTransfers()).isEqualTo(1);
+        assertThat(journey.getDepartureTime()).isEqualTo(MONDAY.atTime(8, 0));
+        assertThat(journey.getArrivalTime()).isEqualTo(MONDAY.atTime(8, 18));
+        assertThat(journey.getLegs()).extracting(JourneyDto.LegDto::getRouteNum).containsExactly("A", "B");
+        assertThat(journey.getLegs()).extracting(JourneyDto.LegDto::getToStopId).containsExactly(3L, 4L);
+    }
+
+    @Test
+    void keepsSlowerDirectJourneyNextToFasterOneWithTransfer() {
+        Timetable timetable = timetable(
+                route(1L, "A", new long[]{1, 2, 3}, new int[]{0, 5, 10}, LocalTime.of(8, 0)),
+                route(2L, "B", new long[]{3, 4}, new int[]{0, 6}, LocalTime.of(8, 12)),
+                route(3L, "C", new long[]{1, 4}, new int[]{0, 40}, LocalTime.of(8, 0)));
+
+        List<JourneyDto> journeys = JourneyPlanner.plan(timetable, 1L, 4L, MONDAY.atTime(7, 55));
+
+        assertThat(journeys).extracting(JourneyDto::getTransfers).containsExactly(0, 1);
+        assertThat(journeys).extracting(JourneyDto::getArrivalTime)
+                .containsExactly(MONDAY.atTime(8, 40), MONDAY.atTime(8, 18));
+    }
+
+    @Test
+    void takesFirstRunLeavingAfterDepartureTime() {
+        Timetable timetable = timetable(
+                route(1L, "A", new long[]{1, 2}, new int[]{0, 5}, LocalTime.of(8, 0), LocalTime.of(8, 30)));
+
+        List<JourneyDto> journeys = JourneyPlanner.plan(timetable, 2L, 1L, MONDAY.atTime(8, 1));
+        List<JourneyDto> forward = JourneyPlanner.plan(timetable, 1L, 2L, MONDAY.atTime(8, 1));
+
+        assertThat(journeys).isEmpty();
+        assertThat(forward).singleElement()
+                .extracting(JourneyDto::getArrivalTime).isEqualTo(MONDAY.atTime(8, 35));
+        assertThat(JourneyPlanner.plan(timetable, 1L, 99L, MONDAY.atTime(8, 1))).isNull();
+    }
+
+    @Test
+    void takesRunsAcrossMidnight() {
+        Timetable timetable = timetable(
+                route(1L, "A", new long[]{1, 2, 3}, new int[]{0, 20, 30}, LocalTime.of(0, 30), LocalTime.of(23, 50)));
+        LocalDate tuesday = MONDAY.plusDays(1);
+
+        // the last run of Monday is still on its way after midnight
+        List<JourneyDto> late = JourneyPlanner.plan(timetable, 2L, 3L, tuesday.atTime(0, 5));
+        // nothing runs on Sunday, the first run of Monday is the next one
+        List<JourneyDto> early = JourneyPlanner.plan(timetable, 1L, 3L, MONDAY.minusDays(1).atTime(23, 55));
+
+        assertThat(late).singleElement().satisfies(journey -> {
+            assertThat(journey.getDepartureTime()).isEqualTo(tuesday.atTime(0, 10));
+            assertThat(journey.getArrivalTime()).isEqualTo(tuesday.atTime(0, 20));
+            assertThat(journey.getLegs()).extracting(JourneyDto.LegDto::getRunId).containsExactly(101L);
+        });
+        assertThat(early).singleElement().satisfies(journey -> {
+            assertThat(journey.getDepartureTime()).isEqualTo(MONDAY.atTime(0, 30));
+            assertThat(journey.getArrivalTime()).isEqualTo(MONDAY.atTime(1, 0));
+        });
+    }
+
+    private Timetable timetable(RouteTimetable... routes) {
+        Map<Long, RouteTimetable> byId = new HashMap<>();
+        for (RouteTimetable route : routes) {
+            byId.put(route.routeId(), route);
+        }
+        Map<Long, String> stopNames = new HashMap<>();
+        stops.forEach((id, stop) -> stopNames.put(id, stop.getName()));
+        return new Timetable(byId, stopNames, Set.of());
+    }
+
+    private RouteTimetable route(Long id, String num, long[] stopIds, int[] offsets, LocalTime... starts) {
+        Route route = new Route();
+        route.setId(id);
+        route.setNum(num);
+        route.setName("Route " + num);
+        route.setStatus(RouteStatus.ACTIVE);
+        List<RouteStop> routeStops = new ArrayList<>();
+        List<RouteStopOffset> routeOffsets = new ArrayList<>();
+        for (int i = 0; i < stopIds.length; i++) {
+            Stop stop = stops.computeIfAbsent(stopIds[i], JourneyPlannerTest::stop);
+            routeStops.add(new RouteStop(route, stop, i + 1));
+            routeOffsets.add(new RouteStopOffset(route, stop, offsets[i]));
+        }
+        List<Run> runs = new ArrayList<>();
+        for (int i = 0; i < starts.length; i++) {
+            Run run = new Run();
+            run.setId(id * 100 + i);
+            run.setRoute(route);
+            run.setScheduleType(ScheduleType.REGULAR);
+            run.setDayOfWeek(MONDAY.getDayOfWeek().getValue());
+            run.setRunNum(i + 1);
+            run.setStartTime(starts[i]);
+            run.setDestinationStopName("Terminus " + num);
+            runs.add(run);
+        }
+        return RouteTimetable.of(route, routeStops, routeOffsets, runs);
+    }
+
+    private static Stop stop(Long id) {
+        Stop stop = new Stop();
+        stop.setId(id);
+        stop.setName("stop-" + id);
+        return stop;
+    }
+}
@@ -0,0 +1,35 @@
+package Transport_Urbain_Microservices.route_service.timetable;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ServiceCalendarTest {
+
+    private static final LocalDate TODAY = LocalDate.of(2025, 3, 10); // a Monday
+
+    @Test
+    void specialDaysResolveToTheirDateInsideAndOutsideTheWindow() {
+        LocalDate inWindow = TODAY.plusDays(20);
+        LocalDate pastWindow = TODAY.plusDays(ServiceCalendar.DAYS_AFTER + 30);
+        ServiceCalendar calendar = new ServiceCalendar(Set.of(inWindow, pastWindow), TODAY);
+
+        assertThat(calendar.serviceDay(inWindow)).isEqualTo(ServiceDay.special(inWindow));
+        assertThat(calendar.serviceDay(pastWindow)).isEqualTo(ServiceDay.special(pastWindow));
+        assertThat(calendar.isSpecialDay(inWindow.plusDays(1))).isFalse();
+    }
+
+    @Test
+    void regularDaysResolveToTheirDayOfWeek() {
+        ServiceCalendar calendar = new ServiceCalendar(Set.of(), TODAY);
+
+        assertThat(calendar.serviceDay(TODAY)).isSameAs(ServiceDay.regular(1));
+        assertThat(calendar.serviceDay(TODAY.minusDays(ServiceCalendar.DAYS_BEFORE))).isSameAs(ServiceDay.regular(1));
+        assertThat(calendar.serviceDay(TODAY.minusDays(ServiceCalendar.DAYS_BEFORE + 1))).isSameAs(ServiceDay.regular(7));
+        assertThat(calendar.serviceDay(TODAY.plusDays(ServiceCalendar.DAYS_AFTER))).isSameAs(ServiceDay.regular(7));
+        assertThat(calendar.serviceDay(TODAY.plusDays(ServiceCalendar.DAYS_AFTER + 1))).isSameAs(ServiceDay.regular(1));
+    }
+}
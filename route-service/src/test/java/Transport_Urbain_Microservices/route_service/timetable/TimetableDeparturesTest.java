@@ -0,0 +1,116 @@
+package Transport_Urbain_Microservices.route_service.timetable;
+
+import Transport_Urbain_Microservices.route_service.entity.*;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TimetableDeparturesTest {
+
+    // a Monday
+    private static final LocalDate MONDAY = LocalDate.of(2025, 6, 2);
+
+    private final Stop first = stop(1L, "First");
+    private final Stop shared = stop(2L, "Shared");
+    private final Stop last = stop(3L, "Last");
+
+    @Test
+    void departuresAreSortedAcrossRoutes() {
+        RouteTimetable route10 = route(10L, "10", RouteStatus.ACTIVE, List.of(first, shared), List.of(0, 7),
+                List.of(regularRun(1, LocalTime.of(8, 0)), regularRun(1, LocalTime.of(8, 30))));
+        RouteTimetable route20 = route(20L, "20", RouteStatus.ACTIVE, List.of(shared, last), List.of(0, 4),
+                List.of(regularRun(1, LocalTime.of(8, 10)), regularRun(2, LocalTime.of(8, 5))));
+        Timetable timetable = timetable(Set.of(), route10, route20);
+
+        StopDepartures departures = timetable.departures(shared.getId(), MONDAY);
+
+        assertThat(departures.size()).isEqualTo(3);
+        assertThat(List.of(departures.arrivalMinute(0), departures.arrivalMinute(1), departures.arrivalMinute(2)))
+                .containsExactly(8 * 60 + 7, 8 * 60 + 10, 8 * 60 + 37);
+        assertThat(List.of(departures.routeNum(0), departures.routeNum(1), departures.routeNum(2)))
+                .containsExactly("10", "20", "10");
+        assertThat(departures.firstAtOrAfter(8 * 60 + 8)).isEqualTo(1);
+        assertThat(departures.firstAtOrAfter(8 * 60 + 38)).isEqualTo(3);
+    }
+
+    @Test
+    void specialDayUsesItsOwnRunsAndInactiveRoutesAreSkipped() {
+        Run special = new Run();
+        special.setId(99L);
+        special.setScheduleType(ScheduleType.SPECIAL);
+        special.setSpecificDate(MONDAY);
+        special.setRunNum(1);
+        special.setStartTime(LocalTime.of(12, 0));
+        special.setDestinationStopName("Shared");
+        RouteTimetable active = route(10L, "10", RouteStatus.ACTIVE, List.of(first, shared), List.of(0, 3),
+                List.of(regularRun(1, LocalTime.of(8, 0)), special));
+        RouteTimetable suspended = route(30L, "30", RouteStatus.SUSPENDED, List.of(shared), List.of(0),
+                List.of(regularRun(1, LocalTime.of(9, 0))));
+
+        StopDepartures regular = timetable(Set.of(), active, suspended).departures(shared.getId(), MONDAY);
+        StopDepartures holiday = timetable(Set.of(MONDAY), active, suspended).departures(shared.getId(), MONDAY);
+
+        assertThat(regular.size()).isEqualTo(1);
+        assertThat(regular.arrivalMinute(0)).isEqualTo(8 * 60 + 3);
+        assertThat(holiday.size()).isEqualTo(1);
+        assertThat(holiday.arrivalMinute(0)).isEqualTo(12 * 60 + 3);
+    }
+
+    private Timetable timetable(Set<LocalDate> specialDays, RouteTimetable... routes) {
+        Map<Long, RouteTimetable> byId = new HashMap<>();
+        for (RouteTimetable route : routes) {
+            byId.put(route.routeId(), route);
+        }
+        Map<Long, String> stopNames = Map.of(first.getId(), first.getName(),
+                shared.getId(), shared.getName(), last.getId(), last.getName());
+        return new Timetable(byId, stopNames, specialDays);
+    }
+
+    private RouteTimetable route(Long id, String num, RouteStatus status, List<Stop> stops, List<Integer> offsets,
+                                 List<Run> runs) {
+        Route route = new Route();
+        route.setId(id);
+        route.setNum(num);
+        route.setName("Route " + num);
+        route.setStatus(status);
+        List<RouteStop> routeStops = new ArrayList<>();
+        List<RouteStopOffset> routeOffsets = new ArrayList<>();
+        for (int i = 0; i < stops.size(); i++) {
+            routeStops.add(new RouteStop(route, stops.get(i), i + 1));
+            routeOffsets.add(new RouteStopOffset(route, stops.get(i), offsets.get(i)));
+        }
+        long runId = id * 100;
+        for (Run run : runs) {
+            run.setRoute(route);
+            if (run.getId() == null) {
+                run.setId(runId++);
+            }
+        }
+        return RouteTimetable.of(route, routeStops, routeOffsets, runs);
+    }
+
+    private Run regularRun(int dayOfWeek, LocalTime startTime) {
+        Run run = new Run();
+        run.setScheduleType(ScheduleType.REGULAR);
+        run.setDayOfWeek(dayOfWeek);
+        run.setRunNum(1);
+        run.setStartTime(startTime);
+        run.setDestinationStopName("Terminus");
+        return run;
+    }
+
+    private static Stop stop(Long id, String name) {
+        Stop stop = new Stop();
+        stop.setId(id);
+        stop.setName(name);
+        return stop;
+    }
+}
@@ -0,0 +1,253 @@
+package Transport_Urbain_Microservices.route_service.timetable;
+
+import Transport_Urbain_Microservices.route_service.dto.NextDepartureDto;
+import Transport_Urbain_Microservices.route_service.dto.RunDetailsDto;
+import Transport_Urbain_Microservices.route_service.entity.*;
+import Transport_Urbain_Microservices.route_service.repo.*;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class TimetableEngineTest {
+
+    // a Monday
+    private static final LocalDate MONDAY = LocalDate.of(2025, 6, 2);
+
+    private final Stop first = stop(1L, "First");
+    private final Stop shared = stop(2L, "Shared");
+    private final Stop last = stop(3L, "Last");
+
+    private final Route route10 = route(10L, "10", RouteStatus.ACTIVE);
+    private final Route route20 = route(20L, "20", RouteStatus.ACTIVE);
+
+    // what the mocked repositories return, changed by the tests before a reload
+    private final List<Route> routes = new ArrayList<>();
+    private final List<RouteStop> routeStops = new ArrayList<>();
+    private final List<RouteStopOffset> offsets = new ArrayList<>();
+    private final List<Run> runs = new ArrayList<>();
+    private final List<SpecialDay> specialDays = new ArrayList<>();
+
+    private TimetableEngine engine;
+
+    @BeforeEach
+    void setUp() {
+        routes.addAll(List.of(route10, route20));
+        routeStops.addAll(List.of(new RouteStop(route10, first, 1), new RouteStop(route10, shared, 2),
+                new RouteStop(route20, shared, 1), new RouteStop(route20, last, 2)));
+        offsets.addAll(List.of(new RouteStopOffset(route10, first, 0), new RouteStopOffset(route10, shared, 6),
+                new RouteStopOffset(route20, shared, 0), new RouteStopOffset(route20, last, 4)));
+        runs.addAll(List.of(
+                regularRun(route10, 1L, 1, LocalTime.of(8, 0)),
+                regularRun(route10, 2L, 1, LocalTime.of(9, 0)),
+                regularRun(route10, 3L, 2, LocalTime.of(8, 0)),
+                regularRun(route20, 4L, 1, LocalTime.of(8, 30)),
+                specialRun(route10, 5L, MONDAY, LocalTime.of(11, 0))));
+
+        RouteRepo routeRepo = mock(RouteRepo.class);
+        StopRepo stopRepo = mock(StopRepo.class);
+        RouteStopRepo routeStopRepo = mock(RouteStopRepo.class);
+        RouteStopOffsetRepo routeStopOffsetRepo = mock(RouteStopOffsetRepo.class);
+        RunRepo runRepo = mock(RunRepo.class);
+        SpecialDayRepo specialDayRepo = mock(SpecialDayRepo.class);
+        when(routeRepo.findAll()).thenAnswer(invocation -> List.copyOf(routes));
+        when(routeRepo.findById(any())).thenAnswer(invocation -> routes.stream()
+                .filter(route -> route.getId().equals(invocation.getArgument(0)))
+                .findFirst());
+        when(stopRepo.findAll()).thenReturn(List.of(first, shared, last));
+        when(routeStopRepo.findAll()).thenAnswer(invocation -> List.copyOf(routeStops));
+        when(routeStopRepo.findWithStopByRouteIdIn(anyCollection())).thenAnswer(invocation -> routeStops.stream()
+                .filter(rs -> invocation.<List<Long>>getArgument(0).contains(rs.getRoute().getId()))
+                .toList());
+        when(routeStopOffsetRepo.findAll()).thenAnswer(invocation -> List.copyOf(offsets));
+        when(routeStopOffsetRepo.findByRoute(any())).thenAnswer(invocation -> offsets.stream()
+                .filter(o -> o.getRoute() == invocation.getArgument(0))
+                .toList());
+        when(runRepo.findAll()).thenAnswer(invocation -> List.copyOf(runs));
+        when(runRepo.findByRoute(any())).thenAnswer(invocation -> runs.stream()
+                .filter(r -> r.getRoute() == invocation.getArgument(0))
+                .toList());
+        when(specialDayRepo.findAll()).thenAnswer(invocation -> List.copyOf(specialDays));
+        engine = new TimetableEngine(routeRepo, stopRepo, routeStopRepo, routeStopOffsetRepo, runRepo,
+                specialDayRepo, mock(PlatformTransactionManager.class));
+        engine.reload();
+    }
+
+    @Test
+    void routeOnARegularDayHasTheRunsOfItsDayOfWeekWithTheirStopTimes() {
+        List<RunDetailsDto> monday = engine.getRunsForRouteOnDay(10L, MONDAY);
+
+        assertThat(monday).extracting(RunDetailsDto::getId).containsExactly(1L, 2L);
+        assertThat(monday).allSatisfy(run -> {
+            assertThat(run.getScheduleType()).isEqualTo(ScheduleType.REGULAR);
+            assertThat(run.getDayOfWeek()).isEqualTo(1);
+            assertThat(run.getSpecificDate()).isNull();
+        });
+        assertThat(monday.getFirst().getStopTimes())
+                .extracting(RunDetailsDto.StopTimeDetailDTO::getStopName,
+                        RunDetailsDto.StopTimeDetailDTO::getActualArrivalTime)
+                .containsExactly(tuple("First", LocalTime.of(8, 0)),
+                        tuple("Shared", LocalTime.of(8, 6)));
+        assertThat(engine.getRunsForRouteOnDay(10L, MONDAY.plusDays(1)))
+                .extracting(RunDetailsDto::getId).containsExactly(3L);
+        assertThat(engine.getRunsForRouteOnDay(10L, MONDAY.plusDays(2))).isEmpty();
+    }
+
+    @Test
+    void specialDayOnlyHasTheRunsOfItsDate() {
+        specialDays.add(new SpecialDay(MONDAY));
+        engine.reload();
+
+        List<RunDetailsDto> holiday = engine.getRunsForRouteOnDay(10L, MONDAY);
+
+        assertThat(holiday).extracting(RunDetailsDto::getId).containsExactly(5L);
+        assertThat(holiday.getFirst().getScheduleType()).isEqualTo(ScheduleType.SPECIAL);
+        assertThat(holiday.getFirst().getSpecificDate()).isEqualTo(MONDAY);
+        assertThat(holiday.getFirst().getDayOfWeek()).isNull();
+        // route 20 has no special runs, so it does not run that day
+        assertThat(engine.getRunsForRouteOnDay(20L, MONDAY)).isEmpty();
+        // the following Monday is a regular day again
+        assertThat(engine.getRunsForRouteOnDay(10L, MONDAY.plusWeeks(1)))
+                .extracting(RunDetailsDto::getId).containsExactly(1L, 2L);
+    }
+
+    @Test
+    void unknownRouteOrStopIsNullAndInactiveRouteHasNoRuns() {
+        route20.setStatus(RouteStatus.SUSPENDED);
+        engine.reload();
+
+        assertThat(engine.getRunsForRouteOnDay(99L, MONDAY)).isNull();
+        assertThat(engine.getRunsForStopOnDay(99L, MONDAY)).isNull();
+        assertThat(engine.getRunsForRouteOnDay(20L, MONDAY)).isEmpty();
+        assertThat(engine.getRunsForStopOnDay(shared.getId(), MONDAY))
+                .extracting(RunDetailsDto::getRouteNum).containsOnly("10");
+    }
+
+    @Test
+    void stopHasTheRunsOfEveryRouteServingIt() {
+        assertThat(engine.getRunsForStopOnDay(shared.getId(), MONDAY))
+                .extracting(RunDetailsDto::getId).containsExactlyInAnyOrder(1L, 2L, 4L);
+        assertThat(engine.getRunsForStopOnDay(first.getId(), MONDAY))
+                .extracting(RunDetailsDto::getId).containsExactly(1L, 2L);
+        assertThat(engine.getRunsForStopOnDay(last.getId(), MONDAY.plusDays(1))).isEmpty();
+    }
+
+    @Test
+    void reloadRouteReplacesOnlyThatRoute() {
+        runs.add(regularRun(route10, 6L, 1, LocalTime.of(10, 0)));
+        offsets.replaceAll(o -> o.getRoute() == route10 && o.getStop() == shared
+                ? new RouteStopOffset(route10, shared, 9) : o);
+        // not reloaded yet: route 20 keeps what the engine loaded
+        runs.add(regularRun(route20, 7L, 1, LocalTime.of(10, 30)));
+
+        engine.reloadRoute(10L);
+
+        List<RunDetailsDto> route10Runs = engine.getRunsForRouteOnDay(10L, MONDAY);
+        assertThat(route10Runs).extracting(RunDetailsDto::getId).containsExactly(1L, 2L, 6L);
+        assertThat(route10Runs.getFirst().getStopTimes().getLast().getActualArrivalTime())
+                .isEqualTo(LocalTime.of(8, 9));
+        assertThat(engine.getRunsForRouteOnDay(20L, MONDAY)).extracting(RunDetailsDto::getId).containsExactly(4L);
+        assertThat(engine.getRunsForStopOnDay(shared.getId(), MONDAY))
+                .extracting(RunDetailsDto::getId).containsExactlyInAnyOrder(1L, 2L, 6L, 4L);
+    }
+
+    @Test
+    void reloadRouteDropsADeletedRouteFromItsStops() {
+        routes.remove(route20);
+        routeStops.removeIf(rs -> rs.getRoute() == route20);
+
+        engine.reloadRoute(20L);
+
+        assertThat(engine.getRunsForRouteOnDay(20L, MONDAY)).isNull();
+        assertThat(engine.getRunsForStopOnDay(shared.getId(), MONDAY))
+                .extracting(RunDetailsDto::getRouteNum).containsOnly("10");
+        // the stop still exists even though no route serves it any more
+        assertThat(engine.getRunsForStopOnDay(last.getId(), MONDAY)).isEmpty();
+    }
+
+    @Test
+    void reloadRoutePicksUpChangedSpecialDays() {
+        specialDays.add(new SpecialDay(MONDAY));
+
+        engine.reloadRoute(10L);
+
+        assertThat(engine.getRunsForRouteOnDay(10L, MONDAY)).extracting(RunDetailsDto::getId).containsExactly(5L);
+        assertThat(engine.getRunsForRouteOnDay(20L, MONDAY)).isEmpty();
+    }
+
+    @Test
+    void nextDeparturesAroundMidnightMergeTheRunsOfAdjacentDaysByArrival() {
+        offsets.replaceAll(o -> o.getRoute() == route10 && o.getStop() == shared
+                ? new RouteStopOffset(route10, shared, 20) : o);
+        runs.clear();
+        runs.addAll(List.of(
+                // Sunday's last run reaches the shared stop at 00:10 on Monday
+                regularRun(route10, 1L, 7, LocalTime.of(23, 50)),
+                regularRun(route10, 2L, 1, LocalTime.of(0, 5)),
+                regularRun(route10, 3L, 1, LocalTime.of(6, 0)),
+                // Monday's last run reaches it at 00:10 on Tuesday, after route 20's first run of Tuesday
+                regularRun(route10, 4L, 1, LocalTime.of(23, 50)),
+                regularRun(route20, 5L, 2, LocalTime.of(0, 5))));
+        engine.reload();
+
+        List<NextDepartureDto> afterMidnight = engine.getNextDeparturesForStop(shared.getId(), MONDAY.atTime(0, 1), 3);
+        List<NextDepartureDto> lateEvening = engine.getNextDeparturesForStop(shared.getId(), MONDAY.atTime(23, 55), 2);
+
+        assertThat(afterMidnight).extracting(NextDepartureDto::getArrivalTime)
+                .containsExactly(MONDAY.atTime(0, 10), MONDAY.atTime(0, 25), MONDAY.atTime(6, 20));
+        assertThat(lateEvening).extracting(NextDepartureDto::getRouteNum).containsExactly("20", "10");
+        assertThat(lateEvening).extracting(NextDepartureDto::getArrivalTime)
+                .containsExactly(MONDAY.plusDays(1).atTime(0, 5), MONDAY.plusDays(1).atTime(0, 10));
+    }
+
+    private Route route(Long id, String num, RouteStatus status) {
+        Route route = new Route();
+        route.setId(id);
+        route.setNum(num);
+        route.setName("Route " + num);
+        route.setStatus(status);
+        return route;
+    }
+
+    private Run regularRun(Route route, Long id, int dayOfWeek, LocalTime startTime) {
+        Run run = run(route, id, startTime);
+        run.setScheduleType(ScheduleType.REGULAR);
+        run.setDayOfWeek(dayOfWeek);
+        return run;
+    }
+
+    private Run specialRun(Route route, Long id, LocalDate date, LocalTime startTime) {
+        Run run = run(route, id, startTime);
+        run.setScheduleType(ScheduleType.SPECIAL);
+        run.setSpecificDate(date);
+        return run;
+    }
+
+    private Run run(Route route, Long id, LocalTime startTime) {
+        Run run = new Run();
+        run.setId(id);
+        run.setRoute(route);
+        run.setRunNum(id.intValue());
+        run.setStartTime(startTime);
+        run.setDestinationStopName("Terminus");
+        return run;
+    }
+
+    private static Stop stop(Long id, String name) {
+        Stop stop = new Stop();
+        stop.setId(id);
+        stop.setName(name);
+        return stop;
+    }
+}
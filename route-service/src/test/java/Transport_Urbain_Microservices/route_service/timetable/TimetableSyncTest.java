@@ -0,0 +1,183 @@
+package Transport_Urbain_Microservices.route_service.timetable;
+
+import Transport_Urbain_Microservices.route_service.dataloader.ImportGuard;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.annotation.Import;
+import org.springframework.core.annotation.Order;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.event.ApplicationEvents;
+import org.springframework.test.context.event.RecordApplicationEvents;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest
+@ActiveProfiles("test")
+@Import({TimetableSync.class, DatasetVersion.class, ImportGuard.class, TimetableSyncTest.RefreshProbe.class})
+@RecordApplicationEvents
+// changes have to commit for the revision to move
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class TimetableSyncTest {
+
+    @Autowired
+    private TimetableSync timetableSync;
+
+    @Autowired
+    private ImportGuard importGuard;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private ApplicationEvents events;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private DatasetVersion datasetVersion;
+
+    @Autowired
+    private RefreshProbe refreshProbe;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @BeforeEach
+    void catchUp() {
+        // leave no change of a previous test for the poll to find
+        timetableSync.poll();
+        events.clear();
+    }
+
+    @Test
+    void changeOfThisInstanceMovesTheRevisionWithoutAReload() {
+        long before = revision();
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(status ->
+                eventPublisher.publishEvent(TimetableChangedEvent.forRoute(1L)));
+        // published outside a transaction, like StopService.deleteStopById
+        eventPublisher.publishEvent(TimetableChangedEvent.all());
+        events.clear();
+        timetableSync.poll();
+
+        assertThat(revision()).isEqualTo(before + 2);
+        assertThat(remoteReloads()).isEmpty();
+    }
+
+    @Test
+    void rolledBackChangeLeavesTheRevision() {
+        long before = revision();
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            eventPublisher.publishEvent(TimetableChangedEvent.forRoute(1L));
+            status.setRollbackOnly();
+        });
+        timetableSync.poll();
+
+        assertThat(revision()).isEqualTo(before);
+        assertThat(remoteReloads()).isEmpty();
+    }
+
+    @Test
+    void changeOfAnotherInstanceIsReloadedOnce() {
+        long before = revision();
+        jdbcTemplate.update("update dataset_revision set revision = revision + 1 where name = 'timetable'");
+
+        timetableSync.poll();
+        timetableSync.poll();
+
+        assertThat(remoteReloads()).hasSize(1);
+        assertThat(remoteReloads().getFirst().isFullReload()).isTrue();
+        // the reload itself does not move the revision, or instances would keep reloading each other
+        assertThat(revision()).isEqualTo(before + 1);
+    }
+
+    @Test
+    void changesOfBothInstancesAreReloaded() {
+        jdbcTemplate.update("update dataset_revision set revision = revision + 1 where name = 'timetable'");
+        new TransactionTemplate(transactionManager).executeWithoutResult(status ->
+                eventPublisher.publishEvent(TimetableChangedEvent.forRoute(1L)));
+
+        timetableSync.poll();
+
+        assertThat(remoteReloads()).hasSize(1);
+    }
+
+    @Test
+    void startupImportIsOnlyReloadedByTheOtherInstances() throws Exception {
+        long before = revision();
+
+        importGuard.runIfChanged("sync-test", List.of(new ByteArrayResource(new byte[]{1})), () -> true);
+        timetableSync.poll();
+
+        assertThat(revision()).isEqualTo(before + 1);
+        assertThat(remoteReloads()).isEmpty();
+    }
+
+    @Test
+    void etagIsTheSharedRevisionOnceTheCachesAreRefreshed() {
+        String before = datasetVersion.etag();
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(status ->
+                eventPublisher.publishEvent(TimetableChangedEvent.forRoute(1L)));
+
+        // the refresh listeners still saw the old version
+        assertThat(refreshProbe.etagDuringRefresh).isEqualTo(before);
+        assertThat(datasetVersion.etag()).isEqualTo("W/\"" + revision() + "\"");
+
+        jdbcTemplate.update("update dataset_revision set revision = revision + 1 where name = 'timetable'");
+        timetableSync.poll();
+
+        assertThat(refreshProbe.etagDuringRefresh).isEqualTo("W/\"" + (revision() - 1) + "\"");
+        assertThat(datasetVersion.etag()).isEqualTo("W/\"" + revision() + "\"");
+    }
+
+    @Test
+    void changeMadeWhileAnotherInstancesChangeIsNotLoadedKeepsItsOwnETagUntilThePoll() {
+        jdbcTemplate.update("update dataset_revision set revision = revision + 1 where name = 'timetable'");
+        new TransactionTemplate(transactionManager).executeWithoutResult(status ->
+                eventPublisher.publishEvent(TimetableChangedEvent.forRoute(1L)));
+
+        assertThat(datasetVersion.etag()).isNotEqualTo("W/\"" + revision() + "\"");
+
+        timetableSync.poll();
+        assertThat(datasetVersion.etag()).isEqualTo("W/\"" + revision() + "\"");
+    }
+
+    private long revision() {
+        return jdbcTemplate.queryForObject("select revision from dataset_revision where name = 'timetable'", Long.class);
+    }
+
+    private List<TimetableChangedEvent> remoteReloads() {
+        return events.stream(TimetableChangedEvent.class).filter(TimetableChangedEvent::remote).toList();
+    }
+
+    // stands for the timetable and the caches, which refresh before the version moves on
+    static class RefreshProbe {
+
+        @Autowired
+        private DatasetVersion datasetVersion;
+
+        private volatile String etagDuringRefresh;
+
+        @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+        @Order(TimetableChangedEvent.REFRESH_ORDER)
+        public void onTimetableChanged(TimetableChangedEvent event) {
+            etagDuringRefresh = datasetVersion.etag();
+        }
+    }
+}